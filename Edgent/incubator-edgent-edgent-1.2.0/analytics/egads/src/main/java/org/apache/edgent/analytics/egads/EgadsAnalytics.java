@@ -0,0 +1,270 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.analytics.egads;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.edgent.function.BiFunction;
+import org.apache.edgent.function.Function;
+import org.apache.edgent.function.Supplier;
+import org.apache.edgent.function.ToDoubleFunction;
+import org.apache.edgent.topology.TStream;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.yahoo.egads.data.Anomaly.Interval;
+import com.yahoo.egads.data.AnomalyErrorStorage;
+import com.yahoo.egads.models.adm.AnomalyDetectionModel;
+import com.yahoo.egads.models.adm.EnsembleModel;
+import com.yahoo.egads.models.tsmm.TimeSeriesModel;
+
+/**
+ * EGADS anomaly detection for streams.
+ * <P>
+ * The returned streams contain a tuple for each anomalous tuple of the
+ * input stream. Models are kept per partition, see {@link PartitionedDetector}
+ * for how they are trained and updated.
+ * </P>
+ * <P>
+ * Models can be created from an EGADS configuration with
+ * {@link #timeSeriesModel(Properties)} and {@link #anomalyDetectionModel(Properties)}.
+ * For example to score the {@code reading} of each sensor {@code id}
+ * with the models configured by {@code config}, training on the first
+ * 1000 readings of each sensor:
+ * </P>
+ * <pre>{@code
+ * TStream<JsonObject> anomalies = EgadsAnalytics.detect(readings,
+ *     "id", "reading", "anomaly",
+ *     EgadsAnalytics.timeSeriesModel(config),
+ *     EgadsAnalytics.anomalyDetectionModel(config),
+ *     1000);
+ * }</pre>
+ */
+public class EgadsAnalytics {
+
+    /**
+     * Property of the expected value in the result object of
+     * {@link #detect(TStream, String, String, String, Supplier, Supplier, int)}.
+     */
+    public static final String EXPECTED = "expected";
+
+    /**
+     * Property of the index of the tuple within its partition in the result object of
+     * {@link #detect(TStream, String, String, String, Supplier, Supplier, int)}.
+     */
+    public static final String INDEX = "index";
+
+    private static final Map<Integer, String> ERROR_NAMES = new AnomalyErrorStorage().getIndexToError();
+
+    /**
+     * Detect anomalies in a stream of values.
+     * <P>
+     * All the values belong to a single partition.
+     * </P>
+     * 
+     * @param stream Values to score.
+     * @param timeSeriesModel Creates the time series model.
+     * @param anomalyDetectionModel Creates the anomaly detection model.
+     * @param window Number of values the models are trained on.
+     * @return Stream containing the anomaly found at each anomalous value.
+     */
+    public static TStream<Interval> detect(TStream<Double> stream,
+            Supplier<TimeSeriesModel> timeSeriesModel,
+            Supplier<AnomalyDetectionModel> anomalyDetectionModel,
+            int window) {
+        return detect(stream, v -> Boolean.TRUE, v -> v, (v, anomaly) -> anomaly,
+                timeSeriesModel, anomalyDetectionModel, window);
+    }
+
+    /**
+     * Detect anomalies in a single {@code Numeric} variable contained in a JSON object.
+     * <P>
+     * The returned stream contains a copy of each anomalous tuple with a {@code JsonObject}
+     * as a property with key {@code resultProperty} containing:
+     * <UL>
+     * <LI> The index of the tuple in its partition, with key {@link #INDEX}. </LI>
+     * <LI> The value expected by the time series model, with key {@link #EXPECTED}. </LI>
+     * <LI> The error metrics of the value, such as {@code mape}, for the anomaly
+     * detection models that compute them. </LI>
+     * </UL>
+     * <P>
+     * For example with partitions keyed by {@code id}, an anomalous tuple
+     * <BR>
+     * <code>{id=3,reading=9.5}</code>
+     * <BR>
+     * on the stream returned by
+     * <BR>
+     * {@code detect(stream, "id", "reading", "anomaly", ...)}
+     * <BR>
+     * would be:
+     * <BR>
+     * <code>{id=3, reading=9.5, anomaly={index=1204, expected=2.1, mapee=3.52, mae=7.4, ...}}</code>
+     * </P>
+     * 
+     * @param stream Tuples to score.
+     * @param keyProperty JSON property containing the partition key.
+     * @param valueProperty JSON property containing the value to score.
+     * @param resultProperty Property to store the anomaly in tuples on the returned stream.
+     * @param timeSeriesModel Creates the time series model of a partition.
+     * @param anomalyDetectionModel Creates the anomaly detection model of a partition.
+     * @param window Number of values the models are trained on.
+     * @return Stream containing the anomalous tuples.
+     */
+    public static TStream<JsonObject> detect(TStream<JsonObject> stream,
+            String keyProperty, String valueProperty, String resultProperty,
+            Supplier<TimeSeriesModel> timeSeriesModel,
+            Supplier<AnomalyDetectionModel> anomalyDetectionModel,
+            int window) {
+        return detect(stream,
+                (JsonObject j) -> j.get(keyProperty),
+                j -> j.get(valueProperty).getAsDouble(),
+                (j, anomaly) -> {
+                    JsonObject tuple = new JsonObject();
+                    for (Map.Entry<String, JsonElement> e : j.entrySet()) {
+                        tuple.add(e.getKey(), e.getValue());
+                    }
+                    tuple.add(resultProperty, toJson(anomaly));
+                    return tuple;
+                },
+                timeSeriesModel, anomalyDetectionModel, window);
+    }
+
+    /**
+     * Detect anomalies in a single variable of the tuples of a stream.
+     * <P>
+     * The tuples are partitioned by key and each partition is scored
+     * by its own models.
+     * </P>
+     * 
+     * @param <T> Tuple type
+     * @param <K> Partition key type
+     * @param <R> Result tuple type
+     * @param stream Tuples to score.
+     * @param keyFunction How to obtain the partition key of a tuple.
+     * @param valueFunction How to obtain the value to score from a tuple.
+     * @param anomalyFunction How to create the result tuple from an anomalous
+     * tuple and its anomaly.
+     * @param timeSeriesModel Creates the time series model of a partition.
+     * @param anomalyDetectionModel Creates the anomaly detection model of a partition.
+     * @param window Number of values the models are trained on.
+     * @return Stream containing a result tuple for each anomalous tuple.
+     */
+    public static <T, K, R> TStream<R> detect(TStream<T> stream,
+            Function<T, K> keyFunction,
+            ToDoubleFunction<T> valueFunction,
+            BiFunction<T, Interval, R> anomalyFunction,
+            Supplier<TimeSeriesModel> timeSeriesModel,
+            Supplier<AnomalyDetectionModel> anomalyDetectionModel,
+            int window) {
+        PartitionedDetector<K> detector = new PartitionedDetector<>(
+                timeSeriesModel, anomalyDetectionModel, window);
+        return stream.map(t -> {
+            Interval anomaly = detector.score(keyFunction.apply(t), valueFunction.applyAsDouble(t));
+            return anomaly == null ? null : anomalyFunction.apply(t, anomaly);
+        });
+    }
+
+    /**
+     * Create the time series model named by {@code TS_MODEL} in an EGADS configuration.
+     * <P>
+     * The model is created with a copy of {@code config} where {@code INCREMENTAL_UPDATE}
+     * defaults to {@code 1}, so that models supporting it forecast each appended value
+     * without being trained again.
+     * </P>
+     * 
+     * @param config EGADS configuration.
+     * @return Function creating a new model for each call.
+     * @throws IllegalArgumentException if the model cannot be created from {@code config}.
+     */
+    public static Supplier<TimeSeriesModel> timeSeriesModel(Properties config) {
+        Properties streamConfig = streamConfig(config);
+        String modelType = config.getProperty("TS_MODEL");
+        Supplier<TimeSeriesModel> supplier = () -> (TimeSeriesModel) newModel(
+                "com.yahoo.egads.models.tsmm." + modelType, streamConfig);
+        supplier.get();
+        return supplier;
+    }
+
+    /**
+     * Create the anomaly detection model named by {@code AD_MODEL} in an EGADS configuration.
+     * <P>
+     * As for the EGADS batch processing, a comma separated list of models
+     * is combined by an {@code EnsembleModel}.
+     * The models are created with a copy of {@code config} where
+     * {@code MAX_ANOMALY_TIME_AGO} and {@code DETECTION_WINDOW_START_TIME} are {@code 0},
+     * so that every scored value, being the newest point of its series, is in the detection window.
+     * </P>
+     * 
+     * @param config EGADS configuration.
+     * @return Function creating a new model for each call.
+     * @throws IllegalArgumentException if the model cannot be created from {@code config}.
+     */
+    public static Supplier<AnomalyDetectionModel> anomalyDetectionModel(Properties config) {
+        Properties streamConfig = streamConfig(config);
+        if (config.getProperty("AD_MODEL") == null)
+            throw new IllegalArgumentException("AD_MODEL is NULL");
+        String[] modelTypes = config.getProperty("AD_MODEL").split(",");
+        Supplier<AnomalyDetectionModel> supplier = () -> {
+            List<AnomalyDetectionModel> models = new ArrayList<>();
+            for (String modelType : modelTypes) {
+                models.add((AnomalyDetectionModel) newModel(
+                        "com.yahoo.egads.models.adm." + modelType.trim(), streamConfig));
+            }
+            return models.size() == 1 ? models.get(0) : new EnsembleModel(streamConfig, models);
+        };
+        supplier.get();
+        return supplier;
+    }
+
+    private static Properties streamConfig(Properties config) {
+        Properties streamConfig = new Properties();
+        streamConfig.putAll(config);
+        streamConfig.setProperty("MAX_ANOMALY_TIME_AGO", "0");
+        streamConfig.setProperty("DETECTION_WINDOW_START_TIME", "0");
+        if (streamConfig.getProperty("INCREMENTAL_UPDATE") == null)
+            streamConfig.setProperty("INCREMENTAL_UPDATE", "1");
+        return streamConfig;
+    }
+
+    private static Object newModel(String className, Properties config) {
+        try {
+            Constructor<?> constructor = Class.forName(className).getConstructor(Properties.class);
+            return constructor.newInstance(config);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Cannot create " + className, e);
+        }
+    }
+
+    private static JsonObject toJson(Interval anomaly) {
+        JsonObject result = new JsonObject();
+        result.addProperty(INDEX, anomaly.utime);
+        result.addProperty(EXPECTED, anomaly.expectedVal);
+        if (anomaly.anomalyScore != null) {
+            for (int i = 0; i < anomaly.anomalyScore.length && i < AnomalyErrorStorage.NUM_ERRORS; i++) {
+                if (anomaly.anomalyScore[i] != null)
+                    result.addProperty(ERROR_NAMES.get(i), anomaly.anomalyScore[i]);
+            }
+        }
+        return result;
+    }
+}
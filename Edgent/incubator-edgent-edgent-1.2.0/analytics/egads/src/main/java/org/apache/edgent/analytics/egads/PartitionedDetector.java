@@ -0,0 +1,241 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.analytics.egads;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.edgent.function.Supplier;
+
+import com.yahoo.egads.data.Anomaly.Interval;
+import com.yahoo.egads.data.Anomaly.IntervalSequence;
+import com.yahoo.egads.data.AnomalyErrorStorage;
+import com.yahoo.egads.data.TimeSeries.DataSequence;
+import com.yahoo.egads.data.TimeSeries.Entry;
+import com.yahoo.egads.models.adm.AnomalyDetectionModel;
+import com.yahoo.egads.models.adm.PointAnomalyModel;
+import com.yahoo.egads.models.tsmm.TimeSeriesModel;
+
+/**
+ * Scores values against EGADS models kept per partition.
+ * <P>
+ * Each partition, identified by a key of type {@code K}, has its own
+ * {@code TimeSeriesModel} and {@code AnomalyDetectionModel}. The time series
+ * model is trained on the first {@code window} values of the partition and
+ * the anomaly detection model is tuned on its forecast of them; these warm-up
+ * values are not scored.
+ * Each later value is appended to the time series model with
+ * {@code update}, forecast and scored by the anomaly detection model as
+ * the newest point of the series.
+ * </P>
+ * <P>
+ * Once {@code window} values have been appended, both models are replaced by
+ * new ones trained and tuned on the last {@code window} values. This keeps
+ * the memory and the cost of scoring a value bounded and lets the thresholds
+ * follow the series.
+ * </P>
+ * <P>
+ * The time and logical index of a value are its position in its partition,
+ * starting at 0. A time series model whose {@code update} does not forecast
+ * the appended value is trained again on all the values for each value,
+ * which is much slower.
+ * </P>
+ * <P>
+ * Instances are not thread safe, they are meant to be called from
+ * a single stream function.
+ * </P>
+ *
+ * @param <K> Partition key type.
+ * 
+ * @see EgadsAnalytics
+ */
+public class PartitionedDetector<K> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Supplier<TimeSeriesModel> timeSeriesModel;
+    private final Supplier<AnomalyDetectionModel> anomalyDetectionModel;
+    private final int window;
+
+    private transient Map<K, Partition> partitions;
+
+    /**
+     * Create a detector.
+     * 
+     * @param timeSeriesModel Creates the time series model of a partition.
+     * @param anomalyDetectionModel Creates the anomaly detection model of a partition.
+     * @param window Number of values the models are trained on.
+     */
+    public PartitionedDetector(Supplier<TimeSeriesModel> timeSeriesModel,
+            Supplier<AnomalyDetectionModel> anomalyDetectionModel, int window) {
+        if (window < 2)
+            throw new IllegalArgumentException("window: " + window);
+        this.timeSeriesModel = timeSeriesModel;
+        this.anomalyDetectionModel = anomalyDetectionModel;
+        this.window = window;
+    }
+
+    /**
+     * Get the number of values the models are trained on.
+     * @return the window size
+     */
+    public int getWindow() {
+        return window;
+    }
+
+    /**
+     * Get the number of partitions seen so far.
+     * @return the number of partitions
+     */
+    public int getPartitionCount() {
+        return partitions == null ? 0 : partitions.size();
+    }
+
+    /**
+     * Score the next value of a partition.
+     * 
+     * @param key Partition key.
+     * @param value Value to score.
+     * @return The anomaly found at the value, or {@code null} if the value
+     * is not anomalous or is a warm-up value.
+     */
+    public Interval score(K key, double value) {
+        if (partitions == null)
+            partitions = new HashMap<>();
+        Partition partition = partitions.get(key);
+        if (partition == null) {
+            partition = new Partition();
+            partitions.put(key, partition);
+        }
+        try {
+            return partition.score((float) value);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Models and values of one partition.
+     */
+    private final class Partition {
+        // Values the models were trained on followed by the values appended since.
+        private DataSequence history = new DataSequence(window);
+        // Forecast of the history, filled by the time series model.
+        private DataSequence forecast = new DataSequence(window);
+        private long count;
+
+        private TimeSeriesModel tsModel;
+        private AnomalyDetectionModel adModel;
+        private PointAnomalyModel.PointDetector detector;
+        private AnomalyErrorStorage aes;
+
+        // The value being scored and its forecast, as one point series.
+        private final Entry actual = new Entry();
+        private final Entry expected = new Entry();
+        private final DataSequence observedPoint = new DataSequence();
+        private final DataSequence expectedPoint = new DataSequence();
+        private final float[] errors = new float[AnomalyErrorStorage.NUM_ERRORS];
+
+        Partition() {
+            observedPoint.add(actual);
+            expectedPoint.add(expected);
+        }
+
+        Interval score(float value) throws Exception {
+            Entry entry = new Entry(count, value);
+            entry.logicalIndex = count;
+            count++;
+            history.add(entry);
+            forecast.add(unforecast(entry));
+
+            if (tsModel == null) {
+                if (history.size() == window)
+                    train();
+                return null;
+            }
+
+            DataSequence appended = new DataSequence(1);
+            appended.add(entry);
+            tsModel.update(appended);
+            tsModel.predict(forecast);
+            int last = forecast.size() - 1;
+            if (Float.isNaN(forecast.get(last).value)) {
+                // The model did not take the value in.
+                tsModel.train(history);
+                tsModel.predict(forecast);
+            }
+
+            actual.time = entry.time;
+            actual.logicalIndex = entry.logicalIndex;
+            actual.value = value;
+            expected.time = entry.time;
+            expected.logicalIndex = entry.logicalIndex;
+            expected.value = forecast.get(last).value;
+
+            Interval anomaly;
+            if (detector != null) {
+                aes.computeErrorMetrics(expected.value, actual.value, errors);
+                anomaly = detector.detect(0, errors);
+            } else {
+                IntervalSequence anomalies = adModel.detect(observedPoint, expectedPoint);
+                anomaly = anomalies.isEmpty() ? null : anomalies.get(0);
+            }
+
+            if (history.size() == 2 * window) {
+                history = tail(history);
+                forecast = tail(forecast);
+                train();
+            }
+            return anomaly;
+        }
+
+        // Creates and trains the models on the history.
+        private void train() throws Exception {
+            tsModel = timeSeriesModel.get();
+            tsModel.train(history);
+            tsModel.predict(forecast);
+
+            adModel = anomalyDetectionModel.get();
+            aes = new AnomalyErrorStorage();
+            if (adModel instanceof PointAnomalyModel) {
+                PointAnomalyModel pointModel = (PointAnomalyModel) adModel;
+                pointModel.tuneOnErrors(history, forecast, aes.computeErrorMatrix(history, forecast));
+                detector = pointModel.detector(observedPoint, expectedPoint);
+            } else {
+                adModel.tune(history, forecast, null);
+                detector = null;
+            }
+        }
+
+        private Entry unforecast(Entry entry) {
+            Entry e = new Entry(entry.time, Float.NaN);
+            e.logicalIndex = entry.logicalIndex;
+            return e;
+        }
+
+        private DataSequence tail(DataSequence sequence) {
+            DataSequence tail = new DataSequence(window);
+            tail.addAll(sequence.subList(sequence.size() - window, sequence.size()));
+            return tail;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.test.analytics.egads;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+import org.apache.edgent.analytics.egads.EgadsAnalytics;
+import org.apache.edgent.analytics.egads.PartitionedDetector;
+import org.apache.edgent.test.providers.direct.DirectTopologyTestBase;
+import org.apache.edgent.topology.TStream;
+import org.apache.edgent.topology.Topology;
+import org.apache.edgent.topology.tester.Condition;
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+import com.yahoo.egads.data.Anomaly.Interval;
+
+public class EgadsAnalyticsTest extends DirectTopologyTestBase {
+
+    private static final int WINDOW = 240;
+    private static final int[] SPIKES = {500, 777, 1300};
+
+    @Test
+    public void testDetectValues() throws Exception {
+        Topology topology = newTopology("testDetectValues");
+        Properties config = config();
+
+        List<Integer> expected = anomalies(config, series(0, true));
+        for (int spike : SPIKES)
+            assertTrue(expected.toString(), expected.contains(spike));
+        assertTrue(expected.toString(), expected.size() < 20);
+
+        TStream<Interval> anomalies = EgadsAnalytics.detect(topology.collection(series(0, true)),
+                EgadsAnalytics.timeSeriesModel(config), EgadsAnalytics.anomalyDetectionModel(config), WINDOW);
+
+        Condition<Long> count = topology.getTester().tupleCount(anomalies, expected.size());
+        Condition<List<Interval>> contents = topology.getTester().streamContents(anomalies);
+        complete(topology, count);
+        assertTrue(count.valid());
+
+        List<Integer> found = new ArrayList<>();
+        for (Interval anomaly : contents.getResult())
+            found.add((int) (long) anomaly.utime);
+        assertEquals(expected, found);
+    }
+
+    @Test
+    public void testDetectJson() throws Exception {
+        Topology topology = newTopology("testDetectJson");
+        Properties config = config();
+
+        // Sensor B has the spikes, sensor A is shifted so its values
+        // would be anomalous against the models of B.
+        List<Double> a = series(50, false);
+        List<Double> b = series(0, true);
+        List<JsonObject> tuples = new ArrayList<>();
+        for (int i = 0; i < a.size(); i++) {
+            tuples.add(reading("A", a.get(i)));
+            tuples.add(reading("B", b.get(i)));
+        }
+        List<Integer> expectedA = anomalies(config, a);
+        List<Integer> expectedB = anomalies(config, b);
+        for (int spike : SPIKES)
+            assertTrue(expectedB.toString(), expectedB.contains(spike));
+
+        TStream<JsonObject> anomalies = EgadsAnalytics.detect(topology.collection(tuples),
+                "id", "reading", "anomaly",
+                EgadsAnalytics.timeSeriesModel(config), EgadsAnalytics.anomalyDetectionModel(config), WINDOW);
+
+        Condition<Long> count = topology.getTester().tupleCount(anomalies, expectedA.size() + expectedB.size());
+        Condition<List<JsonObject>> contents = topology.getTester().streamContents(anomalies);
+        complete(topology, count);
+        assertTrue(count.valid());
+
+        List<Integer> foundA = new ArrayList<>();
+        List<Integer> foundB = new ArrayList<>();
+        for (JsonObject tuple : contents.getResult()) {
+            JsonObject anomaly = tuple.getAsJsonObject("anomaly");
+            assertNotNull(anomaly);
+            assertTrue(anomaly.has(EgadsAnalytics.EXPECTED));
+            assertTrue(anomaly.has("mape"));
+            int index = anomaly.get(EgadsAnalytics.INDEX).getAsInt();
+            String id = tuple.get("id").getAsString();
+            List<Double> series = id.equals("A") ? a : b;
+            assertEquals(series.get(index), tuple.get("reading").getAsDouble(), 0.0);
+            (id.equals("A") ? foundA : foundB).add(index);
+        }
+        assertEquals(expectedA, foundA);
+        assertEquals(expectedB, foundB);
+    }
+
+    @Test
+    public void testRetrain() throws Exception {
+        Properties config = config();
+        config.setProperty("AD_MODEL", "KSigmaModel,SimpleThresholdModel");
+
+        // The level shift is anomalous until the models are trained on it.
+        PartitionedDetector<String> detector = new PartitionedDetector<>(
+                EgadsAnalytics.timeSeriesModel(config), EgadsAnalytics.anomalyDetectionModel(config), WINDOW);
+        List<Double> series = series(0, true);
+        int shifted = 0;
+        int late = 0;
+        for (int i = 0; i < series.size(); i++) {
+            double value = series.get(i) + (i >= 2 * WINDOW ? 100 : 0);
+            if (detector.score("A", value) != null && !isSpike(i)) {
+                if (i < 3 * WINDOW)
+                    shifted++;
+                else if (i >= 5 * WINDOW)
+                    late++;
+            }
+        }
+        assertTrue("shifted:" + shifted, shifted > 0);
+        assertTrue("late:" + late, late < 10);
+        assertEquals(1, detector.getPartitionCount());
+    }
+
+    @Test
+    public void testScoringSpeed() throws Exception {
+        Properties config = config();
+        PartitionedDetector<Integer> detector = new PartitionedDetector<>(
+                EgadsAnalytics.timeSeriesModel(config), EgadsAnalytics.anomalyDetectionModel(config), WINDOW);
+        List<Double> series = series(0, true);
+        int partitions = 10;
+        for (int i = 0; i < WINDOW; i++) {
+            for (int p = 0; p < partitions; p++)
+                detector.score(p, series.get(i));
+        }
+
+        long start = System.nanoTime();
+        int scored = 0;
+        for (int r = 0; r < 5; r++) {
+            for (int i = WINDOW; i < series.size(); i++) {
+                for (int p = 0; p < partitions; p++) {
+                    detector.score(p, series.get(i));
+                    scored++;
+                }
+            }
+        }
+        long micros = (System.nanoTime() - start) / 1000;
+        System.out.println("EGADS scoring: " + scored + " tuples in " + partitions + " partitions, "
+                + (micros / scored) + "us per tuple");
+    }
+
+    // Indices of the anomalies found in a single partition.
+    private static List<Integer> anomalies(Properties config, List<Double> series) {
+        PartitionedDetector<String> detector = new PartitionedDetector<>(
+                EgadsAnalytics.timeSeriesModel(config), EgadsAnalytics.anomalyDetectionModel(config), WINDOW);
+        List<Integer> anomalies = new ArrayList<>();
+        for (double value : series) {
+            Interval anomaly = detector.score("A", value);
+            if (anomaly != null)
+                anomalies.add((int) (long) anomaly.utime);
+        }
+        return anomalies;
+    }
+
+    private static Properties config() {
+        Properties config = new Properties();
+        config.setProperty("TS_MODEL", "OlympicModel");
+        config.setProperty("AD_MODEL", "KSigmaModel");
+        config.setProperty("NUM_WEEKS", "4");
+        config.setProperty("NUM_TO_DROP", "1");
+        config.setProperty("TIME_SHIFTS", "0");
+        config.setProperty("BASE_WINDOWS", "24");
+        config.setProperty("AUTO_SENSITIVITY_ANOMALY_PCNT", "0.01");
+        config.setProperty("AUTO_SENSITIVITY_SD", "3.0");
+        return config;
+    }
+
+    // Daily cycle of hourly values with noise and spikes.
+    private static List<Double> series(double offset, boolean spikes) {
+        Random random = new Random(1);
+        List<Double> series = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            double value = offset + 10 + 5 * Math.sin(2 * Math.PI * i / 24) + 0.2 * random.nextGaussian();
+            if (spikes && isSpike(i))
+                value += 20;
+            series.add(value);
+        }
+        return series;
+    }
+
+    private static boolean isSpike(int i) {
+        for (int spike : SPIKES) {
+            if (spike == i)
+                return true;
+        }
+        return false;
+    }
+
+    private static JsonObject reading(String id, double value) {
+        JsonObject tuple = new JsonObject();
+        tuple.addProperty("id", id);
+        tuple.addProperty("reading", value);
+        return tuple;
+    }
+}
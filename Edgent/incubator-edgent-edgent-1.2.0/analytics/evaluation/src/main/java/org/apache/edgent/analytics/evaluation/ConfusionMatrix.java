@@ -0,0 +1,158 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.analytics.evaluation;
+
+/**
+ * Counts of a binary classifier's predictions against the true labels
+ * at a score threshold.
+ * <P>
+ * A prediction is positive when its score is greater than or equal to the threshold.
+ * </P>
+ */
+public final class ConfusionMatrix {
+    private final double threshold;
+    private final long truePositives;
+    private final long falsePositives;
+    private final long trueNegatives;
+    private final long falseNegatives;
+
+    /**
+     * Create a confusion matrix.
+     * 
+     * @param threshold Score threshold of positive predictions.
+     * @param truePositives Number of positive predictions of positive labels.
+     * @param falsePositives Number of positive predictions of negative labels.
+     * @param trueNegatives Number of negative predictions of negative labels.
+     * @param falseNegatives Number of negative predictions of positive labels.
+     */
+    public ConfusionMatrix(double threshold, long truePositives, long falsePositives,
+            long trueNegatives, long falseNegatives) {
+        this.threshold = threshold;
+        this.truePositives = truePositives;
+        this.falsePositives = falsePositives;
+        this.trueNegatives = trueNegatives;
+        this.falseNegatives = falseNegatives;
+    }
+
+    /**
+     * Get the score threshold of positive predictions.
+     * @return the threshold
+     */
+    public double getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Get the number of positive predictions of positive labels.
+     * @return the number of true positives
+     */
+    public long getTruePositives() {
+        return truePositives;
+    }
+
+    /**
+     * Get the number of positive predictions of negative labels.
+     * @return the number of false positives
+     */
+    public long getFalsePositives() {
+        return falsePositives;
+    }
+
+    /**
+     * Get the number of negative predictions of negative labels.
+     * @return the number of true negatives
+     */
+    public long getTrueNegatives() {
+        return trueNegatives;
+    }
+
+    /**
+     * Get the number of negative predictions of positive labels.
+     * @return the number of false negatives
+     */
+    public long getFalseNegatives() {
+        return falseNegatives;
+    }
+
+    /**
+     * Get the precision, the fraction of the positive predictions that are right.
+     * @return the precision, {@code NaN} without positive predictions
+     */
+    public double getPrecision() {
+        return ratio(truePositives, truePositives + falsePositives);
+    }
+
+    /**
+     * Get the recall or true positive rate, the fraction of
+     * the positive labels that are predicted positive.
+     * @return the recall, {@code NaN} without positive labels
+     */
+    public double getRecall() {
+        return ratio(truePositives, truePositives + falseNegatives);
+    }
+
+    /**
+     * Get the false positive rate, the fraction of
+     * the negative labels that are predicted positive.
+     * Together with {@link #getRecall()} it is the ROC point of the threshold.
+     * @return the false positive rate, {@code NaN} without negative labels
+     */
+    public double getFalsePositiveRate() {
+        return ratio(falsePositives, falsePositives + trueNegatives);
+    }
+
+    /**
+     * Get the accuracy, the fraction of the predictions that are right.
+     * @return the accuracy, {@code NaN} without predictions
+     */
+    public double getAccuracy() {
+        return ratio(truePositives + trueNegatives,
+                truePositives + falsePositives + trueNegatives + falseNegatives);
+    }
+
+    private static double ratio(long count, long total) {
+        return total == 0 ? Double.NaN : (double) count / total;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof ConfusionMatrix))
+            return false;
+        ConfusionMatrix other = (ConfusionMatrix) obj;
+        return Double.compare(threshold, other.threshold) == 0
+                && truePositives == other.truePositives && falsePositives == other.falsePositives
+                && trueNegatives == other.trueNegatives && falseNegatives == other.falseNegatives;
+    }
+
+    @Override
+    public int hashCode() {
+        long h = Double.doubleToLongBits(threshold);
+        h = h * 31 + truePositives;
+        h = h * 31 + falsePositives;
+        h = h * 31 + trueNegatives;
+        h = h * 31 + falseNegatives;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "{threshold=" + threshold + ", tp=" + truePositives + ", fp=" + falsePositives
+                + ", tn=" + trueNegatives + ", fn=" + falseNegatives + "}";
+    }
+}
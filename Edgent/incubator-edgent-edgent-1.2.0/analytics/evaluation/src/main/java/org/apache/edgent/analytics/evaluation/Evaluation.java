@@ -0,0 +1,74 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.analytics.evaluation;
+
+import org.apache.edgent.function.Predicate;
+import org.apache.edgent.function.ToDoubleFunction;
+import org.apache.edgent.function.ToLongFunction;
+import org.apache.edgent.topology.TSink;
+import org.apache.edgent.topology.TStream;
+
+/**
+ * Evaluation of a binary classifier's predictions against true labels.
+ * <P>
+ * The predictions and the labels are separate streams, joined by the
+ * sequence number of the prediction a label is for. The confusion matrices
+ * at many thresholds are kept up to date by an {@link Evaluator}, read
+ * directly or as the metrics of {@link EvaluationSink}.
+ * For example, to evaluate the scores of a detector against the
+ * labels of the same samples:
+ * </P>
+ * <pre>{@code
+ * Evaluator evaluator = new Evaluator(1024, 0.1, 0.2, 0.3, 0.4, 0.5);
+ * Evaluation.evaluate(scores, s -> s.getIndex(), s -> s.getScore(),
+ *     labels, l -> l.getIndex(), l -> l.isSeizure(),
+ *     evaluator);
+ * }</pre>
+ */
+public class Evaluation {
+
+    private Evaluation() {}
+
+    /**
+     * Evaluate predictions against true labels.
+     * <P>
+     * The two streams may be processed concurrently, for example when
+     * each is read by its own source.
+     * </P>
+     * 
+     * @param <P> Prediction tuple type.
+     * @param <L> Label tuple type.
+     * @param predictions Stream containing the predictions.
+     * @param predictionSequence How to obtain the sequence number of a prediction.
+     * @param score How to obtain the score of a prediction.
+     * @param labels Stream containing the true labels.
+     * @param labelSequence How to obtain the sequence number of the prediction a label is for.
+     * @param positive Tests if a label is positive.
+     * @param evaluator Evaluator joining the predictions and labels.
+     * @return Sink of the predictions, reporting the metrics of {@code evaluator}.
+     */
+    public static <P, L> TSink<P> evaluate(TStream<P> predictions,
+            ToLongFunction<P> predictionSequence, ToDoubleFunction<P> score,
+            TStream<L> labels, ToLongFunction<L> labelSequence, Predicate<L> positive,
+            Evaluator evaluator) {
+        labels.sink(l -> evaluator.label(labelSequence.applyAsLong(l), positive.test(l)));
+        return predictions.sink(new EvaluationSink<P>(evaluator,
+                p -> evaluator.prediction(predictionSequence.applyAsLong(p), score.applyAsDouble(p))));
+    }
+}
@@ -0,0 +1,124 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.analytics.evaluation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.edgent.function.Consumer;
+import org.apache.edgent.oplet.OpletContext;
+import org.apache.edgent.oplet.core.Sink;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * Sink reporting the results of an {@link Evaluator} as metrics.
+ * <P>
+ * When the job has a {@code MetricRegistry} service the following gauges
+ * are registered, and removed when the oplet is closed:
+ * </P>
+ * <UL>
+ * <LI>{@value #MATCHED_METRIC_NAME}, {@value #PENDING_METRIC_NAME} and
+ * {@value #UNMATCHED_METRIC_NAME}, the counts of the evaluator.</LI>
+ * <LI>{@value #PRECISION_METRIC_NAME}{@code _i}, {@value #RECALL_METRIC_NAME}{@code _i}
+ * and {@value #FALSE_POSITIVE_RATE_METRIC_NAME}{@code _i} for the {@code i}th
+ * threshold in increasing order.</LI>
+ * </UL>
+ *
+ * @param <T> Tuple type.
+ *
+ * @see Evaluation
+ */
+public class EvaluationSink<T> extends Sink<T> {
+
+    public static final String MATCHED_METRIC_NAME = "EvaluationMatched";
+    public static final String PENDING_METRIC_NAME = "EvaluationPending";
+    public static final String UNMATCHED_METRIC_NAME = "EvaluationUnmatched";
+    public static final String PRECISION_METRIC_NAME = "EvaluationPrecision";
+    public static final String RECALL_METRIC_NAME = "EvaluationRecall";
+    public static final String FALSE_POSITIVE_RATE_METRIC_NAME = "EvaluationFalsePositiveRate";
+
+    private final Evaluator evaluator;
+    private final List<String> metricNames = new ArrayList<>();
+
+    /**
+     * Create a sink.
+     * 
+     * @param evaluator Evaluator whose results are reported.
+     * @param sinker Adds each tuple to {@code evaluator}.
+     */
+    public EvaluationSink(Evaluator evaluator, Consumer<T> sinker) {
+        super(sinker);
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * Get the evaluator whose results are reported.
+     * @return the evaluator
+     */
+    public Evaluator getEvaluator() {
+        return evaluator;
+    }
+
+    /**
+     * Returns the names of the metrics registered by this oplet.
+     * @return the metric names, empty if this oplet has not been
+     *      initialized with a {@code MetricRegistry}.
+     */
+    public List<String> getMetricNames() {
+        return metricNames;
+    }
+
+    @Override
+    public void initialize(OpletContext<T, Void> context) {
+        super.initialize(context);
+
+        MetricRegistry registry = context.getService(MetricRegistry.class);
+        if (registry == null)
+            return;
+        register(registry, context.uniquify(MATCHED_METRIC_NAME), () -> evaluator.getMatched());
+        register(registry, context.uniquify(PENDING_METRIC_NAME), () -> evaluator.getPending());
+        register(registry, context.uniquify(UNMATCHED_METRIC_NAME), () -> evaluator.getUnmatched());
+        for (int i = 0; i < evaluator.getThresholds().length; i++) {
+            final int index = i;
+            register(registry, context.uniquify(PRECISION_METRIC_NAME + "_" + i),
+                    () -> evaluator.getMatrix(index).getPrecision());
+            register(registry, context.uniquify(RECALL_METRIC_NAME + "_" + i),
+                    () -> evaluator.getMatrix(index).getRecall());
+            register(registry, context.uniquify(FALSE_POSITIVE_RATE_METRIC_NAME + "_" + i),
+                    () -> evaluator.getMatrix(index).getFalsePositiveRate());
+        }
+    }
+
+    private <V> void register(MetricRegistry registry, String name, Gauge<V> gauge) {
+        registry.register(name, gauge);
+        metricNames.add(name);
+    }
+
+    @Override
+    public void close() throws Exception {
+        super.close();
+        MetricRegistry registry = getOpletContext().getService(MetricRegistry.class);
+        if (registry != null) {
+            for (String name : metricNames)
+                registry.remove(name);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.analytics.evaluation;
+
+import java.util.List;
+
+/**
+ * Joins scored predictions with their true labels by sequence number
+ * and keeps the confusion matrices of a {@link ThresholdSweep}.
+ * <P>
+ * A prediction and its label share a sequence number, such as the index
+ * of the sample they are about, and may arrive in any order. The first
+ * to arrive waits in a slot of a ring of {@code capacity} slots, chosen by
+ * the sequence number modulo {@code capacity}, until the other arrives.
+ * A waiting prediction or label is dropped, and counted as unmatched, when
+ * another sequence number takes its slot, so the two streams can be up to
+ * {@code capacity} sequence numbers apart. Joining allocates nothing.
+ * </P>
+ * <P>
+ * Predictions and labels can be added from different threads.
+ * </P>
+ *
+ * @see Evaluation
+ */
+public class Evaluator {
+    private static final byte EMPTY = 0;
+    private static final byte PREDICTION = 1;
+    private static final byte POSITIVE_LABEL = 2;
+    private static final byte NEGATIVE_LABEL = 3;
+
+    private final ThresholdSweep sweep;
+    private final long[] sequences;
+    private final double[] scores;
+    private final byte[] states;
+    private long pending;
+    private long unmatched;
+
+    /**
+     * Create an evaluator.
+     * 
+     * @param capacity Number of predictions and labels that can wait for their match.
+     * @param thresholds Score thresholds of the confusion matrices.
+     */
+    public Evaluator(int capacity, double... thresholds) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity: " + capacity);
+        this.sweep = new ThresholdSweep(thresholds);
+        this.sequences = new long[capacity];
+        this.scores = new double[capacity];
+        this.states = new byte[capacity];
+    }
+
+    /**
+     * Add a prediction.
+     * 
+     * @param sequence Sequence number of the prediction.
+     * @param score Score of the prediction.
+     */
+    public synchronized void prediction(long sequence, double score) {
+        int slot = slot(sequence);
+        byte state = states[slot];
+        if ((state == POSITIVE_LABEL || state == NEGATIVE_LABEL) && sequences[slot] == sequence) {
+            sweep.add(score, state == POSITIVE_LABEL);
+            release(slot);
+            return;
+        }
+        hold(slot, sequence, PREDICTION);
+        scores[slot] = score;
+    }
+
+    /**
+     * Add a true label.
+     * 
+     * @param sequence Sequence number of the prediction the label is for.
+     * @param positive {@code true} if the label is positive.
+     */
+    public synchronized void label(long sequence, boolean positive) {
+        int slot = slot(sequence);
+        if (states[slot] == PREDICTION && sequences[slot] == sequence) {
+            sweep.add(scores[slot], positive);
+            release(slot);
+            return;
+        }
+        hold(slot, sequence, positive ? POSITIVE_LABEL : NEGATIVE_LABEL);
+    }
+
+    private int slot(long sequence) {
+        int slot = (int) (sequence % states.length);
+        return slot < 0 ? slot + states.length : slot;
+    }
+
+    private void hold(int slot, long sequence, byte state) {
+        if (states[slot] == EMPTY)
+            pending++;
+        else
+            unmatched++;
+        sequences[slot] = sequence;
+        states[slot] = state;
+    }
+
+    private void release(int slot) {
+        states[slot] = EMPTY;
+        pending--;
+    }
+
+    /**
+     * Get the thresholds.
+     * @return the thresholds, in increasing order
+     */
+    public double[] getThresholds() {
+        return sweep.getThresholds();
+    }
+
+    /**
+     * Get the number of predictions joined with their label.
+     * @return the number of matched predictions
+     */
+    public synchronized long getMatched() {
+        return sweep.getCount();
+    }
+
+    /**
+     * Get the number of predictions and labels waiting for their match.
+     * @return the number of pending predictions and labels
+     */
+    public synchronized long getPending() {
+        return pending;
+    }
+
+    /**
+     * Get the number of predictions and labels dropped before their match arrived.
+     * @return the number of unmatched predictions and labels
+     */
+    public synchronized long getUnmatched() {
+        return unmatched;
+    }
+
+    /**
+     * Get the confusion matrix at a threshold.
+     * 
+     * @param index Index of the threshold in {@link #getThresholds()}.
+     * @return the confusion matrix of the predictions matched so far
+     */
+    public synchronized ConfusionMatrix getMatrix(int index) {
+        return sweep.getMatrix(index);
+    }
+
+    /**
+     * Get the confusion matrix at each threshold, the ROC curve being
+     * the false positive rate and recall of each matrix.
+     * 
+     * @return the confusion matrices of the predictions matched so far,
+     *         in increasing order of threshold
+     */
+    public synchronized List<ConfusionMatrix> getMatrices() {
+        return sweep.getMatrices();
+    }
+}
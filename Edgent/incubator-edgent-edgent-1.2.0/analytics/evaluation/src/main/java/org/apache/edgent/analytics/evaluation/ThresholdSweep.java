@@ -0,0 +1,137 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.analytics.evaluation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Confusion matrices of scored predictions at many thresholds at once.
+ * <P>
+ * Rather than updating a matrix per threshold, each labeled score is counted
+ * in the bucket between the thresholds it falls in, found by binary search.
+ * Adding a score is {@code O(log m)} for {@code m} thresholds, the matrices
+ * are summed from the buckets when they are read.
+ * </P>
+ * <P>
+ * Instances are not thread safe.
+ * </P>
+ *
+ * @see Evaluator
+ */
+public class ThresholdSweep {
+    private final double[] thresholds;
+    // Bucket j counts the scores with j thresholds less than or equal to them.
+    private final long[] positives;
+    private final long[] negatives;
+    private long positiveCount;
+    private long negativeCount;
+
+    /**
+     * Create a sweep.
+     * 
+     * @param thresholds Score thresholds, in any order.
+     * @throws IllegalArgumentException if there are no thresholds, or they
+     *         include {@code NaN} or duplicates.
+     */
+    public ThresholdSweep(double... thresholds) {
+        if (thresholds.length == 0)
+            throw new IllegalArgumentException("no thresholds");
+        this.thresholds = thresholds.clone();
+        Arrays.sort(this.thresholds);
+        for (int i = 0; i < this.thresholds.length; i++) {
+            if (Double.isNaN(this.thresholds[i])
+                    || (i > 0 && this.thresholds[i] == this.thresholds[i - 1]))
+                throw new IllegalArgumentException("thresholds: " + Arrays.toString(thresholds));
+        }
+        this.positives = new long[this.thresholds.length + 1];
+        this.negatives = new long[this.thresholds.length + 1];
+    }
+
+    /**
+     * Get the thresholds.
+     * @return a copy of the thresholds, in increasing order
+     */
+    public double[] getThresholds() {
+        return thresholds.clone();
+    }
+
+    /**
+     * Get the number of scores added.
+     * @return the number of scores
+     */
+    public long getCount() {
+        return positiveCount + negativeCount;
+    }
+
+    /**
+     * Add a labeled score.
+     * 
+     * @param score Score of the prediction, a {@code NaN} score is negative at all thresholds.
+     * @param positive {@code true} if the true label is positive.
+     */
+    public void add(double score, boolean positive) {
+        int bucket = 0;
+        if (!Double.isNaN(score)) {
+            bucket = Arrays.binarySearch(thresholds, score);
+            bucket = bucket >= 0 ? bucket + 1 : -(bucket + 1);
+        }
+        if (positive) {
+            positives[bucket]++;
+            positiveCount++;
+        } else {
+            negatives[bucket]++;
+            negativeCount++;
+        }
+    }
+
+    /**
+     * Get the confusion matrix at a threshold.
+     * 
+     * @param index Index of the threshold in {@link #getThresholds()}.
+     * @return the confusion matrix
+     */
+    public ConfusionMatrix getMatrix(int index) {
+        long tp = 0;
+        long fp = 0;
+        for (int j = positives.length - 1; j > index; j--) {
+            tp += positives[j];
+            fp += negatives[j];
+        }
+        return new ConfusionMatrix(thresholds[index], tp, fp, negativeCount - fp, positiveCount - tp);
+    }
+
+    /**
+     * Get the confusion matrix at each threshold.
+     * 
+     * @return the matrices, in increasing order of threshold
+     */
+    public List<ConfusionMatrix> getMatrices() {
+        ConfusionMatrix[] matrices = new ConfusionMatrix[thresholds.length];
+        long tp = 0;
+        long fp = 0;
+        for (int i = thresholds.length - 1; i >= 0; i--) {
+            tp += positives[i + 1];
+            fp += negatives[i + 1];
+            matrices[i] = new ConfusionMatrix(thresholds[i], tp, fp, negativeCount - fp, positiveCount - tp);
+        }
+        return new ArrayList<>(Arrays.asList(matrices));
+    }
+}
@@ -0,0 +1,186 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.test.analytics.evaluation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.edgent.analytics.evaluation.ConfusionMatrix;
+import org.apache.edgent.analytics.evaluation.Evaluation;
+import org.apache.edgent.analytics.evaluation.EvaluationSink;
+import org.apache.edgent.analytics.evaluation.Evaluator;
+import org.apache.edgent.analytics.evaluation.ThresholdSweep;
+import org.apache.edgent.execution.DirectSubmitter;
+import org.apache.edgent.execution.Job;
+import org.apache.edgent.metrics.MetricsSetup;
+import org.apache.edgent.test.providers.direct.DirectTopologyTestBase;
+import org.apache.edgent.topology.Topology;
+import org.junit.Test;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+public class EvaluationTest extends DirectTopologyTestBase {
+
+    @Test
+    public void testSweep() {
+        ThresholdSweep sweep = new ThresholdSweep(0.75, 0.25, 0.5);
+        sweep.add(0.1, false);
+        sweep.add(0.3, true);
+        sweep.add(0.5, false);
+        sweep.add(0.6, true);
+        sweep.add(0.9, true);
+        sweep.add(Double.NaN, true);
+
+        List<ConfusionMatrix> matrices = sweep.getMatrices();
+        assertEquals(new ConfusionMatrix(0.25, 3, 1, 1, 1), matrices.get(0));
+        assertEquals(new ConfusionMatrix(0.5, 2, 1, 1, 2), matrices.get(1));
+        assertEquals(new ConfusionMatrix(0.75, 1, 0, 2, 3), matrices.get(2));
+        for (int i = 0; i < matrices.size(); i++)
+            assertEquals(matrices.get(i), sweep.getMatrix(i));
+        assertEquals(2.0 / 3, matrices.get(1).getPrecision(), 0);
+        assertEquals(0.5, matrices.get(1).getRecall(), 0);
+        assertEquals(0.5, matrices.get(1).getFalsePositiveRate(), 0);
+    }
+
+    @Test
+    public void testSweepMatchesMatrices() {
+        Random r = new Random(1);
+        double[] thresholds = new double[50];
+        for (int i = 0; i < thresholds.length; i++)
+            thresholds[i] = i / 50.0;
+        ThresholdSweep sweep = new ThresholdSweep(thresholds);
+        double[] scores = new double[1000];
+        boolean[] labels = new boolean[scores.length];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = Math.floor(r.nextDouble() * 100) / 100;
+            labels[i] = r.nextBoolean();
+            sweep.add(scores[i], labels[i]);
+        }
+        for (int i = 0; i < thresholds.length; i++)
+            assertEquals(matrix(thresholds[i], scores, labels), sweep.getMatrix(i));
+    }
+
+    @Test
+    public void testJoin() {
+        Evaluator evaluator = new Evaluator(4, 0.5);
+        evaluator.label(0, true);
+        evaluator.prediction(0, 0.9);
+        assertEquals(1, evaluator.getMatched());
+        assertEquals(0, evaluator.getPending());
+
+        // 5 takes the slot of 1.
+        evaluator.prediction(1, 0.2);
+        evaluator.prediction(5, 0.7);
+        assertEquals(1, evaluator.getUnmatched());
+        evaluator.label(5, false);
+        evaluator.label(1, true);
+        assertEquals(2, evaluator.getMatched());
+        assertEquals(1, evaluator.getPending());
+
+        // -3 also takes the slot of 1.
+        evaluator.prediction(-3, 0.1);
+        assertEquals(2, evaluator.getUnmatched());
+        evaluator.label(-3, false);
+        assertEquals(new ConfusionMatrix(0.5, 1, 1, 1, 0), evaluator.getMatrix(0));
+        assertEquals(0, evaluator.getPending());
+    }
+
+    @Test
+    public void testEvaluate() throws Exception {
+        MetricRegistry registry = new MetricRegistry();
+        MetricsSetup.withRegistry(((DirectSubmitter<?,?>) getSubmitter()).getServices(), registry);
+
+        Random r = new Random(2);
+        int n = 2000;
+        double[] thresholds = {0.2, 0.4, 0.6, 0.8};
+        double[] scores = new double[n];
+        boolean[] labels = new boolean[n];
+        List<Long> predictions = new ArrayList<>();
+        List<Long> labelled = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            scores[i] = r.nextDouble();
+            labels[i] = r.nextDouble() < scores[i];
+            predictions.add((long) i);
+            labelled.add((long) i);
+        }
+        // The labels arrive in another order, on another thread.
+        Collections.shuffle(labelled, r);
+
+        Topology topology = newTopology("testEvaluate");
+        Evaluator evaluator = new Evaluator(n, thresholds);
+        Evaluation.evaluate(topology.collection(predictions), i -> i, i -> scores[(int) (long) i],
+                topology.collection(labelled), i -> i, i -> labels[(int) (long) i],
+                evaluator);
+
+        Job job = getSubmitter().submit(topology).get();
+        for (int i = 0; i < 100 && evaluator.getMatched() < n; i++)
+            Thread.sleep(50);
+        assertEquals(n, evaluator.getMatched());
+        assertEquals(0, evaluator.getPending());
+        assertEquals(0, evaluator.getUnmatched());
+
+        List<ConfusionMatrix> matrices = evaluator.getMatrices();
+        for (int i = 0; i < thresholds.length; i++)
+            assertEquals(matrix(thresholds[i], scores, labels), matrices.get(i));
+
+        @SuppressWarnings("rawtypes")
+        Map<String, Gauge> gauges = registry.getGauges();
+        assertEquals(3 + 3 * thresholds.length, gauges.size());
+        assertEquals((long) n, gauge(gauges, EvaluationSink.MATCHED_METRIC_NAME));
+        assertEquals(matrices.get(2).getPrecision(),
+                gauge(gauges, EvaluationSink.PRECISION_METRIC_NAME + "_2"));
+        assertEquals(matrices.get(3).getFalsePositiveRate(),
+                gauge(gauges, EvaluationSink.FALSE_POSITIVE_RATE_METRIC_NAME + "_3"));
+
+        job.stateChange(Job.Action.CLOSE);
+        assertTrue(registry.getGauges().isEmpty());
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static Object gauge(Map<String, Gauge> gauges, String name) {
+        for (Map.Entry<String, Gauge> e : gauges.entrySet()) {
+            if (e.getKey().startsWith(name + "."))
+                return e.getValue().getValue();
+        }
+        throw new AssertionError("no gauge " + name + " in " + gauges.keySet());
+    }
+
+    private static ConfusionMatrix matrix(double threshold, double[] scores, boolean[] labels) {
+        long tp = 0, fp = 0, tn = 0, fn = 0;
+        for (int i = 0; i < scores.length; i++) {
+            boolean predicted = scores[i] >= threshold;
+            if (predicted && labels[i])
+                tp++;
+            else if (predicted)
+                fp++;
+            else if (labels[i])
+                fn++;
+            else
+                tn++;
+        }
+        return new ConfusionMatrix(threshold, tp, fp, tn, fn);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.analytics.signal;
+
+/**
+ * The features of an epoch of a channel.
+ *
+ * @param <K> Channel key type.
+ *
+ * @see Signals
+ */
+public class Epoch<K> {
+    private final K key;
+    private final long index;
+    private final Feature[] features;
+    private final double[] values;
+
+    /**
+     * Create an epoch.
+     * 
+     * @param key Key of the channel.
+     * @param index Index of the epoch within its channel, starting at 0.
+     * @param features Features of the epoch, not copied.
+     * @param values Value of each feature, not copied.
+     */
+    public Epoch(K key, long index, Feature[] features, double[] values) {
+        this.key = key;
+        this.index = index;
+        this.features = features;
+        this.values = values;
+    }
+
+    /**
+     * Get the key of the channel of this epoch.
+     * @return the key
+     */
+    public K getKey() {
+        return key;
+    }
+
+    /**
+     * Get the index of this epoch within its channel.
+     * @return the index, starting at 0
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * Get the value of a feature.
+     * 
+     * @param feature The feature.
+     * @return the value of {@code feature}
+     * @throws IllegalArgumentException if the feature was not computed.
+     */
+    public double get(Feature feature) {
+        for (int i = 0; i < features.length; i++) {
+            if (features[i].equals(feature))
+                return values[i];
+        }
+        throw new IllegalArgumentException("feature not computed: " + feature);
+    }
+
+    /**
+     * Get the value of each feature.
+     * @return the values, in the order the features were given
+     */
+    public double[] getValues() {
+        return values.clone();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{key=").append(key).append(", index=").append(index);
+        for (int i = 0; i < features.length; i++)
+            sb.append(", ").append(features[i].getName()).append('=').append(values[i]);
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,161 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.analytics.signal;
+
+import static org.apache.edgent.function.Functions.closeFunction;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.edgent.function.Function;
+import org.apache.edgent.function.ToDoubleFunction;
+import org.apache.edgent.oplet.OpletContext;
+import org.apache.edgent.oplet.core.Pipe;
+
+/**
+ * Count based epochs of the samples of keyed channels.
+ * <P>
+ * Each channel, identified by the key of its tuples, has a ring buffer of
+ * the last {@code size} samples. Once it is full, the features of the
+ * buffer are submitted as an {@link Epoch} every {@code hop} samples of
+ * the channel: a tumbling epoch when {@code hop == size}, hopping epochs
+ * overlapping by {@code size - hop} samples when {@code hop < size}.
+ * </P>
+ * <P>
+ * The samples are kept as {@code double} and each channel has its own
+ * {@link FeatureExtractor}, so no object is allocated per sample beyond
+ * what the key and value functions allocate. The state of a channel is
+ * locked while a sample is added, so tuples of different channels
+ * can be processed concurrently and the epochs of a channel are
+ * submitted in order.
+ * </P>
+ *
+ * @param <T> Tuple type.
+ * @param <K> Channel key type.
+ *
+ * @see Signals
+ */
+public class EpochWindow<T, K> extends Pipe<T, Epoch<K>> {
+    private static final long serialVersionUID = 1L;
+
+    private final int size;
+    private final int hop;
+    private final Function<T, K> keyFunction;
+    private final ToDoubleFunction<T> valueFunction;
+    private final double sampleRate;
+    private final Feature[] features;
+
+    private transient ConcurrentMap<K, Channel> channels;
+
+    /**
+     * Create an epoch window.
+     * 
+     * @param size Number of samples in an epoch.
+     * @param hop Number of samples between the start of consecutive epochs.
+     * @param keyFunction How to obtain the channel key of a tuple.
+     * @param valueFunction How to obtain the sample of a tuple.
+     * @param sampleRate Sample rate in Hz, used by band powers.
+     * @param features Features to compute.
+     */
+    public EpochWindow(int size, int hop, Function<T, K> keyFunction, ToDoubleFunction<T> valueFunction,
+            double sampleRate, Feature... features) {
+        if (hop < 1)
+            throw new IllegalArgumentException("hop: " + hop);
+        // Fail now on an invalid size, rate or features.
+        new FeatureExtractor(size, sampleRate, features);
+        this.size = size;
+        this.hop = hop;
+        this.keyFunction = keyFunction;
+        this.valueFunction = valueFunction;
+        this.sampleRate = sampleRate;
+        this.features = features.clone();
+    }
+
+    @Override
+    public void initialize(OpletContext<T, Epoch<K>> context) {
+        super.initialize(context);
+        channels = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Get the number of channels seen so far.
+     * @return the number of channels
+     */
+    public int getChannelCount() {
+        return channels == null ? 0 : channels.size();
+    }
+
+    @Override
+    public void accept(T tuple) {
+        K key = keyFunction.apply(tuple);
+        double value = valueFunction.applyAsDouble(tuple);
+        Channel channel = channels.get(key);
+        if (channel == null) {
+            Channel created = new Channel(key);
+            channel = channels.putIfAbsent(key, created);
+            if (channel == null)
+                channel = created;
+        }
+        synchronized (channel) {
+            channel.add(value);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        closeFunction(keyFunction);
+        closeFunction(valueFunction);
+    }
+
+    /**
+     * Samples and extractor of one channel.
+     */
+    private final class Channel {
+        private final K key;
+        private final FeatureExtractor extractor = new FeatureExtractor(size, sampleRate, features);
+        private final double[] ring = new double[size];
+        private final double[] epoch = new double[size];
+        private int next;
+        private int count;
+        private int sinceEpoch;
+        private long index;
+
+        Channel(K key) {
+            this.key = key;
+        }
+
+        void add(double value) {
+            ring[next] = value;
+            if (++next == size)
+                next = 0;
+            if (count < size)
+                count++;
+            sinceEpoch++;
+            if (count < size || sinceEpoch < hop)
+                return;
+
+            sinceEpoch = 0;
+            System.arraycopy(ring, next, epoch, 0, size - next);
+            System.arraycopy(ring, 0, epoch, size - next, next);
+            double[] values = new double[features.length];
+            extractor.extract(epoch, values);
+            submit(new Epoch<>(key, index++, features, values));
+        }
+    }
+}
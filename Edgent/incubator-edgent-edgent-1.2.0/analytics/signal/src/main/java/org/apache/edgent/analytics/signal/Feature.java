@@ -0,0 +1,150 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.analytics.signal;
+
+import java.io.Serializable;
+
+/**
+ * A feature computed over an epoch of samples.
+ * <P>
+ * The fixed features are constants of this class, band powers are
+ * created with {@link #bandPower(double, double)}.
+ * Features are compared by value, so two band powers of the
+ * same band are the same feature.
+ * </P>
+ *
+ * @see FeatureExtractor
+ */
+public final class Feature implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    enum Kind {
+        SUM_SQUARED_DIFFS, ROOT_SUM_SQUARED_DIFFS, LINE_LENGTH, RMS, ZERO_CROSSINGS, BAND_POWER
+    }
+
+    /**
+     * Sum of the squared differences between consecutive samples.
+     */
+    public static final Feature SUM_SQUARED_DIFFS = new Feature(Kind.SUM_SQUARED_DIFFS, 0, 0);
+
+    /**
+     * Square root of {@link #SUM_SQUARED_DIFFS}.
+     */
+    public static final Feature ROOT_SUM_SQUARED_DIFFS = new Feature(Kind.ROOT_SUM_SQUARED_DIFFS, 0, 0);
+
+    /**
+     * Line length, the sum of the absolute differences between consecutive samples.
+     */
+    public static final Feature LINE_LENGTH = new Feature(Kind.LINE_LENGTH, 0, 0);
+
+    /**
+     * Root mean square of the samples.
+     */
+    public static final Feature RMS = new Feature(Kind.RMS, 0, 0);
+
+    /**
+     * Number of sign changes between consecutive samples,
+     * zero counting as positive.
+     */
+    public static final Feature ZERO_CROSSINGS = new Feature(Kind.ZERO_CROSSINGS, 0, 0);
+
+    private final Kind kind;
+    private final double lowHz;
+    private final double highHz;
+
+    private Feature(Kind kind, double lowHz, double highHz) {
+        this.kind = kind;
+        this.lowHz = lowHz;
+        this.highHz = highHz;
+    }
+
+    /**
+     * Power of the samples in a frequency band.
+     * <P>
+     * The power is the part of the mean square of the epoch
+     * contributed by the frequencies {@code f} with
+     * {@code lowHz <= f < highHz}, computed from the Fourier transform
+     * of the epoch without a window function. The powers of bands covering
+     * {@code 0} to half the sample rate add up to the square of {@link #RMS}.
+     * </P>
+     * 
+     * @param lowHz Lowest frequency of the band, included.
+     * @param highHz Highest frequency of the band, excluded.
+     *        May be {@code Double.POSITIVE_INFINITY}.
+     * @return The band power feature.
+     */
+    public static Feature bandPower(double lowHz, double highHz) {
+        if (!(lowHz >= 0) || !(highHz > lowHz))
+            throw new IllegalArgumentException("band: " + lowHz + "-" + highHz);
+        return new Feature(Kind.BAND_POWER, lowHz, highHz);
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Get the lowest frequency of a band power.
+     * @return the lowest frequency, {@code 0} for other features
+     */
+    public double getLowHz() {
+        return lowHz;
+    }
+
+    /**
+     * Get the highest frequency of a band power.
+     * @return the highest frequency, {@code 0} for other features
+     */
+    public double getHighHz() {
+        return highHz;
+    }
+
+    /**
+     * Get the name of this feature, such as {@code rms} or {@code bandPower[8.0-12.0]}.
+     * @return the name
+     */
+    public String getName() {
+        switch (kind) {
+        case SUM_SQUARED_DIFFS: return "sumSquaredDiffs";
+        case ROOT_SUM_SQUARED_DIFFS: return "rootSumSquaredDiffs";
+        case LINE_LENGTH: return "lineLength";
+        case RMS: return "rms";
+        case ZERO_CROSSINGS: return "zeroCrossings";
+        default: return "bandPower[" + lowHz + "-" + highHz + "]";
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof Feature))
+            return false;
+        Feature other = (Feature) obj;
+        return kind == other.kind && lowHz == other.lowHz && highHz == other.highHz;
+    }
+
+    @Override
+    public int hashCode() {
+        return kind.ordinal() * 31 + Double.valueOf(lowHz).hashCode() * 17 + Double.valueOf(highHz).hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
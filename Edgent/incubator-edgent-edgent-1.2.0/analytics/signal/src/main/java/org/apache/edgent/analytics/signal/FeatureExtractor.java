@@ -0,0 +1,211 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.analytics.signal;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Computes the features of epochs of a fixed number of samples.
+ * <P>
+ * The time domain features are computed in a single pass over the epoch.
+ * Band powers share one Fourier transform of the epoch, zero padded to a
+ * power of two, whose buffers and twiddle factors are allocated when the
+ * extractor is created. Extracting the features of an epoch allocates nothing.
+ * </P>
+ * <P>
+ * Instances are not thread safe, each channel needs its own extractor.
+ * </P>
+ *
+ * @see Signals
+ */
+public class FeatureExtractor implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int size;
+    private final Feature[] features;
+
+    // Fourier transform, null without band powers.
+    private final double[] re;
+    private final double[] im;
+    private final double[] cos;
+    private final double[] sin;
+    private final int[] reversed;
+    // First and last bins of each feature, unused for other features.
+    private final int[] lowBin;
+    private final int[] highBin;
+
+    /**
+     * Create an extractor.
+     * 
+     * @param size Number of samples in an epoch.
+     * @param sampleRate Sample rate in Hz, used by band powers.
+     * @param features Features to compute, in the order of the results.
+     */
+    public FeatureExtractor(int size, double sampleRate, Feature... features) {
+        if (size < 2)
+            throw new IllegalArgumentException("size: " + size);
+        if (features.length == 0)
+            throw new IllegalArgumentException("no features");
+        this.size = size;
+        this.features = features.clone();
+
+        boolean bands = false;
+        for (Feature feature : features)
+            bands |= feature.getKind() == Feature.Kind.BAND_POWER;
+        if (!bands) {
+            re = im = cos = sin = null;
+            reversed = lowBin = highBin = null;
+            return;
+        }
+        if (!(sampleRate > 0))
+            throw new IllegalArgumentException("sampleRate: " + sampleRate);
+
+        int n = Integer.highestOneBit(size);
+        if (n < size)
+            n <<= 1;
+        re = new double[n];
+        im = new double[n];
+        cos = new double[n / 2];
+        sin = new double[n / 2];
+        for (int i = 0; i < n / 2; i++) {
+            cos[i] = Math.cos(2 * Math.PI * i / n);
+            sin[i] = -Math.sin(2 * Math.PI * i / n);
+        }
+        reversed = new int[n];
+        int bits = Integer.numberOfTrailingZeros(n);
+        for (int i = 0; i < n; i++)
+            reversed[i] = Integer.reverse(i) >>> (32 - bits);
+
+        // Bin k holds the frequency k * sampleRate / n, up to n / 2.
+        lowBin = new int[features.length];
+        highBin = new int[features.length];
+        for (int f = 0; f < features.length; f++) {
+            Feature feature = features[f];
+            if (feature.getKind() != Feature.Kind.BAND_POWER)
+                continue;
+            lowBin[f] = (int) Math.ceil(feature.getLowHz() * n / sampleRate);
+            double high = feature.getHighHz() * n / sampleRate;
+            highBin[f] = Math.min(n / 2, (int) Math.ceil(high) - 1);
+        }
+    }
+
+    /**
+     * Get the number of samples in an epoch.
+     * @return the epoch size
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Get the features computed by this extractor.
+     * @return a copy of the features, in the order of the results
+     */
+    public Feature[] getFeatures() {
+        return features.clone();
+    }
+
+    /**
+     * Compute the features of an epoch.
+     * 
+     * @param epoch The samples of the epoch, oldest first. Not modified.
+     * @param results Receives the value of each feature, in the order of
+     *        {@link #getFeatures()}.
+     */
+    public void extract(double[] epoch, double[] results) {
+        if (epoch.length != size)
+            throw new IllegalArgumentException("epoch length " + epoch.length + " != " + size);
+
+        double previous = epoch[0];
+        double sumSquares = previous * previous;
+        double sumSquaredDiffs = 0;
+        double lineLength = 0;
+        int zeroCrossings = 0;
+        for (int i = 1; i < size; i++) {
+            double x = epoch[i];
+            double diff = x - previous;
+            sumSquares += x * x;
+            sumSquaredDiffs += diff * diff;
+            lineLength += Math.abs(diff);
+            if ((x < 0) != (previous < 0))
+                zeroCrossings++;
+            previous = x;
+        }
+
+        if (re != null)
+            transform(epoch);
+
+        for (int f = 0; f < features.length; f++) {
+            switch (features[f].getKind()) {
+            case SUM_SQUARED_DIFFS: results[f] = sumSquaredDiffs; break;
+            case ROOT_SUM_SQUARED_DIFFS: results[f] = Math.sqrt(sumSquaredDiffs); break;
+            case LINE_LENGTH: results[f] = lineLength; break;
+            case RMS: results[f] = Math.sqrt(sumSquares / size); break;
+            case ZERO_CROSSINGS: results[f] = zeroCrossings; break;
+            case BAND_POWER: results[f] = bandPower(lowBin[f], highBin[f]); break;
+            }
+        }
+    }
+
+    /**
+     * Mean square contributed by bins {@code low} to {@code high}, by Parseval's
+     * theorem the sum of the squared magnitudes of the bins divided by
+     * {@code n * size}. The bins strictly between 0 and n / 2 also stand
+     * for their negative frequency.
+     */
+    private double bandPower(int low, int high) {
+        int n = re.length;
+        double power = 0;
+        for (int k = low; k <= high; k++) {
+            double p = re[k] * re[k] + im[k] * im[k];
+            power += k == 0 || k == n / 2 ? p : 2 * p;
+        }
+        return power / ((double) n * size);
+    }
+
+    /**
+     * In place iterative radix-2 Fourier transform of the zero padded epoch.
+     */
+    private void transform(double[] epoch) {
+        int n = re.length;
+        Arrays.fill(re, 0);
+        Arrays.fill(im, 0);
+        for (int i = 0; i < size; i++)
+            re[reversed[i]] = epoch[i];
+
+        for (int half = 1; half < n; half <<= 1) {
+            int step = n / (half << 1);
+            for (int start = 0; start < n; start += half << 1) {
+                for (int j = 0; j < half; j++) {
+                    double wr = cos[j * step];
+                    double wi = sin[j * step];
+                    int a = start + j;
+                    int b = a + half;
+                    double tr = re[b] * wr - im[b] * wi;
+                    double ti = re[b] * wi + im[b] * wr;
+                    re[b] = re[a] - tr;
+                    im[b] = im[a] - ti;
+                    re[a] += tr;
+                    im[a] += ti;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.analytics.signal;
+
+import org.apache.edgent.function.Function;
+import org.apache.edgent.function.ToDoubleFunction;
+import org.apache.edgent.topology.TStream;
+
+/**
+ * Epoch feature extraction for streams of signal samples, such as biosignals.
+ * <P>
+ * A channel's samples are split into count based epochs and the features
+ * of each epoch are computed in a single pass over a primitive buffer.
+ * For example to compute the line length and the alpha band power of
+ * one second epochs of each electrode of an EEG sampled at 256 Hz, with
+ * a new epoch every half second:
+ * </P>
+ * <pre>{@code
+ * TStream<Epoch<String>> epochs = Signals.hopping(readings, 256, 128,
+ *     r -> r.getElectrode(), r -> r.getMicrovolts(), 256,
+ *     Feature.LINE_LENGTH, Feature.bandPower(8, 12));
+ * }</pre>
+ * <P>
+ * A single channel of {@code double} samples can use a feature as the
+ * aggregator of a {@code TDoubleStream} window:
+ * </P>
+ * <pre>{@code
+ * TDoubleStream rssd = samples.batch(178,
+ *     Signals.feature(Feature.ROOT_SUM_SQUARED_DIFFS, 178, 178));
+ * }</pre>
+ */
+public class Signals {
+
+    private Signals() {}
+
+    /**
+     * Compute features of tumbling epochs of keyed channels.
+     * <P>
+     * Each epoch of a channel is made of the next {@code size} samples
+     * of the channel.
+     * </P>
+     * 
+     * @param <T> Tuple type.
+     * @param <K> Channel key type.
+     * @param stream Stream containing the samples.
+     * @param size Number of samples in an epoch.
+     * @param keyFunction How to obtain the channel key of a tuple.
+     * @param valueFunction How to obtain the sample of a tuple.
+     * @param sampleRate Sample rate in Hz, used by band powers.
+     * @param features Features to compute.
+     * @return Stream containing the features of each epoch.
+     * 
+     * @see EpochWindow
+     */
+    public static <T, K> TStream<Epoch<K>> tumbling(TStream<T> stream, int size,
+            Function<T, K> keyFunction, ToDoubleFunction<T> valueFunction,
+            double sampleRate, Feature... features) {
+        return hopping(stream, size, size, keyFunction, valueFunction, sampleRate, features);
+    }
+
+    /**
+     * Compute features of hopping epochs of keyed channels.
+     * <P>
+     * A channel's first epoch is made of its first {@code size} samples,
+     * each next epoch starts {@code hop} samples after the previous one.
+     * </P>
+     * 
+     * @param <T> Tuple type.
+     * @param <K> Channel key type.
+     * @param stream Stream containing the samples.
+     * @param size Number of samples in an epoch.
+     * @param hop Number of samples between the start of consecutive epochs.
+     * @param keyFunction How to obtain the channel key of a tuple.
+     * @param valueFunction How to obtain the sample of a tuple.
+     * @param sampleRate Sample rate in Hz, used by band powers.
+     * @param features Features to compute.
+     * @return Stream containing the features of each epoch.
+     * 
+     * @see EpochWindow
+     */
+    public static <T, K> TStream<Epoch<K>> hopping(TStream<T> stream, int size, int hop,
+            Function<T, K> keyFunction, ToDoubleFunction<T> valueFunction,
+            double sampleRate, Feature... features) {
+        return stream.pipe(new EpochWindow<>(size, hop, keyFunction, valueFunction, sampleRate, features));
+    }
+
+    /**
+     * Create an aggregator computing a feature of a window of samples.
+     * <P>
+     * The aggregator is meant for the count based windows of
+     * {@code TDoubleStream}, whose count must be {@code size}.
+     * </P>
+     * 
+     * @param feature Feature to compute.
+     * @param size Number of samples in the window.
+     * @param sampleRate Sample rate in Hz, used by band powers.
+     * @return Function computing {@code feature} of a window.
+     */
+    public static ToDoubleFunction<double[]> feature(Feature feature, int size, double sampleRate) {
+        FeatureExtractor extractor = new FeatureExtractor(size, sampleRate, feature);
+        double[] result = new double[1];
+        return window -> {
+            extractor.extract(window, result);
+            return result[0];
+        };
+    }
+}
@@ -0,0 +1,168 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.test.analytics.signal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.edgent.analytics.signal.Epoch;
+import org.apache.edgent.analytics.signal.Feature;
+import org.apache.edgent.analytics.signal.FeatureExtractor;
+import org.apache.edgent.analytics.signal.Signals;
+import org.apache.edgent.test.providers.direct.DirectTopologyTestBase;
+import org.apache.edgent.topology.TStream;
+import org.apache.edgent.topology.Topology;
+import org.apache.edgent.topology.tester.Condition;
+import org.junit.Test;
+
+public class SignalsTest extends DirectTopologyTestBase {
+
+    private static final Feature[] FEATURES = {
+            Feature.SUM_SQUARED_DIFFS, Feature.ROOT_SUM_SQUARED_DIFFS, Feature.LINE_LENGTH,
+            Feature.RMS, Feature.ZERO_CROSSINGS, Feature.bandPower(0, 30) };
+
+    @Test
+    public void testTimeDomainFeatures() {
+        FeatureExtractor extractor = new FeatureExtractor(5, 0, FEATURES[0], FEATURES[1],
+                FEATURES[2], FEATURES[3], FEATURES[4]);
+        double[] results = new double[5];
+        extractor.extract(new double[] {1, -1, 1, -1, 0}, results);
+        assertArrayEquals(new double[] {13, Math.sqrt(13), 7, Math.sqrt(4.0 / 5), 4}, results, 1e-12);
+    }
+
+    @Test
+    public void testBandPower() {
+        int rate = 256;
+        double[] sine = new double[rate];
+        for (int i = 0; i < sine.length; i++)
+            sine[i] = Math.sin(2 * Math.PI * 10 * i / rate);
+        FeatureExtractor extractor = new FeatureExtractor(rate, rate,
+                Feature.bandPower(8, 12), Feature.bandPower(12, 30), Feature.RMS);
+        double[] results = new double[3];
+        extractor.extract(sine, results);
+        assertEquals(0.5, results[0], 1e-9);
+        assertEquals(0, results[1], 1e-9);
+
+        // Bands covering the spectrum add up to the mean square, also with zero padding.
+        double[] noise = noise(178, 1);
+        extractor = new FeatureExtractor(noise.length, 178,
+                Feature.bandPower(0, 40), Feature.bandPower(40, Double.POSITIVE_INFINITY), Feature.RMS);
+        extractor.extract(noise, results);
+        assertEquals(results[2] * results[2], results[0] + results[1], 1e-9);
+        assertTrue(results[0] > 0 && results[1] > 0);
+    }
+
+    @Test
+    public void testTumbling() throws Exception {
+        Topology topology = newTopology("testTumbling");
+        double[][] channels = { noise(12, 2), noise(12, 3) };
+        TStream<Epoch<Integer>> epochs = Signals.tumbling(topology.collection(interleave(channels)), 4,
+                s -> s.channel, s -> s.value, 100, FEATURES);
+
+        Condition<Long> count = topology.getTester().tupleCount(epochs, 6);
+        Condition<List<Epoch<Integer>>> contents = topology.getTester().streamContents(epochs);
+        complete(topology, count);
+        assertTrue(count.valid());
+
+        FeatureExtractor extractor = new FeatureExtractor(4, 100, FEATURES);
+        long[] indexes = new long[channels.length];
+        for (Epoch<Integer> epoch : contents.getResult()) {
+            long index = indexes[epoch.getKey()]++;
+            assertEquals(index, epoch.getIndex());
+            int from = (int) index * 4;
+            assertArrayEquals(expected(extractor, channels[epoch.getKey()], from, from + 4),
+                    epoch.getValues(), 1e-12);
+            assertEquals(epoch.getValues()[3], epoch.get(Feature.RMS), 0);
+        }
+        assertArrayEquals(new long[] {3, 3}, indexes);
+    }
+
+    @Test
+    public void testHopping() throws Exception {
+        Topology topology = newTopology("testHopping");
+        double[][] channels = { noise(11, 4) };
+        TStream<Epoch<Integer>> epochs = Signals.hopping(topology.collection(interleave(channels)), 4, 2,
+                s -> s.channel, s -> s.value, 100, FEATURES);
+
+        Condition<Long> count = topology.getTester().tupleCount(epochs, 4);
+        Condition<List<Epoch<Integer>>> contents = topology.getTester().streamContents(epochs);
+        complete(topology, count);
+        assertTrue(count.valid());
+
+        FeatureExtractor extractor = new FeatureExtractor(4, 100, FEATURES);
+        List<Epoch<Integer>> result = contents.getResult();
+        for (int i = 0; i < result.size(); i++) {
+            assertEquals(i, result.get(i).getIndex());
+            assertArrayEquals(expected(extractor, channels[0], i * 2, i * 2 + 4),
+                    result.get(i).getValues(), 1e-12);
+        }
+    }
+
+    @Test
+    public void testDoubleStreamFeature() throws Exception {
+        Topology topology = newTopology("testDoubleStreamFeature");
+        TStream<Double> rssd = topology.collection(Arrays.asList(0.0, 3.0, 3.0, 7.0, 1.0, 1.0, 1.0, 1.0))
+                .mapToDouble(v -> v)
+                .batch(4, Signals.feature(Feature.ROOT_SUM_SQUARED_DIFFS, 4, 0))
+                .boxed();
+
+        Condition<List<Double>> contents = topology.getTester().streamContents(rssd, 5.0, 0.0);
+        complete(topology, contents);
+        assertTrue(contents.getResult().toString(), contents.valid());
+    }
+
+    private static double[] expected(FeatureExtractor extractor, double[] samples, int from, int to) {
+        double[] results = new double[extractor.getFeatures().length];
+        extractor.extract(Arrays.copyOfRange(samples, from, to), results);
+        return results;
+    }
+
+    private static double[] noise(int n, long seed) {
+        Random r = new Random(seed);
+        double[] samples = new double[n];
+        for (int i = 0; i < n; i++)
+            samples[i] = r.nextGaussian();
+        return samples;
+    }
+
+    private static List<Sample> interleave(double[][] channels) {
+        List<Sample> samples = new ArrayList<>();
+        for (int i = 0; i < channels[0].length; i++) {
+            for (int c = 0; c < channels.length; c++)
+                samples.add(new Sample(c, channels[c][i]));
+        }
+        return samples;
+    }
+
+    private static class Sample {
+        final int channel;
+        final double value;
+
+        Sample(int channel, double value) {
+            this.channel = channel;
+            this.value = value;
+        }
+    }
+}
@@ -39,6 +39,12 @@ package org.apache.edgent.execution;
  *    <td>String</td>
  *    <td>The name of the job.</td>
  *  </tr>
+ * <tr>
+ *    <td>{@link #JOB_INSTRUMENTATION instrumentation}</td>
+ *    <td>Boolean</td>
+ *    <td>Collect per-oplet tuple counts, processing time and
+ *    queue depths for the job.</td>
+ *  </tr>
  * </table>
  */
 public interface Configs {
@@ -48,4 +54,18 @@ public interface Configs {
      * The value is {@value}.
      */
     String JOB_NAME = "jobName";
+
+    /**
+     * JOB_INSTRUMENTATION is used to identify the submission configuration
+     * property which enables instrumentation of the job's oplets.
+     * The value is {@value}.
+     * <p>
+     * When {@code true}, the runtime records the number of tuples
+     * received and submitted by each oplet and the time spent processing
+     * them, without adding vertices to the graph.
+     * The default is {@code false}.
+     * </p>
+     * @see org.apache.edgent.execution.mbeans.JobMXBean#instrumentationSnapshot()
+     */
+    String JOB_INSTRUMENTATION = "instrumentation";
 }
@@ -0,0 +1,65 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.execution.mbeans;
+
+/**
+ * Control mbean interface for the channels of a parallel stream.
+ * <P>
+ * Exposes the number of tuples routed to each channel, to observe
+ * how evenly the load is spread among the channels.
+ * </P>
+ * 
+ * See {@code org.apache.edgent.topology.plumbing.PlumbingStreams.parallelKeyed()}
+ */
+public interface ChannelLoadMXBean {
+    /**
+     * TYPE is used to identify this bean as a parallel channels bean when registering it
+     * with the {@link org.apache.edgent.execution.services.ControlService ControlService}.
+     * The value is {@value} 
+     */
+    String TYPE = "parallel";
+
+    /**
+     * Get the number of channels.
+     * @return the number of channels
+     */
+    int getWidth();
+
+    /**
+     * Get the number of tuples routed to a channel.
+     * @param channel the 0-based channel number
+     * @return the number of tuples
+     */
+    long getChannelTuples(int channel);
+
+    /**
+     * Get the number of tuples routed away from their channel
+     * because their key was hot.
+     * @return the number of tuples
+     */
+    long getHotKeyTuples();
+
+    /**
+     * Get the ratio of the number of tuples routed to the busiest channel
+     * to the mean number of tuples per channel, {@code 1} when the load
+     * is perfectly spread.
+     * @return the ratio, {@code 0} if no tuple was routed
+     */
+    double getImbalance();
+}
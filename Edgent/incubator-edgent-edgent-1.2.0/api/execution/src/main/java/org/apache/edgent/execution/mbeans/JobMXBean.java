@@ -103,6 +103,39 @@ public interface JobMXBean {
      */
     String graphSnapshot();
 
+    /**
+     * Takes a current snapshot of the job's oplet instrumentation and 
+     * returns it in JSON format.
+     * <p>
+     * Tuple counts and processing times are only collected when the job
+     * was submitted with {@link org.apache.edgent.execution.Configs#JOB_INSTRUMENTATION}
+     * set to {@code true}; queue depths are always reported.
+     * <p>
+     * <b>The instrumentation snapshot JSON format</b>
+     * <p>
+     * The top-level object contains the following properties: 
+     * <ul>
+     * <li>{@code timestamp}: Time the snapshot was taken, in milliseconds since the epoch.</li>
+     * <li>{@code instrumented}: Whether tuple counts and processing times are collected.</li>
+     * <li>{@code oplets}: Array of JSON objects, one per oplet.</li>
+     * </ul>
+     * The oplet object contains the following properties:
+     * <ul>
+     * <li>{@code id}: The oplet identifier, matching the vertex {@code id} in the {@link #graphSnapshot() graph snapshot}.</li>
+     * <li>{@code kind}: The oplet class name.</li>
+     * <li>{@code tuplesIn}: Number of tuples received on all input ports.</li>
+     * <li>{@code tuplesOut}: Number of tuples submitted on all output ports.</li>
+     * <li>{@code processingNanos}: Cumulative time spent processing input tuples,
+     *      excluding time spent in downstream oplets.</li>
+     * <li>{@code queueDepth}: Array with the number of tuples queued on each 
+     *      input port, present only for oplets that queue their input 
+     *      (e.g. {@code Isolate} and {@code Barrier}).</li>
+     * </ul>
+     *  
+     * @return a JSON-formatted string representing the job's instrumentation. 
+     */
+    String instrumentationSnapshot();
+
     /**
      * Initiates an execution state change.
      * 
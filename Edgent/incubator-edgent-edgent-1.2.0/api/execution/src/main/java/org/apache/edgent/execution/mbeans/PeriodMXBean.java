@@ -59,4 +59,23 @@ public interface PeriodMXBean {
      * @param unit the {@link TimeUnit} of {@code period}
      */
     public void setPeriod(long period, TimeUnit unit);
+
+    /**
+     * Get the schedule lag of the last period, how late its execution
+     * started relative to the fixed rate schedule.
+     * @return lag in nanoseconds
+     */
+    public long getLastLag();
+
+    /**
+     * Get the largest schedule lag of a period since the entity started.
+     * @return lag in nanoseconds
+     */
+    public long getMaxLag();
+
+    /**
+     * Get the mean schedule lag of the periods since the entity started.
+     * @return lag in nanoseconds
+     */
+    public long getMeanLag();
 }
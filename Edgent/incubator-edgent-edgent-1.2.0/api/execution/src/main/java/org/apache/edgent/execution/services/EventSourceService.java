@@ -0,0 +1,63 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.execution.services;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Event source service.
+ * <p>
+ * An event source, such as the source of {@code Topology.events()}, submits
+ * tuples from callbacks of an external system rather than from a thread
+ * of the job. Instead of parking a thread to keep its job running, it
+ * registers itself as active with this service: the job is not complete
+ * while it has active event sources.
+ * <p>
+ * The service also provides an executor, shared by the event sources of
+ * the job, that event sources can use to process their events off the
+ * callbacks' threads.
+ */
+public interface EventSourceService {
+
+    /**
+     * Registers an active event source.
+     * Each call must be paired with a call to {@link #deactivate()}.
+     */
+    void activate();
+
+    /**
+     * Unregisters an active event source.
+     */
+    void deactivate();
+
+    /**
+     * Returns the number of active event sources.
+     * @return the number of active event sources
+     */
+    int getActiveCount();
+
+    /**
+     * Returns the executor shared by the event sources of the job.
+     * <p>
+     * The executor runs on the job's scheduler, which has a bounded
+     * number of threads, and rejects tasks once the job is closed.
+     * @return the executor
+     */
+    Executor getDeliveryExecutor();
+}
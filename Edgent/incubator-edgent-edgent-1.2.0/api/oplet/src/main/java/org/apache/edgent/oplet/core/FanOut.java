@@ -22,8 +22,10 @@ import java.util.Collections;
 import java.util.List;
 
 import org.apache.edgent.function.Consumer;
+import org.apache.edgent.function.DoubleConsumer;
+import org.apache.edgent.function.LongConsumer;
 
-public final class FanOut<T> extends AbstractOplet<T, T> implements Consumer<T> {
+public final class FanOut<T> extends AbstractOplet<T, T> implements Consumer<T>, DoubleConsumer, LongConsumer {
     
     /**
      * 
@@ -50,6 +52,20 @@ public final class FanOut<T> extends AbstractOplet<T, T> implements Consumer<T>
             targets.get(i).accept(tuple);
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public void accept(double tuple) {
+        for (int i = 0; i < n; i++)
+            PrimitiveTuples.submitDouble((Consumer<Double>) targets.get(i), tuple);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void accept(long tuple) {
+        for (int i = 0; i < n; i++)
+            PrimitiveTuples.submitLong((Consumer<Long>) targets.get(i), tuple);
+    }
+
     @Override
     public void close() {
     }
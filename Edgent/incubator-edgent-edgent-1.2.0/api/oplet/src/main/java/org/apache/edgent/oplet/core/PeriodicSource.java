@@ -36,6 +36,14 @@ public abstract class PeriodicSource<T> extends Source<T> implements Runnable, P
     private TimeUnit unit;
     private ScheduledFuture<?> future;
 
+    // Schedule lag, updated by the executions only.
+    private volatile long nextRunNanos;
+    private volatile long periodNanos;
+    private volatile long lastLag;
+    private volatile long maxLag;
+    private volatile long totalLag;
+    private volatile long runs;
+
     protected PeriodicSource(long period, TimeUnit unit) {
         this.period = period;
         this.unit = unit;
@@ -65,6 +73,8 @@ public abstract class PeriodicSource<T> extends Source<T> implements Runnable, P
     }
 
     private synchronized void schedule(boolean delay) {
+        periodNanos = getUnit().toNanos(getPeriod());
+        nextRunNanos = System.nanoTime() + (delay ? periodNanos : 0);
         future = getOpletContext().getService(ScheduledExecutorService.class).scheduleAtFixedRate(
                 getRunnable(), delay ? getPeriod() : 0, getPeriod(), getUnit());
     }
@@ -77,6 +87,7 @@ public abstract class PeriodicSource<T> extends Source<T> implements Runnable, P
 
     @Override
     public void run() {
+        recordLag(System.nanoTime());
         try {
             fetchTuples();
         } catch (Exception e) {
@@ -84,6 +95,18 @@ public abstract class PeriodicSource<T> extends Source<T> implements Runnable, P
         }
     }
 
+    // Executions at a fixed rate are expected every period from the first one,
+    // late executions are followed by catch up ones.
+    private void recordLag(long now) {
+        long lag = Math.max(0, now - nextRunNanos);
+        nextRunNanos += periodNanos;
+        lastLag = lag;
+        if (lag > maxLag)
+            maxLag = lag;
+        totalLag += lag;
+        runs++;
+    }
+
     @Override
     public synchronized long getPeriod() {
         return period;
@@ -110,4 +133,20 @@ public abstract class PeriodicSource<T> extends Source<T> implements Runnable, P
             schedule(true);
         }  
     }
+
+    @Override
+    public long getLastLag() {
+        return lastLag;
+    }
+
+    @Override
+    public long getMaxLag() {
+        return maxLag;
+    }
+
+    @Override
+    public long getMeanLag() {
+        long n = runs;
+        return n == 0 ? 0 : totalLag / n;
+    }
 }
@@ -0,0 +1,64 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.oplet.core;
+
+import org.apache.edgent.function.Consumer;
+import org.apache.edgent.function.DoubleConsumer;
+import org.apache.edgent.function.LongConsumer;
+
+/**
+ * Passing of primitive tuples between oplets.
+ * <P>
+ * A {@code double} or {@code long} tuple submitted through these methods
+ * is passed as a primitive to a destination implementing
+ * {@link DoubleConsumer} or {@link LongConsumer}, and boxed for any
+ * other destination. Oplets accepting primitive tuples implement these
+ * interfaces next to {@code Consumer}, runtime forwarders implement them
+ * by passing the primitive on to their destination.
+ * </P>
+ */
+public final class PrimitiveTuples {
+
+    private PrimitiveTuples() {
+    }
+
+    /**
+     * Submit a {@code double} tuple to a destination.
+     * @param destination Destination of the tuple.
+     * @param tuple Tuple to be submitted.
+     */
+    public static void submitDouble(Consumer<Double> destination, double tuple) {
+        if (destination instanceof DoubleConsumer)
+            ((DoubleConsumer) destination).accept(tuple);
+        else
+            destination.accept(tuple);
+    }
+
+    /**
+     * Submit a {@code long} tuple to a destination.
+     * @param destination Destination of the tuple.
+     * @param tuple Tuple to be submitted.
+     */
+    public static void submitLong(Consumer<Long> destination, long tuple) {
+        if (destination instanceof LongConsumer)
+            ((LongConsumer) destination).accept(tuple);
+        else
+            destination.accept(tuple);
+    }
+}
@@ -0,0 +1,53 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.oplet.functional;
+
+import static org.apache.edgent.function.Functions.closeFunction;
+
+import org.apache.edgent.function.DoubleConsumer;
+import org.apache.edgent.function.DoubleUnaryOperator;
+import org.apache.edgent.oplet.core.Pipe;
+import org.apache.edgent.oplet.core.PrimitiveTuples;
+
+/**
+ * Map a {@code double} tuple to a {@code double} tuple without boxing.
+ */
+public class DoubleMap extends Pipe<Double, Double> implements DoubleConsumer {
+    private static final long serialVersionUID = 1L;
+    private DoubleUnaryOperator function;
+
+    public DoubleMap(DoubleUnaryOperator function) {
+        this.function = function;
+    }
+
+    @Override
+    public void accept(Double tuple) {
+        accept(tuple.doubleValue());
+    }
+
+    @Override
+    public void accept(double tuple) {
+        PrimitiveTuples.submitDouble(getDestination(), function.applyAsDouble(tuple));
+    }
+
+    @Override
+    public void close() throws Exception {
+        closeFunction(function);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.oplet.functional;
+
+import static org.apache.edgent.function.Functions.closeFunction;
+
+import org.apache.edgent.function.DoubleConsumer;
+import org.apache.edgent.oplet.core.PrimitiveTuples;
+
+/**
+ * Functional peek oplet for {@code double} tuples.
+ * 
+ * Each peek calls {@code peeker.accept(tuple)}.
+ */
+public class DoublePeek extends org.apache.edgent.oplet.core.Peek<Double> implements DoubleConsumer {
+    private static final long serialVersionUID = 1L;
+    private final DoubleConsumer peeker;
+
+    /**
+     * Peek oplet using a function to peek.
+     * @param peeker Function that peeks at the tuple.
+     */
+    public DoublePeek(DoubleConsumer peeker) {
+        this.peeker = peeker;
+    }
+
+    @Override
+    protected void peek(Double tuple) {
+        peeker.accept(tuple.doubleValue());
+    }
+
+    @Override
+    public void accept(double tuple) {
+        peeker.accept(tuple);
+        PrimitiveTuples.submitDouble(getDestination(), tuple);
+    }
+
+    @Override
+    public void close() throws Exception {
+        closeFunction(peeker);
+    }
+}
@@ -0,0 +1,51 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.oplet.functional;
+
+import static org.apache.edgent.function.Functions.closeFunction;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.edgent.function.DoubleSupplier;
+import org.apache.edgent.oplet.core.PeriodicSource;
+import org.apache.edgent.oplet.core.PrimitiveTuples;
+
+/**
+ * Periodic source of {@code double} tuples, each period submits
+ * the value of {@code data.getAsDouble()} without boxing.
+ */
+public class DoubleSupplierPeriodicSource extends PeriodicSource<Double> {
+
+    private DoubleSupplier data;
+
+    public DoubleSupplierPeriodicSource(long period, TimeUnit unit, DoubleSupplier data) {
+        super(period, unit);
+        this.data = data;
+    }
+
+    @Override
+    public void close() throws Exception {
+        closeFunction(data);
+    }
+
+    @Override
+    public void fetchTuples() {
+        PrimitiveTuples.submitDouble(getDestination(), data.getAsDouble());
+    }
+}
@@ -21,9 +21,15 @@ package org.apache.edgent.oplet.functional;
 
 import static org.apache.edgent.function.Functions.closeFunction;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.apache.edgent.execution.services.EventSourceService;
 import org.apache.edgent.function.Consumer;
 import org.apache.edgent.oplet.core.Source;
 
@@ -32,6 +38,17 @@ import org.apache.edgent.oplet.core.Source;
  * This oplet implements {@link Consumer} which
  * can be called directly from an event handler,
  * listener or callback. 
+ * <P>
+ * The oplet keeps its job running until it is closed. When the runtime
+ * provides an {@link EventSourceService} it is registered as an active
+ * event source, otherwise a thread is allocated for it.
+ * </P>
+ * <P>
+ * By default events are submitted on the thread calling {@link #accept(Object)}.
+ * When created with a queue capacity, events are instead queued and
+ * submitted, in order, by the executor the runtime shares between its event
+ * sources. {@code accept} then only blocks when the queue is full.
+ * </P>
  * 
  * @param <T> Data container type for output tuples.
  */
@@ -39,32 +56,72 @@ public class Events<T> extends Source<T>implements Consumer<T> {
 
     private static final long serialVersionUID = 1L;
     private Consumer<Consumer<T>> eventSetup;
+    private final int queueCapacity;
+    private transient EventSourceService eventSources;
+    private transient BlockingQueue<T> queue;
+    private transient AtomicBoolean draining;
+    private transient Executor delivery;
 
     public Events(Consumer<Consumer<T>> eventSetup) {
+        this(eventSetup, 0);
+    }
+
+    /**
+     * Creates an event source which hands events off to the runtime's
+     * shared executor.
+     * 
+     * @param eventSetup function registering the oplet with the event source
+     * @param queueCapacity capacity of the queue of events not submitted yet,
+     *      {@code 0} to submit events on the thread calling {@code accept}
+     */
+    public Events(Consumer<Consumer<T>> eventSetup, int queueCapacity) {
+        if (queueCapacity < 0)
+            throw new IllegalArgumentException("queueCapacity: " + queueCapacity);
         this.eventSetup = eventSetup;
+        this.queueCapacity = queueCapacity;
     }
 
     @Override
-    public void close() throws Exception {
-        closeFunction(eventSetup);
+    public synchronized void close() throws Exception {
+        try {
+            closeFunction(eventSetup);
+        } finally {
+            if (eventSources != null) {
+                eventSources.deactivate();
+                eventSources = null;
+            }
+        }
     }
 
     @Override
-    public void start() {
-        // Allocate a thread so the job containing this oplet
-        // doesn't look "complete" and shutdown.
-        Thread endlessEventSource = getOpletContext()
-                .getService(ThreadFactory.class)
-                .newThread(() -> {
-                    try {
-                        Thread.sleep(Long.MAX_VALUE);
-                    }
-                    catch (InterruptedException e) {
-                        // cancelled; we're done.
-                    }
-                });
-        endlessEventSource.setDaemon(false);
-        endlessEventSource.start();
+    public synchronized void start() {
+        // Keep the job containing this oplet from looking "complete"
+        // and shutting down.
+        eventSources = getOpletContext().getService(EventSourceService.class);
+        if (eventSources != null) {
+            eventSources.activate();
+        }
+        else {
+            Thread endlessEventSource = getOpletContext()
+                    .getService(ThreadFactory.class)
+                    .newThread(() -> {
+                        try {
+                            Thread.sleep(Long.MAX_VALUE);
+                        }
+                        catch (InterruptedException e) {
+                            // cancelled; we're done.
+                        }
+                    });
+            endlessEventSource.setDaemon(false);
+            endlessEventSource.start();
+        }
+
+        if (queueCapacity > 0) {
+            queue = new ArrayBlockingQueue<>(queueCapacity);
+            draining = new AtomicBoolean();
+            delivery = eventSources != null ? eventSources.getDeliveryExecutor()
+                    : getOpletContext().getService(ScheduledExecutorService.class);
+        }
 
         // It's possible for uses to do things like a blocking connect
         // to an external system from eventSetup.accept() so run it as
@@ -75,6 +132,47 @@ public class Events<T> extends Source<T>implements Consumer<T> {
 
     @Override
     public void accept(T tuple) {
-        submit(tuple);
+        if (queue == null) {
+            submit(tuple);
+            return;
+        }
+        try {
+            queue.put(tuple);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * Schedules a task submitting the queued events unless one
+     * is already scheduled, so events are submitted in order.
+     */
+    private void scheduleDrain() {
+        if (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+            try {
+                delivery.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // The job is shutting down, events are discarded.
+                queue.clear();
+                draining.set(false);
+            }
+        }
+    }
+
+    /**
+     * Submits at most a queue's worth of events, then yields the
+     * executor to the other event sources.
+     */
+    private void drain() {
+        try {
+            T tuple;
+            for (int i = 0; i < queueCapacity && (tuple = queue.poll()) != null; i++)
+                submit(tuple);
+        } finally {
+            draining.set(false);
+        }
+        scheduleDrain();
     }
 }
@@ -0,0 +1,56 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.oplet.functional;
+
+import static org.apache.edgent.function.Functions.closeFunction;
+
+import org.apache.edgent.function.LongConsumer;
+import org.apache.edgent.function.LongFunction;
+import org.apache.edgent.oplet.core.Pipe;
+
+/**
+ * Map a {@code long} tuple to 0-1 output tuple.
+ *
+ * @param <O> Data container type for output tuples.
+ */
+public class LongMapToObj<O> extends Pipe<Long, O> implements LongConsumer {
+    private static final long serialVersionUID = 1L;
+    private LongFunction<O> function;
+
+    public LongMapToObj(LongFunction<O> function) {
+        this.function = function;
+    }
+
+    @Override
+    public void accept(Long tuple) {
+        accept(tuple.longValue());
+    }
+
+    @Override
+    public void accept(long tuple) {
+        O output = function.apply(tuple);
+        if (output != null)
+            submit(output);
+    }
+
+    @Override
+    public void close() throws Exception {
+        closeFunction(function);
+    }
+}
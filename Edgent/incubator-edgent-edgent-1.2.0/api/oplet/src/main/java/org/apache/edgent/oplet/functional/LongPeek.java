@@ -0,0 +1,58 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.oplet.functional;
+
+import static org.apache.edgent.function.Functions.closeFunction;
+
+import org.apache.edgent.function.LongConsumer;
+import org.apache.edgent.oplet.core.PrimitiveTuples;
+
+/**
+ * Functional peek oplet for {@code long} tuples.
+ * 
+ * Each peek calls {@code peeker.accept(tuple)}.
+ */
+public class LongPeek extends org.apache.edgent.oplet.core.Peek<Long> implements LongConsumer {
+    private static final long serialVersionUID = 1L;
+    private final LongConsumer peeker;
+
+    /**
+     * Peek oplet using a function to peek.
+     * @param peeker Function that peeks at the tuple.
+     */
+    public LongPeek(LongConsumer peeker) {
+        this.peeker = peeker;
+    }
+
+    @Override
+    protected void peek(Long tuple) {
+        peeker.accept(tuple.longValue());
+    }
+
+    @Override
+    public void accept(long tuple) {
+        peeker.accept(tuple);
+        PrimitiveTuples.submitLong(getDestination(), tuple);
+    }
+
+    @Override
+    public void close() throws Exception {
+        closeFunction(peeker);
+    }
+}
@@ -0,0 +1,59 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.oplet.functional;
+
+import static org.apache.edgent.function.Functions.closeFunction;
+
+import org.apache.edgent.function.Consumer;
+import org.apache.edgent.function.LongConsumer;
+import org.apache.edgent.oplet.core.Sink;
+
+/**
+ * Sink a stream of {@code long} tuples without boxing.
+ * If the {@code sinker} function implements {@code AutoCloseable}
+ * then when this oplet is closed {@code sinker.close()} is called.
+ */
+public class LongSink extends Sink<Long> implements Consumer<Long>, LongConsumer {
+    private static final long serialVersionUID = 1L;
+    private final LongConsumer sinker;
+
+    /**
+     * Create a {@code LongSink} oplet.
+     * @param sinker Processing to be performed on each tuple.
+     */
+    public LongSink(LongConsumer sinker) {
+        this.sinker = sinker;
+        setSinker(this);
+    }
+
+    @Override
+    public void accept(Long tuple) {
+        sinker.accept(tuple.longValue());
+    }
+
+    @Override
+    public void accept(long tuple) {
+        sinker.accept(tuple);
+    }
+
+    @Override
+    public void close() throws Exception {
+        closeFunction(sinker);
+    }
+}
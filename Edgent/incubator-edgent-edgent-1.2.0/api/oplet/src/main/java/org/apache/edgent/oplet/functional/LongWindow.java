@@ -0,0 +1,95 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.oplet.functional;
+
+import static org.apache.edgent.function.Functions.closeFunction;
+
+import org.apache.edgent.function.LongConsumer;
+import org.apache.edgent.function.ToLongFunction;
+import org.apache.edgent.oplet.core.Pipe;
+import org.apache.edgent.oplet.core.PrimitiveTuples;
+
+/**
+ * Aggregate count based windows of {@code long} tuples without boxing.
+ * <P>
+ * The window holds the last {@code count} tuples in a ring buffer.
+ * A sliding window is aggregated on each tuple once it holds {@code count}
+ * tuples, a batch window each {@code count} tuples and then emptied.
+ * The aggregator is called with the window contents oldest first in an
+ * array reused across calls, the aggregate is submitted.
+ * </P>
+ * <P>
+ * Tuples from several threads, such as a union of sources, are
+ * inserted and aggregated one at a time, as with the partitions
+ * of a {@link org.apache.edgent.window.Window}.
+ * </P>
+ */
+public class LongWindow extends Pipe<Long, Long> implements LongConsumer {
+    private static final long serialVersionUID = 1L;
+    private final boolean batch;
+    private final ToLongFunction<long[]> aggregator;
+    private final long[] ring;
+    private final long[] contents;
+    private int next;
+    private int size;
+
+    /**
+     * Create a window oplet.
+     * @param count Number of tuples in the window.
+     * @param batch {@code true} for a batch window, {@code false} for a sliding window.
+     * @param aggregator Function that aggregates the window contents.
+     */
+    public LongWindow(int count, boolean batch, ToLongFunction<long[]> aggregator) {
+        if (count <= 0)
+            throw new IllegalArgumentException("count <= 0");
+        this.batch = batch;
+        this.aggregator = aggregator;
+        this.ring = new long[count];
+        this.contents = batch ? ring : new long[count];
+    }
+
+    @Override
+    public void accept(Long tuple) {
+        accept(tuple.longValue());
+    }
+
+    @Override
+    public synchronized void accept(long tuple) {
+        ring[next] = tuple;
+        if (++next == ring.length)
+            next = 0;
+        if (size < ring.length)
+            size++;
+        if (size < ring.length)
+            return;
+
+        if (batch) {
+            size = 0;
+        } else {
+            System.arraycopy(ring, next, contents, 0, ring.length - next);
+            System.arraycopy(ring, 0, contents, ring.length - next, next);
+        }
+        PrimitiveTuples.submitLong(getDestination(), aggregator.applyAsLong(contents));
+    }
+
+    @Override
+    public void close() throws Exception {
+        closeFunction(aggregator);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.oplet.functional;
+
+import static org.apache.edgent.function.Functions.closeFunction;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.edgent.function.BiFunction;
+import org.apache.edgent.function.Supplier;
+import org.apache.edgent.oplet.core.PeriodicSource;
+
+/**
+ * Periodic source that drains a batch of samples per period.
+ * <P>
+ * Each period {@code data.get()} returns the samples accumulated since the
+ * previous period, the batch ends at the end of the array or at its first
+ * {@code null} element, so a supplier may refill the same array.
+ * Each sample is stamped with a time interpolated evenly across the period
+ * it was drained from, the {@code stamp} function is called with the
+ * sample and that time in nanoseconds since the epoch,
+ * and each non-null value returned is submitted.
+ * </P>
+ *
+ * @param <T> Sample type
+ * @param <R> Tuple type
+ */
+public class SupplierBatchPeriodicSource<T, R> extends PeriodicSource<R> {
+
+    private Supplier<T[]> data;
+    private BiFunction<T, Long, R> stamp;
+
+    // Epoch time of System.nanoTime() zero.
+    private long epochOffsetNanos;
+    private long lastNanos;
+
+    public SupplierBatchPeriodicSource(long period, TimeUnit unit, Supplier<T[]> data,
+            BiFunction<T, Long, R> stamp) {
+        super(period, unit);
+        this.data = data;
+        this.stamp = stamp;
+    }
+
+    @Override
+    public synchronized void start() {
+        lastNanos = System.nanoTime();
+        epochOffsetNanos = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - lastNanos;
+        super.start();
+    }
+
+    @Override
+    public void close() throws Exception {
+        closeFunction(data);
+        closeFunction(stamp);
+    }
+
+    @Override
+    public void fetchTuples() {
+        T[] batch = data.get();
+        long now = System.nanoTime();
+        long from = lastNanos;
+        lastNanos = now;
+        if (batch == null)
+            return;
+
+        int n = 0;
+        while (n < batch.length && batch[n] != null)
+            n++;
+        long interval = now - from;
+        for (int i = 0; i < n; i++) {
+            long time = epochOffsetNanos + from + interval * (i + 1) / n;
+            R tuple = stamp.apply(batch[i], time);
+            if (tuple != null)
+                submit(tuple);
+        }
+    }
+}
@@ -43,7 +43,7 @@ import org.apache.edgent.oplet.core.FanIn;
  *
  * @param <T> Type of the tuple.
  */
-public class Barrier<T> extends FanIn<T, List<T>> {
+public class Barrier<T> extends FanIn<T, List<T>> implements InputQueue {
     
     private final int queueCapacity;
     private Thread thread;
@@ -92,6 +92,12 @@ public class Barrier<T> extends FanIn<T, List<T>> {
       }
     }
 
+    @Override
+    public int getQueueDepth(int port) {
+        List<LinkedBlockingQueue<T>> queues = iportQueues;
+        return queues == null ? 0 : queues.get(port).size();
+    }
+
     private void run() {
         while (!Thread.interrupted()) {
             try {
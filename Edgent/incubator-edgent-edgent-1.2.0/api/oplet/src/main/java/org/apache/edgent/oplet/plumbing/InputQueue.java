@@ -0,0 +1,37 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.oplet.plumbing;
+
+/**
+ * An oplet that queues tuples arriving on its input ports
+ * before processing them on a separate thread.
+ * <P>
+ * Runtimes use this to report the queue depth of the edges
+ * into the oplet without inserting additional oplets.
+ * </P>
+ */
+public interface InputQueue {
+    /**
+     * Returns the number of tuples currently queued for an input port.
+     * @param port index of the input port
+     * @return number of queued tuples, {@code 0} if the oplet
+     *      has not been initialized.
+     */
+    int getQueueDepth(int port);
+}
@@ -33,7 +33,7 @@ import org.apache.edgent.oplet.core.Pipe;
  *
  * @param <T> Type of the tuple.
  */
-public class Isolate<T> extends Pipe<T,T> {
+public class Isolate<T> extends Pipe<T,T> implements InputQueue {
     private static final long serialVersionUID = 1L;
     
     private Thread thread;
@@ -80,6 +80,11 @@ public class Isolate<T> extends Pipe<T,T> {
         }      
     }
 
+    @Override
+    public int getQueueDepth(int port) {
+        return tuples.size();
+    }
+
     private void run() {
         while (!Thread.interrupted()) {
             try {
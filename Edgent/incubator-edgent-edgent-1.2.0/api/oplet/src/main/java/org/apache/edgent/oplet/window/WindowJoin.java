@@ -0,0 +1,344 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.oplet.window;
+
+import static org.apache.edgent.function.Functions.closeFunction;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.edgent.function.BiFunction;
+import org.apache.edgent.function.Consumer;
+import org.apache.edgent.function.Function;
+import org.apache.edgent.function.ToLongFunction;
+import org.apache.edgent.oplet.OpletContext;
+import org.apache.edgent.oplet.core.AbstractOplet;
+
+/**
+ * Symmetric windowed join of two streams.
+ * <P>
+ * Tuples on input port 0 (left) and input port 1 (right) are kept for
+ * a time window. Each arriving tuple is joined with the tuples of the
+ * other input that arrived within the window before it and have the
+ * same key. Each matching pair is passed to {@code joiner}, always as
+ * {@code (left, right)}, and a non-null result is submitted to the output.
+ * A pair is joined exactly once, by the later of its two tuples.
+ * </P><P>
+ * The window contents of each input are indexed by key, so a tuple is
+ * joined in time proportional to its number of matches rather than to
+ * the size of the window. When range functions are provided, the
+ * contents of each key are also indexed by range value and a pair only
+ * matches if its range values differ by at most {@code band}, for
+ * example event times for a band join.
+ * </P><P>
+ * Inserting and evicting tuples is serialized, joining is not: the indexes
+ * are concurrent collections read without locking, and the joiner is called
+ * concurrently for tuples arriving on different threads.
+ * </P><P>
+ * Expired tuples are evicted on insert, and by a sweep scheduled when the
+ * window holds tuples, so that inputs that went quiet are evicted too.
+ * An empty window has no sweep scheduled, and does not keep the job from
+ * completing.
+ * </P>
+ *
+ * @param <T> Tuple type of the left input
+ * @param <U> Tuple type of the right input
+ * @param <K> Key type
+ * @param <J> Tuple type of the output
+ */
+public class WindowJoin<T, U, K, J> extends AbstractOplet<Object, J> {
+    private static final long serialVersionUID = 1L;
+    // ConcurrentHashMap does not allow null keys
+    private static final Object NULL_KEY = new Object();
+
+    private final Function<T, K> leftKeyer;
+    private final ToLongFunction<T> leftRanger;
+    private final Function<U, K> rightKeyer;
+    private final ToLongFunction<U> rightRanger;
+    private final long band;
+    private final long time;
+    private final TimeUnit unit;
+    private final BiFunction<T, U, J> joiner;
+
+    private transient Side<T> left;
+    private transient Side<U> right;
+    private transient long windowNanos;
+    private transient long seq;
+    private transient Consumer<J> destination;
+    private transient ScheduledExecutorService executor;
+    private transient ScheduledFuture<?> sweeper;
+    private transient boolean closed;
+
+    /**
+     * Create a join of the tuples with equal keys.
+     * @param leftKeyer key function of the left input
+     * @param rightKeyer key function of the right input
+     * @param time window time
+     * @param unit unit of {@code time}
+     * @param joiner function joining a pair of tuples
+     */
+    public WindowJoin(Function<T, K> leftKeyer, Function<U, K> rightKeyer,
+            long time, TimeUnit unit, BiFunction<T, U, J> joiner) {
+        this(leftKeyer, null, rightKeyer, null, 0, time, unit, joiner);
+    }
+
+    /**
+     * Create a join of the tuples with equal keys and close range values.
+     * @param leftKeyer key function of the left input
+     * @param leftRanger range function of the left input, or null
+     * @param rightKeyer key function of the right input
+     * @param rightRanger range function of the right input, or null
+     * @param band largest difference of the range values of a pair
+     * @param time window time
+     * @param unit unit of {@code time}
+     * @param joiner function joining a pair of tuples
+     */
+    public WindowJoin(Function<T, K> leftKeyer, ToLongFunction<T> leftRanger,
+            Function<U, K> rightKeyer, ToLongFunction<U> rightRanger, long band,
+            long time, TimeUnit unit, BiFunction<T, U, J> joiner) {
+        if ((leftRanger == null) != (rightRanger == null))
+            throw new IllegalArgumentException("both inputs need a range function");
+        if (band < 0)
+            throw new IllegalArgumentException("band");
+        if (time <= 0)
+            throw new IllegalArgumentException("time");
+        this.leftKeyer = leftKeyer;
+        this.leftRanger = leftRanger;
+        this.rightKeyer = rightKeyer;
+        this.rightRanger = rightRanger;
+        this.band = band;
+        this.time = time;
+        this.unit = unit;
+        this.joiner = joiner;
+    }
+
+    @Override
+    public void initialize(OpletContext<Object, J> context) {
+        super.initialize(context);
+        if (context.getInputCount() != 2)
+            throw new IllegalStateException("join requires two inputs");
+        destination = context.getOutputs().get(0);
+        left = new Side<>(leftRanger != null);
+        right = new Side<>(rightRanger != null);
+        windowNanos = unit.toNanos(time);
+    }
+
+    @Override
+    public void start() {
+        executor = getOpletContext().getService(ScheduledExecutorService.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<? extends Consumer<Object>> getInputs() {
+        Consumer<Object> leftInput = tuple -> acceptLeft((T) tuple);
+        Consumer<Object> rightInput = tuple -> acceptRight((U) tuple);
+        return Collections.unmodifiableList(Arrays.asList(leftInput, rightInput));
+    }
+
+    private void acceptLeft(T tuple) {
+        Entry<T> entry = insert(left, tuple, key(leftKeyer.apply(tuple)),
+                leftRanger == null ? 0 : leftRanger.applyAsLong(tuple));
+        for (Entry<U> candidate : right.candidates(entry, band)) {
+            if (joins(entry, candidate))
+                submit(joiner.apply(tuple, candidate.tuple));
+        }
+    }
+
+    private void acceptRight(U tuple) {
+        Entry<U> entry = insert(right, tuple, key(rightKeyer.apply(tuple)),
+                rightRanger == null ? 0 : rightRanger.applyAsLong(tuple));
+        for (Entry<T> candidate : left.candidates(entry, band)) {
+            if (joins(entry, candidate))
+                submit(joiner.apply(candidate.tuple, tuple));
+        }
+    }
+
+    /**
+     * A candidate joins if it was inserted before the tuple, within the window.
+     * Candidates may have expired without being evicted yet.
+     */
+    private boolean joins(Entry<?> entry, Entry<?> candidate) {
+        return candidate.seq < entry.seq && entry.nanos - candidate.nanos < windowNanos;
+    }
+
+    private void submit(J result) {
+        if (result != null)
+            destination.accept(result);
+    }
+
+    private static Object key(Object key) {
+        return key == null ? NULL_KEY : key;
+    }
+
+    /**
+     * Inserts a tuple, after evicting the expired tuples of both inputs.
+     * The sequence orders the tuples of both inputs, a tuple only joins
+     * the tuples inserted before it.
+     */
+    private synchronized <X> Entry<X> insert(Side<X> side, X tuple, Object key, long range) {
+        long now = System.nanoTime();
+        evict(now);
+        Entry<X> entry = new Entry<>(tuple, key, range, ++seq, now);
+        side.add(entry);
+        if (sweeper == null)
+            scheduleSweep(windowNanos);
+        return entry;
+    }
+
+    private void evict(long now) {
+        left.evict(now - windowNanos);
+        right.evict(now - windowNanos);
+    }
+
+    /**
+     * Evicts the expired tuples of inputs that went quiet, and schedules
+     * the next sweep for when the oldest remaining tuple expires.
+     */
+    private synchronized void sweep() {
+        sweeper = null;
+        long now = System.nanoTime();
+        evict(now);
+        if (left.isEmpty() && right.isEmpty())
+            return;
+        long oldest = left.isEmpty() ? right.oldestNanos()
+                : right.isEmpty() ? left.oldestNanos()
+                : Math.min(left.oldestNanos(), right.oldestNanos());
+        scheduleSweep(oldest + windowNanos - now);
+    }
+
+    private void scheduleSweep(long delayNanos) {
+        if (closed || executor == null)
+            return;
+        sweeper = executor.schedule(this::sweep, Math.max(delayNanos, 1), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void close() throws Exception {
+        synchronized (this) {
+            closed = true;
+            if (sweeper != null)
+                sweeper.cancel(false);
+        }
+        closeFunction(joiner);
+    }
+
+    private static final class Entry<X> {
+        final X tuple;
+        final Object key;
+        final long range;
+        final long seq;
+        final long nanos;
+
+        Entry(X tuple, Object key, long range, long seq, long nanos) {
+            this.tuple = tuple;
+            this.key = key;
+            this.range = range;
+            this.seq = seq;
+            this.nanos = nanos;
+        }
+    }
+
+    private static final Comparator<Entry<?>> RANGE_ORDER = (e1, e2) -> {
+        int c = Long.compare(e1.range, e2.range);
+        return c != 0 ? c : Long.compare(e1.seq, e2.seq);
+    };
+
+    /**
+     * The window contents of an input, indexed by key, and by range value
+     * within a key when ranged. Updated under the oplet's lock only,
+     * the indexes are concurrent collections read without locking.
+     */
+    private static final class Side<X> {
+        private final boolean ranged;
+        // a key's entries in insertion order, or in range order when ranged
+        private final ConcurrentHashMap<Object, Collection<Entry<X>>> index = new ConcurrentHashMap<>();
+        // all the entries in insertion order, for eviction
+        private final ArrayDeque<Entry<X>> arrivals = new ArrayDeque<>();
+
+        Side(boolean ranged) {
+            this.ranged = ranged;
+        }
+
+        void add(Entry<X> entry) {
+            Collection<Entry<X>> bucket = index.get(entry.key);
+            if (bucket == null) {
+                bucket = ranged ? new ConcurrentSkipListSet<Entry<X>>(RANGE_ORDER)
+                        : new ConcurrentLinkedQueue<Entry<X>>();
+                index.put(entry.key, bucket);
+            }
+            bucket.add(entry);
+            arrivals.add(entry);
+        }
+
+        @SuppressWarnings("unchecked")
+        void evict(long expiredNanos) {
+            Entry<X> oldest;
+            while ((oldest = arrivals.peek()) != null && oldest.nanos - expiredNanos <= 0) {
+                arrivals.poll();
+                Collection<Entry<X>> bucket = index.get(oldest.key);
+                if (ranged)
+                    bucket.remove(oldest);
+                else
+                    ((Queue<Entry<X>>) bucket).poll(); // the key's oldest entry
+                if (bucket.isEmpty())
+                    index.remove(oldest.key);
+            }
+        }
+
+        boolean isEmpty() {
+            return arrivals.isEmpty();
+        }
+
+        /**
+         * Returns the insertion time of the oldest entry, the window must not be empty.
+         */
+        long oldestNanos() {
+            return arrivals.peek().nanos;
+        }
+
+        /**
+         * Returns the entries with the key of an entry of the other input,
+         * and when ranged with a range value within {@code band} of it.
+         */
+        @SuppressWarnings("unchecked")
+        Iterable<Entry<X>> candidates(Entry<?> entry, long band) {
+            Collection<Entry<X>> bucket = index.get(entry.key);
+            if (bucket == null)
+                return Collections.emptyList();
+            if (!ranged)
+                return bucket;
+            return ((NavigableSet<Entry<X>>) bucket).subSet(
+                    new Entry<X>(null, null, entry.range - band, Long.MIN_VALUE, 0), true,
+                    new Entry<X>(null, null, entry.range + band, Long.MAX_VALUE, 0), true);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.topology;
+
+import java.util.Set;
+
+import org.apache.edgent.function.LongConsumer;
+import org.apache.edgent.function.LongFunction;
+import org.apache.edgent.function.LongPredicate;
+import org.apache.edgent.function.LongToDoubleFunction;
+import org.apache.edgent.function.LongUnaryOperator;
+import org.apache.edgent.function.ToLongFunction;
+
+/**
+ * A stream of {@code long} tuples.
+ * <P>
+ * Tuples are passed between the operations of a {@code TLongStream} as
+ * primitives, so a numeric pipeline does not box each tuple.
+ * A {@code TLongStream} is created from a {@code TStream} by
+ * {@link TStream#mapToLong(ToLongFunction) mapToLong} or by a
+ * {@link Topology#pollLong(org.apache.edgent.function.LongSupplier, long, java.util.concurrent.TimeUnit) pollLong}
+ * source, and converted back by {@link #boxed()} or {@link #mapToObj(LongFunction)}.
+ * Unlike {@code TStream.map}, there is no {@code null} to drop a tuple,
+ * tuples are dropped with {@link #filter(LongPredicate)}.
+ * </P>
+ */
+public interface TLongStream extends TopologyElement {
+
+    /**
+     * Declare a new stream that filters tuples from this stream. Each
+     * tuple {@code t} on this stream will appear in the returned stream if
+     * {@link LongPredicate#test(long) filter.test(t)} returns {@code true}.
+     *
+     * @param predicate
+     *            Filtering logic to be executed against each tuple.
+     * @return Filtered stream
+     */
+    TLongStream filter(LongPredicate predicate);
+
+    /**
+     * Declare a new stream that maps each tuple from this stream.
+     * For each tuple {@code t} on this stream, the returned stream will
+     * contain {@code mapper.applyAsLong(t)}.
+     *
+     * @param mapper
+     *            Mapping logic to be executed against each tuple.
+     * @return Stream that will contain the mapped tuples.
+     */
+    TLongStream map(LongUnaryOperator mapper);
+
+    /**
+     * Declare a new stream of {@code double} tuples that maps each tuple from this stream.
+     *
+     * @param mapper
+     *            Mapping logic to be executed against each tuple.
+     * @return Stream that will contain the mapped tuples.
+     */
+    TDoubleStream mapToDouble(LongToDoubleFunction mapper);
+
+    /**
+     * Declare a new stream that maps each tuple from this stream into one
+     * (or zero) tuple of type {@code U}, as {@link TStream#map(org.apache.edgent.function.Function) TStream.map}.
+     *
+     * @param <U> Tuple type of output stream
+     * @param mapper
+     *            Mapping logic to be executed against each tuple.
+     * @return Stream that will contain tuples of type {@code U} mapped from this
+     *         stream's tuples.
+     */
+    <U> TStream<U> mapToObj(LongFunction<U> mapper);
+
+    /**
+     * Get this stream as a stream of boxed tuples.
+     * No processing is added, tuples are boxed only for the
+     * processing downstream of the returned stream.
+     *
+     * @return This stream as a {@code TStream<Long>}.
+     */
+    TStream<Long> boxed();
+
+    /**
+     * Declare a stream that contains the same contents as this stream while
+     * peeking at each element using {@code peeker}.
+     *
+     * @param peeker
+     *            Function to be called for each tuple.
+     * @return {@code this}
+     */
+    TLongStream peek(LongConsumer peeker);
+
+    /**
+     * Sink (terminate) this stream using a function. For each tuple {@code t} on this stream
+     * {@link LongConsumer#accept(long) sinker.accept(t)} will be called.
+     *
+     * @param sinker
+     *            Logic to be executed against each tuple on this stream.
+     * @return sink element representing termination of this stream.
+     */
+    TSink<Long> sink(LongConsumer sinker);
+
+    /**
+     * Declare a new stream that aggregates the last {@code count} tuples of this
+     * stream on each tuple, once {@code count} tuples have arrived.
+     * {@code aggregator} is called with the tuples oldest first, in an array
+     * that is reused across calls and must not be retained.
+     *
+     * @param count Number of tuples aggregated.
+     * @param aggregator Logic aggregating the tuples.
+     * @return Stream that will contain the aggregates.
+     */
+    TLongStream last(int count, ToLongFunction<long[]> aggregator);
+
+    /**
+     * Declare a new stream that aggregates each batch of {@code count}
+     * consecutive tuples of this stream.
+     * {@code aggregator} is called with the tuples oldest first, in an array
+     * that is reused across calls and must not be retained.
+     *
+     * @param count Number of tuples in a batch.
+     * @param aggregator Logic aggregating the tuples.
+     * @return Stream that will contain the aggregates.
+     */
+    TLongStream batch(int count, ToLongFunction<long[]> aggregator);
+
+    /**
+     * Adds the specified tags to the stream.
+     * @param values Tag values.
+     * @return The tagged stream.
+     * @see TStream#tag(String...)
+     */
+    TLongStream tag(String... values);
+
+    /**
+     * Returns the set of tags associated with this stream.
+     * @return set of tags
+     */
+    Set<String> getTags();
+
+    /**
+     * Set an alias for the stream.
+     * @param alias an alias for the stream.
+     * @return this
+     * @see TStream#alias(String)
+     */
+    TLongStream alias(String alias);
+
+    /**
+     * Returns the stream's alias if one has been set.
+     * @return the alias. null if one has not been set.
+     */
+    String getAlias();
+}
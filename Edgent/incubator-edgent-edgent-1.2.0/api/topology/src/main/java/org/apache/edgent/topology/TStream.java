@@ -28,7 +28,9 @@ import org.apache.edgent.function.BiFunction;
 import org.apache.edgent.function.Consumer;
 import org.apache.edgent.function.Function;
 import org.apache.edgent.function.Predicate;
+import org.apache.edgent.function.ToDoubleFunction;
 import org.apache.edgent.function.ToIntFunction;
+import org.apache.edgent.function.ToLongFunction;
 import org.apache.edgent.function.UnaryOperator;
 import org.apache.edgent.oplet.core.FanIn;
 import org.apache.edgent.oplet.core.Pipe;
@@ -157,6 +159,30 @@ public interface TStream<T> extends TopologyElement {
      */
     <U> TStream<U> flatMap(Function<T, Iterable<U>> mapper);
 
+    /**
+     * Declare a new stream of {@code double} tuples that maps each tuple from this stream.
+     * For each tuple {@code t} on this stream, the returned stream will contain
+     * {@code mapper.applyAsDouble(t)}, passed on as a primitive.
+     * 
+     * @param mapper
+     *            Mapping logic to be executed against each tuple.
+     * @return Stream that will contain the mapped tuples.
+     * @see TDoubleStream
+     */
+    TDoubleStream mapToDouble(ToDoubleFunction<T> mapper);
+
+    /**
+     * Declare a new stream of {@code long} tuples that maps each tuple from this stream.
+     * For each tuple {@code t} on this stream, the returned stream will contain
+     * {@code mapper.applyAsLong(t)}, passed on as a primitive.
+     * 
+     * @param mapper
+     *            Mapping logic to be executed against each tuple.
+     * @return Stream that will contain the mapped tuples.
+     * @see TLongStream
+     */
+    TLongStream mapToLong(ToLongFunction<T> mapper);
+
     /**
      * Split a stream's tuples among {@code n} streams as specified by
      * {@code splitter}.
@@ -539,5 +565,65 @@ public interface TStream<T> extends TopologyElement {
      *         {@code lastStream}.
      */
     <J, U, K> TStream<J> joinLast(Function<T, K> keyer, TStream<U> lastStream, Function<U, K> lastStreamKeyer, BiFunction<T, U, J> joiner);
+
+    /**
+     * Join this stream with another stream over a time window, with partitioning.
+     * <BR>
+     * The join is symmetric: tuples of both streams are kept for the
+     * window time, and each tuple arriving on either stream is joined with
+     * the tuples of the other stream that arrived within the window before it.
+     * Tuples {@code t} on this stream and {@code u} on {@code other} match if
+     * {@code keyer.apply(t).equals(otherKeyer.apply(u))} is true.
+     * <P>
+     * Each matching pair is passed into {@code joiner} as {@code (t, u)},
+     * whichever arrived last, and the return value is submitted to the
+     * returned stream. If call returns null then no tuple is submitted.
+     * </P><P>
+     * The windows are indexed by key: a tuple is joined in time proportional
+     * to its number of matches, without locking the windows.
+     * </P>
+     * @param <J> Tuple type of result stream
+     * @param <U> Tuple type of stream to join with
+     * @param <K> Key type
+     * @param keyer Key function for this stream
+     * @param other Stream to join with.
+     * @param otherKeyer Key function for {@code other}
+     * @param time Time to keep tuples of both streams.
+     * @param unit Unit for {@code time}.
+     * @param joiner Join function.
+     * @return A stream that is the results of joining this stream with
+     *         {@code other}.
+     */
+    <J, U, K> TStream<J> join(Function<T, K> keyer, TStream<U> other, Function<U, K> otherKeyer,
+            long time, TimeUnit unit, BiFunction<T, U, J> joiner);
+
+    /**
+     * Join this stream with another stream over a time window, with partitioning
+     * and a range condition.
+     * <BR>
+     * Same as {@link #join(Function, TStream, Function, long, TimeUnit, BiFunction)}
+     * with the additional condition that tuples {@code t} and {@code u} only match if
+     * {@code Math.abs(ranger.applyAsLong(t) - otherRanger.applyAsLong(u)) <= band},
+     * for example to join tuples with close event times. The windows
+     * are also indexed by range value within each key.
+     * 
+     * @param <J> Tuple type of result stream
+     * @param <U> Tuple type of stream to join with
+     * @param <K> Key type
+     * @param keyer Key function for this stream
+     * @param ranger Range function for this stream
+     * @param other Stream to join with.
+     * @param otherKeyer Key function for {@code other}
+     * @param otherRanger Range function for {@code other}
+     * @param band Largest difference between the range values of matching tuples.
+     * @param time Time to keep tuples of both streams.
+     * @param unit Unit for {@code time}.
+     * @param joiner Join function.
+     * @return A stream that is the results of joining this stream with
+     *         {@code other}.
+     */
+    <J, U, K> TStream<J> join(Function<T, K> keyer, ToLongFunction<T> ranger,
+            TStream<U> other, Function<U, K> otherKeyer, ToLongFunction<U> otherRanger, long band,
+            long time, TimeUnit unit, BiFunction<T, U, J> joiner);
     
 }
@@ -23,7 +23,10 @@ import java.util.concurrent.TimeUnit;
 
 import org.apache.edgent.execution.services.ControlService;
 import org.apache.edgent.execution.services.RuntimeServices;
+import org.apache.edgent.function.BiFunction;
 import org.apache.edgent.function.Consumer;
+import org.apache.edgent.function.DoubleSupplier;
+import org.apache.edgent.function.LongSupplier;
 import org.apache.edgent.function.Supplier;
 import org.apache.edgent.graph.Graph;
 import org.apache.edgent.topology.plumbing.PlumbingStreams;
@@ -130,6 +133,86 @@ public interface Topology extends TopologyElement {
      */
     <T> TStream<T> poll(Supplier<T> data, long period, TimeUnit unit);
 
+    /**
+     * Declare a new source stream that drains a batch of samples periodically.
+     * <p>
+     * Sampling at a high rate with {@link #poll(Supplier, long, TimeUnit) poll}
+     * means one scheduled execution per sample. Instead {@code data.get()} is
+     * called once per period and returns the samples accumulated since the
+     * previous call. The batch ends at the end of the array or at its first
+     * {@code null} element, so {@code data} may refill the same array.
+     * </p><p>
+     * The samples of a batch are stamped with times interpolated evenly
+     * across the period since the previous call: {@code stamp} is called with
+     * each sample and its time in nanoseconds since the epoch, and each
+     * non-null value returned will appear on the returned stream.
+     * </p><p>
+     * If {@code data} or {@code stamp} implement {@link AutoCloseable}, their
+     * {@code close()} method will be called when the topology's execution is
+     * terminated.
+     * </p><p>
+     * As with {@code poll} the period may be changed when the topology is
+     * running via a runtime
+     * {@link org.apache.edgent.execution.mbeans.PeriodMXBean PeriodMXBean},
+     * which also reports how late the periods run.
+     * </p>
+     *
+     * @param <T> Sample type
+     * @param <R> Tuple type
+     * @param data
+     *            Function that returns the samples accumulated since its previous call.
+     * @param stamp
+     *            Function that creates a tuple from a sample and its time.
+     * @param period
+     *            Approximate period {code data.get()} will be called.
+     * @param unit
+     *            Time unit of {@code period}.
+     * @return New stream containing the tuples returned by {@code stamp}.
+     *
+     * @see <a href="doc-files/sources.html">Edgent Source Streams</a>
+     */
+    <T, R> TStream<R> pollBatch(Supplier<T[]> data, BiFunction<T, Long, R> stamp, long period, TimeUnit unit);
+
+    /**
+     * Declare a new source stream of {@code double} tuples that calls
+     * {@code data.getAsDouble()} periodically, each call results in one tuple.
+     * Tuples are passed on as primitives, see {@link TDoubleStream}.
+     * <p>
+     * As with {@link #poll(Supplier, long, TimeUnit) poll} the period may be
+     * changed at runtime via the stream's
+     * {@link org.apache.edgent.execution.mbeans.PeriodMXBean PeriodMXBean}.
+     * </p>
+     *
+     * @param data
+     *            Function that produces that data for the stream.
+     * @param period
+     *            Approximate period {code data.getAsDouble()} will be called.
+     * @param unit
+     *            Time unit of {@code period}.
+     * @return New stream containing the values returned by {@code data.getAsDouble()}.
+     */
+    TDoubleStream pollDouble(DoubleSupplier data, long period, TimeUnit unit);
+
+    /**
+     * Declare a new source stream of {@code long} tuples that calls
+     * {@code data.getAsLong()} periodically, each call results in one tuple.
+     * Tuples are passed on as primitives, see {@link TLongStream}.
+     * <p>
+     * As with {@link #poll(Supplier, long, TimeUnit) poll} the period may be
+     * changed at runtime via the stream's
+     * {@link org.apache.edgent.execution.mbeans.PeriodMXBean PeriodMXBean}.
+     * </p>
+     *
+     * @param data
+     *            Function that produces that data for the stream.
+     * @param period
+     *            Approximate period {code data.getAsLong()} will be called.
+     * @param unit
+     *            Time unit of {@code period}.
+     * @return New stream containing the values returned by {@code data.getAsLong()}.
+     */
+    TLongStream pollLong(LongSupplier data, long period, TimeUnit unit);
+
     /**
      * Declare a stream populated by an event system. At startup
      * {@code eventSetup.accept(eventSubmitter))} is called by the runtime with
@@ -144,6 +227,12 @@ public interface Topology extends TopologyElement {
      * to ensure that event listener is not blocked by a long
      * or slow processing flow.
      * </P>
+     * <P>
+     * The isolation dedicates a thread to the stream and queues events
+     * without bound. Prefer {@link #events(Consumer, int)} unless the event
+     * listener must never wait, for example when it is called from the
+     * job's own threads.
+     * </P>
      * <p>
      * If {@code eventSetup} implements {@link AutoCloseable}, its {@code close()}
      * method will be called when the topology's execution is terminated.
@@ -159,6 +248,26 @@ public interface Topology extends TopologyElement {
      */
     <T> TStream<T> events(Consumer<Consumer<T>> eventSetup);
 
+    /**
+     * Declare a stream populated by an event system, without a thread
+     * of its own.
+     * <BR>
+     * Behaves as {@link #events(Consumer)}, except that downstream processing
+     * is isolated from the event source by a queue of at most {@code queueCapacity}
+     * events, processed in order by an executor shared by the event sources
+     * of the job. {@code eventSubmitter.accept(t)} blocks when the queue is full.
+     * <P>
+     * Use this form for topologies with many event sources, as
+     * {@link #events(Consumer)} dedicates a thread to each of them.
+     * </P>
+     * 
+     * @param <T> Tuple type
+     * @param eventSetup handler to receive the {@code eventSubmitter}
+     * @param queueCapacity maximum number of events waiting to be processed
+     * @return New stream containing the tuples added by {@code eventSubmitter.accept(t)}.
+     */
+    <T> TStream<T> events(Consumer<Consumer<T>> eventSetup, int queueCapacity);
+
     /**
      * Declare a stream of strings.
      * @param strings Strings that will be present on the stream.
@@ -0,0 +1,63 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.topology.plumbing;
+
+import org.apache.edgent.execution.mbeans.ChannelLoadMXBean;
+import org.apache.edgent.execution.services.ControlService;
+import org.apache.edgent.oplet.core.Peek;
+
+/**
+ * Registers a {@link ChannelLoadMXBean} control for the lifetime
+ * of the job, forwarding tuples unchanged.
+ *
+ * @param <T> Tuple type.
+ */
+class ChannelLoadControl<T> extends Peek<T> {
+  private static final long serialVersionUID = 1L;
+  private final String alias;
+  private final ChannelLoadMXBean control;
+  private String controlId;
+
+  ChannelLoadControl(String alias, ChannelLoadMXBean control) {
+    this.alias = alias;
+    this.control = control;
+  }
+
+  @Override
+  public void start() {
+    ControlService cs = getOpletContext().getService(ControlService.class);
+    if (cs != null)
+      controlId = cs.registerControl(ChannelLoadMXBean.TYPE, 
+          getOpletContext().uniquify(getClass().getSimpleName()),
+          alias, ChannelLoadMXBean.class, control);
+  }
+
+  @Override
+  protected void peek(T tuple) {
+  }
+
+  @Override
+  public void close() throws Exception {
+    if (controlId != null) {
+      getOpletContext().getService(ControlService.class).unregister(controlId);
+      controlId = null;
+    }
+  }
+
+}
@@ -0,0 +1,216 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.topology.plumbing;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.edgent.execution.mbeans.ChannelLoadMXBean;
+import org.apache.edgent.function.Function;
+import org.apache.edgent.function.ToIntFunction;
+import org.apache.edgent.topology.TStream;
+
+/**
+ * A keyed splitter function.
+ * <P>
+ * This is intended to be used as an argument to {@link TStream#split(int, ToIntFunction)}.
+ * Tuples are routed by their key using consistent hashing: each channel
+ * owns many points of a hash ring and a key goes to the channel owning the
+ * first point following the key's hash. All the tuples of a key go to the
+ * same channel, and changing the number of channels only moves the keys
+ * of the added or removed channels.
+ * </P><P>
+ * The splitter estimates the frequency of the keys with a count-min sketch
+ * whose counts decay over time. When created with a {@code hotKeyShare},
+ * the tuples of a key making more than that share of the recent tuples
+ * are spread over all the channels instead. This breaks the affinity
+ * of hot keys, the channels' pipelines must then compute partial results,
+ * such as sums or counts, which are combined downstream.
+ * </P><P>
+ * The number of tuples routed to each channel is exposed through
+ * {@link ChannelLoadMXBean}.
+ * </P>
+ *
+ * @param <T> Tuple type.
+ * @param <K> Key type.
+ * @see PlumbingStreams#parallelKeyed(TStream, int, Function, org.apache.edgent.function.BiFunction) parallelKeyed
+ */
+public class KeyedSplitter<T,K> implements ToIntFunction<T>, ChannelLoadMXBean {
+  private static final long serialVersionUID = 1L;
+  private static final int POINTS_PER_CHANNEL = 128;
+  private static final int SKETCH_DEPTH = 4;
+  private static final int SKETCH_WIDTH = 1024;
+  // the sketch counts are halved every DECAY_INTERVAL tuples
+  private static final int DECAY_INTERVAL = 8192;
+  // keys are not hot until the sketch saw enough tuples
+  private static final int MIN_HOT_TUPLES = 64;
+
+  private final Function<T,K> keyFunction;
+  private final double hotKeyShare;
+  private final int[] ringPoints;
+  private final int[] ringChannels;
+  private final int[][] sketch = new int[SKETCH_DEPTH][SKETCH_WIDTH];
+  private int sketchTuples;
+  private int decayCountdown = DECAY_INTERVAL;
+  private int nextHotCh;
+  private final AtomicLongArray chTuples;
+  private final AtomicLong hotKeyTuples = new AtomicLong();
+  
+  /**
+   * Create a new splitter keeping all the tuples of a key on the same channel.
+   * @param numChannels the number of splitter channels
+   * @param keyFunction function returning the key of a tuple
+   */
+  public KeyedSplitter(int numChannels, Function<T,K> keyFunction) {
+    this(numChannels, keyFunction, 0);
+  }
+  
+  /**
+   * Create a new splitter spreading the tuples of hot keys over all the channels.
+   * @param numChannels the number of splitter channels
+   * @param keyFunction function returning the key of a tuple
+   * @param hotKeyShare share of the recent tuples above which a key is hot,
+   *        greater than 0 and at most 1, or 0 to keep all the keys on their channel
+   */
+  public KeyedSplitter(int numChannels, Function<T,K> keyFunction, double hotKeyShare) {
+    if (numChannels < 1)
+      throw new IllegalArgumentException("numChannels");
+    if (keyFunction == null)
+      throw new NullPointerException("keyFunction");
+    if (!(hotKeyShare >= 0 && hotKeyShare <= 1))
+      throw new IllegalArgumentException("hotKeyShare");
+    this.keyFunction = keyFunction;
+    this.hotKeyShare = hotKeyShare;
+    this.chTuples = new AtomicLongArray(numChannels);
+    
+    // sort the ring points, keeping their channel
+    // seeded so the points differ from the hashes of small integer keys
+    long[] points = new long[numChannels * POINTS_PER_CHANNEL];
+    for (int ch = 0; ch < numChannels; ch++) {
+      for (int i = 0; i < POINTS_PER_CHANNEL; i++) {
+        int point = mix(mix(ch ^ 0x5BD1E995) + i * 0x9E3779B9);
+        points[ch * POINTS_PER_CHANNEL + i] = ((long) point << 32) | ch;
+      }
+    }
+    Arrays.sort(points);
+    ringPoints = new int[points.length];
+    ringChannels = new int[points.length];
+    for (int i = 0; i < points.length; i++) {
+      ringPoints[i] = (int) (points[i] >> 32);
+      ringChannels[i] = (int) points[i];
+    }
+  }
+  
+  /**
+   * Get the channel owning a key, the channel of its tuples unless the key is hot.
+   * @param key the key
+   * @return the 0-based channel number
+   */
+  public int getChannel(K key) {
+    return channelOf(mix(key == null ? 0 : key.hashCode()));
+  }
+  
+  private int channelOf(int hash) {
+    int i = Arrays.binarySearch(ringPoints, hash);
+    if (i < 0)
+      i = -i - 1;
+    return ringChannels[i == ringPoints.length ? 0 : i];
+  }
+  
+  @Override
+  public int applyAsInt(T value) {
+    K key = keyFunction.apply(value);
+    int hash = mix(key == null ? 0 : key.hashCode());
+    int ch;
+    if (hotKeyShare > 0 && isHot(hash)) {
+      ch = nextHotCh;
+      nextHotCh = (ch + 1) % chTuples.length();
+      hotKeyTuples.incrementAndGet();
+    }
+    else {
+      ch = channelOf(hash);
+    }
+    chTuples.incrementAndGet(ch);
+    return ch;
+  }
+  
+  /**
+   * Count the key in the sketch and return whether its count
+   * exceeds the hot share of the tuples.
+   * The sketch is only updated by the split oplet's thread.
+   */
+  private boolean isHot(int hash) {
+    if (--decayCountdown == 0) {
+      decayCountdown = DECAY_INTERVAL;
+      for (int[] row : sketch)
+        for (int i = 0; i < row.length; i++)
+          row[i] >>>= 1;
+      sketchTuples >>>= 1;
+    }
+    sketchTuples++;
+    
+    // double hashing for the sketch rows
+    int h2 = mix(hash ^ 0x9E3779B9) | 1;
+    int count = Integer.MAX_VALUE;
+    for (int row = 0; row < SKETCH_DEPTH; row++) {
+      int i = (hash + row * h2) & (SKETCH_WIDTH - 1);
+      count = Math.min(count, ++sketch[row][i]);
+    }
+    return sketchTuples >= MIN_HOT_TUPLES && count > hotKeyShare * sketchTuples;
+  }
+  
+  // murmur3 finalizer
+  private static int mix(int h) {
+    h ^= h >>> 16;
+    h *= 0x85EBCA6B;
+    h ^= h >>> 13;
+    h *= 0xC2B2AE35;
+    h ^= h >>> 16;
+    return h;
+  }
+
+  @Override
+  public int getWidth() {
+    return chTuples.length();
+  }
+
+  @Override
+  public long getChannelTuples(int channel) {
+    return chTuples.get(channel);
+  }
+
+  @Override
+  public long getHotKeyTuples() {
+    return hotKeyTuples.get();
+  }
+
+  @Override
+  public double getImbalance() {
+    long total = 0;
+    long max = 0;
+    for (int ch = 0; ch < chTuples.length(); ch++) {
+      long tuples = chTuples.get(ch);
+      total += tuples;
+      max = Math.max(max, tuples);
+    }
+    return total == 0 ? 0 : (double) max * chTuples.length() / total;
+  }
+
+}
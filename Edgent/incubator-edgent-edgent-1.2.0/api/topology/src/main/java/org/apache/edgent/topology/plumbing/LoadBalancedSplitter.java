@@ -18,8 +18,8 @@ under the License.
 */
 package org.apache.edgent.topology.plumbing;
 
-import java.util.Arrays;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 import org.apache.edgent.function.ToIntFunction;
 import org.apache.edgent.topology.TStream;
@@ -29,12 +29,16 @@ import org.apache.edgent.topology.TStream;
  * <P>
  * This is intended to be used as an argument to {@link TStream#split(int, ToIntFunction)}.
  * The splitter maintains state for {@code numChannels} splitter channels,
- * tracking whether a channel is busy or free.
+ * tracking the number of tuples each channel is processing.
  * </P><P>
- * {@link #applyAsInt(Object) applyAsInt} awaits a free channel, marks
- * the channel as busy, and forwards the tuple to the channel.  The end
- * of the channel's pipeline must call {@link #channelDone(int)} to
- * signal that the channel is free.
+ * {@link #applyAsInt(Object) applyAsInt} awaits a channel with less than
+ * {@code maxInFlight} tuples in flight, and forwards the tuple to the least
+ * busy of them.  The end of the channel's pipeline must call
+ * {@link #channelDone(int)} to signal that the channel is done with a tuple.
+ * </P><P>
+ * The channel state is updated with atomic operations, without locking,
+ * so the splitter and the channels do not contend for a lock on each tuple.
+ * {@code applyAsInt} only blocks while all the channels are busy.
  * </P>
  *
  * @param <T> Tuple type.
@@ -43,48 +47,80 @@ import org.apache.edgent.topology.TStream;
 public class LoadBalancedSplitter<T> implements ToIntFunction<T> {
   private static final long serialVersionUID = 1L;
   private final Semaphore gate;
-  private final boolean[] chBusy;
+  private final AtomicIntegerArray chInFlight;
+  private final int maxInFlight;
+  // where to start looking for the least busy channel, a hint only
+  private int nextCh;
   
   /**
-   * Create a new splitter.
+   * Create a new splitter allowing one tuple in flight per channel.
    * @param numChannels the number of splitter channels
    */
   public LoadBalancedSplitter(int numChannels) {
+    this(numChannels, 1);
+  }
+  
+  /**
+   * Create a new splitter.
+   * @param numChannels the number of splitter channels
+   * @param maxInFlight the maximum number of tuples a channel is processing
+   */
+  public LoadBalancedSplitter(int numChannels, int maxInFlight) {
     if (numChannels < 1)
       throw new IllegalArgumentException("numChannels");
-    chBusy = new boolean[numChannels];
-    Arrays.fill(chBusy, false);
-    gate = new Semaphore(numChannels);
+    if (maxInFlight < 1)
+      throw new IllegalArgumentException("maxInFlight");
+    chInFlight = new AtomicIntegerArray(numChannels);
+    this.maxInFlight = maxInFlight;
+    gate = new Semaphore(numChannels * maxInFlight);
   }
   
   /**
-   * Signal that the channel is done processing the splitter supplied tuple.
+   * Signal that the channel is done processing a splitter supplied tuple.
    * @param channel the 0-based channel number
    */
-  public synchronized void channelDone(int channel) {
-    if (!chBusy[channel])
-      throw new IllegalStateException("channel "+channel+" is not busy");
-    chBusy[channel] = false;
+  public void channelDone(int channel) {
+    for (;;) {
+      int inFlight = chInFlight.get(channel);
+      if (inFlight == 0)
+        throw new IllegalStateException("channel "+channel+" is not busy");
+      if (chInFlight.compareAndSet(channel, inFlight, inFlight - 1))
+        break;
+    }
     gate.release();
   }
   
   @Override
   public int applyAsInt(T value) {
     try {
+      // A permit guarantees a channel has room for the tuple.
       gate.acquire();
-      synchronized(this) {
-        for (int ch = 0; ch < chBusy.length; ch++) {
-          if (!chBusy[ch]) {
-            chBusy[ch] = true;
-            return ch;
-          }
-        }
-        throw new IllegalStateException("internal error");
-      }
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
       throw new RuntimeException("Interrupted", e);
     }
+    int numChannels = chInFlight.length();
+    for (;;) {
+      // Join the shortest queue, starting after the last channel chosen
+      // to spread tuples among equally busy channels.
+      int start = nextCh;
+      int best = -1;
+      int bestInFlight = maxInFlight;
+      for (int i = 0; i < numChannels; i++) {
+        int ch = (start + i) % numChannels;
+        int inFlight = chInFlight.get(ch);
+        if (inFlight < bestInFlight) {
+          best = ch;
+          bestInFlight = inFlight;
+          if (inFlight == 0)
+            break;
+        }
+      }
+      if (best >= 0 && chInFlight.compareAndSet(best, bestInFlight, bestInFlight + 1)) {
+        nextCh = (best + 1) % numChannels;
+        return best;
+      }
+    }
   }
 
 }
@@ -529,6 +529,77 @@ public class PlumbingStreams {
       return isolate(result, width);
     }
 
+    /**
+     * Perform an analytic pipeline on tuples in parallel, partitioned by key.
+     * <P>
+     * Same as {@code parallelKeyed(stream, width, keyFunction, 0, pipeline)}:
+     * all the tuples of a key are processed by the same channel, so
+     * {@code pipeline} may keep state per key.
+     * </P>
+     * 
+     * @param <T> Input stream tuple type
+     * @param <K> Key type
+     * @param <R> Result stream tuple type
+     * 
+     * @param stream the input stream
+     * @param width number of parallel processing channels
+     * @param keyFunction function returning the key of a tuple
+     * @param pipeline the pipeline for each channel.  
+     *        {@code pipeline.apply(inputStream,channel)}
+     *        is called to generate the pipeline for each channel.
+     * @return the isolated unordered result from each parallel channel
+     * @see #parallelKeyed(TStream, int, Function, double, BiFunction)
+     */
+    public static <T,K,R> TStream<R> parallelKeyed(TStream<T> stream, int width, Function<T,K> keyFunction, BiFunction<TStream<T>,Integer,TStream<R>> pipeline) {
+      return parallelKeyed(stream, width, keyFunction, 0, pipeline);
+    }
+
+    /**
+     * Perform an analytic pipeline on tuples in parallel, partitioned by key,
+     * spreading hot keys over the channels.
+     * <P>
+     * Same as {@link #parallel(TStream, int, ToIntFunction, BiFunction) parallel}
+     * using a {@link KeyedSplitter}. Keys are assigned to channels by
+     * consistent hashing. The tuples of a key making more than
+     * {@code hotKeyShare} of the recent tuples are spread over all the
+     * channels, so a few hot keys do not overload a channel while the
+     * others are idle. With hot keys spread, {@code pipeline} must yield
+     * partial results, such as sums or counts, which are combined from
+     * the result stream.
+     * </P><P>
+     * A {@link org.apache.edgent.execution.mbeans.ChannelLoadMXBean ChannelLoadMXBean}
+     * control is registered with the alias of {@code stream}, exposing the
+     * load of each channel.
+     * </P>
+     * 
+     * @param <T> Input stream tuple type
+     * @param <K> Key type
+     * @param <R> Result stream tuple type
+     * 
+     * @param stream the input stream
+     * @param width number of parallel processing channels
+     * @param keyFunction function returning the key of a tuple
+     * @param hotKeyShare share of the recent tuples above which a key is hot,
+     *        {@code 0} to keep all the tuples of a key on the same channel
+     * @param pipeline the pipeline for each channel.  
+     *        {@code pipeline.apply(inputStream,channel)}
+     *        is called to generate the pipeline for each channel.
+     * @return the isolated unordered result from each parallel channel
+     * @see KeyedSplitter
+     */
+    public static <T,K,R> TStream<R> parallelKeyed(TStream<T> stream, int width, Function<T,K> keyFunction, double hotKeyShare, BiFunction<TStream<T>,Integer,TStream<R>> pipeline) {
+      Objects.requireNonNull(stream, "stream");
+      if (width < 1)
+        throw new IllegalArgumentException("width");
+      Objects.requireNonNull(keyFunction, "keyFunction");
+      Objects.requireNonNull(pipeline, "pipeline");
+      
+      KeyedSplitter<T,K> splitter = new KeyedSplitter<>(width, keyFunction, hotKeyShare);
+      TStream<T> controlled = stream.pipe(new ChannelLoadControl<T>(stream.getAlias(), splitter))
+          .tag("parallel.load");
+      return parallel(controlled, width, splitter, pipeline);
+    }
+
     /**
      * Perform an analytic pipeline on tuples in parallel.
      * <P>
@@ -574,12 +645,42 @@ public class PlumbingStreams {
      * @see LoadBalancedSplitter
      */
     public static <T,R> TStream<R> parallelBalanced(TStream<T> stream, int width, BiFunction<TStream<T>,Integer,TStream<R>> pipeline) {
+      return parallelBalanced(stream, width, 1, pipeline);
+    }
+
+    /**
+     * Perform an analytic pipeline on tuples in parallel, with up to
+     * {@code maxInFlight} tuples in flight in each channel.
+     * <P>
+     * Same as {@link #parallelBalanced(TStream, int, BiFunction)} except
+     * that a channel is busy once it is processing {@code maxInFlight} tuples,
+     * and a tuple goes to the channel processing the fewest tuples.
+     * Queueing tuples in the channels keeps them running while the splitter
+     * catches up, at the cost of a coarser balancing.
+     * The channels are isolated with a queue of {@code maxInFlight} tuples.
+     * </P>
+     * 
+     * @param <T> Input stream tuple type
+     * @param <R> Result stream tuple type
+     * 
+     * @param stream the input stream
+     * @param width number of parallel processing channels
+     * @param maxInFlight maximum number of tuples in flight in a channel
+     * @param pipeline the pipeline for each channel.  
+     *        {@code pipeline.apply(inputStream,channel)}
+     *        is called to generate the pipeline for each channel.
+     * @return the isolated unordered result from each parallel channel
+     * @see LoadBalancedSplitter#LoadBalancedSplitter(int, int)
+     */
+    public static <T,R> TStream<R> parallelBalanced(TStream<T> stream, int width, int maxInFlight, BiFunction<TStream<T>,Integer,TStream<R>> pipeline) {
       Objects.requireNonNull(stream, "stream");
       if (width < 1)
         throw new IllegalArgumentException("width");
+      if (maxInFlight < 1)
+        throw new IllegalArgumentException("maxInFlight");
       Objects.requireNonNull(pipeline, "pipeline");
       
-      LoadBalancedSplitter<T> splitter = new LoadBalancedSplitter<>(width);
+      LoadBalancedSplitter<T> splitter = new LoadBalancedSplitter<>(width, maxInFlight);
       
       // Add the splitter
       List<TStream<T>> channels = stream.split(width, splitter);
@@ -587,7 +688,7 @@ public class PlumbingStreams {
         channels.set(ch, channels.get(ch).tag("parallel.split-ch"+ch));
       
       // Add concurrency (isolation) to the channels
-      int chBufferSize = 1; // 1 is enough with load balanced impl
+      int chBufferSize = maxInFlight; // enough with load balanced impl
       for (int ch = 0; ch < width; ch++)
         channels.set(ch, isolate(channels.get(ch), chBufferSize).tag("parallel.isolated-ch"+ch));
       
@@ -25,13 +25,20 @@ import static org.junit.Assume.assumeTrue;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
+import org.apache.edgent.execution.Job;
+import org.apache.edgent.execution.mbeans.ChannelLoadMXBean;
+import org.apache.edgent.execution.services.ControlService;
 import org.apache.edgent.function.BiFunction;
 import org.apache.edgent.function.Function;
 import org.apache.edgent.function.Functions;
@@ -684,6 +691,113 @@ public abstract class PlumbingTest extends TopologyAbstractTest {
                 && evenChCnt <= (expEvenChCnt + thresholdCnt)); 
     }
     
+    @Test
+    public void testParallelBalancedThroughput() throws Exception {
+        // Channels waiting 200us per tuple, the throughput scales with
+        // the width as long as the splitter keeps up.
+        int tupCnt = 4000;
+        List<Integer> tuples = new ArrayList<>(tupCnt);
+        for (int i = 0; i < tupCnt; i++)
+          tuples.add(i);
+        long[] rates = new long[4];
+        for (int maxInFlight : new int[] {1, 4}) {
+          for (int i = 0; i < rates.length; i++) {
+            int width = 1 << i;
+            Topology top = newTopology("testParallelBalancedThroughput");
+            TStream<Integer> values = top.collection(tuples);
+            BiFunction<TStream<Integer>,Integer,TStream<Integer>> pipeline =
+                (stream,ch) -> stream.map(v -> {
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(200));
+                    return v;
+                  });
+            TStream<Integer> result = PlumbingStreams.parallelBalanced(values, width, maxInFlight, pipeline);
+            Condition<Long> count = top.getTester().tupleCount(result, tupCnt);
+
+            long begin = System.nanoTime();
+            complete(top, count);
+            long end = System.nanoTime();
+            assertTrue(count.valid());
+            rates[i] = tupCnt * TimeUnit.SECONDS.toNanos(1) / (end - begin);
+          }
+          System.out.println("parallelBalanced maxInFlight="+maxInFlight+" tuples/s for width 1,2,4,8: "+Arrays.toString(rates));
+          
+          if (Boolean.getBoolean("edgent.build.ci"))
+            System.err.println("testParallelBalancedThroughput WARNING skipped performance check on 'ci' system use");
+          else
+            assertTrue(Arrays.toString(rates), rates[3] > 3 * rates[0]);
+        }
+    }
+    
+    @Test
+    public void testParallelKeyed() throws Exception {
+        // Key 0 makes half of the tuples.
+        int width = 4;
+        int tupCnt = 20000;
+        Function<Integer,Integer> key = v -> v % 2 == 0 ? 0 : 1 + v % 199;
+        
+        for (double hotKeyShare : new double[] {0, 0.2}) {
+          Topology top = newTopology("testParallelKeyed");
+          List<Integer> tuples = new ArrayList<>(tupCnt);
+          for (int i = 0; i < tupCnt; i++)
+            tuples.add(i);
+          TStream<Integer> values = top.collection(tuples).alias("keyed");
+          TStream<int[]> result = PlumbingStreams.parallelKeyed(values, width, key, hotKeyShare,
+              (stream,ch) -> stream.map(v -> new int[] {key.apply(v), ch}));
+          
+          Map<Integer,Set<Integer>> keyChannels = new HashMap<>();
+          AtomicInteger cnt = new AtomicInteger();
+          result.sink(kc -> {
+              synchronized (keyChannels) {
+                Set<Integer> channels = keyChannels.get(kc[0]);
+                if (channels == null)
+                  keyChannels.put(kc[0], channels = new HashSet<>());
+                channels.add(kc[1]);
+              }
+              cnt.incrementAndGet();
+            });
+          
+          Job job = null;
+          try {
+            @SuppressWarnings("unchecked")
+            Future<Job> jf = (Future<Job>) getSubmitter().submit(top);
+            job = jf.get();
+            for (int i = 0; i < 500 && cnt.get() < tupCnt; i++)
+              Thread.sleep(20);
+            assertEquals(tupCnt, cnt.get());
+            
+            ChannelLoadMXBean load = top.getRuntimeServiceSupplier().get()
+                .getService(ControlService.class)
+                .getControl(ChannelLoadMXBean.TYPE, "keyed", ChannelLoadMXBean.class);
+            long routed = 0;
+            for (int ch = 0; ch < width; ch++)
+              routed += load.getChannelTuples(ch);
+            assertEquals(width, load.getWidth());
+            assertEquals(tupCnt, routed);
+            System.out.println("parallelKeyed hotKeyShare="+hotKeyShare+" imbalance="+load.getImbalance()
+                +" hotKeyTuples="+load.getHotKeyTuples());
+            
+            // Other keys keep their channel.
+            assertEquals(200, keyChannels.size());
+            for (int k = 1; k < 200; k++)
+              assertEquals("key "+k, 1, keyChannels.get(k).size());
+            if (hotKeyShare == 0) {
+              assertEquals(1, keyChannels.get(0).size());
+              assertEquals(0, load.getHotKeyTuples());
+              assertTrue("imbalance="+load.getImbalance(), load.getImbalance() >= 2);
+            }
+            else {
+              assertEquals(width, keyChannels.get(0).size());
+              assertTrue(load.getHotKeyTuples() > tupCnt / 2 - 100);
+              assertTrue("imbalance="+load.getImbalance(), load.getImbalance() < 1.5);
+            }
+          }
+          finally {
+            if (job != null)
+              job.stateChange(Job.Action.CLOSE);
+          }
+        }
+    }
+    
 //    @Test
 //    public void testParallelTiming() throws Exception {
 //        Topology top = newTopology("testParallelTiming");
@@ -0,0 +1,228 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.test.topology;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.edgent.topology.TDoubleStream;
+import org.apache.edgent.topology.TLongStream;
+import org.apache.edgent.topology.TStream;
+import org.apache.edgent.topology.Topology;
+import org.apache.edgent.topology.tester.Condition;
+import org.junit.Ignore;
+import org.junit.Test;
+
+@Ignore
+public abstract class TPrimitiveStreamTest extends TopologyAbstractTest {
+
+    @Test
+    public void testDoubleStream() throws Exception {
+
+        Topology t = newTopology();
+
+        TStream<String> s = t.strings("1.5", "-2", "4", "8.25", "-1");
+        TDoubleStream d = s.mapToDouble(Double::parseDouble)
+                .filter(v -> v > 0)
+                .map(v -> v * 2);
+        TStream<Double> b = d.boxed();
+        TStream<String> o = d.mapToObj(v -> v > 10 ? null : "v" + v);
+
+        Condition<Long> tc = t.getTester().tupleCount(b, 3);
+        Condition<List<Double>> contents = t.getTester().streamContents(b, 3.0, 8.0, 16.5);
+        Condition<List<String>> objects = t.getTester().streamContents(o, "v3.0", "v8.0");
+        complete(t, tc);
+
+        assertTrue(contents.getResult().toString(), contents.valid());
+        assertTrue(objects.getResult().toString(), objects.valid());
+    }
+
+    @Test
+    public void testLongStream() throws Exception {
+
+        Topology t = newTopology();
+
+        TStream<String> s = t.strings("3", "7", "10", "11", "20");
+        TLongStream l = s.mapToLong(Long::parseLong)
+                .map(v -> v * 10)
+                .filter(v -> v != 100);
+        TStream<Double> d = l.mapToDouble(v -> v / 4.0).boxed();
+
+        Condition<Long> tc = t.getTester().tupleCount(d, 4);
+        Condition<List<Long>> contents = t.getTester().streamContents(l.boxed(), 30L, 70L, 110L, 200L);
+        Condition<List<Double>> doubles = t.getTester().streamContents(d, 7.5, 17.5, 27.5, 50.0);
+        complete(t, tc);
+
+        assertTrue(contents.getResult().toString(), contents.valid());
+        assertTrue(doubles.getResult().toString(), doubles.valid());
+    }
+
+    @Test
+    public void testWindows() throws Exception {
+
+        Topology t = newTopology();
+
+        TStream<String> s = t.strings("1", "2", "3", "4", "5", "6", "7");
+        TLongStream l = s.mapToLong(Long::parseLong);
+        // Sums of the last 3 and of each batch of 3.
+        TStream<Long> last = l.last(3, w -> w[0] + w[1] + w[2]).boxed();
+        TStream<Double> batch = l.mapToDouble(v -> v)
+                .batch(3, w -> w[0] * 100 + w[1] * 10 + w[2]).boxed();
+
+        Condition<Long> tc = t.getTester().tupleCount(last, 5);
+        Condition<List<Long>> lastContents = t.getTester().streamContents(last, 6L, 9L, 12L, 15L, 18L);
+        Condition<List<Double>> batchContents = t.getTester().streamContents(batch, 123.0, 456.0);
+        complete(t, tc);
+
+        assertTrue(lastContents.getResult().toString(), lastContents.valid());
+        assertTrue(batchContents.getResult().toString(), batchContents.valid());
+    }
+
+    @Test
+    public void testWindowConcurrentSources() throws Exception {
+
+        Topology t = newTopology();
+
+        // Four sources on their own threads feed one batch window.
+        int n = 200_000;
+        List<Long> ones = Collections.nCopies(n, 1L);
+        TStream<Long> s = t.source(() -> ones);
+        Set<TStream<Long>> others = new HashSet<>();
+        for (int i = 0; i < 3; i++)
+            others.add(t.source(() -> ones));
+        TStream<Long> batch = s.union(others).mapToLong(Long::longValue)
+                .batch(10, w -> {
+                    long sum = 0;
+                    for (long v : w)
+                        sum += v;
+                    return sum;
+                }).boxed();
+
+        Condition<Long> tc = t.getTester().tupleCount(batch, 4 * n / 10);
+        List<Long> sums = Collections.synchronizedList(new ArrayList<>());
+        batch.sink(sums::add);
+        complete(t, tc, 30, TimeUnit.SECONDS);
+
+        assertTrue(tc.getResult().toString(), tc.valid());
+        assertEquals(Collections.nCopies(4 * n / 10, 10L), sums);
+    }
+
+    @Test
+    public void testPeekSink() throws Exception {
+
+        Topology t = newTopology();
+
+        AtomicLong peeked = new AtomicLong();
+        AtomicLong sunk = new AtomicLong();
+        TStream<String> s = t.strings("1", "2", "3");
+        TDoubleStream d = s.mapToDouble(Double::parseDouble)
+                .peek(v -> peeked.addAndGet((long) v));
+        d.sink(v -> sunk.addAndGet((long) (v * 10)));
+
+        Condition<Long> tc = t.getTester().tupleCount(d.boxed(), 3);
+        complete(t, tc);
+
+        assertEquals(6, peeked.get());
+        assertEquals(60, sunk.get());
+    }
+
+    @Test
+    public void testPollDouble() throws Exception {
+
+        Topology t = newTopology();
+
+        double[] next = new double[1];
+        List<Double> polled = Collections.synchronizedList(new ArrayList<>());
+        TDoubleStream d = t.pollDouble(() -> next[0]++, 1, TimeUnit.MILLISECONDS);
+        d.sink(v -> polled.add(v));
+
+        Condition<Long> tc = t.getTester().atLeastTupleCount(d.boxed(), 5);
+        complete(t, tc);
+
+        assertTrue(tc.getResult().toString(), tc.valid());
+        assertEquals(Arrays.asList(0.0, 1.0, 2.0, 3.0, 4.0), polled.subList(0, 5));
+    }
+
+    @Test
+    public void testBoxedBenchmark() throws Exception {
+        // A sensor pipeline scaling and filtering samples and aggregating
+        // batches of 178, as boxed streams and as a double stream.
+        int n = 2_000_000;
+        List<Double> samples = new ArrayList<>(n);
+        for (int i = 0; i < n; i++)
+            samples.add((double) (i % 1000));
+        // 798 of each 1000 samples pass the filter.
+        long batches = n / 1000 * 798 / 178;
+        long boxedTime = 0;
+        long primitiveTime = 0;
+
+        for (int run = 0; run < 3; run++) {
+            Topology t = newTopology();
+            AtomicLong end = new AtomicLong();
+            TStream<Double> boxed = t.source(() -> samples)
+                    .map(v -> v * 0.5)
+                    .map(v -> v + 1)
+                    .filter(v -> v < 400)
+                    .last(178, tuple -> 0).batch((window, key) -> {
+                        double sum = 0;
+                        for (Double v : window)
+                            sum += v;
+                        return sum;
+                    })
+                    .peek(v -> end.set(System.nanoTime()));
+            Condition<Long> tc = t.getTester().tupleCount(boxed, batches);
+            long start = System.nanoTime();
+            complete(t, tc, 60, TimeUnit.SECONDS);
+            assertTrue(tc.getResult().toString(), tc.valid());
+            boxedTime = end.get() - start;
+
+            t = newTopology();
+            TStream<Double> primitive = t.source(() -> samples)
+                    .mapToDouble(Double::doubleValue)
+                    .map(v -> v * 0.5)
+                    .map(v -> v + 1)
+                    .filter(v -> v < 400)
+                    .batch(178, window -> {
+                        double sum = 0;
+                        for (double v : window)
+                            sum += v;
+                        return sum;
+                    })
+                    .peek(v -> end.set(System.nanoTime()))
+                    .boxed();
+            tc = t.getTester().tupleCount(primitive, batches);
+            start = System.nanoTime();
+            complete(t, tc, 60, TimeUnit.SECONDS);
+            assertTrue(tc.getResult().toString(), tc.valid());
+            primitiveTime = end.get() - start;
+        }
+        System.out.println("boxed " + TimeUnit.NANOSECONDS.toMillis(boxedTime)
+                + "ms, double stream " + TimeUnit.NANOSECONDS.toMillis(primitiveTime)
+                + "ms for " + n + " samples");
+    }
+}
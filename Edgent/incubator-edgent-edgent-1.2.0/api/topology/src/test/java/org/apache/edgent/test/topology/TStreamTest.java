@@ -40,6 +40,7 @@ import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.edgent.execution.Job;
 import org.apache.edgent.topology.TSink;
 import org.apache.edgent.topology.TStream;
 import org.apache.edgent.topology.TWindow;
@@ -901,6 +902,119 @@ public abstract class TStreamTest extends TopologyAbstractTest {
         complete(t, tc);      
     }
     
+    @Test
+    public void testJoinWindowed() throws Exception{
+        Topology t = newTopology();
+        
+        List<Integer> lefts = new ArrayList<>();
+        List<Integer> rights = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for(int i = 0; i < 100; i++){
+            lefts.add(i);
+            rights.add(1000 + i);
+        }
+        // Each pair with the same key joins exactly once.
+        for(int l : lefts)
+            for(int r : rights)
+                if(l % 10 == r % 10)
+                    expected.add(l + "-" + r);
+        
+        TStream<Integer> leftStream = t.collection(lefts);
+        TStream<Integer> rightStream = t.collection(rights);
+        TStream<String> joined = leftStream.join(tuple -> tuple % 10, rightStream, tuple -> tuple % 10,
+                10, TimeUnit.SECONDS, (l, r) -> {
+                    assertTrue(l < 1000 && r >= 1000);
+                    return l + "-" + r;
+                });
+        
+        Condition<Long> tc = t.getTester().tupleCount(joined, expected.size());
+        Condition<List<String>> contents = t.getTester().contentsUnordered(joined, expected.toArray(new String[0]));
+        complete(t, tc);
+        assertTrue(contents.getResult().toString(), contents.valid());
+    }
+    
+    @Test
+    public void testJoinWindowedBand() throws Exception{
+        Topology t = newTopology();
+        
+        List<Integer> lefts = new ArrayList<>();
+        List<Integer> rights = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for(int i = 0; i < 100; i++){
+            lefts.add(i);
+            rights.add(1000 + i);
+        }
+        for(int l : lefts)
+            for(int r : rights)
+                if(l % 2 == r % 2 && Math.abs(l - (r - 1000)) <= 3)
+                    expected.add(l + "-" + r);
+        
+        TStream<String> joined = t.collection(lefts).join(tuple -> tuple % 2, tuple -> tuple,
+                t.collection(rights), tuple -> tuple % 2, tuple -> tuple - 1000, 3,
+                10, TimeUnit.SECONDS, (l, r) -> l + "-" + r);
+        
+        Condition<Long> tc = t.getTester().tupleCount(joined, expected.size());
+        Condition<List<String>> contents = t.getTester().contentsUnordered(joined, expected.toArray(new String[0]));
+        complete(t, tc);
+        assertTrue(contents.getResult().toString(), contents.valid());
+    }
+    
+    @Test
+    public void testJoinWindowedEviction() throws Exception{
+        Topology t = newTopology();
+        
+        List<Integer> early = new ArrayList<>();
+        List<Integer> late = new ArrayList<>();
+        for(int i = 0; i < 10; i++){
+            early.add(i);
+            late.add(10 + i);
+        }
+        // Only the late tuples of the left stream are in the window
+        // when the right stream's tuples arrive.
+        TStream<Integer> leftStream = t.collection(early).union(delayed(t, late, 1000));
+        TStream<Integer> rightStream = delayed(t, early, 1000);
+        TStream<String> joined = leftStream.join(tuple -> tuple % 10, rightStream, tuple -> tuple % 10,
+                300, TimeUnit.MILLISECONDS, (l, r) -> l + "-" + r);
+        
+        Condition<Long> tc = t.getTester().tupleCount(joined, 10);
+        Condition<List<String>> contents = t.getTester().contentsUnordered(joined,
+                "10-0", "11-1", "12-2", "13-3", "14-4", "15-5", "16-6", "17-7", "18-8", "19-9");
+        complete(t, tc);
+        assertTrue(contents.getResult().toString(), contents.valid());
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testJoinWindowedCompletes() throws Exception{
+        Topology t = newTopology();
+        
+        // Once the finite inputs are joined and their tuples expire,
+        // the join has nothing left to sweep and the job completes.
+        AtomicInteger cnt = new AtomicInteger();
+        t.collection(Arrays.asList(1, 2, 3)).join(tuple -> tuple, t.collection(Arrays.asList(3, 2, 1)), tuple -> tuple,
+                200, TimeUnit.MILLISECONDS, (l, r) -> l + "-" + r)
+            .sink(tuple -> cnt.incrementAndGet());
+        
+        Job job = ((Future<Job>) getSubmitter().submit(t)).get();
+        try {
+            job.complete(getTimeoutValue(10, TimeUnit.SECONDS), TimeUnit.SECONDS);
+            assertEquals(3, cnt.get());
+        } finally {
+            job.stateChange(Job.Action.CLOSE);
+        }
+    }
+    
+    private static TStream<Integer> delayed(Topology t, List<Integer> tuples, long delayMillis) {
+        return t.source(() -> {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            return tuples;
+        });
+    }
+    
     private static long getTimeoutValue(long timeout, TimeUnit units) {
         // try to protect the tests from timing out prematurely
         // in the face of overloaded/slow build/test servers.
@@ -23,18 +23,24 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import org.apache.edgent.execution.Job;
 import org.apache.edgent.execution.mbeans.PeriodMXBean;
 import org.apache.edgent.execution.services.ControlService;
 import org.apache.edgent.execution.services.RuntimeServices;
+import org.apache.edgent.function.Consumer;
 import org.apache.edgent.function.Supplier;
 import org.apache.edgent.topology.TStream;
 import org.apache.edgent.topology.Topology;
@@ -159,6 +165,142 @@ public abstract class TopologyTest extends TopologyAbstractTest {
         
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testPollBatch() throws Exception {
+        // 1000 samples every 10ms, 100k samples per second.
+        Job job = null;
+        try {
+            Topology t = newTopology();
+            Long[] buffer = new Long[1000];
+            AtomicInteger calls = new AtomicInteger();
+            AtomicInteger sent = new AtomicInteger();
+            TStream<long[]> s = t.pollBatch(() -> {
+                    // Every other batch is half full, ended by a null.
+                    int n = calls.incrementAndGet() % 2 == 0 ? buffer.length / 2 : buffer.length;
+                    for (int i = 0; i < n; i++)
+                        buffer[i] = (long) sent.getAndIncrement();
+                    if (n < buffer.length)
+                        buffer[n] = null;
+                    return buffer;
+                },
+                (sample, time) -> new long[] {sample, time},
+                10, TimeUnit.MILLISECONDS)
+                .alias("myBatchAlias");
+
+            AtomicInteger cnt = new AtomicInteger();
+            AtomicInteger outOfOrder = new AtomicInteger();
+            // Written by the job's thread, read by this one.
+            AtomicLongArray last = new AtomicLongArray(new long[] {-1, 0});
+            s.peek(tuple -> {
+                if (tuple[0] != last.get(0) + 1 || tuple[1] < last.get(1))
+                    outOfOrder.incrementAndGet();
+                last.set(0, tuple[0]);
+                last.set(1, tuple[1]);
+                cnt.incrementAndGet();
+            });
+
+            long start = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+            Future<Job> jf = (Future<Job>) getSubmitter().submit(t);
+            job = jf.get();
+            Thread.sleep(TimeUnit.SECONDS.toMillis(1));
+            long end = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+            PeriodMXBean control = getPeriodControl(s);
+            job.stateChange(Job.Action.CLOSE);
+            job = null;
+
+            int curCnt = cnt.get();
+            if (Boolean.getBoolean("edgent.build.ci"))
+                System.err.println("testPollBatch WARNING skipped performance check on 'ci' system use");
+            else
+                assertTrue("curCnt="+curCnt, curCnt >= 50000);
+            assertEquals(0, outOfOrder.get());
+            // Interpolated times fall within the run, allowing for clock granularity.
+            long lastTime = last.get(1);
+            assertTrue(lastTime >= start - TimeUnit.MILLISECONDS.toNanos(20)
+                    && lastTime <= end + TimeUnit.MILLISECONDS.toNanos(20));
+
+            assertTrue(control.getMaxLag() >= control.getMeanLag());
+            assertTrue(control.getMeanLag() >= 0);
+            System.out.println("pollBatch: " + curCnt + " samples/s, mean lag " + control.getMeanLag() + "ns, max lag " + control.getMaxLag() + "ns");
+        }
+        finally {
+            if (job != null)
+                job.stateChange(Job.Action.CLOSE);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testEventsQueued() throws Exception {
+        final int sources = 100;
+        final int events = 10000;
+        Job job = null;
+        try {
+            Topology t = newTopology();
+            List<Consumer<int[]>> submitters = Collections.synchronizedList(new ArrayList<>());
+            AtomicInteger cnt = new AtomicInteger();
+            AtomicInteger outOfOrder = new AtomicInteger();
+            for (int i = 0; i < sources; i++) {
+                int[] last = new int[] {-1};
+                t.events((Consumer<int[]> submitter) -> submitters.add(submitter), 16)
+                    .sink(tuple -> {
+                        if (tuple[1] != last[0] + 1)
+                            outOfOrder.incrementAndGet();
+                        last[0] = tuple[1];
+                        cnt.incrementAndGet();
+                    });
+            }
+
+            int threads = ManagementFactory.getThreadMXBean().getThreadCount();
+            Future<Job> jf = (Future<Job>) getSubmitter().submit(t);
+            job = jf.get();
+            for (int i = 0; i < 100 && submitters.size() < sources; i++)
+                Thread.sleep(20);
+            assertEquals(sources, submitters.size());
+
+            // The sources have no thread of their own.
+            int added = ManagementFactory.getThreadMXBean().getThreadCount() - threads;
+            assertTrue("added=" + added, added < sources);
+
+            // The sources keep the job running.
+            try {
+                job.complete(100, TimeUnit.MILLISECONDS);
+                assertTrue("job completed", false);
+            } catch (TimeoutException e) {
+            }
+            assertEquals(Job.State.RUNNING, job.getCurrentState());
+
+            Thread[] producers = new Thread[4];
+            for (int p = 0; p < producers.length; p++) {
+                int first = p;
+                producers[p] = new Thread(() -> {
+                    for (int e = 0; e < events; e++)
+                        for (int s = first; s < sources; s += producers.length)
+                            submitters.get(s).accept(new int[] {s, e});
+                });
+                producers[p].start();
+            }
+            for (Thread producer : producers)
+                producer.join();
+            for (int i = 0; i < 500 && cnt.get() < sources * events; i++)
+                Thread.sleep(20);
+
+            assertEquals(sources * events, cnt.get());
+            assertEquals(0, outOfOrder.get());
+        }
+        finally {
+            if (job != null)
+                job.stateChange(Job.Action.CLOSE);
+        }
+    }
+
+    static <T> PeriodMXBean getPeriodControl(TStream<T> pollStream) {
+        ControlService cs = pollStream.topology().getRuntimeServiceSupplier()
+                                    .get().getService(ControlService.class);
+        return cs.getControl(TStream.TYPE, pollStream.getAlias(), PeriodMXBean.class);
+    }
+
     static <T> void setPollFrequency(TStream<T> pollStream, long period, TimeUnit unit) {
         ControlService cs = pollStream.topology().getRuntimeServiceSupplier()
                                     .get().getService(ControlService.class);
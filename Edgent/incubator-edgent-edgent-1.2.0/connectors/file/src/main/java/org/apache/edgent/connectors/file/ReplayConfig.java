@@ -0,0 +1,115 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.connectors.file;
+
+import java.util.Arrays;
+
+/**
+ * Sample replay configuration.
+ * <p>
+ * The replay reads the samples of some columns of a file, each column
+ * being a channel, and submits them in batches of {@code batchSize} rows.
+ * The pace of the replay is one of:
+ * <ul>
+ * <li>as fast as possible, a {@code speed} of {@value #AS_FAST_AS_POSSIBLE}</li>
+ * <li>real-time, a {@code speed} of {@value #REAL_TIME}: {@code sampleRate}
+ * rows per second</li>
+ * <li>N times real-time, a {@code speed} of {@code N}</li>
+ * </ul>
+ * A batch is submitted when the time of its first row is reached.
+ */
+public class ReplayConfig {
+    /** The speed of a replay as fast as possible. */
+    public static final double AS_FAST_AS_POSSIBLE = 0;
+    /** The speed of a real-time replay. */
+    public static final double REAL_TIME = 1;
+
+    private int batchSize;
+    private double sampleRate;
+    private double speed;
+    private String[] columns;
+
+    /** same as {@code newConfig(batchSize, 0, AS_FAST_AS_POSSIBLE, columns)}
+     * 
+     * @param batchSize number of rows in a batch
+     * @param columns names of the columns to replay, all the columns if none
+     * @return the replay configuration
+     */
+    public static ReplayConfig newAsFastAsPossibleConfig(int batchSize, String... columns) {
+        return newConfig(batchSize, 0, AS_FAST_AS_POSSIBLE, columns);
+    }
+
+    /**
+     * Create a new configuration.
+     * 
+     * @param batchSize number of rows in a batch
+     * @param sampleRate rows per second of the recording, ignored when
+     *        replaying as fast as possible
+     * @param speed speed of the replay relative to real-time,
+     *        {@link #AS_FAST_AS_POSSIBLE} to not wait between batches
+     * @param columns names of the columns to replay, all the columns if none
+     * @return the replay configuration
+     */
+    public static ReplayConfig newConfig(int batchSize, double sampleRate, double speed, String... columns) {
+        return new ReplayConfig(batchSize, sampleRate, speed, columns);
+    }
+
+    private ReplayConfig(int batchSize, double sampleRate, double speed, String[] columns) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("batchSize");
+        if (!(speed >= 0) || Double.isInfinite(speed))
+            throw new IllegalArgumentException("speed");
+        if (speed != AS_FAST_AS_POSSIBLE && !(sampleRate > 0))
+            throw new IllegalArgumentException("sampleRate");
+        this.batchSize = batchSize;
+        this.sampleRate = sampleRate;
+        this.speed = speed;
+        this.columns = columns == null ? new String[0] : columns.clone();
+    }
+
+    /**
+     * Get the number of rows in a batch.
+     * @return the batch size
+     */
+    public int getBatchSize() { return batchSize; }
+
+    /**
+     * Get the rows per second of the recording.
+     * @return the sample rate
+     */
+    public double getSampleRate() { return sampleRate; }
+
+    /**
+     * Get the speed of the replay relative to real-time.
+     * @return the speed, {@link #AS_FAST_AS_POSSIBLE} to not wait between batches
+     */
+    public double getSpeed() { return speed; }
+
+    /**
+     * Get the names of the columns to replay.
+     * @return the column names, empty for all the columns
+     */
+    public String[] getColumns() { return columns.clone(); }
+
+    @Override
+    public String toString() {
+        return String.format("batchSize:%d sampleRate:%s speed:%s columns:%s",
+                getBatchSize(), getSampleRate(), getSpeed(), Arrays.toString(columns));
+    }
+}
@@ -0,0 +1,109 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.connectors.file;
+
+/**
+ * A batch of consecutive rows of replayed samples.
+ * <p>
+ * The samples are held per channel, in the order of the columns of the
+ * {@link ReplayConfig}, as a primitive array of {@link #getSize()} samples.
+ */
+public class SampleBatch {
+    private final String[] channelNames;
+    private final long firstRow;
+    private final int size;
+    private final double[][] channels;
+
+    /**
+     * Create a batch.
+     * 
+     * @param channelNames names of the channels, not copied
+     * @param firstRow index of the first row of the batch in the file, from 0
+     * @param size number of rows in the batch
+     * @param channels samples of each channel, not copied
+     */
+    public SampleBatch(String[] channelNames, long firstRow, int size, double[][] channels) {
+        this.channelNames = channelNames;
+        this.firstRow = firstRow;
+        this.size = size;
+        this.channels = channels;
+    }
+
+    /**
+     * Get the number of channels.
+     * @return the channel count
+     */
+    public int getChannelCount() {
+        return channels.length;
+    }
+
+    /**
+     * Get the name of a channel, the name of its column.
+     * @param channel index of the channel
+     * @return the name
+     */
+    public String getChannelName(int channel) {
+        return channelNames[channel];
+    }
+
+    /**
+     * Get the index of the first row of the batch in the file.
+     * @return the row index, from 0 for the first row after the header
+     */
+    public long getFirstRow() {
+        return firstRow;
+    }
+
+    /**
+     * Get the number of rows in the batch.
+     * @return the size
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Get the samples of a channel.
+     * <p>
+     * The array is the batch's own, it may be longer than {@link #getSize()}
+     * and must not be modified.
+     * @param channel index of the channel
+     * @return the samples
+     */
+    public double[] getChannel(int channel) {
+        return channels[channel];
+    }
+
+    /**
+     * Get a sample.
+     * @param channel index of the channel
+     * @param row index of the row within the batch
+     * @return the sample
+     */
+    public double get(int channel, int row) {
+        if (row >= size)
+            throw new IndexOutOfBoundsException("row: " + row);
+        return channels[channel][row];
+    }
+
+    @Override
+    public String toString() {
+        return "{firstRow=" + firstRow + ", size=" + size + ", channels=" + channels.length + "}";
+    }
+}
@@ -0,0 +1,185 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.connectors.file.runtime;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads columns of a binary column file through memory mappings.
+ * <p>
+ * A column file holds each column of samples contiguously, so the samples
+ * of a column are copied from the mapping in bulk. All numbers are little-endian:
+ * <pre>
+ * int32    magic, {@value #MAGIC}
+ * int32    number of columns, C
+ * int64    number of rows, N
+ * C times  int32 length of the column name, followed by the UTF-8 name
+ *          zero padding to a multiple of 8 bytes
+ * C times  N float64 samples of the column
+ * </pre>
+ * Column files are created from CSV files by {@link ColumnFileWriter}.
+ * <p>
+ * Each column is mapped a window of {@code windowRows} rows at a time,
+ * so files of any size can be read.
+ */
+public class ColumnFileReader implements ColumnReader {
+
+    /** The first int of a column file. */
+    public static final int MAGIC = 0x4c4f4345; // "ECOL"
+
+    private static final int DEFAULT_WINDOW_ROWS = 1 << 20;
+
+    private final FileChannel channel;
+    private final int windowRows;
+    private final String[] columnNames;
+    private final long rows;
+    // Offset of the samples of each column read.
+    private final long[] offsets;
+    private final DoubleBuffer[] windows;
+    private long windowRow = -1;
+    private long row;
+
+    /**
+     * Open a column file.
+     * 
+     * @param path the file
+     * @param columns names of the columns to read, all the columns if none
+     * @throws IOException if the file cannot be read or is not a column file
+     * @throws IllegalArgumentException if a column is not in the file
+     */
+    public ColumnFileReader(Path path, String... columns) throws IOException {
+        this(path, DEFAULT_WINDOW_ROWS, columns);
+    }
+
+    /**
+     * Open a column file.
+     * 
+     * @param path the file
+     * @param windowRows the number of rows of a column mapped at a time
+     * @param columns names of the columns to read, all the columns if none
+     * @throws IOException if the file cannot be read or is not a column file
+     * @throws IllegalArgumentException if a column is not in the file
+     */
+    public ColumnFileReader(Path path, int windowRows, String... columns) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.windowRows = windowRows;
+        try {
+            ByteBuffer header = read(0, 16);
+            if (header.getInt() != MAGIC)
+                throw new IOException("not a column file: " + path);
+            int count = header.getInt();
+            rows = header.getLong();
+            if (count < 0 || rows < 0)
+                throw new IOException("corrupt column file: " + path);
+            String[] names = new String[count];
+            long offset = 16;
+            for (int c = 0; c < count; c++) {
+                int length = read(offset, 4).getInt();
+                byte[] name = new byte[length];
+                read(offset + 4, length).get(name);
+                names[c] = new String(name, StandardCharsets.UTF_8);
+                offset += 4 + length;
+            }
+            long data = (offset + 7) & ~7L;
+            if (data + count * rows * 8 > channel.size())
+                throw new IOException("truncated column file: " + path);
+
+            columnNames = columns == null || columns.length == 0 ? names : columns.clone();
+            offsets = new long[columnNames.length];
+            List<String> all = Arrays.asList(names);
+            for (int c = 0; c < columnNames.length; c++) {
+                int index = all.indexOf(columnNames[c]);
+                if (index < 0)
+                    throw new IllegalArgumentException("column " + columnNames[c] + " not in " + all);
+                offsets[c] = data + index * rows * 8;
+            }
+            windows = new DoubleBuffer[columnNames.length];
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (b.hasRemaining()) {
+            if (channel.read(b, position + b.position()) < 0)
+                throw new IOException("truncated column file");
+        }
+        b.flip();
+        return b;
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        return columnNames.clone();
+    }
+
+    /**
+     * Get the number of rows in the file.
+     * @return the row count
+     */
+    public long getRowCount() {
+        return rows;
+    }
+
+    @Override
+    public int read(double[][] columns, int offset, int max) throws IOException {
+        if (row == rows && max > 0)
+            return -1;
+        int n = (int) Math.min(max, rows - row);
+        for (int done = 0; done < n; ) {
+            if (windowRow < 0 || row >= windowRow + windowRows)
+                map(row);
+            int m = (int) Math.min(n - done, windowRow + windowRows - row);
+            int from = (int) (row - windowRow);
+            for (int c = 0; c < windows.length; c++) {
+                windows[c].position(from);
+                windows[c].get(columns[c], offset + done, m);
+            }
+            row += m;
+            done += m;
+        }
+        return n;
+    }
+
+    private void map(long first) throws IOException {
+        long length = Math.min(windowRows, rows - first);
+        for (int c = 0; c < windows.length; c++) {
+            windows[c] = channel.map(FileChannel.MapMode.READ_ONLY, offsets[c] + first * 8, length * 8)
+                    .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        }
+        windowRow = first;
+    }
+
+    @Override
+    public void close() throws IOException {
+        Arrays.fill(windows, null);
+        channel.close();
+    }
+}
@@ -0,0 +1,102 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.connectors.file.runtime;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Converts CSV files to column files read by {@link ColumnFileReader}.
+ */
+public class ColumnFileWriter {
+    @SuppressWarnings("unused")
+    private static final ColumnFileWriter forCodeCoverage = new ColumnFileWriter();
+    private static final int BATCH_ROWS = 1 << 16;
+
+    private ColumnFileWriter() {}
+
+    /**
+     * Convert columns of a CSV file to a column file.
+     * <p>
+     * The CSV file is read twice, once to count its rows and once to
+     * write them, so its columns can be written contiguously without
+     * holding them in memory.
+     * 
+     * @param csv the CSV file, read by {@link CsvColumnReader}
+     * @param columnFile the column file to create, replaced if it exists
+     * @param columns names of the columns to convert, all the columns if none
+     * @return the number of rows written
+     * @throws IOException if a file cannot be read or written
+     */
+    public static long convert(Path csv, Path columnFile, String... columns) throws IOException {
+        long rows = 0;
+        String[] names;
+        double[][] batch;
+        try (CsvColumnReader reader = new CsvColumnReader(csv, columns)) {
+            names = reader.getColumnNames();
+            batch = new double[names.length][BATCH_ROWS];
+            int n;
+            while ((n = reader.read(batch, 0, BATCH_ROWS)) >= 0)
+                rows += n;
+        }
+
+        int headerSize = 16;
+        byte[][] encoded = new byte[names.length][];
+        for (int c = 0; c < names.length; c++) {
+            encoded[c] = names[c].getBytes(StandardCharsets.UTF_8);
+            headerSize += 4 + encoded[c].length;
+        }
+        ByteBuffer header = ByteBuffer.allocate((headerSize + 7) & ~7).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(ColumnFileReader.MAGIC).putInt(names.length).putLong(rows);
+        for (byte[] name : encoded)
+            header.putInt(name.length).put(name);
+        header.clear();
+
+        try (FileChannel out = FileChannel.open(columnFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                CsvColumnReader reader = new CsvColumnReader(csv, columns)) {
+            write(out, header, 0);
+            ByteBuffer samples = ByteBuffer.allocateDirect(BATCH_ROWS * 8).order(ByteOrder.LITTLE_ENDIAN);
+            long row = 0;
+            int n;
+            while ((n = reader.read(batch, 0, BATCH_ROWS)) >= 0) {
+                for (int c = 0; c < names.length; c++) {
+                    samples.clear();
+                    samples.asDoubleBuffer().put(batch[c], 0, n);
+                    samples.limit(n * 8);
+                    write(out, samples, header.capacity() + (c * rows + row) * 8);
+                }
+                row += n;
+            }
+            if (row != rows)
+                throw new IOException(csv + " changed while converting it");
+        }
+        return rows;
+    }
+
+    private static void write(FileChannel out, ByteBuffer b, long position) throws IOException {
+        while (b.hasRemaining())
+            position += out.write(b, position);
+    }
+}
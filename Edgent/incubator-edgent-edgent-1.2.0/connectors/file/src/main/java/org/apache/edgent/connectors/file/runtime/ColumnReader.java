@@ -0,0 +1,47 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.connectors.file.runtime;
+
+import java.io.IOException;
+
+/**
+ * Reads the rows of some columns of a file as {@code double} samples.
+ */
+public interface ColumnReader extends AutoCloseable {
+
+    /**
+     * Get the names of the columns read, in the order of the samples.
+     * @return the column names
+     */
+    String[] getColumnNames();
+
+    /**
+     * Read the next rows.
+     * 
+     * @param columns receives the samples of each column
+     * @param offset index in {@code columns} of the first row read
+     * @param max maximum number of rows to read
+     * @return the number of rows read, {@code -1} at the end of the file
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    int read(double[][] columns, int offset, int max) throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
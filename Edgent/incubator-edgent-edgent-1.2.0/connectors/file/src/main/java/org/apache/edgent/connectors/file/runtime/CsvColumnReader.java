@@ -0,0 +1,313 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.connectors.file.runtime;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads numeric columns of a CSV file through a memory mapping.
+ * <p>
+ * The first line is the header naming the columns. The fields of the
+ * other lines are located by scanning the mapped bytes for separators
+ * and the selected ones are parsed in place, without creating a
+ * {@code String} per line or field. Decimal numbers of up to 15 digits
+ * are converted exactly by a fast path, others by
+ * {@link Double#parseDouble(String)}. An empty field is {@code NaN}.
+ * Blank lines are skipped, quoted fields are not supported.
+ * <p>
+ * The file is mapped a region of {@code regionSize} bytes at a time,
+ * so files of any size can be read; a line may not be longer than a region.
+ */
+public class CsvColumnReader implements ColumnReader {
+
+    private static final int DEFAULT_REGION_SIZE = 64 << 20;
+    private static final double[] POWERS_OF_10 = new double[23];
+    static {
+        POWERS_OF_10[0] = 1;
+        for (int i = 1; i < POWERS_OF_10.length; i++)
+            POWERS_OF_10[i] = POWERS_OF_10[i - 1] * 10;
+    }
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final int regionSize;
+    private final byte separator;
+    private final String[] columnNames;
+    // Column index of each field of a line, -1 when the field is not read.
+    private final int[] fieldColumns;
+
+    private MappedByteBuffer region;
+    private long regionStart;
+    private int position;
+    private long line;
+
+    /**
+     * Open a comma separated file.
+     * 
+     * @param path the file
+     * @param columns names of the columns to read, all the columns if none
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a column is not in the header
+     */
+    public CsvColumnReader(Path path, String... columns) throws IOException {
+        this(path, ',', DEFAULT_REGION_SIZE, columns);
+    }
+
+    /**
+     * Open a file.
+     * 
+     * @param path the file
+     * @param separator the field separator
+     * @param regionSize the number of bytes mapped at a time
+     * @param columns names of the columns to read, all the columns if none
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a column is not in the header
+     */
+    public CsvColumnReader(Path path, char separator, int regionSize, String... columns) throws IOException {
+        if (separator > 0x7f)
+            throw new IllegalArgumentException("separator");
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        this.regionSize = regionSize;
+        this.separator = (byte) separator;
+        try {
+            map(0);
+            int end = lineEnd();
+            if (end < 0)
+                throw new IOException("no header in " + path);
+            List<String> header = new ArrayList<>();
+            for (int start = position; ; ) {
+                int next = fieldEnd(start, end);
+                header.add(trim(new String(bytes(start, next), StandardCharsets.UTF_8)));
+                if (next == end)
+                    break;
+                start = next + 1;
+            }
+            nextLine(end);
+
+            String[] names = columns == null || columns.length == 0
+                    ? header.toArray(new String[header.size()]) : columns.clone();
+            fieldColumns = new int[header.size()];
+            Arrays.fill(fieldColumns, -1);
+            for (int c = 0; c < names.length; c++) {
+                int f = header.indexOf(names[c]);
+                if (f < 0)
+                    throw new IllegalArgumentException("column " + names[c] + " not in " + header);
+                fieldColumns[f] = c;
+            }
+            this.columnNames = names;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        return columnNames.clone();
+    }
+
+    @Override
+    public int read(double[][] columns, int offset, int max) throws IOException {
+        int rows = 0;
+        while (rows < max) {
+            int end = lineEnd();
+            if (end < 0)
+                break;
+            if (end > position && !(end == position + 1 && region.get(position) == '\r')) {
+                parseLine(end, columns, offset + rows);
+                rows++;
+            }
+            nextLine(end);
+        }
+        return rows == 0 && max > 0 ? -1 : rows;
+    }
+
+    private void parseLine(int end, double[][] columns, int row) throws IOException {
+        if (region.get(end - 1) == '\r')
+            end--;
+        int f = 0;
+        int read = 0;
+        for (int start = position; f < fieldColumns.length; f++) {
+            int next = fieldEnd(start, end);
+            int c = fieldColumns[f];
+            if (c >= 0) {
+                columns[c][row] = parse(start, next);
+                read++;
+            }
+            if (next == end) {
+                f++;
+                break;
+            }
+            start = next + 1;
+        }
+        if (read < columnNames.length)
+            throw new IOException("line " + (line + 1) + ": " + f + " fields, expected " + fieldColumns.length);
+    }
+
+    /**
+     * Parse a number in place. Decimal numbers whose digits fit in a long
+     * exactly as a double (up to 15 digits) with a power of ten that is
+     * itself exact are converted by a single multiplication or division,
+     * which is correctly rounded like {@code Double.parseDouble}.
+     */
+    private double parse(int start, int end) throws IOException {
+        while (start < end && region.get(start) == ' ')
+            start++;
+        while (end > start && region.get(end - 1) == ' ')
+            end--;
+        if (start == end)
+            return Double.NaN;
+
+        int i = start;
+        boolean negative = false;
+        byte b = region.get(i);
+        if (b == '-' || b == '+') {
+            negative = b == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean point = false;
+        boolean any = false;
+        for (; i < end; i++) {
+            b = region.get(i);
+            if (b >= '0' && b <= '9') {
+                any = true;
+                if (mantissa != 0 || b != '0')
+                    digits++;
+                mantissa = mantissa * 10 + (b - '0');
+                if (point)
+                    scale--;
+                if (digits > 15)
+                    return parseSlow(start, end);
+            } else if (b == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (i < end) {
+            if (!any || (region.get(i) != 'e' && region.get(i) != 'E'))
+                return parseSlow(start, end);
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (region.get(i) == '-' || region.get(i) == '+')) {
+                negativeExponent = region.get(i) == '-';
+                i++;
+            }
+            int exponent = 0;
+            if (i == end)
+                return parseSlow(start, end);
+            for (; i < end; i++) {
+                b = region.get(i);
+                if (b < '0' || b > '9' || exponent > 1000)
+                    return parseSlow(start, end);
+                exponent = exponent * 10 + (b - '0');
+            }
+            scale += negativeExponent ? -exponent : exponent;
+        }
+        if (!any)
+            return parseSlow(start, end);
+        double value = mantissa;
+        if (mantissa != 0) {
+            if (scale < -22 || scale > 22)
+                return parseSlow(start, end);
+            value = scale < 0 ? value / POWERS_OF_10[-scale] : value * POWERS_OF_10[scale];
+        }
+        return negative ? -value : value;
+    }
+
+    private double parseSlow(int start, int end) throws IOException {
+        String s = new String(bytes(start, end), StandardCharsets.US_ASCII);
+        try {
+            return Double.parseDouble(s);
+        } catch (NumberFormatException e) {
+            throw new IOException("line " + (line + 1) + ": not a number: " + s);
+        }
+    }
+
+    private byte[] bytes(int start, int end) {
+        byte[] b = new byte[end - start];
+        for (int i = start; i < end; i++)
+            b[i - start] = region.get(i);
+        return b;
+    }
+
+    private int fieldEnd(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (region.get(i) == separator)
+                return i;
+        }
+        return end;
+    }
+
+    /**
+     * Find the end of the line at the position, mapping the next region
+     * when the line is not complete in this one.
+     * Returns -1 at the end of the file.
+     */
+    private int lineEnd() throws IOException {
+        for (;;) {
+            int limit = region.limit();
+            for (int i = position; i < limit; i++) {
+                if (region.get(i) == '\n')
+                    return i;
+            }
+            if (regionStart + limit == fileSize)
+                return position >= limit ? -1 : limit;
+            if (position == 0)
+                throw new IOException("line " + (line + 1) + " longer than " + regionSize + " bytes");
+            map(regionStart + position);
+        }
+    }
+
+    private void nextLine(int end) {
+        position = end + 1;
+        line++;
+    }
+
+    private void map(long start) throws IOException {
+        region = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(regionSize, fileSize - start));
+        regionStart = start;
+        position = 0;
+    }
+
+    private static String trim(String s) {
+        s = s.trim();
+        if (s.length() >= 2 && s.charAt(0) == '"' && s.charAt(s.length() - 1) == '"')
+            s = s.substring(1, s.length() - 1);
+        return s;
+    }
+
+    @Override
+    public void close() throws IOException {
+        region = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,178 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.connectors.file.runtime;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.edgent.connectors.file.ReplayConfig;
+import org.apache.edgent.connectors.file.SampleBatch;
+import org.apache.edgent.function.Supplier;
+import org.slf4j.Logger;
+
+/**
+ * Replays the samples of a CSV or column file as batches,
+ * paced as configured by a {@link ReplayConfig}.
+ * <p>
+ * The file is opened each time the replay is iterated, and closed
+ * at the end of the file or when the replay is closed.
+ */
+public class SampleReplay implements Supplier<Iterable<SampleBatch>>, AutoCloseable {
+
+    private static final long serialVersionUID = 1L;
+    private static final Logger trace = FileConnector.getTrace();
+    private final Supplier<String> pathname;
+    private final boolean columnFile;
+    private final ReplayConfig config;
+    private transient volatile ColumnReader reader;
+
+    /**
+     * Create a replay.
+     * 
+     * @param pathname the file to replay
+     * @param columnFile {@code true} for a column file read by {@link ColumnFileReader},
+     *        {@code false} for a CSV file read by {@link CsvColumnReader}
+     * @param config the replay configuration
+     */
+    public SampleReplay(Supplier<String> pathname, boolean columnFile, ReplayConfig config) {
+        this.pathname = pathname;
+        this.columnFile = columnFile;
+        this.config = config;
+    }
+
+    @Override
+    public Iterable<SampleBatch> get() {
+        return new Iterable<SampleBatch>() {
+            @Override
+            public Iterator<SampleBatch> iterator() {
+                try {
+                    return new ReplayIterator(open());
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+    }
+
+    private ColumnReader open() throws IOException {
+        String path = pathname.get();
+        trace.info("replaying {} with {}", path, config);
+        ColumnReader r = columnFile
+                ? new ColumnFileReader(Paths.get(path), config.getColumns())
+                : new CsvColumnReader(Paths.get(path), config.getColumns());
+        reader = r;
+        return r;
+    }
+
+    @Override
+    public void close() throws IOException {
+        ColumnReader r = reader;
+        if (r != null)
+            r.close();
+    }
+
+    /*
+     * Iterator reading a batch ahead in hasNext() and
+     * waiting for its time in next().
+     */
+    private class ReplayIterator implements Iterator<SampleBatch> {
+        private final ColumnReader reader;
+        private final String[] names;
+        // Nanoseconds per row at the replay speed, 0 as fast as possible.
+        private final double rowNanos;
+        private long start;
+        private long row;
+        private SampleBatch batch;
+        private boolean done;
+
+        ReplayIterator(ColumnReader reader) {
+            this.reader = reader;
+            this.names = reader.getColumnNames();
+            this.rowNanos = config.getSpeed() == ReplayConfig.AS_FAST_AS_POSSIBLE ? 0
+                    : 1e9 / (config.getSampleRate() * config.getSpeed());
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (batch == null && !done)
+                batch = read();
+            return batch != null;
+        }
+
+        @Override
+        public SampleBatch next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            SampleBatch next = batch;
+            batch = null;
+            if (rowNanos != 0) {
+                if (next.getFirstRow() == 0)
+                    start = System.nanoTime();
+                long wait = start + (long) (next.getFirstRow() * rowNanos) - System.nanoTime();
+                try {
+                    if (wait > 0)
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    // interpret as shutdown
+                    trace.debug("Interrupted");
+                    Thread.currentThread().interrupt();
+                    finish();
+                    return null;
+                }
+            }
+            return next;
+        }
+
+        private SampleBatch read() {
+            int batchSize = config.getBatchSize();
+            double[][] channels = new double[names.length][batchSize];
+            int size = 0;
+            try {
+                while (size < batchSize) {
+                    int n = reader.read(channels, size, batchSize - size);
+                    if (n < 0)
+                        break;
+                    size += n;
+                }
+            } catch (IOException e) {
+                finish();
+                throw new RuntimeException(e);
+            }
+            if (size == 0) {
+                finish();
+                return null;
+            }
+            SampleBatch b = new SampleBatch(names, row, size, channels);
+            row += size;
+            return b;
+        }
+
+        private void finish() {
+            done = true;
+            try {
+                reader.close();
+            } catch (IOException e) {
+                trace.error("Error closing replayed file", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.test.connectors.file;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.edgent.connectors.file.FileStreams;
+import org.apache.edgent.connectors.file.ReplayConfig;
+import org.apache.edgent.connectors.file.SampleBatch;
+import org.apache.edgent.connectors.file.runtime.ColumnFileReader;
+import org.apache.edgent.connectors.file.runtime.ColumnFileWriter;
+import org.apache.edgent.connectors.file.runtime.ColumnReader;
+import org.apache.edgent.connectors.file.runtime.CsvColumnReader;
+import org.apache.edgent.test.providers.direct.DirectTopologyTestBase;
+import org.apache.edgent.topology.TStream;
+import org.apache.edgent.topology.Topology;
+import org.apache.edgent.topology.tester.Condition;
+import org.junit.Test;
+
+public class FileStreamsReplayTest extends DirectTopologyTestBase {
+
+    @Test
+    public void testCsvColumnReader() throws Exception {
+        Path csv = createCsv(
+                "time, \"value\",other\r\n",
+                "1,1.5,x\r\n",
+                "2, -2e3 ,y\n",
+                "\n",
+                "3,,z\n",
+                "4,123456789012345678,w\n",
+                "5,+.25E+2,v");
+        double[][] columns = new double[2][10];
+        // A region holds a couple of lines, so most lines are remapped.
+        try (CsvColumnReader reader = new CsvColumnReader(csv, ',', 24, "value", "time")) {
+            assertArrayEquals(new String[] {"value", "time"}, reader.getColumnNames());
+            assertEquals(2, reader.read(columns, 0, 2));
+            assertEquals(3, reader.read(columns, 2, 8));
+            assertEquals(-1, reader.read(columns, 5, 5));
+        }
+        assertArrayEquals(new double[] {1.5, -2e3, Double.NaN, 123456789012345678d, 25},
+                Arrays.copyOf(columns[0], 5), 0);
+        assertArrayEquals(new double[] {1, 2, 3, 4, 5}, Arrays.copyOf(columns[1], 5), 0);
+    }
+
+    @Test
+    public void testCsvNumbersExact() throws Exception {
+        Random r = new Random(1);
+        int n = 5000;
+        double[] expected = new double[n];
+        List<String> lines = new ArrayList<>();
+        lines.add("v\n");
+        for (int i = 0; i < n; i++) {
+            double v = r.nextGaussian() * Math.pow(10, r.nextInt(20) - 10);
+            String s = i % 2 == 0 ? Double.toString(v) : String.format("%.6f", v);
+            expected[i] = Double.parseDouble(s);
+            lines.add(s + "\n");
+        }
+        double[][] columns = new double[1][n];
+        try (CsvColumnReader reader = new CsvColumnReader(createCsv(lines.toArray(new String[0])))) {
+            assertEquals(n, reader.read(columns, 0, n));
+        }
+        for (int i = 0; i < n; i++)
+            assertEquals(lines.get(i + 1), Double.doubleToLongBits(expected[i]), Double.doubleToLongBits(columns[0][i]));
+    }
+
+    @Test
+    public void testColumnFile() throws Exception {
+        Path csv = createCsv(samples(3, 100, 2));
+        Path columnFile = Files.createTempFile("replay", ".col");
+        columnFile.toFile().deleteOnExit();
+        assertEquals(100, ColumnFileWriter.convert(csv, columnFile, "c2", "c0"));
+
+        double[][] expected = readAll(new CsvColumnReader(csv, "c0", "c2"), 100);
+        // A window smaller than a read.
+        double[][] actual = readAll(new ColumnFileReader(columnFile, 7, "c0", "c2"), 100);
+        for (int c = 0; c < 2; c++)
+            assertArrayEquals(expected[c], actual[c], 0);
+    }
+
+    @Test
+    public void testCsvReplay() throws Exception {
+        Topology t = newTopology("testCsvReplay");
+        Path csv = createCsv(samples(2, 25, 3));
+        double[][] expected = readAll(new CsvColumnReader(csv), 25);
+
+        TStream<SampleBatch> batches = FileStreams.csvReplay(t, () -> csv.toString(),
+                ReplayConfig.newAsFastAsPossibleConfig(10));
+        Condition<Long> count = t.getTester().tupleCount(batches, 3);
+        Condition<List<SampleBatch>> contents = t.getTester().streamContents(batches);
+        complete(t, count);
+        assertTrue(count.valid());
+
+        List<SampleBatch> result = contents.getResult();
+        assertEquals(Arrays.asList(10, 10, 5), Arrays.asList(result.get(0).getSize(),
+                result.get(1).getSize(), result.get(2).getSize()));
+        for (SampleBatch batch : result) {
+            assertEquals("c1", batch.getChannelName(1));
+            for (int c = 0; c < batch.getChannelCount(); c++) {
+                for (int i = 0; i < batch.getSize(); i++)
+                    assertEquals(expected[c][(int) batch.getFirstRow() + i], batch.get(c, i), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testReplaySpeed() throws Exception {
+        Topology t = newTopology("testReplaySpeed");
+        Path csv = createCsv(samples(1, 100, 4));
+        Path columnFile = Files.createTempFile("replay", ".col");
+        columnFile.toFile().deleteOnExit();
+        ColumnFileWriter.convert(csv, columnFile);
+
+        // 1000 rows per second replayed twice as fast, the last batch is due after 45ms.
+        TStream<Long> arrivals = FileStreams.columnFileReplay(t, () -> columnFile.toString(),
+                ReplayConfig.newConfig(10, 1000, 2)).map(b -> System.nanoTime());
+        Condition<Long> count = t.getTester().tupleCount(arrivals, 10);
+        Condition<List<Long>> contents = t.getTester().streamContents(arrivals);
+        complete(t, count);
+        assertTrue(count.valid());
+
+        List<Long> times = contents.getResult();
+        long elapsed = times.get(times.size() - 1) - times.get(0);
+        assertTrue("elapsed " + elapsed, elapsed >= 44000000L);
+    }
+
+    private static double[][] readAll(ColumnReader reader, int rows) throws IOException {
+        try (ColumnReader r = reader) {
+            double[][] columns = new double[r.getColumnNames().length][rows];
+            int row = 0;
+            int n;
+            while ((n = r.read(columns, row, Math.min(13, rows - row))) > 0)
+                row += n;
+            assertEquals(rows, row);
+            return columns;
+        }
+    }
+
+    private static String[] samples(int channels, int rows, long seed) {
+        Random r = new Random(seed);
+        String[] lines = new String[rows + 1];
+        StringBuilder header = new StringBuilder();
+        for (int c = 0; c < channels; c++)
+            header.append(c == 0 ? "" : ",").append("c").append(c);
+        lines[0] = header.append('\n').toString();
+        for (int i = 1; i <= rows; i++) {
+            StringBuilder line = new StringBuilder();
+            for (int c = 0; c < channels; c++)
+                line.append(c == 0 ? "" : ",").append(r.nextGaussian() * 100);
+            lines[i] = line.append('\n').toString();
+        }
+        return lines;
+    }
+
+    private static Path createCsv(String... lines) throws IOException {
+        Path csv = Files.createTempFile("replay", ".csv");
+        csv.toFile().deleteOnExit();
+        StringBuilder s = new StringBuilder();
+        for (String line : lines)
+            s.append(line);
+        Files.write(csv, s.toString().getBytes(StandardCharsets.UTF_8));
+        return csv;
+    }
+}
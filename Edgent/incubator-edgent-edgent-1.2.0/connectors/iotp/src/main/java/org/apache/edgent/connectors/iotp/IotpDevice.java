@@ -93,6 +93,12 @@ public class IotpDevice implements IotDevice {
      */
     public static final String QUICKSTART_DEVICE_TYPE = "iotsamples-edgent";
 
+    /**
+     * Commands received but not yet processed by the stream. The
+     * device client's callback thread waits when it is full.
+     */
+    private static final int COMMAND_QUEUE_CAPACITY = 1000;
+
     private final IotpConnector connector;
     private final Topology topology;
     private TStream<Command> commandStream;
@@ -361,7 +367,7 @@ public class IotpDevice implements IotDevice {
     
     private TStream<Command> allCommands() {
         if (commandStream == null)
-            commandStream = topology.events(new IotpDeviceCommands(connector));
+            commandStream = topology.events(new IotpDeviceCommands(connector), COMMAND_QUEUE_CAPACITY);
         return commandStream;
     }
 
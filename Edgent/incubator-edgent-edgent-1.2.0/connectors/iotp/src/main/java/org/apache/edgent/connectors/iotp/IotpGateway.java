@@ -75,6 +75,13 @@ import com.ibm.iotf.client.gateway.GatewayClient;
  */
 public class IotpGateway implements IotGateway {
 
+  /**
+   * Commands, for the gateway and its devices, received but not yet
+   * processed by the stream. The gateway client's callback thread
+   * waits when it is full.
+   */
+  private static final int COMMAND_QUEUE_CAPACITY = 1000;
+
   private final IotpGWConnector connector;
   private final Topology topology;
   private TStream<Command> commandStream;
@@ -199,7 +206,7 @@ public class IotpGateway implements IotGateway {
   
   private TStream<Command> allCommands() {
       if (commandStream == null)
-          commandStream = topology.events(new IotpGWCommands(connector));
+          commandStream = topology.events(new IotpGWCommands(connector), COMMAND_QUEUE_CAPACITY);
       return commandStream;
   }
 
@@ -59,6 +59,12 @@ import org.apache.edgent.topology.Topology;
  * }</pre>
  */
 public class KafkaConsumer {
+    /**
+     * Records received but not yet processed by the stream. The
+     * connector's consumer threads wait when it is full.
+     */
+    private static final int EVENT_QUEUE_CAPACITY = 1000;
+
     private final Topology t;
     private final KafkaConsumerConnector connector;
     
@@ -143,7 +149,7 @@ public class KafkaConsumer {
      * @throws IllegalArgumentException for a duplicate or conflicting subscription
      */
     public <T> TStream<T> subscribeBytes(Function<ByteConsumerRecord,T> toTupleFn, String... topics) {
-        return t.events(new KafkaSubscriber<T>(connector, toTupleFn, false, topics));
+        return t.events(new KafkaSubscriber<T>(connector, toTupleFn, false, topics), EVENT_QUEUE_CAPACITY);
     }
 
     /**
@@ -167,7 +173,7 @@ public class KafkaConsumer {
      * @throws IllegalArgumentException for a duplicate or conflicting subscription
      */
     public <T> TStream<T> subscribe(Function<StringConsumerRecord,T> toTupleFn, String... topics) {
-        return t.events(new KafkaSubscriber<T>(connector, toTupleFn, true, topics));
+        return t.events(new KafkaSubscriber<T>(connector, toTupleFn, true, topics), EVENT_QUEUE_CAPACITY);
     }
 
     // The explicit topicPartition style of subscription is part of the
@@ -94,6 +94,12 @@ import org.apache.edgent.topology.Topology;
  * otherwise it will be received with the subscribe's QoS.
  */
 public class MqttStreams {
+    /**
+     * Messages received but not yet processed by the stream. The
+     * MQTT client's callback thread waits when it is full.
+     */
+    private static final int EVENT_QUEUE_CAPACITY = 1000;
+
 
     private final MqttConnector connector;
     private final Topology topology;
@@ -179,7 +185,8 @@ public class MqttStreams {
      */
     public <T> TStream<T> subscribe(String topicFilter, int qos, BiFunction<String, byte[], T> message2Tuple) {
         addSubscribe();
-        return topology().events(new MqttSubscriber<T>(connector, topicFilter, qos, message2Tuple));
+        return topology().events(new MqttSubscriber<T>(connector, topicFilter, qos, message2Tuple),
+                EVENT_QUEUE_CAPACITY);
     }
 
     /**
@@ -198,7 +205,8 @@ public class MqttStreams {
     public <T> TStream<String> subscribe(String topicFilter, int qos) {
         addSubscribe();
         return topology().events(new MqttSubscriber<String>(connector, topicFilter, qos,
-                            (topic, payload) -> new String(payload, StandardCharsets.UTF_8)));
+                            (topic, payload) -> new String(payload, StandardCharsets.UTF_8)),
+                EVENT_QUEUE_CAPACITY);
     }
     
     private void addSubscribe() {
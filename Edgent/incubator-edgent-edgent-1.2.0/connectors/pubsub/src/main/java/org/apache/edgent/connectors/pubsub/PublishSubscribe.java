@@ -58,7 +58,11 @@ import org.apache.edgent.topology.TopologyElement;
  * <BR>
  * Topics that start with {@code edgent/} are reserved for use by Edgent.
  * <BR>
- * MQTT style wild-cards are not supported.
+ * Subscribers may use MQTT style wild-cards if supported by
+ * the {@link PublishSubscribeService}, for example
+ * {@link org.apache.edgent.connectors.pubsub.service.ProviderPubSub ProviderPubSub}
+ * supports {@code engine/+/temperature} and {@code engine/#}.
+ * Publishers must use a topic without wild-cards.
  * </P>
  */
 public class PublishSubscribe {
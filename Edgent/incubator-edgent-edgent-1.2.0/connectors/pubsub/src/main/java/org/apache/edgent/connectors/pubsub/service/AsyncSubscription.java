@@ -0,0 +1,99 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.connectors.pubsub.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.edgent.function.Consumer;
+
+/**
+ * Subscription that hands tuples off to a bounded queue that is
+ * drained by a shared executor.
+ * <P>
+ * A slow subscriber can only fill its own queue, once full
+ * further tuples for that subscriber are dropped and the publisher
+ * and other subscribers are not blocked.
+ * At most one drain task per subscription is active at any time
+ * so tuples are delivered to the subscriber in publish order.
+ * </P>
+ *
+ * @param <T> Tuple type
+ */
+class AsyncSubscription<T> extends Subscription<T> implements Runnable {
+
+    /**
+     * Maximum number of tuples delivered by a single drain task
+     * before it yields the executor thread to other subscriptions.
+     */
+    private static final int DRAIN_BATCH = 256;
+
+    private final BlockingQueue<T> queue;
+    private final Executor executor;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile boolean closed;
+
+    AsyncSubscription(String topicFilter, Class<T> streamType, Consumer<T> subscriber,
+            Executor executor, int queueCapacity) {
+        super(topicFilter, streamType, subscriber);
+        this.executor = executor;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @Override
+    boolean deliver(T tuple) {
+        if (closed || !queue.offer(tuple))
+            return false;
+        schedule();
+        return true;
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            final Consumer<T> subscriber = getSubscriber();
+            T tuple;
+            for (int i = 0; i < DRAIN_BATCH && !closed && (tuple = queue.poll()) != null; i++)
+                subscriber.accept(tuple);
+        } finally {
+            scheduled.set(false);
+            if (!closed && !queue.isEmpty())
+                schedule();
+        }
+    }
+
+    @Override
+    void close() {
+        closed = true;
+        queue.clear();
+    }
+}
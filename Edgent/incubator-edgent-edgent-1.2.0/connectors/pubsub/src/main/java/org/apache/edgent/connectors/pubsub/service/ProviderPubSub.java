@@ -18,39 +18,166 @@ under the License.
 */
 package org.apache.edgent.connectors.pubsub.service;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import org.apache.edgent.function.Consumer;
 
 /**
  * Publish subscribe service allowing exchange of streams between jobs in a provider.
- *
+ * <P>
+ * Publishing a tuple does not take any lock, each topic keeps a
+ * copy-on-write list of its subscribers.
+ * <BR>
+ * Subscribers may use MQTT style topic filters, {@code +} matches
+ * a single topic level and a trailing {@code #} matches any number of levels.
+ * Filters are resolved against topics when a subscriber or publisher
+ * is added, so there is no matching cost when a tuple is published.
+ * A wildcard subscriber only receives tuples from topics with the same stream type.
+ * Subscribing the same subscriber again to a topic or topic filter
+ * has no effect.
+ * </P>
+ * <P>
+ * By default subscribers are called synchronously on the publisher's thread.
+ * When created with an {@code Executor} each subscriber has a bounded
+ * queue that is drained by the executor, tuples for a subscriber whose
+ * queue is full are dropped so that a slow subscriber cannot
+ * block publishers or other subscribers.
+ * </P>
  */
 public class ProviderPubSub implements PublishSubscribeService {
     
+    /**
+     * Default queue capacity for each subscriber when delivery is asynchronous.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    
     private final Map<String,TopicHandler<?>> topicHandlers = new HashMap<>();
+    private final TopicTrie<Subscription<?>> filters = new TopicTrie<>();
+    private final Executor deliveryExecutor;
+    private final int queueCapacity;
+    
+    /**
+     * Create a service that delivers tuples synchronously.
+     */
+    public ProviderPubSub() {
+        this.deliveryExecutor = null;
+        this.queueCapacity = 0;
+    }
     
+    /**
+     * Create a service that delivers tuples asynchronously
+     * using {@code deliveryExecutor}.
+     * @param deliveryExecutor Executor used to call subscribers.
+     * @param queueCapacity Maximum number of tuples queued for a single subscriber.
+     */
+    public ProviderPubSub(Executor deliveryExecutor, int queueCapacity) {
+        if (deliveryExecutor == null)
+            throw new NullPointerException("deliveryExecutor");
+        if (queueCapacity < 1)
+            throw new IllegalArgumentException("queueCapacity");
+        this.deliveryExecutor = deliveryExecutor;
+        this.queueCapacity = queueCapacity;
+    }
+    
+    @SuppressWarnings("unchecked")
     @Override
     public <T> void addSubscriber(String topic, Class<T> streamType, Consumer<T> subscriber) { 
-        getTopicHandler(topic, streamType).addSubscriber(subscriber);
+        Subscription<T> subscription = newSubscription(topic, streamType, subscriber);
+        if (!TopicTrie.isFilter(topic)) {
+            if (!getTopicHandler(topic, streamType).addSubscriber(subscription))
+                subscription.close();
+            return;
+        }
+        synchronized (this) {
+            for (Subscription<?> existing : filters.get(topic)) {
+                if (existing.getSubscriber().equals(subscriber)) {
+                    subscription.close();
+                    return;
+                }
+            }
+            filters.add(topic, subscription);
+            for (TopicHandler<?> topicHandler : topicHandlers.values()) {
+                if (topicHandler.getStreamType() == streamType
+                        && TopicTrie.matches(topic, topicHandler.getTopic()))
+                    ((TopicHandler<T>) topicHandler).addSubscriber(subscription);
+            }
+        }
+    }
+    
+    private <T> Subscription<T> newSubscription(String topic, Class<T> streamType, Consumer<T> subscriber) {
+        if (deliveryExecutor == null)
+            return new Subscription.Synchronous<>(topic, streamType, subscriber);
+        return new AsyncSubscription<>(topic, streamType, subscriber, deliveryExecutor, queueCapacity);
     }
     
     @SuppressWarnings("unchecked")
     @Override
     public <T> Consumer<T> getPublishDestination(String topic, Class<? super T> streamType) {
+        if (TopicTrie.isFilter(topic))
+            throw new IllegalArgumentException("Cannot publish to a topic filter: " + topic);
         return (Consumer<T>) getTopicHandler(topic, streamType);      
     }
     
     @Override
     public void removeSubscriber(String topic, Consumer<?> subscriber) {
+        if (TopicTrie.isFilter(topic)) {
+            removeFilterSubscriber(topic, subscriber);
+            return;
+        }
         TopicHandler<?> topicHandler;
         synchronized (this) {
             topicHandler = topicHandlers.get(topic);
         }
         if (topicHandler != null) {
-            topicHandler.removeSubscriber(subscriber);
+            Subscription<?> subscription = topicHandler.removeSubscriber(subscriber);
+            if (subscription != null)
+                subscription.close();
+        }
+    }
+    
+    private synchronized void removeFilterSubscriber(String filter, Consumer<?> subscriber) {
+        for (Subscription<?> subscription : filters.get(filter)) {
+            if (subscription.getSubscriber().equals(subscriber)) {
+                filters.remove(filter, subscription);
+                for (TopicHandler<?> topicHandler : topicHandlers.values())
+                    topicHandler.removeSubscription(subscription);
+                subscription.close();
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Get the metrics for all topics that have been published
+     * to or subscribed to without a filter.
+     * @return Metrics for each topic.
+     */
+    public List<TopicMetrics> getTopicMetrics() {
+        List<TopicHandler<?>> handlers;
+        synchronized (this) {
+            handlers = new ArrayList<>(topicHandlers.values());
+        }
+        List<TopicMetrics> metrics = new ArrayList<>(handlers.size());
+        for (TopicHandler<?> topicHandler : handlers)
+            metrics.add(topicHandler.getMetrics());
+        return metrics;
+    }
+    
+    /**
+     * Get the metrics for a topic.
+     * @param topic Topic.
+     * @return Metrics for {@code topic} or {@code null} if the topic is not known.
+     */
+    public TopicMetrics getTopicMetrics(String topic) {
+        TopicHandler<?> topicHandler;
+        synchronized (this) {
+            topicHandler = topicHandlers.get(topic);
         }
+        return topicHandler == null ? null : topicHandler.getMetrics();
     }
     
     @SuppressWarnings("unchecked")
@@ -58,7 +185,11 @@ public class ProviderPubSub implements PublishSubscribeService {
         TopicHandler<T> topicHandler = (TopicHandler<T>) topicHandlers.get(topic);
 
         if (topicHandler == null) {
-            topicHandlers.put(topic, topicHandler = new TopicHandler<T>(streamType));
+            topicHandlers.put(topic, topicHandler = new TopicHandler<T>(topic, streamType));
+            for (Subscription<?> subscription : filters.match(topic)) {
+                if (subscription.getStreamType() == streamType)
+                    topicHandler.addSubscriber((Subscription<T>) subscription);
+            }
         } else {
             topicHandler.checkClass(streamType);
         }
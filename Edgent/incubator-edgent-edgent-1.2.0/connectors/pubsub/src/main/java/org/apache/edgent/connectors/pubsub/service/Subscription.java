@@ -0,0 +1,85 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.connectors.pubsub.service;
+
+import org.apache.edgent.function.Consumer;
+
+/**
+ * A subscriber registered with a {@link TopicHandler}.
+ *
+ * @param <T> Tuple type
+ */
+abstract class Subscription<T> {
+
+    private final String topicFilter;
+    private final Class<T> streamType;
+    private final Consumer<T> subscriber;
+
+    Subscription(String topicFilter, Class<T> streamType, Consumer<T> subscriber) {
+        this.topicFilter = topicFilter;
+        this.streamType = streamType;
+        this.subscriber = subscriber;
+    }
+
+    /**
+     * Topic or topic filter the subscriber subscribed with.
+     * @return topic filter
+     */
+    String getTopicFilter() {
+        return topicFilter;
+    }
+
+    Class<T> getStreamType() {
+        return streamType;
+    }
+
+    Consumer<T> getSubscriber() {
+        return subscriber;
+    }
+
+    /**
+     * Deliver a tuple to the subscriber.
+     * @param tuple Tuple to deliver.
+     * @return {@code true} if the tuple was delivered (or queued for delivery),
+     * {@code false} if it was dropped.
+     */
+    abstract boolean deliver(T tuple);
+
+    /**
+     * Called once the subscription has been removed from all topics.
+     */
+    void close() {
+    }
+
+    /**
+     * Subscription that calls the subscriber on the publisher's thread.
+     */
+    static final class Synchronous<T> extends Subscription<T> {
+
+        Synchronous(String topicFilter, Class<T> streamType, Consumer<T> subscriber) {
+            super(topicFilter, streamType, subscriber);
+        }
+
+        @Override
+        boolean deliver(T tuple) {
+            getSubscriber().accept(tuple);
+            return true;
+        }
+    }
+}
@@ -18,37 +18,132 @@ under the License.
 */
 package org.apache.edgent.connectors.pubsub.service;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.edgent.function.Consumer;
 
+/**
+ * Dispatches tuples published to a single topic to its subscribers.
+ * <P>
+ * The subscriber list is copy-on-write: {@link #accept(Object)} reads
+ * a volatile snapshot without locking so publishers from different
+ * jobs are never serialized against each other, and subscribers are
+ * not invoked while any lock is held.
+ * </P>
+ *
+ * @param <T> Tuple type
+ */
 class TopicHandler<T> implements Consumer<T> {
     private static final long serialVersionUID = 1L;
 
+    @SuppressWarnings("rawtypes")
+    private static final Subscription[] NO_SUBSCRIBERS = new Subscription[0];
+
+    private final String topic;
     private final Class<T> streamType;
-    private final Set<Consumer<T>> subscribers = new HashSet<>();
+    @SuppressWarnings("unchecked")
+    private volatile Subscription<T>[] subscribers = NO_SUBSCRIBERS;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
 
-    TopicHandler(Class<T> streamType) {
+    TopicHandler(String topic, Class<T> streamType) {
+        this.topic = topic;
         this.streamType = streamType;
     }
 
-    synchronized void addSubscriber(Consumer<T> subscriber) {
-        subscribers.add(subscriber);
+    String getTopic() {
+        return topic;
+    }
+
+    Class<T> getStreamType() {
+        return streamType;
+    }
+
+    /**
+     * Add a subscription, a subscriber is only added once for the
+     * same topic or topic filter.
+     * @param subscription Subscription to add.
+     * @return {@code true} if the subscription was added, {@code false}
+     * if its subscriber was already subscribed with the same topic filter.
+     */
+    synchronized boolean addSubscriber(Subscription<T> subscription) {
+        Subscription<T>[] current = subscribers;
+        for (Subscription<T> s : current) {
+            if (s == subscription || (s.getSubscriber().equals(subscription.getSubscriber())
+                    && s.getTopicFilter().equals(subscription.getTopicFilter())))
+                return false;
+        }
+        Subscription<T>[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = subscription;
+        subscribers = updated;
+        return true;
     }
 
-    synchronized void removeSubscriber(Consumer<?> subscriber) {
-        subscribers.remove(subscriber);
+    /**
+     * Remove the subscription for {@code subscriber}.
+     * @param subscriber Subscriber as passed to the service.
+     * @return The removed subscription or {@code null} if
+     * {@code subscriber} was not subscribed to this topic.
+     */
+    synchronized Subscription<T> removeSubscriber(Consumer<?> subscriber) {
+        Subscription<T>[] current = subscribers;
+        for (int i = 0; i < current.length; i++) {
+            Subscription<T> s = current[i];
+            if (s.getSubscriber().equals(subscriber) && !TopicTrie.isFilter(s.getTopicFilter())) {
+                removeAt(current, i);
+                return s;
+            }
+        }
+        return null;
+    }
+
+    synchronized void removeSubscription(Subscription<?> subscription) {
+        Subscription<T>[] current = subscribers;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == subscription) {
+                removeAt(current, i);
+                return;
+            }
+        }
+    }
+
+    private void removeAt(Subscription<T>[] current, int i) {
+        @SuppressWarnings("unchecked")
+        Subscription<T>[] updated = current.length == 1 ? NO_SUBSCRIBERS
+                : Arrays.copyOf(current, current.length - 1);
+        System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+        subscribers = updated;
     }
 
     @Override
-    public synchronized void accept(T tuple) {
-        for (Consumer<T> subscriber : subscribers)
-            subscriber.accept(tuple);
+    public void accept(T tuple) {
+        published.incrementAndGet();
+        int drops = 0;
+        final Subscription<T>[] current = subscribers;
+        for (Subscription<T> subscriber : current) {
+            if (!subscriber.deliver(tuple))
+                drops++;
+        }
+        if (current.length != drops)
+            delivered.addAndGet(current.length - drops);
+        if (drops != 0)
+            dropped.addAndGet(drops);
     }
 
-    void checkClass(Class<T> streamType) {
+    void checkClass(Class<?> streamType) {
         if (this.streamType != streamType)
             throw new IllegalArgumentException();
     }
+
+    /**
+     * Get a point in time view of this topic's metrics.
+     * @return topic metrics.
+     */
+    TopicMetrics getMetrics() {
+        return new TopicMetrics(topic, subscribers.length,
+                published.get(), delivered.get(), dropped.get());
+    }
 }
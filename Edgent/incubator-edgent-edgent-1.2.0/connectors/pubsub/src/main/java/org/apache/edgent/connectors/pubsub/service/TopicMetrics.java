@@ -0,0 +1,88 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.connectors.pubsub.service;
+
+/**
+ * Point in time metrics for a published topic.
+ *
+ * @see ProviderPubSub#getTopicMetrics()
+ */
+public final class TopicMetrics {
+
+    private final String topic;
+    private final int subscriberCount;
+    private final long publishCount;
+    private final long deliveryCount;
+    private final long dropCount;
+
+    TopicMetrics(String topic, int subscriberCount, long publishCount, long deliveryCount, long dropCount) {
+        this.topic = topic;
+        this.subscriberCount = subscriberCount;
+        this.publishCount = publishCount;
+        this.deliveryCount = deliveryCount;
+        this.dropCount = dropCount;
+    }
+
+    /**
+     * Topic.
+     * @return the topic
+     */
+    public String getTopic() {
+        return topic;
+    }
+
+    /**
+     * Number of subscribers, including wildcard subscribers, currently receiving tuples for the topic.
+     * @return subscriber count
+     */
+    public int getSubscriberCount() {
+        return subscriberCount;
+    }
+
+    /**
+     * Number of tuples published to the topic.
+     * @return publish count
+     */
+    public long getPublishCount() {
+        return publishCount;
+    }
+
+    /**
+     * Number of tuples delivered to, or queued for, subscribers of the topic.
+     * @return delivery count
+     */
+    public long getDeliveryCount() {
+        return deliveryCount;
+    }
+
+    /**
+     * Number of tuples dropped because an asynchronous subscriber's queue was full.
+     * @return drop count
+     */
+    public long getDropCount() {
+        return dropCount;
+    }
+
+    @Override
+    public String toString() {
+        return "TopicMetrics{topic=" + topic + ", subscribers=" + subscriberCount
+                + ", published=" + publishCount + ", delivered=" + deliveryCount
+                + ", dropped=" + dropCount + "}";
+    }
+}
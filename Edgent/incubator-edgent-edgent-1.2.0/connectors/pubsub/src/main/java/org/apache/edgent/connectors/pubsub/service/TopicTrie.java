@@ -0,0 +1,178 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.connectors.pubsub.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trie of MQTT style topic filters.
+ * <P>
+ * Topic levels are separated by {@code /}, a {@code +} level
+ * matches exactly one level and a trailing {@code #} level
+ * matches the parent level and any number of levels below it.
+ * <BR>
+ * Matching a topic walks the trie once, one level at a time,
+ * instead of testing every filter against the topic.
+ * </P>
+ * Not thread safe, access must be synchronized by the caller.
+ *
+ * @param <V> Type of values associated with a filter.
+ */
+class TopicTrie<V> {
+
+    static final String LEVEL_SEPARATOR = "/";
+    static final String SINGLE_LEVEL = "+";
+    static final String MULTI_LEVEL = "#";
+
+    private final Node<V> root = new Node<>();
+
+    private static final class Node<V> {
+        private final Map<String, Node<V>> children = new HashMap<>();
+        private final List<V> values = new ArrayList<>();
+        private final List<V> multiLevelValues = new ArrayList<>();
+
+        boolean isEmpty() {
+            return children.isEmpty() && values.isEmpty() && multiLevelValues.isEmpty();
+        }
+    }
+
+    /**
+     * Is {@code topic} a topic filter containing wildcards.
+     * @param topic Topic to check.
+     * @return {@code true} if {@code topic} contains a wildcard level.
+     * @throws IllegalArgumentException If a wildcard is used incorrectly.
+     */
+    static boolean isFilter(String topic) {
+        if (topic.indexOf('+') == -1 && topic.indexOf('#') == -1)
+            return false;
+        String[] levels = topic.split(LEVEL_SEPARATOR, -1);
+        for (int i = 0; i < levels.length; i++) {
+            String level = levels[i];
+            if (MULTI_LEVEL.equals(level)) {
+                if (i != levels.length - 1)
+                    throw new IllegalArgumentException("'#' must be the last level: " + topic);
+            } else if (!SINGLE_LEVEL.equals(level)
+                    && (level.indexOf('+') != -1 || level.indexOf('#') != -1)) {
+                throw new IllegalArgumentException("Wildcard must occupy an entire level: " + topic);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Does {@code filter} match {@code topic}.
+     * @param filter Topic filter.
+     * @param topic Topic without wildcards.
+     * @return {@code true} if {@code filter} matches {@code topic}.
+     */
+    static boolean matches(String filter, String topic) {
+        String[] filterLevels = filter.split(LEVEL_SEPARATOR, -1);
+        String[] topicLevels = topic.split(LEVEL_SEPARATOR, -1);
+        for (int i = 0; i < filterLevels.length; i++) {
+            if (MULTI_LEVEL.equals(filterLevels[i]))
+                return true;
+            if (i == topicLevels.length)
+                return false;
+            if (!SINGLE_LEVEL.equals(filterLevels[i]) && !filterLevels[i].equals(topicLevels[i]))
+                return false;
+        }
+        return filterLevels.length == topicLevels.length;
+    }
+
+    void add(String filter, V value) {
+        String[] levels = filter.split(LEVEL_SEPARATOR, -1);
+        Node<V> node = root;
+        for (String level : levels) {
+            if (MULTI_LEVEL.equals(level)) {
+                node.multiLevelValues.add(value);
+                return;
+            }
+            Node<V> child = node.children.get(level);
+            if (child == null)
+                node.children.put(level, child = new Node<>());
+            node = child;
+        }
+        node.values.add(value);
+    }
+
+    /**
+     * Get the values added with exactly {@code filter}.
+     * @param filter Topic filter.
+     * @return Values for {@code filter}.
+     */
+    List<V> get(String filter) {
+        String[] levels = filter.split(LEVEL_SEPARATOR, -1);
+        Node<V> node = root;
+        for (String level : levels) {
+            if (MULTI_LEVEL.equals(level))
+                return new ArrayList<>(node.multiLevelValues);
+            node = node.children.get(level);
+            if (node == null)
+                return new ArrayList<>();
+        }
+        return new ArrayList<>(node.values);
+    }
+
+    boolean remove(String filter, V value) {
+        return remove(root, filter.split(LEVEL_SEPARATOR, -1), 0, value);
+    }
+
+    private boolean remove(Node<V> node, String[] levels, int depth, V value) {
+        if (depth == levels.length)
+            return node.values.remove(value);
+        String level = levels[depth];
+        if (MULTI_LEVEL.equals(level))
+            return node.multiLevelValues.remove(value);
+        Node<V> child = node.children.get(level);
+        if (child == null)
+            return false;
+        boolean removed = remove(child, levels, depth + 1, value);
+        if (child.isEmpty())
+            node.children.remove(level);
+        return removed;
+    }
+
+    /**
+     * Get all values whose filter matches {@code topic}.
+     * @param topic Topic without wildcards.
+     * @return Matching values, in no particular order.
+     */
+    List<V> match(String topic) {
+        List<V> matches = new ArrayList<>();
+        match(root, topic.split(LEVEL_SEPARATOR, -1), 0, matches);
+        return matches;
+    }
+
+    private void match(Node<V> node, String[] levels, int depth, List<V> matches) {
+        matches.addAll(node.multiLevelValues);
+        if (depth == levels.length) {
+            matches.addAll(node.values);
+            return;
+        }
+        Node<V> child = node.children.get(levels[depth]);
+        if (child != null)
+            match(child, levels, depth + 1, matches);
+        child = node.children.get(SINGLE_LEVEL);
+        if (child != null)
+            match(child, levels, depth + 1, matches);
+    }
+}
@@ -0,0 +1,191 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.test.connectors.pubsub;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.edgent.connectors.pubsub.service.ProviderPubSub;
+import org.apache.edgent.connectors.pubsub.service.TopicMetrics;
+import org.apache.edgent.function.Consumer;
+import org.junit.Test;
+
+/**
+ * Tests of {@link ProviderPubSub} used directly, without jobs.
+ */
+public class ProviderPubSubTest {
+
+    @SuppressWarnings("serial")
+    private static final class Collector<T> implements Consumer<T> {
+        final List<T> tuples = Collections.synchronizedList(new ArrayList<T>());
+        @Override
+        public void accept(T tuple) {
+            tuples.add(tuple);
+        }
+    }
+
+    @Test
+    public void testExactTopic() {
+        ProviderPubSub pubSub = new ProviderPubSub();
+        Collector<String> sub = new Collector<>();
+        pubSub.addSubscriber("a/b", String.class, sub);
+
+        Consumer<String> dest = pubSub.getPublishDestination("a/b", String.class);
+        dest.accept("A");
+        dest.accept("B");
+        assertEquals(2, sub.tuples.size());
+
+        pubSub.removeSubscriber("a/b", sub);
+        dest.accept("C");
+        assertEquals(2, sub.tuples.size());
+
+        TopicMetrics metrics = pubSub.getTopicMetrics("a/b");
+        assertEquals(0, metrics.getSubscriberCount());
+        assertEquals(3, metrics.getPublishCount());
+        assertEquals(2, metrics.getDeliveryCount());
+        assertEquals(0, metrics.getDropCount());
+        assertNull(pubSub.getTopicMetrics("a/c"));
+    }
+
+    @Test
+    public void testWildcards() {
+        ProviderPubSub pubSub = new ProviderPubSub();
+
+        // Filters added before and after the topic exists.
+        Collector<String> single = new Collector<>();
+        pubSub.addSubscriber("engine/+/temperature", String.class, single);
+        Consumer<String> t1 = pubSub.getPublishDestination("engine/e1/temperature", String.class);
+        Consumer<String> t2 = pubSub.getPublishDestination("engine/e2/pressure", String.class);
+        Consumer<String> t3 = pubSub.getPublishDestination("engine", String.class);
+        Collector<String> multi = new Collector<>();
+        pubSub.addSubscriber("engine/#", String.class, multi);
+        Collector<Integer> otherType = new Collector<>();
+        pubSub.addSubscriber("engine/#", Integer.class, otherType);
+
+        t1.accept("T");
+        t2.accept("P");
+        t3.accept("E");
+
+        assertEquals(Collections.singletonList("T"), single.tuples);
+        assertEquals(3, multi.tuples.size());
+        assertTrue(multi.tuples.containsAll(Arrays.asList("T", "P", "E")));
+        assertEquals(0, otherType.tuples.size());
+
+        // New topic after the filters exist.
+        Consumer<String> t4 = pubSub.getPublishDestination("engine/e3/temperature", String.class);
+        t4.accept("T3");
+        assertEquals(2, single.tuples.size());
+        assertEquals(4, multi.tuples.size());
+
+        pubSub.removeSubscriber("engine/#", multi);
+        t1.accept("T");
+        assertEquals(3, single.tuples.size());
+        assertEquals(4, multi.tuples.size());
+    }
+
+    @Test
+    public void testDuplicateSubscriber() {
+        ProviderPubSub pubSub = new ProviderPubSub();
+        Collector<String> sub = new Collector<>();
+        pubSub.addSubscriber("a/b", String.class, sub);
+        pubSub.addSubscriber("a/b", String.class, sub);
+        Collector<String> filtered = new Collector<>();
+        pubSub.addSubscriber("a/+", String.class, filtered);
+        pubSub.addSubscriber("a/+", String.class, filtered);
+
+        Consumer<String> dest = pubSub.getPublishDestination("a/b", String.class);
+        dest.accept("A");
+        assertEquals(Collections.singletonList("A"), sub.tuples);
+        assertEquals(Collections.singletonList("A"), filtered.tuples);
+        assertEquals(2, pubSub.getTopicMetrics("a/b").getSubscriberCount());
+
+        pubSub.removeSubscriber("a/b", sub);
+        pubSub.removeSubscriber("a/+", filtered);
+        dest.accept("B");
+        assertEquals(1, sub.tuples.size());
+        assertEquals(1, filtered.tuples.size());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testPublishToFilter() {
+        new ProviderPubSub().getPublishDestination("engine/+", String.class);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidFilter() {
+        new ProviderPubSub().addSubscriber("engine/#/temperature", String.class, new Collector<String>());
+    }
+
+    @Test(timeout=10000)
+    public void testAsyncSlowSubscriber() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            ProviderPubSub pubSub = new ProviderPubSub(executor, 4);
+
+            final CountDownLatch release = new CountDownLatch(1);
+            @SuppressWarnings("serial")
+            Consumer<Integer> slow = new Consumer<Integer>() {
+                @Override
+                public void accept(Integer tuple) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+            Collector<Integer> fast = new Collector<>();
+            pubSub.addSubscriber("t", Integer.class, slow);
+            pubSub.addSubscriber("t", Integer.class, fast);
+
+            // The slow subscriber must not block the publisher or the fast subscriber.
+            Consumer<Integer> dest = pubSub.getPublishDestination("t", Integer.class);
+            for (int i = 0; i < 100; i++) {
+                dest.accept(i);
+                while (fast.tuples.size() != i + 1)
+                    Thread.sleep(1);
+            }
+
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < 100; i++)
+                expected.add(i);
+            assertEquals(expected, fast.tuples);
+
+            TopicMetrics metrics = pubSub.getTopicMetrics("t");
+            assertEquals(100, metrics.getPublishCount());
+            assertTrue(metrics.toString(), metrics.getDropCount() > 0);
+            assertEquals(200, metrics.getDeliveryCount() + metrics.getDropCount());
+
+            release.countDown();
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -82,6 +82,12 @@ import com.google.gson.JsonObject;
  * on your classpath.
  */
 public class Jsr356WebSocketClient implements WebSocketClient{
+    /**
+     * Messages received but not yet processed by the stream. The
+     * WebSocket container's thread waits when it is full.
+     */
+    private static final int EVENT_QUEUE_CAPACITY = 1000;
+
     private final Topology t;
     private final WebSocketClientConnector connector;
     private int senderCnt;
@@ -213,7 +219,7 @@ public class Jsr356WebSocketClient implements WebSocketClient{
     
     private <T> TStream<T> receiveText(Function<String,T> toTuple) {
         checkAddReceiver();
-        return t.events(new WebSocketClientReceiver<T>(connector, toTuple));
+        return t.events(new WebSocketClientReceiver<T>(connector, toTuple), EVENT_QUEUE_CAPACITY);
     }
 
     /**
@@ -230,7 +236,7 @@ public class Jsr356WebSocketClient implements WebSocketClient{
     
     private <T> TStream<T> receiveBinary(Function<byte[],T> toTuple) {
         checkAddReceiver();
-        return t.events(new WebSocketClientBinaryReceiver<T>(connector, toTuple));
+        return t.events(new WebSocketClientBinaryReceiver<T>(connector, toTuple), EVENT_QUEUE_CAPACITY);
     }
     
     private void checkAddReceiver() throws IllegalStateException {
@@ -45,10 +45,12 @@ public class ConsoleJobServlet extends HttpServlet {
         throws ServletException, IOException {
         // jobsInfo to return just the job id, etc
         // jobgraph to return the graph of the job + jobId
+        // instrumentation to return the oplet instrumentation of the job + jobId
         Map<String,String[]> parameterMap = request.getParameterMap();
         String jobId = "";
         boolean jobsInfo = false;
         boolean jobGraph = false;
+        boolean instrumentation = false;
         for(Map.Entry<String,String[]> entry : parameterMap.entrySet()) {
                 if ("jobsInfo".equals(entry.getKey())) {
                         String[] vals = entry.getValue();
@@ -60,6 +62,11 @@ public class ConsoleJobServlet extends HttpServlet {
                         if ("true".equals(vals[0])) {
                                 jobGraph = true;
                         }
+                } else if ("instrumentation".equals(entry.getKey())) {
+                        String[] vals = entry.getValue();
+                        if ("true".equals(vals[0])) {
+                                instrumentation = true;
+                        }
                 } else if ("jobId".equals(entry.getKey())) {
                         String[] ids = entry.getValue();
                         if (ids.length == 1) {
@@ -91,6 +98,8 @@ public class ConsoleJobServlet extends HttpServlet {
         	jsonString = JobUtil.getJobsInfo(jobObjName);
         } else if (jobGraph && !(jobId.isEmpty()) && !("undefined".equals(jobId))) {
             jsonString = JobUtil.getJobGraph(jobObjName);
+        } else if (instrumentation && !(jobId.isEmpty()) && !("undefined".equals(jobId))) {
+            jsonString = JobUtil.getJobInstrumentation(jobObjName);
         }
 
         response.setContentType("application/json");
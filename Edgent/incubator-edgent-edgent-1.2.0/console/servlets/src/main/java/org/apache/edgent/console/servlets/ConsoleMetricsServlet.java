@@ -19,15 +19,20 @@ under the License.
 package org.apache.edgent.console.servlets;
 
 import java.io.IOException;
+import java.io.PrintWriter;
 import java.util.Iterator;
 import java.util.Map;
 
 import javax.management.ObjectInstance;
+import javax.servlet.AsyncContext;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.google.gson.Gson;
 
 public class ConsoleMetricsServlet extends HttpServlet {
@@ -37,6 +42,10 @@ public class ConsoleMetricsServlet extends HttpServlet {
 	 * most likely be rewritten to only accept a single job as a parameter
 	 */
 	private static final long serialVersionUID = -1548438576311809996L;
+	private static final Logger logger = LoggerFactory.getLogger(ConsoleMetricsServlet.class);
+
+	/** Maximum duration of a metrics stream request. */
+	static final long STREAM_MAX_MILLIS = 5 * 60 * 1000;
 	
 	public void doGet(HttpServletRequest request, HttpServletResponse response) 
 		throws ServletException, IOException {
@@ -49,6 +58,10 @@ public class ConsoleMetricsServlet extends HttpServlet {
 		String metricName = "";
 		boolean availableMetrics = false;
 		boolean getAllMetrics = false;
+		boolean latencyMetrics = false;
+		boolean stream = false;
+		boolean useMBeans = false;
+		long since = 0;
 		for(Map.Entry<String,String[]> entry : parameterMap.entrySet()) {
 			if (entry.getKey().equals("job")) {
 				jobIds = entry.getValue();
@@ -65,11 +78,56 @@ public class ConsoleMetricsServlet extends HttpServlet {
 				if (getMetrics.length == 1) {
 					availableMetrics = true;
 				}
+			} else if (entry.getKey().equals("latencyMetrics")) {
+				String[] getLatency = entry.getValue();
+				if (getLatency.length == 1) {
+					latencyMetrics = true;
+				}
 			} else if (entry.getKey().equals("getAllMetrics")) {
 				String[] getAll = entry.getValue();
 				if (getAll.length == 1) {
 					getAllMetrics = true;
 				}
+			} else if (entry.getKey().equals("stream")) {
+				String[] getStream = entry.getValue();
+				if (getStream.length == 1) {
+					stream = "true".equals(getStream[0]);
+				}
+			} else if (entry.getKey().equals("source")) {
+				String[] source = entry.getValue();
+				if (source.length == 1) {
+					useMBeans = "mbean".equals(source[0]);
+				}
+			} else if (entry.getKey().equals("since")) {
+				String[] versions = entry.getValue();
+				if (versions.length == 1) {
+					since = parseVersion(versions[0]);
+				}
+			}
+		}
+
+		if (!jobId.equals("") && stream) {
+			// EventSource sends the id of the last event when reconnecting
+			String lastEventId = request.getHeader("Last-Event-ID");
+			if (lastEventId != null) {
+				since = parseVersion(lastEventId);
+			}
+			streamMetrics(jobId, since, request, response);
+			return;
+		}
+
+		if (!jobId.equals("") && !useMBeans && (getAllMetrics || !availableMetrics && !latencyMetrics)) {
+			try {
+				MetricsGson gsonJob = getAllMetrics ?
+						MetricsCache.getInstance().getAllMetrics(jobId, since) :
+						MetricsCache.getInstance().getMetric(jobId, metricName, since);
+				Gson gson = new Gson();
+		    	response.setContentType("application/json");
+		    	response.setCharacterEncoding("UTF-8");
+		    	response.getWriter().write(gson.toJson(gsonJob));
+				return;
+			} catch (RuntimeException e) {
+			    logger.warn("Metrics cache failed, falling back to MBean queries", e);
 			}
 		}
 
@@ -85,6 +143,15 @@ public class ConsoleMetricsServlet extends HttpServlet {
 				return;
 			}
 			
+			if (latencyMetrics) {
+				MetricsGson gsonJob = MetricsUtil.getLatencyMetrics(jobId);
+				Gson gson = new Gson();
+		    	response.setContentType("application/json");
+		    	response.setCharacterEncoding("UTF-8");
+		    	response.getWriter().write(gson.toJson(gsonJob));
+				return;
+			}
+			
 			if (getAllMetrics) {
 				MetricsGson gsonJob = MetricsUtil.getAllRateMetrics(jobId);
 				Gson gson = new Gson();
@@ -106,4 +173,40 @@ public class ConsoleMetricsServlet extends HttpServlet {
 		}
 	}
 
+	/**
+	 * Push the job's metrics to the client as server-sent events,
+	 * see {@link MetricsStream}.
+	 * <P>
+	 * The request is asynchronous, so it does not hold a container
+	 * thread between events.  The stream ends after
+	 * {@link #STREAM_MAX_MILLIS}; clients reconnect automatically.
+	 * When the container does not support asynchronous requests a single
+	 * event is written and the client reconnects for the next one.
+	 * </P>
+	 */
+	private void streamMetrics(String jobId, long since, HttpServletRequest request,
+			HttpServletResponse response) throws IOException {
+		response.setContentType("text/event-stream");
+		response.setCharacterEncoding("UTF-8");
+		response.setHeader("Cache-Control", "no-cache");
+		MetricsCache cache = MetricsCache.getInstance();
+		if (!request.isAsyncSupported()) {
+			PrintWriter writer = response.getWriter();
+			writer.write("retry: " + MetricsCache.REFRESH_MILLIS + "\n");
+			new MetricsStream(cache, jobId, since, null).writeEvent(writer, System.currentTimeMillis());
+			return;
+		}
+		AsyncContext async = request.startAsync();
+		async.setTimeout(STREAM_MAX_MILLIS);
+		new MetricsStream(cache, jobId, since, async).start();
+	}
+
+	private static long parseVersion(String value) {
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
 }
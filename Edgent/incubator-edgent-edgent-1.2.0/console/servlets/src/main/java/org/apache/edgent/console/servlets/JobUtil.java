@@ -95,6 +95,14 @@ final class JobUtil {
 	}
 	
 	static String getJobGraph(ObjectName jobObjName) {
+		return invokeJobOperation(jobObjName, "graphSnapshot");
+	}
+
+	static String getJobInstrumentation(ObjectName jobObjName) {
+		return invokeJobOperation(jobObjName, "instrumentationSnapshot");
+	}
+
+	private static String invokeJobOperation(ObjectName jobObjName, String operation) {
         Set<ObjectInstance> jobInstances = mBeanServer.queryMBeans(jobObjName, null);
         Iterator<ObjectInstance> jobIterator = jobInstances.iterator();
         ObjectInstance jobInstance = null;
@@ -102,7 +110,7 @@ final class JobUtil {
         if(jobIterator.hasNext()) {
         	jobInstance = jobIterator.next();
         }
-        String gSnapshot = "";
+        String result = "";
         if (jobInstance != null) {
             ObjectName jobObjectName = jobInstance.getObjectName();
             MBeanInfo mBeanInfo;
@@ -114,12 +122,12 @@ final class JobUtil {
 			}
 
 	    	/*
-	    	 * Now get the graph for the job
+	    	 * Now invoke the operation on the job
 	    	 */
 	    	for (MBeanOperationInfo operationInfo: mBeanInfo.getOperations()) {
-	    		if (operationInfo.getName().equals("graphSnapshot")) {
+	    		if (operationInfo.getName().equals(operation)) {
 	    			try {
-						gSnapshot = (String) mBeanServer.invoke(jobObjectName, "graphSnapshot",null, null);
+						result = (String) mBeanServer.invoke(jobObjectName, operation, null, null);
 					} catch (InstanceNotFoundException | ReflectionException | MBeanException e) {
 					    logger.error("Exception caught while invoking operation on MBean", e);
                         throw new RuntimeException("Exception caught while invoking operation on MBean", e);
@@ -127,6 +135,6 @@ final class JobUtil {
 	    		}
 	    	}
 	    }
-		return gSnapshot;
+		return result;
 	}
 }
@@ -0,0 +1,472 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.console.servlets;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.InstanceNotFoundException;
+import javax.management.IntrospectionException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+import org.apache.edgent.console.servlets.MetricsGson.OpMetric;
+import org.apache.edgent.console.servlets.MetricsGson.Operator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory model of the counter and meter metrics of each job.
+ * <P>
+ * Instead of scanning the {@code MBeanServer} on every console request,
+ * the model of each job requested by a client is refreshed every
+ * {@link #REFRESH_MILLIS} by a background thread, and requests are
+ * answered from the model.  A job stops being refreshed once it has not
+ * been requested for {@link #IDLE_MILLIS} and has no listeners.
+ * A refresh reads all attributes of a metric MBean with a single
+ * {@code getAttributes} call; the attribute names and types of a MBean
+ * are only introspected the first time it is seen.
+ * </P><P>
+ * Each refresh that changes a value increments the job's version and
+ * records it against the changed metrics, so clients can ask for only
+ * the metrics changed since a version they already have.  Such a delta
+ * also lists the metrics and ops removed since that version.  Removals
+ * are remembered for {@link #DELTA_MILLIS}, a client asking for an older
+ * version gets all the metrics.  Versions are allocated from a counter
+ * shared by all the jobs so they keep increasing when a job's model
+ * is dropped and created again.
+ * </P>
+ */
+public final class MetricsCache {
+
+	/** Interval between refreshes of a job's metrics. */
+	public static final long REFRESH_MILLIS = 1000;
+
+	/** Time after which a job that is not requested stops being refreshed. */
+	public static final long IDLE_MILLIS = 60 * 1000;
+
+	/** Time for which removed metrics are remembered. */
+	public static final long DELTA_MILLIS = 10 * 60 * 1000;
+
+	private static final MetricsCache INSTANCE = 
+			new MetricsCache(ManagementFactory.getPlatformMBeanServer(), REFRESH_MILLIS);
+	private static final Logger logger = LoggerFactory.getLogger(MetricsCache.class);
+
+	private final MBeanServer mBeanServer;
+	private final long refreshMillis;
+	private final Map<String, JobMetrics> jobs = new ConcurrentHashMap<>();
+	private final AtomicLong versions = new AtomicLong();
+	private ScheduledExecutorService refresher;
+
+	static MetricsCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Create a cache.
+	 * @param mBeanServer server with the metric MBeans
+	 * @param refreshMillis interval between refreshes, {@code 0} to only
+	 * 		refresh through {@link #refresh()}
+	 */
+	public MetricsCache(MBeanServer mBeanServer, long refreshMillis) {
+		this.mBeanServer = mBeanServer;
+		this.refreshMillis = refreshMillis;
+	}
+
+	/**
+	 * Get the counter and meter metrics of a job, the same metrics 
+	 * as {@link MetricsUtil#getAllRateMetrics(String)}.
+	 * @param jobId id (e.g, "JOB_0")
+	 * @param sinceVersion only return metrics changed after this version,
+	 * 		{@code 0} to return all metrics
+	 * @return the job's metrics
+	 */
+	public MetricsGson getAllMetrics(String jobId, long sinceVersion) {
+		return getJobMetrics(jobId).toGson(null, sinceVersion);
+	}
+
+	/**
+	 * Get the counter and meter metrics of a job with a given attribute name,
+	 * the same metrics as {@link MetricsUtil#getMetric(String, String, Iterator, Iterator)}.
+	 * @param jobId id (e.g, "JOB_0")
+	 * @param metricName metric name, format "name:Count,type:counter"
+	 * @param sinceVersion only return metrics changed after this version,
+	 * 		{@code 0} to return all metrics
+	 * @return the job's metrics with the given name
+	 */
+	public MetricsGson getMetric(String jobId, String metricName, long sinceVersion) {
+		String[] desiredParts = metricName.split(",");
+		String desName = "";
+		if (!desiredParts[0].equals("")) {
+			String[] nameA = desiredParts[0].split(":");
+			desName = nameA[1];
+		}
+		return getJobMetrics(jobId).toGson(desName, sinceVersion);
+	}
+
+	/**
+	 * Add a listener called on the refresher thread after each refresh
+	 * of a job's metrics.  The job is refreshed while it has listeners.
+	 * @param jobId id (e.g, "JOB_0")
+	 * @param listener the listener
+	 */
+	public void addListener(String jobId, Runnable listener) {
+		getJobMetrics(jobId).listeners.add(listener);
+	}
+
+	/**
+	 * Remove a listener added by {@link #addListener(String, Runnable)}.
+	 * @param jobId id (e.g, "JOB_0")
+	 * @param listener the listener
+	 */
+	public void removeListener(String jobId, Runnable listener) {
+		JobMetrics job = jobs.get(jobId);
+		if (job != null)
+			job.listeners.remove(listener);
+	}
+
+	/**
+	 * Refresh the metrics of all the jobs, dropping the idle ones,
+	 * and notify their listeners.
+	 */
+	public void refresh() {
+		long now = System.currentTimeMillis();
+		for (JobMetrics job : jobs.values()) {
+			if (job.isIdle(now)) {
+				jobs.remove(job.jobId, job);
+				continue;
+			}
+			try {
+				job.refresh();
+			} catch (RuntimeException e) {
+			    logger.error("Exception caught while refreshing metrics of job " + job.jobId, e);
+			}
+			for (Runnable listener : job.listeners) {
+				try {
+					listener.run();
+				} catch (RuntimeException e) {
+				    logger.error("Exception caught while notifying metrics listener", e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stop refreshing the metrics.
+	 */
+	public synchronized void close() {
+		if (refresher != null)
+			refresher.shutdownNow();
+		jobs.clear();
+	}
+
+	private JobMetrics getJobMetrics(String jobId) {
+		JobMetrics job = jobs.get(jobId);
+		if (job == null) {
+			JobMetrics newJob = new JobMetrics(jobId);
+			job = jobs.putIfAbsent(jobId, newJob);
+			if (job == null) {
+				job = newJob;
+				startRefresher();
+			}
+		}
+		job.lastAccess = System.currentTimeMillis();
+		// the first request does not wait for the refresher
+		job.refreshIfNew();
+		return job;
+	}
+
+	private synchronized void startRefresher() {
+		if (refresher != null || refreshMillis <= 0)
+			return;
+		refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "edgent-console-metrics");
+			t.setDaemon(true);
+			return t;
+		});
+		refresher.scheduleWithFixedDelay(this::refresh, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Attribute names and console types of a metric MBean.
+	 */
+	private static final class BeanInfo {
+		final String opId;
+		final String[] names;
+		final String[] types;
+		final String[] keys;
+
+		BeanInfo(String opId, String[] names, String[] types) {
+			this.opId = opId;
+			this.names = names;
+			this.types = types;
+			this.keys = new String[names.length];
+		}
+	}
+
+	private static final class Value {
+		final String opId;
+		final String type;
+		final String name;
+		String value;
+		// version the value changed, or the metric was removed
+		long version;
+
+		Value(String opId, String type, String name) {
+			this.opId = opId;
+			this.type = type;
+			this.name = name;
+		}
+	}
+
+	private final class JobMetrics {
+		private final String jobId;
+		private final ObjectName meterQuery;
+		private final ObjectName counterQuery;
+		private final Map<ObjectName, BeanInfo> beans = new HashMap<>();
+		// keyed by ObjectName + attribute to keep each op's metrics in MBean order
+		private final Map<String, Value> values = new LinkedHashMap<>();
+		private final Map<String, Value> removedMetrics = new LinkedHashMap<>();
+		private final Map<String, Long> removedOps = new LinkedHashMap<>();
+		// version and time of the refreshes that removed metrics
+		private final ArrayDeque<long[]> removals = new ArrayDeque<>();
+		private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+		private volatile long lastAccess;
+		private long version;
+		// oldest version a delta can be computed from
+		private long deltaFloor;
+		private boolean refreshed;
+
+		JobMetrics(String jobId) {
+			this.jobId = jobId;
+			this.version = versions.get();
+			// versions of a previous model of the job get all the metrics
+			this.deltaFloor = version + 1;
+			this.meterQuery = query(jobId, "metric.meters");
+			this.counterQuery = query(jobId, "metric.counters");
+		}
+
+		private ObjectName query(String jobId, String type) {
+			// i.e, edgent.providers.development:jobId=JOB-0,opId=OP_4,name=TupleRateMeter.edgent.oplet.JOB_0.OP_4,type=metric.meters
+			try {
+				return new ObjectName("*:jobId=" + jobId + ",type=" + type + ",*");
+			} catch (MalformedObjectNameException e) {
+			    logger.error("Error caught while initializing ObjectName", e);
+				throw new IllegalArgumentException(jobId, e);
+			}
+		}
+
+		boolean isIdle(long now) {
+			return listeners.isEmpty() && now - lastAccess > IDLE_MILLIS;
+		}
+
+		synchronized void refreshIfNew() {
+			if (!refreshed)
+				refresh();
+		}
+
+		synchronized void refresh() {
+			refreshed = true;
+			long next = versions.get() + 1;
+			boolean changed = false;
+
+			Set<ObjectName> meters = mBeanServer.queryNames(meterQuery, null);
+			Set<ObjectName> counters = mBeanServer.queryNames(counterQuery, null);
+
+			// forget MBeans that have been unregistered
+			Set<String> removed = new HashSet<>();
+			for (Iterator<Map.Entry<ObjectName, BeanInfo>> it = beans.entrySet().iterator(); it.hasNext();) {
+				Map.Entry<ObjectName, BeanInfo> entry = it.next();
+				if (!meters.contains(entry.getKey()) && !counters.contains(entry.getKey())) {
+					for (String key : entry.getValue().keys) {
+						Value v = key == null ? null : values.remove(key);
+						if (v != null) {
+							v.version = next;
+							removedMetrics.put(key, v);
+						}
+					}
+					removed.add(entry.getValue().opId);
+					changed = true;
+					it.remove();
+				}
+			}
+			for (BeanInfo info : beans.values())
+				removed.remove(info.opId);
+			for (String opId : removed)
+				removedOps.put(opId, next);
+			long now = System.currentTimeMillis();
+			if (changed)
+				removals.add(new long[] {next, now});
+
+			changed |= refresh(meters, false, next);
+			changed |= refresh(counters, true, next);
+			if (changed)
+				version = versions.incrementAndGet();
+			prune(now);
+		}
+
+		/**
+		 * Forget the removals older than {@link #DELTA_MILLIS}.
+		 */
+		private void prune(long now) {
+			long floor = deltaFloor;
+			while (!removals.isEmpty() && now - removals.peek()[1] > DELTA_MILLIS)
+				floor = removals.poll()[0];
+			if (floor == deltaFloor)
+				return;
+			deltaFloor = floor;
+			for (Iterator<Value> it = removedMetrics.values().iterator(); it.hasNext();) {
+				if (it.next().version <= floor)
+					it.remove();
+			}
+			for (Iterator<Long> it = removedOps.values().iterator(); it.hasNext();) {
+				if (it.next() <= floor)
+					it.remove();
+			}
+		}
+
+		private boolean refresh(Set<ObjectName> names, boolean counter, long next) {
+			boolean changed = false;
+			for (ObjectName name : names) {
+				BeanInfo info = beans.get(name);
+				if (info == null) {
+					info = introspect(name, counter);
+					if (info == null)
+						continue;
+					beans.put(name, info);
+					removedOps.remove(info.opId);
+				}
+				AttributeList attributes;
+				try {
+					attributes = mBeanServer.getAttributes(name, info.names);
+				} catch (InstanceNotFoundException | ReflectionException e) {
+					// unregistered since the query
+					continue;
+				}
+				for (Attribute attribute : attributes.asList()) {
+					int i = indexOf(info.names, attribute.getName());
+					if (i == -1)
+						continue;
+					if (info.keys[i] == null)
+						info.keys[i] = name.getCanonicalName() + "/" + info.names[i];
+					Value v = values.get(info.keys[i]);
+					if (v == null) {
+						v = new Value(info.opId, info.types[i], info.names[i]);
+						values.put(info.keys[i], v);
+						removedMetrics.remove(info.keys[i]);
+					}
+					String value = String.valueOf(attribute.getValue());
+					if (!value.equals(v.value)) {
+						v.value = value;
+						v.version = next;
+						changed = true;
+					}
+				}
+			}
+			return changed;
+		}
+
+		private BeanInfo introspect(ObjectName name, boolean counter) {
+			String opId = name.getKeyProperty("opId");
+			if (opId == null || opId.equals(""))
+				return null;
+			MBeanAttributeInfo[] attributes;
+			try {
+				attributes = mBeanServer.getMBeanInfo(name).getAttributes();
+			} catch (InstanceNotFoundException e) {
+				return null;
+			} catch (IntrospectionException | ReflectionException e) {
+			    logger.error("Exception caught while getting MBeanInfo", e);
+			    throw new RuntimeException("Exception caught while getting MBeanInfo", e);
+			}
+			String[] names = new String[attributes.length];
+			String[] types = new String[attributes.length];
+			for (int i = 0; i < attributes.length; i++) {
+				names[i] = attributes[i].getName();
+				types[i] = counter ? "counter" : attributes[i].getType();
+			}
+			return new BeanInfo(opId, names, types);
+		}
+
+		synchronized MetricsGson toGson(String metricName, long sinceVersion) {
+			MetricsGson gsonJob = new MetricsGson();
+			gsonJob.setJobId(jobId);
+			gsonJob.setVersion(version);
+			if (sinceVersion > 0 && sinceVersion >= deltaFloor && sinceVersion <= version) {
+				gsonJob.setDelta(true);
+				ArrayList<String> removed = new ArrayList<>();
+				for (Map.Entry<String, Long> op : removedOps.entrySet()) {
+					if (op.getValue() > sinceVersion)
+						removed.add(op.getKey());
+				}
+				if (!removed.isEmpty())
+					gsonJob.setRemovedOps(removed);
+				for (Value v : removedMetrics.values()) {
+					if (v.version > sinceVersion && (metricName == null || metricName.equals(v.name)))
+						gsonJob.addRemovedMetric(v.opId, v.type, v.name);
+				}
+			} else {
+				sinceVersion = 0;
+			}
+			for (Value v : values.values()) {
+				if (v.version <= sinceVersion)
+					continue;
+				if (metricName != null && !metricName.equals(v.name))
+					continue;
+				Operator theOp = gsonJob.getOp(v.opId);
+				if (theOp == null) {
+					theOp = gsonJob.new Operator(v.opId);
+				}
+				OpMetric aMetric = gsonJob.new OpMetric();
+				aMetric.type = v.type;
+				aMetric.name = v.name;
+				aMetric.value = v.value;
+				theOp.metrics.add(aMetric);
+			}
+			return gsonJob;
+		}
+	}
+
+	private static int indexOf(String[] names, String name) {
+		for (int i = 0; i < names.length; i++) {
+			if (names[i].equals(name))
+				return i;
+		}
+		return -1;
+	}
+}
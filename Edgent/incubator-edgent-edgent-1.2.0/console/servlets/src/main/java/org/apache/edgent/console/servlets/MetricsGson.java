@@ -26,6 +26,11 @@ public class MetricsGson {
 
     private String jobId = null;
     private ArrayList<Operator> ops = new ArrayList<>();
+    // set when served from the MetricsCache
+    private Long version = null;
+    private Boolean delta = null;
+    private ArrayList<String> removedOps = null;
+    private ArrayList<RemovedMetric> removedMetrics = null;
 	
 	class Operator {
 		final String opId;
@@ -44,6 +49,17 @@ public class MetricsGson {
 		String value;
 	}
 	
+	class RemovedMetric {
+		final String opId;
+		final String type;
+		final String name;
+		RemovedMetric(String opId, String type, String name) {
+			this.opId = opId;
+			this.type = type;
+			this.name = name;
+		}
+	}
+	
 	public String getJobId () {
 		return this.jobId;
 	}
@@ -52,6 +68,52 @@ public class MetricsGson {
 		this.jobId = id;
 	}
 	
+	public Long getVersion() {
+		return this.version;
+	}
+	
+	public void setVersion(long version) {
+		this.version = version;
+	}
+	
+	/**
+	 * Returns whether this only contains the metrics changed since the
+	 * version requested by the client.
+	 * @return true if this is a delta
+	 */
+	public boolean isDelta() {
+		return this.delta != null && this.delta;
+	}
+	
+	public void setDelta(boolean delta) {
+		this.delta = delta;
+	}
+	
+	public ArrayList<String> getRemovedOps() {
+		return this.removedOps;
+	}
+	
+	public void setRemovedOps(ArrayList<String> opIds) {
+		this.removedOps = opIds;
+	}
+	
+	public ArrayList<RemovedMetric> getRemovedMetrics() {
+		return this.removedMetrics;
+	}
+	
+	/**
+	 * Record a metric removed since the version requested by the client.
+	 * @param opId the metric's op
+	 * @param type the metric's type
+	 * @param name the metric's name
+	 */
+	public void addRemovedMetric(String opId, String type, String name) {
+		if (this.removedMetrics == null) {
+			this.removedMetrics = new ArrayList<>();
+		}
+		this.removedMetrics.add(new RemovedMetric(opId, type, name));
+	}
+	
 	public void addOp(Operator theOp) {
 		this.ops.add(theOp);
 	}
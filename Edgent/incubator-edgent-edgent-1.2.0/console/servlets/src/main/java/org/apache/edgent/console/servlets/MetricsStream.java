@@ -0,0 +1,167 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.console.servlets;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+
+import com.google.gson.Gson;
+
+/**
+ * Pushes a job's metrics to a client as server-sent events.
+ * <P>
+ * The stream listens to the {@link MetricsCache} refreshes of the job,
+ * so no request thread is held between events.  After each refresh, the
+ * metrics changed since the previous event are written through
+ * {@link AsyncContext#start(Runnable)}; a refresh happening while the
+ * previous event is still being written is folded into the next event.
+ * The event id is the metrics version, so a reconnecting
+ * {@code EventSource} only receives what it missed.
+ * </P>
+ */
+public final class MetricsStream implements Runnable, AsyncListener {
+
+	/** Maximum time without an event before a keep-alive comment is sent. */
+	public static final long KEEPALIVE_MILLIS = 15 * 1000;
+
+	private final MetricsCache cache;
+	private final String jobId;
+	private final AsyncContext async;
+	private final Gson gson = new Gson();
+	private final AtomicBoolean writing = new AtomicBoolean();
+	private volatile boolean closed;
+	// only accessed while writing
+	private long version;
+	private long lastWrite;
+
+	/**
+	 * Create a stream.
+	 * @param cache the metrics
+	 * @param jobId id (e.g, "JOB_0")
+	 * @param since version the client already has, {@code 0} for none
+	 * @param async the request's context, {@code null} when the events
+	 * 		are only written through {@link #writeEvent(PrintWriter, long)}
+	 */
+	public MetricsStream(MetricsCache cache, String jobId, long since, AsyncContext async) {
+		this.cache = cache;
+		this.jobId = jobId;
+		this.version = since;
+		this.async = async;
+	}
+
+	/**
+	 * Write the first event and follow the refreshes of the job.
+	 */
+	void start() {
+		async.addListener(this);
+		cache.addListener(jobId, this);
+		run();
+	}
+
+	/**
+	 * Called after each refresh of the job's metrics.
+	 */
+	@Override
+	public void run() {
+		if (closed || !writing.compareAndSet(false, true))
+			return;
+		try {
+			async.start(this::write);
+		} catch (IllegalStateException e) {
+			writing.set(false);
+			close();
+		}
+	}
+
+	private void write() {
+		try {
+			PrintWriter writer = async.getResponse().getWriter();
+			writeEvent(writer, System.currentTimeMillis());
+			if (writer.checkError())
+				close();
+		} catch (IOException | IllegalStateException e) {
+			close();
+		} finally {
+			writing.set(false);
+		}
+	}
+
+	/**
+	 * Write the metrics changed since the previous event, or a keep-alive
+	 * comment when there are none and no event was written for
+	 * {@link #KEEPALIVE_MILLIS}.
+	 * @param writer the response's writer
+	 * @param now the current time
+	 * @return {@code true} if anything was written
+	 */
+	public boolean writeEvent(PrintWriter writer, long now) {
+		MetricsGson gsonJob = cache.getAllMetrics(jobId, version);
+		long current = gsonJob.getVersion();
+		if (current != version) {
+			writer.write("id: " + current + "\n");
+			writer.write("data: " + gson.toJson(gsonJob) + "\n\n");
+			version = current;
+		} else if (now - lastWrite >= KEEPALIVE_MILLIS) {
+			// comment line, keeps the connection alive and detects closed clients
+			writer.write(":\n\n");
+		} else {
+			return false;
+		}
+		lastWrite = now;
+		writer.flush();
+		return true;
+	}
+
+	private void close() {
+		if (closed)
+			return;
+		closed = true;
+		cache.removeListener(jobId, this);
+		try {
+			async.complete();
+		} catch (IllegalStateException e) {
+			// already completed
+		}
+	}
+
+	@Override
+	public void onComplete(AsyncEvent event) {
+		closed = true;
+		cache.removeListener(jobId, this);
+	}
+
+	@Override
+	public void onTimeout(AsyncEvent event) {
+		close();
+	}
+
+	@Override
+	public void onError(AsyncEvent event) {
+		close();
+	}
+
+	@Override
+	public void onStartAsync(AsyncEvent event) {
+	}
+}
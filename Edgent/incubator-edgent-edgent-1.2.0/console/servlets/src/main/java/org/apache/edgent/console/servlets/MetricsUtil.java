@@ -22,6 +22,8 @@ import java.lang.management.ManagementFactory;
 import java.util.Iterator;
 import java.util.Set;
 
+import javax.management.Attribute;
+import javax.management.AttributeList;
 import javax.management.AttributeNotFoundException;
 import javax.management.InstanceNotFoundException;
 import javax.management.IntrospectionException;
@@ -79,6 +81,22 @@ final class MetricsUtil {
 		return meterInstances.iterator();
 	}
 	
+	static Iterator<ObjectInstance> getHistogramObjectIterator(String jobId) {
+		ObjectName histogramObjName = null;
+		StringBuilder sbuf = new StringBuilder();
+		sbuf.append("*:jobId=").append(jobId);
+		sbuf.append(",type=metric.histograms,*");
+		// i.e, edgent.providers.development:jobId=JOB-0,opId=OP_4,name=TupleProcessingLatency.edgent.oplet.JOB_0.OP_4,type=metric.histograms
+
+		try {
+			histogramObjName = new ObjectName(sbuf.toString());
+		} catch (MalformedObjectNameException e) {
+		    logger.error("Error caught while initializing ObjectName", e);
+		}
+		Set<ObjectInstance> histogramInstances = mBeanServer.queryMBeans(histogramObjName, null);
+		return histogramInstances.iterator();
+	}
+	
 	static MetricsGson getAvailableMetricsForJob(String jobId, Iterator<ObjectInstance> meterIterator, Iterator<ObjectInstance> counterIterator) {
 		MetricsGson gsonJob = new MetricsGson();
 		gsonJob.setJobId(jobId);
@@ -330,4 +348,57 @@ final class MetricsUtil {
 		}	
 		return gsonJob;
 	}
+
+	/**
+	 * Get the latency histogram metrics, i.e, count, mean, max and the
+	 * 50th, 99th and 99.9th percentiles, for a job.
+	 * <P>
+	 * The metric name is prefixed with the histogram's name, e.g,
+	 * {@code TupleProcessingLatency.99thPercentile}. Values are in nanoseconds.
+	 * </P>
+	 * @param jobId id (e.g, "JOB_0")
+	 * 
+	 * @return  all latency metrics for this job if there are any
+	 */
+	static MetricsGson getLatencyMetrics(String jobId) {
+		MetricsGson gsonJob = new MetricsGson();
+		gsonJob.setJobId(jobId);
+		addHistogramMetrics(gsonJob, jobId);
+		return gsonJob;
+	}
+
+	private static final String[] HISTOGRAM_ATTRIBUTES = {
+			"Count", "Mean", "Max", "50thPercentile", "99thPercentile", "999thPercentile" };
+
+	private static void addHistogramMetrics(MetricsGson gsonJob, String jobId) {
+		Iterator<ObjectInstance> histogramIterator = getHistogramObjectIterator(jobId);
+		while (histogramIterator.hasNext()) {
+			ObjectName hObjName = histogramIterator.next().getObjectName();
+			String opName = hObjName.getKeyProperty("opId");
+			String histogramName = hObjName.getKeyProperty("name");
+			if (opName == null || opName.equals("") || histogramName == null) {
+				continue;
+			}
+			int dot = histogramName.indexOf('.');
+			if (dot != -1) {
+				histogramName = histogramName.substring(0, dot);
+			}
+			try {
+				AttributeList attributes = mBeanServer.getAttributes(hObjName, HISTOGRAM_ATTRIBUTES);
+				Operator theOp = gsonJob.getOp(opName);
+				if (theOp == null) {
+					theOp = gsonJob.new Operator(opName);
+				}
+				for (Attribute attribute : attributes.asList()) {
+					OpMetric aMetric = gsonJob.new OpMetric();
+					aMetric.type = "histogram";
+					aMetric.name = histogramName + "." + attribute.getName();
+					aMetric.value = String.valueOf(attribute.getValue());
+					theOp.metrics.add(aMetric);
+				}
+			} catch (InstanceNotFoundException | ReflectionException e) {
+			    logger.error("Exception caught while accessing MBean", e);
+			}
+		}
+	}
 }
@@ -0,0 +1,242 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.test.console.servlets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import org.apache.edgent.console.servlets.MetricsCache;
+import org.apache.edgent.console.servlets.MetricsGson;
+import org.apache.edgent.console.servlets.MetricsStream;
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+public class MetricsCacheTest {
+
+    public interface TestCounterMBean {
+        long getCount();
+    }
+
+    public static class TestCounter implements TestCounterMBean {
+        volatile long count;
+        @Override
+        public long getCount() {
+            return count;
+        }
+    }
+
+    public interface TestMeterMBean {
+        long getCount();
+        double getMeanRate();
+    }
+
+    public static class TestMeter implements TestMeterMBean {
+        volatile long count;
+        @Override
+        public long getCount() {
+            return count;
+        }
+        @Override
+        public double getMeanRate() {
+            return count / 10.0;
+        }
+    }
+
+    private static final String JOB = "JOB_0";
+    private final MBeanServer server = MBeanServerFactory.newMBeanServer();
+    private MetricsCache cache = new MetricsCache(server, 0);
+
+    @After
+    public void close() {
+        cache.close();
+    }
+
+    private ObjectName register(Object bean, String opId, String type) throws Exception {
+        ObjectName name = new ObjectName("edgent.test:jobId=" + JOB + ",opId=" + opId
+                + ",name=" + bean.getClass().getSimpleName() + "." + opId + ",type=metric." + type);
+        server.registerMBean(bean, name);
+        return name;
+    }
+
+    private static JsonObject json(MetricsGson gsonJob) {
+        return new JsonParser().parse(new Gson().toJson(gsonJob)).getAsJsonObject();
+    }
+
+    private static JsonArray metrics(JsonObject job, String opId) {
+        for (JsonElement op : job.getAsJsonArray("ops")) {
+            if (op.getAsJsonObject().get("opId").getAsString().equals(opId))
+                return op.getAsJsonObject().getAsJsonArray("metrics");
+        }
+        return null;
+    }
+
+    @Test
+    public void testFullAndDelta() throws Exception {
+        TestCounter counter = new TestCounter();
+        register(counter, "OP_1", "counters");
+        register(new TestMeter(), "OP_2", "meters");
+
+        MetricsGson full = cache.getAllMetrics(JOB, 0);
+        long v1 = full.getVersion();
+        assertTrue(v1 > 0);
+        assertFalse(full.isDelta());
+        assertEquals(2, full.getOps().size());
+        assertEquals(1, metrics(json(full), "OP_1").size());
+        assertEquals(2, metrics(json(full), "OP_2").size());
+
+        // nothing changed
+        cache.refresh();
+        MetricsGson delta = cache.getAllMetrics(JOB, v1);
+        assertEquals(v1, (long) delta.getVersion());
+        assertTrue(delta.isDelta());
+        assertEquals(0, delta.getOps().size());
+
+        counter.count = 5;
+        cache.refresh();
+        delta = cache.getAllMetrics(JOB, v1);
+        long v2 = delta.getVersion();
+        assertTrue(v2 > v1);
+        assertTrue(delta.isDelta());
+        assertEquals(1, delta.getOps().size());
+        JsonObject metric = metrics(json(delta), "OP_1").get(0).getAsJsonObject();
+        assertEquals("Count", metric.get("name").getAsString());
+        assertEquals("counter", metric.get("type").getAsString());
+        assertEquals("5", metric.get("value").getAsString());
+        assertNull(delta.getRemovedMetrics());
+
+        // a version the cache does not know gets all the metrics
+        MetricsGson unknown = cache.getAllMetrics(JOB, v2 + 100);
+        assertFalse(unknown.isDelta());
+        assertEquals(2, unknown.getOps().size());
+
+        MetricsGson named = cache.getMetric(JOB, "name:MeanRate,type:double", 0);
+        assertEquals(1, named.getOps().size());
+        assertEquals(1, metrics(json(named), "OP_2").size());
+    }
+
+    @Test
+    public void testRemovedMetrics() throws Exception {
+        ObjectName counter = register(new TestCounter(), "OP_1", "counters");
+        register(new TestMeter(), "OP_1", "meters");
+        ObjectName meter2 = register(new TestMeter(), "OP_2", "meters");
+        long v1 = cache.getAllMetrics(JOB, 0).getVersion();
+
+        server.unregisterMBean(counter);
+        cache.refresh();
+        MetricsGson delta = cache.getAllMetrics(JOB, v1);
+        long v2 = delta.getVersion();
+        assertTrue(v2 > v1);
+        assertTrue(delta.isDelta());
+        assertNull(delta.getRemovedOps());
+        assertEquals(1, delta.getRemovedMetrics().size());
+        JsonObject removed = json(delta).getAsJsonArray("removedMetrics").get(0).getAsJsonObject();
+        assertEquals("OP_1", removed.get("opId").getAsString());
+        assertEquals("Count", removed.get("name").getAsString());
+        assertEquals("counter", removed.get("type").getAsString());
+
+        server.unregisterMBean(meter2);
+        cache.refresh();
+        delta = cache.getAllMetrics(JOB, v1);
+        assertEquals(1, delta.getRemovedOps().size());
+        assertEquals("OP_2", delta.getRemovedOps().get(0));
+        assertEquals(3, delta.getRemovedMetrics().size());
+        // only the removals after the client's version
+        delta = cache.getAllMetrics(JOB, v2);
+        assertEquals(2, delta.getRemovedMetrics().size());
+
+        // full responses do not list removals
+        MetricsGson full = cache.getAllMetrics(JOB, 0);
+        assertNull(full.getRemovedOps());
+        assertNull(full.getRemovedMetrics());
+        assertEquals(1, full.getOps().size());
+
+        // registered again
+        register(new TestCounter(), "OP_1", "counters");
+        cache.refresh();
+        delta = cache.getAllMetrics(JOB, v1);
+        assertEquals(2, delta.getRemovedMetrics().size());
+        assertEquals(1, delta.getOps().size());
+    }
+
+    @Test(timeout=10000)
+    public void testPeriodicRefresh() throws Exception {
+        cache = new MetricsCache(server, 20);
+        TestCounter counter = new TestCounter();
+        register(counter, "OP_1", "counters");
+        long v1 = cache.getAllMetrics(JOB, 0).getVersion();
+
+        CountDownLatch refreshed = new CountDownLatch(1);
+        cache.addListener(JOB, () -> {
+            if (cache.getAllMetrics(JOB, v1).getVersion() > v1)
+                refreshed.countDown();
+        });
+        counter.count = 1;
+        assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+        assertEquals(1, cache.getAllMetrics(JOB, v1).getOps().size());
+    }
+
+    @Test
+    public void testStreamEvents() throws Exception {
+        TestCounter counter = new TestCounter();
+        register(counter, "OP_1", "counters");
+        MetricsStream stream = new MetricsStream(cache, JOB, 0, null);
+        StringWriter out = new StringWriter();
+        PrintWriter writer = new PrintWriter(out);
+
+        long now = System.currentTimeMillis();
+        assertTrue(stream.writeEvent(writer, now));
+        long v1 = cache.getAllMetrics(JOB, 0).getVersion();
+        String event = out.toString();
+        assertTrue(event, event.startsWith("id: " + v1 + "\ndata: {"));
+        assertTrue(event, event.endsWith("}\n\n"));
+
+        // nothing changed
+        out.getBuffer().setLength(0);
+        assertFalse(stream.writeEvent(writer, now + 1));
+        assertTrue(stream.writeEvent(writer, now + MetricsStream.KEEPALIVE_MILLIS));
+        assertEquals(":\n\n", out.toString());
+
+        counter.count = 2;
+        cache.refresh();
+        out.getBuffer().setLength(0);
+        assertTrue(stream.writeEvent(writer, now + MetricsStream.KEEPALIVE_MILLIS + 1));
+        event = out.toString();
+        String data = event.substring(event.indexOf("data: ") + 6).trim();
+        JsonObject delta = new JsonParser().parse(data).getAsJsonObject();
+        assertTrue(delta.get("delta").getAsBoolean());
+        assertEquals("2", metrics(delta, "OP_1").get(0).getAsJsonObject().get("value").getAsString());
+    }
+}
@@ -24,6 +24,7 @@ import org.apache.edgent.execution.DirectSubmitter;
 import org.apache.edgent.execution.Job;
 import org.apache.edgent.execution.services.ControlService;
 import org.apache.edgent.execution.services.ServiceContainer;
+import org.apache.edgent.runtime.etiao.SharedScheduler;
 import org.apache.edgent.runtime.jsoncontrol.JsonControlService;
 import org.apache.edgent.topology.Topology;
 import org.apache.edgent.topology.TopologyProvider;
@@ -48,6 +49,12 @@ import com.google.gson.JsonObject;
  * Hence a job with such sources runs until either it or some other
  * entity terminates it.
  * </P>
+ * <P>
+ * The scheduled tasks of all the jobs run on a {@link SharedScheduler},
+ * which is registered as a service of the provider. A job runs its tasks
+ * on at most half of its threads, and the control tasks of the jobs run
+ * on threads of their own.
+ * </P>
  */
 public class DirectProvider extends AbstractTopologyProvider<DirectTopology>
         implements DirectSubmitter<Topology, Job> {
@@ -58,6 +65,7 @@ public class DirectProvider extends AbstractTopologyProvider<DirectTopology>
         this.services = new ServiceContainer();
         
         getServices().addService(ControlService.class, new JsonControlService());
+        getServices().addService(SharedScheduler.class, new SharedScheduler());
     }
 
     /**
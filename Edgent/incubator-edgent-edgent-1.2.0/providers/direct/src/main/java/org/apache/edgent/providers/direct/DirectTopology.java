@@ -101,6 +101,12 @@ public class DirectTopology extends GraphTopology<DirectTester> {
         if (value != null && !(value instanceof JsonNull))
             jobName = value.getAsString();
 
+        if (config != null) {
+            value = config.get(Configs.JOB_INSTRUMENTATION);
+            if (value != null && !(value instanceof JsonNull))
+                getExecutable().setInstrumented(value.getAsBoolean());
+        }
+
         this.job = getExecutable().createJob(graph(), getName(), jobName);
         return getExecutable().getScheduler().submit(getCallable());
     }
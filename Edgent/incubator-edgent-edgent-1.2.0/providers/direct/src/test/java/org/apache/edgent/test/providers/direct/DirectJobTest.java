@@ -19,6 +19,7 @@ under the License.
 package org.apache.edgent.test.providers.direct;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
@@ -32,15 +33,22 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.edgent.execution.Configs;
 import org.apache.edgent.execution.Job;
+import org.apache.edgent.execution.mbeans.JobMXBean;
+import org.apache.edgent.execution.services.ControlService;
 import org.apache.edgent.graph.Vertex;
 import org.apache.edgent.oplet.Oplet;
 import org.apache.edgent.oplet.core.PeriodicSource;
 import org.apache.edgent.oplet.core.Pipe;
+import org.apache.edgent.oplet.functional.Filter;
+import org.apache.edgent.oplet.plumbing.Isolate;
 import org.apache.edgent.providers.direct.DirectProvider;
+import org.apache.edgent.runtime.jsoncontrol.JsonControlService;
 import org.apache.edgent.topology.TStream;
 import org.apache.edgent.topology.Topology;
+import org.apache.edgent.topology.plumbing.PlumbingStreams;
 import org.junit.Test;
 
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
 public class DirectJobTest extends DirectTopologyTestBase {
@@ -276,6 +284,63 @@ public class DirectJobTest extends DirectTopologyTestBase {
         }
     }
 
+    @Test
+    public void jobInstrumentation() throws Exception {
+        Integer[] data = new Integer[100];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = i;
+        }
+        Topology t = newTopology();
+        TStream<Integer> ints = t.collection(Arrays.asList(data));
+        ints.filter(tuple -> tuple % 2 == 0).sink(tuple -> {});
+
+        JsonObject config = new JsonObject();
+        config.addProperty(Configs.JOB_INSTRUMENTATION, true);
+        Job job = awaitCompleteExecution(t, config);
+
+        JsonObject snapshot = instrumentationSnapshot(job);
+        assertTrue(snapshot.get("instrumented").getAsBoolean());
+        JsonObject filter = findOplet(snapshot, Filter.class);
+        assertEquals(100, filter.get("tuplesIn").getAsLong());
+        assertEquals(50, filter.get("tuplesOut").getAsLong());
+        assertTrue(filter.get("processingNanos").getAsLong() >= 0);
+        job.stateChange(Job.Action.CLOSE);
+    }
+
+    @Test
+    public void jobNotInstrumented() throws Exception {
+        Topology t = newTopology();
+        PlumbingStreams.isolate(t.strings("a", "b"), true).sink(tuple -> {});
+
+        // the isolate's thread never completes, don't wait for the job
+        Job job = ((DirectProvider)getTopologyProvider()).submit(t).get();
+
+        JsonObject snapshot = instrumentationSnapshot(job);
+        assertFalse(snapshot.get("instrumented").getAsBoolean());
+        JsonObject isolate = findOplet(snapshot, Isolate.class);
+        assertFalse(isolate.has("tuplesIn"));
+        assertEquals(1, isolate.getAsJsonArray("queueDepth").size());
+        job.stateChange(Job.Action.CLOSE);
+    }
+
+    private JsonObject instrumentationSnapshot(Job job) throws Exception {
+        JsonControlService control = (JsonControlService) 
+                ((DirectProvider)getTopologyProvider()).getServices().getService(ControlService.class);
+        JsonObject req = new JsonObject();
+        req.addProperty(JsonControlService.TYPE_KEY, JobMXBean.TYPE);
+        req.addProperty(JsonControlService.ALIAS_KEY, job.getName());
+        req.addProperty(JsonControlService.OP_KEY, "instrumentationSnapshot");
+        return control.controlRequest(req).getAsJsonObject();
+    }
+
+    private static JsonObject findOplet(JsonObject snapshot, Class<?> kind) {
+        for (JsonElement oplet : snapshot.getAsJsonArray("oplets")) {
+            if (kind.getName().equals(oplet.getAsJsonObject().get("kind").getAsString()))
+                return oplet.getAsJsonObject();
+        }
+        throw new AssertionError("No oplet of kind " + kind.getName());
+    }
+
     private Job awaitCompleteExecution(Topology t) throws InterruptedException, ExecutionException {
         return awaitCompleteExecution(t, null);
     }
@@ -19,9 +19,11 @@ under the License.
 package org.apache.edgent.runtime.etiao;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -29,8 +31,10 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.edgent.execution.Job;
+import org.apache.edgent.execution.services.EventSourceService;
 import org.apache.edgent.execution.services.RuntimeServices;
 import org.apache.edgent.execution.services.ServiceContainer;
 import org.apache.edgent.function.BiConsumer;
@@ -52,9 +56,13 @@ public class Executable implements RuntimeServices {
     private final ThreadFactory controlThreads;
     private final BiConsumer<Object, Throwable> completionHandler;
     private final ThreadFactoryTracker userThreads;
+    // null when the scheduler is provided by the container
+    private final SharedScheduler ownScheduler;
     private final TrackingScheduledExecutor controlScheduler;
     private final TrackingScheduledExecutor userScheduler;
+    private final EventSources eventSources = new EventSources();
     private Throwable lastError;
+    private volatile boolean instrumented;
     private static final Logger logger = LoggerFactory.getLogger(Executable.class);
 
     /**
@@ -114,8 +122,14 @@ public class Executable implements RuntimeServices {
             }  
         };
         this.userThreads = new ThreadFactoryTracker(name, controlThreads, completionHandler);
-        this.controlScheduler = TrackingScheduledExecutor.newScheduler(controlThreads, completionHandler);
-        this.userScheduler = TrackingScheduledExecutor.newScheduler(userThreads, completionHandler);
+        SharedScheduler scheduler = containerServices.getService(SharedScheduler.class);
+        this.ownScheduler = (scheduler == null) ? new SharedScheduler(controlThreads) : null;
+        if (scheduler == null)
+            scheduler = ownScheduler;
+        // Control tasks have threads of their own, so closing a job never
+        // waits for threads held by blocked user tasks.
+        this.controlScheduler = TrackingScheduledExecutor.newControlScheduler(scheduler, name, completionHandler);
+        this.userScheduler = TrackingScheduledExecutor.newScheduler(scheduler, name, completionHandler);
     }
 
     private ThreadFactory getThreads() {
@@ -164,13 +178,51 @@ public class Executable implements RuntimeServices {
         return invocation;
     }
 
+    /**
+     * Returns the invocations of this executable.
+     * 
+     * @return an unmodifiable list of the invocations
+     */
+    public List<Invocation<? extends Oplet<?, ?>, ?, ?>> getInvocations() {
+        return Collections.unmodifiableList(invocations);
+    }
+
+    /**
+     * Enables or disables instrumentation of the invocations.
+     * <P>
+     * When enabled, each invocation records the tuples flowing through its
+     * ports and the time spent processing them, see {@link InvocationMetrics}.
+     * Must be called before the invocations are initialized.
+     * </P>
+     * 
+     * @param instrumented {@code true} to instrument the invocations
+     */
+    public void setInstrumented(boolean instrumented) {
+        this.instrumented = instrumented;
+    }
+
+    /**
+     * Returns whether the invocations are instrumented.
+     * 
+     * @return {@code true} if the invocations are instrumented
+     */
+    public boolean isInstrumented() {
+        return instrumented;
+    }
+
     /**
      * Initializes the invocations.
      */
     public void initialize() {
         jobServices.addService(ThreadFactory.class, getThreads());
         jobServices.addService(ScheduledExecutorService.class, getScheduler());
-        invokeAction(invocation -> invocation.initialize(job, this));
+        jobServices.addService(EventSourceService.class, eventSources);
+        final boolean instrument = instrumented;
+        invokeAction(invocation -> {
+            if (instrument)
+                invocation.instrument();
+            invocation.initialize(job, this);
+        });
     }
 
     /**
@@ -183,6 +235,10 @@ public class Executable implements RuntimeServices {
     /**
      * Shuts down the user scheduler and thread factory, close all 
      * invocations, then shutdown the control scheduler.
+     * <P>
+     * When the scheduler is shared with other jobs, only the tasks of 
+     * this job are cancelled.
+     * </P>
      */
     public void close() {
         getScheduler().shutdownNow();
@@ -205,6 +261,8 @@ public class Executable implements RuntimeServices {
         if (!unfinished.isEmpty()) {
             logger.warn("Scheduler could not finish {} tasks", unfinished.size());
         }
+        if (ownScheduler != null)
+            ownScheduler.shutdownNow();
     }
     
     private static long getTimeoutValue(long timeout, TimeUnit units) {
@@ -270,7 +328,8 @@ public class Executable implements RuntimeServices {
      */
     public boolean hasActiveTasks() {
         return userScheduler.hasActiveTasks() || 
-               userThreads.hasActiveNonDaemonThreads();
+               userThreads.hasActiveNonDaemonThreads() ||
+               eventSources.getActiveCount() > 0;
     }
 
     public synchronized Throwable getLastError() {
@@ -370,6 +429,36 @@ public class Executable implements RuntimeServices {
         }
     }
     
+    /**
+     * Keeps track of the active event sources, which keep the job running
+     * without a thread of their own, and delivers their events through
+     * the job's scheduler.
+     */
+    private class EventSources implements EventSourceService {
+        private final AtomicInteger active = new AtomicInteger();
+
+        @Override
+        public void activate() {
+            active.incrementAndGet();
+        }
+
+        @Override
+        public void deactivate() {
+            if (active.decrementAndGet() == 0)
+                notifyCompleter();
+        }
+
+        @Override
+        public int getActiveCount() {
+            return active.get();
+        }
+
+        @Override
+        public Executor getDeliveryExecutor() {
+            return userScheduler;
+        }
+    }
+
     static ExecutionException executionException(Throwable t) {
         return (t instanceof ExecutionException) ? 
                 (ExecutionException) t : new ExecutionException(t);
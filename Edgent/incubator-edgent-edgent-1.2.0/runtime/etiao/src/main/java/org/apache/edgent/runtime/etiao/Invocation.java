@@ -28,6 +28,7 @@ import org.apache.edgent.function.Functions;
 import org.apache.edgent.oplet.JobContext;
 import org.apache.edgent.oplet.Oplet;
 import org.apache.edgent.oplet.OutputPortContext;
+import org.apache.edgent.oplet.plumbing.InputQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -62,6 +63,7 @@ public class Invocation<T extends Oplet<I, O>, I, O> implements AutoCloseable {
     private List<Consumer<O>> outputs;
     private List<SettableForwarder<I>> inputs;
     private List<OutputPortContext> outputContext;
+    private InvocationMetrics metrics;
     private static final Logger logger = LoggerFactory.getLogger(Invocation.class);
 
     protected Invocation(String id, T oplet, int inputCount, int outputCount) {
@@ -158,6 +160,38 @@ public class Invocation<T extends Oplet<I, O>, I, O> implements AutoCloseable {
         return inputs;
     }
 
+    /**
+     * Returns the instrumentation collected for this invocation.
+     * 
+     * @return the invocation's metrics, or {@code null} if the
+     *      invocation is not instrumented
+     */
+    public InvocationMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the number of tuples queued for the specified input port.
+     * 
+     * @param port the input port index
+     * @return the queue depth, or {@code -1} if the oplet does not
+     *      queue its input tuples
+     */
+    public int getQueueDepth(int port) {
+        if (oplet instanceof InputQueue)
+            return ((InputQueue) oplet).getQueueDepth(port);
+        return -1;
+    }
+
+    /**
+     * Enable instrumentation of this invocation's ports.
+     * Must be called before the invocation is initialized.
+     */
+    void instrument() {
+        if (metrics == null)
+            metrics = new InvocationMetrics();
+    }
+
     /**
      * Initialize the invocation.
      * 
@@ -166,10 +200,17 @@ public class Invocation<T extends Oplet<I, O>, I, O> implements AutoCloseable {
      */
     public void initialize(JobContext job, RuntimeServices services) {
 
+        List<Consumer<O>> contextOutputs = outputs;
+        if (metrics != null) {
+            contextOutputs = new ArrayList<>(outputs.size());
+            for (int i = 0; i < outputs.size(); i++)
+                contextOutputs.add(metrics.output(outputs, i));
+        }
+
         InvocationContext<I, O> context = new InvocationContext<I, O>(
         		id, job, services, 
                 inputs.size(),
-                outputs, outputContext);
+                contextOutputs, outputContext);
 
         try {
             oplet.initialize(context);
@@ -177,8 +218,10 @@ public class Invocation<T extends Oplet<I, O>, I, O> implements AutoCloseable {
             logger.error("Error while initializing oplet", e);
         }
         List<? extends Consumer<I>> streamers = oplet.getInputs();
-        for (int i = 0; i < inputs.size(); i++)
-            inputs.get(i).setDestination(streamers.get(i));
+        for (int i = 0; i < inputs.size(); i++) {
+            Consumer<I> streamer = streamers.get(i);
+            inputs.get(i).setDestination(metrics == null ? streamer : metrics.input(streamer));
+        }
     }
 
     /**
@@ -0,0 +1,135 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.runtime.etiao;
+
+import java.util.List;
+
+import org.apache.edgent.function.Consumer;
+
+/**
+ * Instrumentation collected by an {@link Invocation} when its
+ * {@link Executable} is {@linkplain Executable#setInstrumented(boolean) instrumented}.
+ * <P>
+ * The invocation wraps its input and output ports, so no vertices are
+ * added to the graph. Counters are striped so oplets invoked from
+ * several threads do not contend on a single location.
+ * </P><P>
+ * Processing time is the time spent in the oplet's input ports excluding
+ * the time spent in downstream oplets invoked synchronously by the oplet.
+ * Time oplets without inputs (sources) spend generating tuples is not measured.
+ * </P>
+ */
+public class InvocationMetrics {
+
+    /**
+     * Nanoseconds spent in nested (downstream) invocations
+     * on the current thread.
+     */
+    private static final ThreadLocal<long[]> NESTED = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[1];
+        }
+    };
+
+    private final StripedCounter tuplesIn = new StripedCounter();
+    private final StripedCounter tuplesOut = new StripedCounter();
+    private final StripedCounter processingNanos = new StripedCounter();
+
+    InvocationMetrics() {
+    }
+
+    /**
+     * Returns the number of tuples received on all input ports.
+     * @return the number of input tuples
+     */
+    public long getTuplesIn() {
+        return tuplesIn.sum();
+    }
+
+    /**
+     * Returns the number of tuples submitted on all output ports.
+     * @return the number of output tuples
+     */
+    public long getTuplesOut() {
+        return tuplesOut.sum();
+    }
+
+    /**
+     * Returns the cumulative time spent processing input tuples.
+     * @return processing time in nanoseconds
+     */
+    public long getProcessingNanos() {
+        return processingNanos.sum();
+    }
+
+    <I> Consumer<I> input(Consumer<I> destination) {
+        return new Input<I>(destination);
+    }
+
+    <O> Consumer<O> output(List<Consumer<O>> outputs, int port) {
+        return new Output<O>(outputs, port);
+    }
+
+    private class Input<I> implements Consumer<I> {
+        private static final long serialVersionUID = 1L;
+        private final Consumer<I> destination;
+
+        Input(Consumer<I> destination) {
+            this.destination = destination;
+        }
+
+        @Override
+        public void accept(I tuple) {
+            final long[] nested = NESTED.get();
+            final long outer = nested[0];
+            nested[0] = 0;
+            final long start = System.nanoTime();
+            try {
+                destination.accept(tuple);
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                tuplesIn.increment();
+                processingNanos.add(Math.max(0, elapsed - nested[0]));
+                nested[0] = outer + elapsed;
+            }
+        }
+    }
+
+    /**
+     * Counts submitted tuples and forwards them to the port's
+     * current target, so later {@code setTarget} calls are honoured.
+     */
+    private class Output<O> implements Consumer<O> {
+        private static final long serialVersionUID = 1L;
+        private final List<Consumer<O>> outputs;
+        private final int port;
+
+        Output(List<Consumer<O>> outputs, int port) {
+            this.outputs = outputs;
+            this.port = port;
+        }
+
+        @Override
+        public void accept(O tuple) {
+            tuplesOut.increment();
+            outputs.get(port).accept(tuple);
+        }
+    }
+}
@@ -19,7 +19,10 @@ under the License.
 package org.apache.edgent.runtime.etiao;
 
 import org.apache.edgent.function.Consumer;
+import org.apache.edgent.function.DoubleConsumer;
 import org.apache.edgent.function.Functions;
+import org.apache.edgent.function.LongConsumer;
+import org.apache.edgent.oplet.core.PrimitiveTuples;
 
 /**
  * A forwarding Streamer whose destination
@@ -27,10 +30,12 @@ import org.apache.edgent.function.Functions;
  * External synchronization or happens-before
  * guarantees must be provided by the object
  * owning an instance of {@code SettableForwarder}.
+ * Primitive tuples are forwarded without boxing
+ * (see {@link PrimitiveTuples}).
  *
  * @param <T> Type of data on the stream.
  */
-public final class SettableForwarder<T> implements Consumer<T> {
+public final class SettableForwarder<T> implements Consumer<T>, DoubleConsumer, LongConsumer {
     private static final long serialVersionUID = 1L;
     private Consumer<T> destination;
 
@@ -54,6 +59,18 @@ public final class SettableForwarder<T> implements Consumer<T> {
         getDestination().accept(item);
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public void accept(double item) {
+        PrimitiveTuples.submitDouble((Consumer<Double>) getDestination(), item);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void accept(long item) {
+        PrimitiveTuples.submitLong((Consumer<Long>) getDestination(), item);
+    }
+
     /**
      * Change the destination.
      * No synchronization is taken.
@@ -0,0 +1,288 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.runtime.etiao;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the scheduled tasks of many jobs on a shared, bounded set of threads.
+ * <p>
+ * Each job schedules its tasks through its own {@link TrackingScheduledExecutor},
+ * which owns a lane of this scheduler. A task is queued on its lane once it
+ * is due, and the threads take tasks from the lanes in turn, so a job with
+ * many due tasks does not delay the tasks of the other jobs.</p>
+ * <p>
+ * A lane runs at most {@code threadsPerJob} of its tasks at once, so the
+ * blocked tasks of a job cannot hold all the threads. The control tasks of
+ * the jobs, initializing, starting and closing their oplets, run on threads
+ * of their own and are never queued behind user tasks.</p>
+ * <p>
+ * A single daemon thread times the delayed and periodic tasks. The threads
+ * running tasks are daemon threads, created on demand, which exit after being
+ * idle for a second. While running the task of a named lane, a thread's name
+ * ends with the lane's name.
+ * </p>
+ */
+public final class SharedScheduler {
+
+    private final ScheduledThreadPoolExecutor timer;
+    private final Pool workers;
+    private final Pool controlWorkers;
+    private final int threadsPerJob;
+
+    /**
+     * Creates a scheduler with four threads per processor, at least eight,
+     * created by {@link Executors#defaultThreadFactory()}.
+     */
+    public SharedScheduler() {
+        this(Executors.defaultThreadFactory());
+    }
+
+    /**
+     * Creates a scheduler with four threads per processor, at least eight.
+     * 
+     * @param threadFactory factory creating the threads running the tasks
+     */
+    public SharedScheduler(ThreadFactory threadFactory) {
+        this(threadFactory, Math.max(8, Runtime.getRuntime().availableProcessors() * 4));
+    }
+
+    /**
+     * Creates a scheduler where a job runs tasks on at most half of the threads.
+     * 
+     * @param threadFactory factory creating the threads running the tasks
+     * @param threads maximum number of threads running user tasks
+     */
+    public SharedScheduler(ThreadFactory threadFactory, int threads) {
+        this(threadFactory, threads, Math.max(1, threads / 2));
+    }
+
+    /**
+     * Creates a scheduler.
+     * 
+     * @param threadFactory factory creating the threads running the tasks
+     * @param threads maximum number of threads running user tasks
+     * @param threadsPerJob maximum number of user tasks a job runs at once
+     */
+    public SharedScheduler(ThreadFactory threadFactory, int threads, int threadsPerJob) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads");
+        if (threadsPerJob < 1)
+            throw new IllegalArgumentException("threadsPerJob");
+        this.timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "edgent-scheduler-timer");
+            t.setDaemon(true);
+            return t;
+        });
+        this.timer.setRemoveOnCancelPolicy(true);
+        this.workers = new Pool("edgent-scheduler-", threadFactory, threads);
+        this.controlWorkers = new Pool("edgent-control-", threadFactory, threads);
+        this.threadsPerJob = Math.min(threadsPerJob, threads);
+    }
+
+    /**
+     * Returns the maximum number of threads running user tasks.
+     * @return the maximum number of threads
+     */
+    public int getMaximumPoolSize() {
+        return workers.executor.getMaximumPoolSize();
+    }
+
+    /**
+     * Returns the maximum number of user tasks a job runs at once.
+     * @return the maximum number of tasks
+     */
+    public int getThreadsPerJob() {
+        return threadsPerJob;
+    }
+
+    /**
+     * Returns the number of threads currently running user tasks.
+     * @return the number of threads
+     */
+    public int getActiveCount() {
+        return workers.executor.getActiveCount();
+    }
+
+    /**
+     * Creates a new lane, the queue of the due user tasks of a job.
+     * 
+     * @param name name appended to the threads running the lane's tasks, or {@code null}
+     */
+    Lane newLane(String name) {
+        return new Lane(workers, name, threadsPerJob);
+    }
+
+    /**
+     * Creates a new lane for the control tasks of a job.
+     * 
+     * @param name name appended to the threads running the lane's tasks, or {@code null}
+     */
+    Lane newControlLane(String name) {
+        return new Lane(controlWorkers, name, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Queues a task on its lane once it is due.
+     * 
+     * @return the timer's future while the task is not due, {@code null} otherwise
+     */
+    ScheduledFuture<?> schedule(Lane lane, Runnable task, long delayNanos) {
+        if (delayNanos <= 0) {
+            lane.add(task);
+            return null;
+        }
+        return timer.schedule(() -> lane.add(task), delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stops the threads, the tasks not run yet are dropped.
+     */
+    public void shutdownNow() {
+        timer.shutdownNow();
+        workers.executor.shutdownNow();
+        controlWorkers.executor.shutdownNow();
+    }
+
+    /**
+     * Threads taking the tasks of the ready lanes in turn.
+     */
+    private static final class Pool {
+        private final ThreadPoolExecutor executor;
+        private final ConcurrentLinkedQueue<Lane> readyLanes = new ConcurrentLinkedQueue<>();
+
+        Pool(String prefix, ThreadFactory threadFactory, int threads) {
+            AtomicInteger ids = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), r -> {
+                        Thread t = threadFactory.newThread(r);
+                        t.setName(prefix + ids.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+            this.executor.allowCoreThreadTimeOut(true);
+        }
+
+        void ready(Lane lane) {
+            readyLanes.add(lane);
+            executor.execute(this::pump);
+        }
+
+        /**
+         * Makes the next ready lane run one of its tasks. A pump is
+         * queued each time a lane becomes ready, a lane is ready at most once.
+         */
+        private void pump() {
+            Lane lane = readyLanes.poll();
+            if (lane == null)
+                return;
+            Runnable task;
+            boolean requeue;
+            synchronized (lane) {
+                lane.queued = false;
+                task = lane.tasks.poll();
+                if (task == null)
+                    return;
+                lane.running++;
+                requeue = lane.makeReady();
+            }
+
+            // Requeue the lane behind the other ready lanes.
+            if (requeue && !tryReady(lane))
+                return; // shut down, the tasks are dropped
+
+            Thread thread = Thread.currentThread();
+            String name = thread.getName();
+            try {
+                if (lane.name != null)
+                    thread.setName(name + "-" + lane.name);
+                task.run();
+            } finally {
+                thread.setName(name);
+                synchronized (lane) {
+                    lane.running--;
+                    requeue = lane.makeReady();
+                }
+                if (requeue)
+                    tryReady(lane);
+            }
+        }
+
+        private boolean tryReady(Lane lane) {
+            try {
+                ready(lane);
+                return true;
+            } catch (RejectedExecutionException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * The due tasks of a job.
+     */
+    static final class Lane {
+        private final Pool pool;
+        private final String name;
+        private final int maxRunning;
+        // guarded by this lane
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private int running;
+        private boolean queued;
+
+        Lane(Pool pool, String name, int maxRunning) {
+            this.pool = pool;
+            this.name = name;
+            this.maxRunning = maxRunning;
+        }
+
+        void add(Runnable task) {
+            boolean ready;
+            synchronized (this) {
+                tasks.add(task);
+                ready = makeReady();
+            }
+            if (ready)
+                pool.ready(this);
+        }
+
+        /**
+         * Marks the lane as queued if it has tasks it may run now,
+         * must be called holding the lane's lock.
+         * 
+         * @return {@code true} if the caller must queue the lane
+         */
+        private boolean makeReady() {
+            if (queued || running >= maxRunning || tasks.isEmpty())
+                return false;
+            queued = true;
+            return true;
+        }
+    }
+}
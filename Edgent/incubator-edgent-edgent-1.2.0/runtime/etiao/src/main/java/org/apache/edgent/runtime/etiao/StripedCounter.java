@@ -0,0 +1,58 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.runtime.etiao;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter that spreads concurrent updates over several cells
+ * to avoid contention between threads.
+ * <P>
+ * Each thread updates the cell selected by its thread id; cells are
+ * padded to separate cache lines. {@link #sum()} is not an atomic
+ * snapshot when updates are concurrent.
+ * </P>
+ */
+final class StripedCounter {
+    /** Longs per cache line, used to pad the cells. */
+    private static final int PAD = 8;
+    private static final int STRIPES;
+    static {
+        int n = Math.min(64, Runtime.getRuntime().availableProcessors());
+        STRIPES = Integer.highestOneBit(Math.max(1, n - 1)) << 1;
+    }
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PAD);
+
+    void increment() {
+        add(1L);
+    }
+
+    void add(long x) {
+        int cell = (int) (Thread.currentThread().getId() & (STRIPES - 1)) * PAD;
+        cells.getAndAdd(cell, x);
+    }
+
+    long sum() {
+        long sum = 0;
+        for (int i = 0; i < STRIPES; i++)
+            sum += cells.get(i * PAD);
+        return sum;
+    }
+}
@@ -18,39 +18,66 @@ under the License.
 */
 package org.apache.edgent.runtime.etiao;
 
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Delayed;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.RunnableScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.edgent.function.BiConsumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Extends a {@code ScheduledThreadPoolExecutor} with the ability to track 
- * scheduled tasks and cancel them in case a task completes abruptly due to 
- * an exception.
- * 
+ * A {@code ScheduledExecutorService} for the tasks of a job, with the ability
+ * to track scheduled tasks and cancel them in case a task completes abruptly
+ * due to an exception.
+ * <p>
+ * The tasks run on a {@link SharedScheduler}, which may be shared with
+ * other jobs. Shutting down the executor only affects the tasks of the job.
+ * </p>
  * When all the tasks have completed, due to normal termination, or cancelled
  * due to an exception, the executor invokes a completion handler.
  */
-public final class TrackingScheduledExecutor extends ScheduledThreadPoolExecutor {
+public final class TrackingScheduledExecutor extends AbstractExecutorService 
+        implements ScheduledExecutorService {
     private final BiConsumer<Object, Throwable> completer;
+    private final SharedScheduler scheduler;
+    private final SharedScheduler.Lane lane;
+    // the scheduler belongs to this executor
+    private final boolean ownScheduler;
     private static final Logger logger = LoggerFactory.getLogger(TrackingScheduledExecutor.class);
 
+    /**
+     * Tasks which have been scheduled and not completed, counted by
+     * {@code activeTasks}. Periodic tasks remain until they have been
+     * cancelled or have failed.
+     */
+    private final Set<Task<?>> asyncTasks =
+            Collections.newSetFromMap(new ConcurrentHashMap<Task<?>, Boolean>());
+    private final AtomicInteger activeTasks = new AtomicInteger();
+    private final AtomicInteger completedTasks = new AtomicInteger();
+    private volatile boolean shutdown;
+
     /**
      * Creates an {@code TrackingScheduledExecutor} using the supplied thread 
-     * factory and a completion handler.
+     * factory and a completion handler. The executor runs its tasks on
+     * a scheduler of its own.
      * 
      * @param threadFactory the thread factory to use
      * @param completionHandler handler invoked when all task have completed, 
@@ -59,29 +86,71 @@ public final class TrackingScheduledExecutor extends ScheduledThreadPoolExecutor
      */
     public static TrackingScheduledExecutor newScheduler(
             ThreadFactory threadFactory, BiConsumer<Object, Throwable> completionHandler) {
+        int threads = Runtime.getRuntime().availableProcessors() * 4;
+        SharedScheduler scheduler = new SharedScheduler(
+                threadFactory != null ? threadFactory : Executors.defaultThreadFactory(),
+                threads, threads);
+        return new TrackingScheduledExecutor(scheduler, scheduler.newLane(null), true, completionHandler);
+    }
 
-        TrackingScheduledExecutor stpe = new TrackingScheduledExecutor(
-                Runtime.getRuntime().availableProcessors() * 4, threadFactory, completionHandler);
-        stpe.setKeepAliveTime(1, TimeUnit.SECONDS);
-        stpe.allowCoreThreadTimeOut(true);
-        return stpe;
+    /**
+     * Creates an {@code TrackingScheduledExecutor} running its tasks on
+     * a shared scheduler, using a completion handler.
+     * 
+     * @param scheduler the scheduler running the tasks
+     * @param completionHandler handler invoked when all task have completed, 
+     *      due to normal termination, exception, or cancellation.
+     * @return a new (@code TrackingScheduledExecutor) instance.
+     */
+    public static TrackingScheduledExecutor newScheduler(
+            SharedScheduler scheduler, BiConsumer<Object, Throwable> completionHandler) {
+        return newScheduler(scheduler, null, completionHandler);
     }
 
-    private TrackingScheduledExecutor(int corePoolSize, ThreadFactory tf, 
-            BiConsumer<Object, Throwable> completer) {
-        super(corePoolSize, tf);
+    /**
+     * Creates an {@code TrackingScheduledExecutor} running the user tasks
+     * of a job on a shared scheduler, using a completion handler.
+     * 
+     * @param scheduler the scheduler running the tasks
+     * @param name name appended to the threads running the tasks, or {@code null}
+     * @param completionHandler handler invoked when all task have completed, 
+     *      due to normal termination, exception, or cancellation.
+     * @return a new (@code TrackingScheduledExecutor) instance.
+     */
+    public static TrackingScheduledExecutor newScheduler(SharedScheduler scheduler,
+            String name, BiConsumer<Object, Throwable> completionHandler) {
+        return new TrackingScheduledExecutor(scheduler, scheduler.newLane(name), false, completionHandler);
+    }
+
+    /**
+     * Creates an {@code TrackingScheduledExecutor} running the control tasks
+     * of a job on a shared scheduler, using a completion handler. The control
+     * tasks do not wait for threads running user tasks.
+     * 
+     * @param scheduler the scheduler running the tasks
+     * @param name name appended to the threads running the tasks, or {@code null}
+     * @param completionHandler handler invoked when all task have completed, 
+     *      due to normal termination, exception, or cancellation.
+     * @return a new (@code TrackingScheduledExecutor) instance.
+     */
+    public static TrackingScheduledExecutor newControlScheduler(SharedScheduler scheduler,
+            String name, BiConsumer<Object, Throwable> completionHandler) {
+        return new TrackingScheduledExecutor(scheduler, scheduler.newControlLane(name), false, completionHandler);
+    }
+
+    private TrackingScheduledExecutor(SharedScheduler scheduler, SharedScheduler.Lane lane,
+            boolean ownScheduler, BiConsumer<Object, Throwable> completer) {
+        this.scheduler = scheduler;
+        this.lane = lane;
+        this.ownScheduler = ownScheduler;
         this.completer = completer;
     }
 
     /**
-     * Invoked by the super class after each task execution.
+     * Invoked after each task execution.
      */
-    @Override
-    protected void afterExecute(Runnable r, Throwable t) {
-        super.afterExecute(r, t);
-        if (t == null && r instanceof Future<?>) {
-            t = unwrapFutureThrowable((Future<?>) r);
-        }
+    private void afterExecute(Task<?> task) {
+        Throwable t = unwrapFutureThrowable(task);
         if (t != null) {
             getLogger().error("Thread: " + Thread.currentThread().getName() +
                     ": task terminated with exception : ", t);
@@ -89,100 +158,175 @@ public final class TrackingScheduledExecutor extends ScheduledThreadPoolExecutor
             completer.accept(this, t);
         }
     }
-    
+
+    private void cleanup() {
+        cancelAllAsyncTasks(true);
+    }
+
+    private List<Runnable> cancelAllAsyncTasks(boolean mayInterruptIfRunning) {
+        List<Runnable> notStarted = new ArrayList<>();
+        // weakly consistent iteration, tasks may be added or removed concurrently
+        for (Task<?> task : asyncTasks) {
+            boolean started = task.started;
+            if (task.cancel(mayInterruptIfRunning) && !started)
+                notStarted.add(task);
+        }
+        return notStarted;
+    }
+
+    private <V> Task<V> schedule(Task<V> task) {
+        if (shutdown)
+            throw new RejectedExecutionException("Executor is shutdown");
+        activeTasks.incrementAndGet();
+        asyncTasks.add(task);
+        task.timer = scheduler.schedule(lane, task, task.getDelay(TimeUnit.NANOSECONDS));
+        return task;
+    }
+
+    /**
+     * Stop tracking a task which has completed or has been cancelled, 
+     * and notify the completer if there are no more tasks.
+     */
+    private void removeTrack(Task<?> task) {
+        if (!task.tracked.compareAndSet(true, false))
+            return;
+        asyncTasks.remove(task);
+        completedTasks.incrementAndGet();
+        if (activeTasks.decrementAndGet() == 0) {
+            completer.accept(this, null);
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Determines whether there are tasks which have been scheduled and 
+     * not completed.
+     * 
+     * @return {@code true} is active tasks exist.
+     */
+    public boolean hasActiveTasks() {
+        return activeTasks.get() > 0;
+    }
+
+    /**
+     * Returns the number of tasks which have been scheduled and not completed.
+     * 
+     * @return the number of tasks.
+     */
+    public int getActiveTaskCount() {
+        return activeTasks.get();
+    }
+
     /**
-     * asyncTasks contains all the Future for tasks that have been started 
-     * and not completed. For non-periodic tasks we remove the future from 
-     * asyncTasks once it is completed. Periodic tasks remain in asyncTasks 
-     * until they have been cancelled.
+     * Returns the number of tasks which have completed, including 
+     * cancelled tasks.
+     * 
+     * @return the number of tasks.
      */
-    private final Set<RunnableScheduledFuture<?>> asyncTasks = Collections
-            .synchronizedSet(new HashSet<RunnableScheduledFuture<?>>());
+    public int getCompletedTaskCount() {
+        return completedTasks.get();
+    }
 
     @Override
-    protected <V> RunnableScheduledFuture<V> decorateTask(Runnable runnable,
-            RunnableScheduledFuture<V> task) {
-        return trackTask(task);
+    public void execute(Runnable command) {
+        schedule(command, 0, TimeUnit.NANOSECONDS);
     }
 
     @Override
-    protected <V> RunnableScheduledFuture<V> decorateTask(Callable<V> c,
-            RunnableScheduledFuture<V> task) {
-        return trackTask(task);
+    public Future<?> submit(Runnable task) {
+        return schedule(task, 0, TimeUnit.NANOSECONDS);
     }
 
-    private void cleanup() {
-        cancelAllAsyncTasks(true);
+    @Override
+    public <T> Future<T> submit(Runnable task, T result) {
+        return schedule(Executors.callable(task, result), 0, TimeUnit.NANOSECONDS);
     }
 
-    private int cancelAllAsyncTasks(boolean mayInterruptIfRunning) {
-        int notCanceled = 0;
-        // follow the iterator access pattern doc'd by Collections:synchronizedSet()
-        synchronized (asyncTasks) {
-            // hmm have gotten CMEs here with testMultiTopologyPollWithError.
-            // This seems to follow the required access pattern for synchronized collection iterator.
-            // But obviously something's amiss.  There seem to be only a few other
-            // asyncTasks modifiers:
-            //    trackTask() - add
-            //    hasActiveTasks() - iterates while synchronized and can remove
-            //    removeTrack() - remove
-            // Just to make things iron clad, synch the add and remove too
-            // hmm... got another CME even after mods to the above.
-            //   java.util.ConcurrentModificationException
-            //   at java.util.HashMap$HashIterator.nextNode(HashMap.java:1437)
-            //   at java.util.HashMap$KeyIterator.next(HashMap.java:1461)
-            //   at: for (RunnableScheduledFuture<?> task : asyncTasks)
-//            for (RunnableScheduledFuture<?> task : asyncTasks) {
-//                if (!task.cancel(mayInterruptIfRunning))
-//                    notCanceled++;
-//            }
-            Iterator<RunnableScheduledFuture<?>> i = asyncTasks.iterator();
-            while (i.hasNext()) {
-                RunnableScheduledFuture<?> task = i.next();
-                if (!task.cancel(mayInterruptIfRunning))
-                    notCanceled++;
-            }
+    @Override
+    public <T> Future<T> submit(Callable<T> task) {
+        return schedule(task, 0, TimeUnit.NANOSECONDS);
+    }
 
-            // remove tasks which are done
-            hasActiveTasks();
-        }
-        return notCanceled;
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return schedule(new Task<Void>(Executors.callable(command, (Void) null), triggerTime(delay, unit), 0));
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        return schedule(new Task<V>(callable, triggerTime(delay, unit), 0));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0)
+            throw new IllegalArgumentException();
+        return schedule(new Task<Void>(Executors.callable(command, (Void) null), 
+                triggerTime(initialDelay, unit), unit.toNanos(period)));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        if (delay <= 0)
+            throw new IllegalArgumentException();
+        return schedule(new Task<Void>(Executors.callable(command, (Void) null), 
+                triggerTime(initialDelay, unit), -unit.toNanos(delay)));
+    }
+
+    private static long triggerTime(long delay, TimeUnit unit) {
+        return System.nanoTime() + unit.toNanos(Math.max(delay, 0));
     }
 
     /**
-     * Track an executed task so that we can determine through the complete
-     * method when all background activity is complete.
+     * Rejects new tasks and cancels the periodic tasks, the other
+     * scheduled tasks are still executed.
      */
-    private <V> RunnableScheduledFuture<V> trackTask(RunnableScheduledFuture<V> task) {
-        task = new TrackedFuture<V>(task);
-        synchronized(asyncTasks) { asyncTasks.add(task); } // see cancelAllAsyncTasks
-        return task;
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        for (Task<?> task : asyncTasks) {
+            if (task.isPeriodic())
+                task.cancel(false);
+        }
     }
 
     /**
-     * Determines whether there are tasks which have started and not completed.
-     * 
-     * As a side effect, this method removes all tasks which are done but are
-     * still in the tracking list.
+     * Rejects new tasks and cancels the scheduled tasks, interrupting
+     * the running ones.
      * 
-     * @return {@code true} is active tasks exist.
+     * @return the tasks which never started
      */
-    public boolean hasActiveTasks() {
-        boolean doesHaveTasks = false; 
-        synchronized (asyncTasks) {
-            if (asyncTasks.isEmpty())
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        List<Runnable> notStarted = cancelAllAsyncTasks(true);
+        if (ownScheduler)
+            scheduler.shutdownNow();
+        return notStarted;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && !hasActiveTasks();
+    }
+
+    @Override
+    public synchronized boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!isTerminated()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0)
                 return false;
-            
-            Iterator<RunnableScheduledFuture<?>> i = asyncTasks.iterator();
-            while (i.hasNext()) {
-                RunnableScheduledFuture<?> task = i.next();
-                if (task.isDone())
-                     i.remove();
-                else
-                    doesHaveTasks = true;
-            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
         }
-        return doesHaveTasks;
+        return true;
     }
 
     /**
@@ -207,88 +351,70 @@ public final class TrackingScheduledExecutor extends ScheduledThreadPoolExecutor
     }
 
     /**
-     * Track a non-periodic future so that we are aware of all background
-     * activity. Simply wrap the RunnableScheduledFuture that our executor
-     * returns ensuring that the future is removed from the list of tracked
-     * tasks once it is complete.
+     * A tracked task. A periodic task is scheduled again after each
+     * successful execution.
      */
-    final class TrackedFuture<V> implements RunnableScheduledFuture<V> {
-
-        private final RunnableScheduledFuture<V> realTask;
-
-        TrackedFuture(RunnableScheduledFuture<V> realTask) {
-            this.realTask = realTask;
+    final class Task<V> extends FutureTask<V> implements RunnableScheduledFuture<V> {
+        // nanoTime of the next execution
+        private volatile long time;
+        // 0 for a one-shot task, > 0 for a fixed rate, < 0 for a fixed delay
+        private final long period;
+        private final AtomicBoolean tracked = new AtomicBoolean(true);
+        private volatile boolean started;
+        private volatile ScheduledFuture<?> timer;
+
+        Task(Callable<V> callable, long time, long period) {
+            super(callable);
+            this.time = time;
+            this.period = period;
         }
 
         @Override
         public void run() {
-            try {
-                realTask.run();
-            } finally {
-                if (!isPeriodic())
-                    removeTrack();
+            started = true;
+            if (!isPeriodic()) {
+                super.run();
             }
-        }
-
-        /**
-         * Remove tracking of the task and notify the completer if
-         * the scheduler seems to have no work.
-         */
-        private void removeTrack() {
-            synchronized(asyncTasks) { asyncTasks.remove(this); } // see cancelAllAsyncTasks
-
-            // Notify the completer if the following is true:
-            // no asyncTasks (user tasks) pending, or the executor's task 
-            // queue is empty and the number of active threads includes 
-            // only the current one.
-            if (asyncTasks.isEmpty() ||
-                    (getActiveCount() <= 1 && getQueue().isEmpty())) {
-                completer.accept(TrackingScheduledExecutor.this, null);
+            else if (runAndReset()) {
+                time = period > 0 ? time + period : System.nanoTime() - period;
+                try {
+                    timer = scheduler.schedule(lane, this, getDelay(TimeUnit.NANOSECONDS));
+                } catch (RejectedExecutionException e) {
+                    cancel(false);
+                }
+                return;
             }
+            afterExecute(this);
+            removeTrack(this);
         }
 
         @Override
         public boolean cancel(boolean mayInterruptIfRunning) {
-            boolean wasCancelled = realTask.cancel(mayInterruptIfRunning);
-            if (wasCancelled)
-                removeTrack();
+            boolean wasCancelled = super.cancel(mayInterruptIfRunning);
+            if (wasCancelled) {
+                ScheduledFuture<?> t = timer;
+                if (t != null)
+                    t.cancel(false);
+                removeTrack(this);
+            }
             return wasCancelled;
         }
 
-        @Override
-        public boolean isCancelled() {
-            return realTask.isCancelled();
-        }
-
-        @Override
-        public boolean isDone() {
-            return realTask.isDone();
-        }
-
-        @Override
-        public V get() throws InterruptedException, ExecutionException {
-            return realTask.get();
-        }
-
-        @Override
-        public V get(long timeout, TimeUnit unit) throws InterruptedException,
-                ExecutionException, TimeoutException {
-            return realTask.get(timeout, unit);
-        }
-
         @Override
         public long getDelay(TimeUnit unit) {
-            return realTask.getDelay(unit);
+            return unit.convert(time - System.nanoTime(), TimeUnit.NANOSECONDS);
         }
 
         @Override
         public int compareTo(Delayed o) {
-            return realTask.compareTo(o);
+            if (o == this)
+                return 0;
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), o.getDelay(TimeUnit.NANOSECONDS));
         }
 
         @Override
         public boolean isPeriodic() {
-            return realTask.isPeriodic();
+            return period != 0;
         }
     }
 }
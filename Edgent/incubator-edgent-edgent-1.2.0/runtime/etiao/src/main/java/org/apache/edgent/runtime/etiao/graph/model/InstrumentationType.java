@@ -0,0 +1,87 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.runtime.etiao.graph.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.edgent.oplet.Oplet;
+import org.apache.edgent.runtime.etiao.Executable;
+import org.apache.edgent.runtime.etiao.Invocation;
+
+/**
+ * Point in time view of the instrumentation of an {@link Executable}'s
+ * invocations.
+ * <p>
+ * Oplet identifiers match the vertex identifiers of the
+ * corresponding {@link GraphType}.
+ */
+public class InstrumentationType {
+
+    /**
+     * Time the snapshot was taken, in milliseconds since the epoch.
+     */
+    private final long timestamp;
+
+    /**
+     * Whether tuple counts and processing times were collected.
+     */
+    private final boolean instrumented;
+
+    /**
+     * Metrics of each oplet.
+     */
+    private final List<OpletMetricsType> oplets;
+
+    /**
+     * Create an instance of {@link InstrumentationType}.
+     * @param executable the instrumented executable
+     */
+    public InstrumentationType(Executable executable) {
+        this.timestamp = System.currentTimeMillis();
+        this.instrumented = executable.isInstrumented();
+        List<Invocation<? extends Oplet<?, ?>, ?, ?>> invocations = executable.getInvocations();
+        ArrayList<OpletMetricsType> oplets = new ArrayList<OpletMetricsType>(invocations.size());
+        for (Invocation<? extends Oplet<?, ?>, ?, ?> invocation : invocations) {
+            oplets.add(new OpletMetricsType(invocation));
+        }
+        this.oplets = oplets;
+    }
+
+    /**
+     * Default constructor of {@link InstrumentationType}.
+     */
+    public InstrumentationType() {
+        this.timestamp = 0;
+        this.instrumented = false;
+        this.oplets = null;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public boolean isInstrumented() {
+        return instrumented;
+    }
+
+    public List<OpletMetricsType> getOplets() {
+        return oplets;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.runtime.etiao.graph.model;
+
+import org.apache.edgent.runtime.etiao.Invocation;
+import org.apache.edgent.runtime.etiao.InvocationMetrics;
+
+/**
+ * Instrumentation of a single oplet invocation.
+ * <p>
+ * Tuple counts and processing time are {@code null} when the
+ * invocation is not instrumented. Queue depths are only present
+ * for oplets which queue their input tuples.
+ */
+public class OpletMetricsType {
+
+    /**
+     * Invocation identifier.
+     */
+    private final String id;
+
+    /**
+     * Kind of the invoked oplet.
+     */
+    private final String kind;
+
+    private final Long tuplesIn;
+    private final Long tuplesOut;
+    private final Long processingNanos;
+
+    /**
+     * Number of tuples queued on each input port.
+     */
+    private final int[] queueDepth;
+
+    public OpletMetricsType(Invocation<?, ?, ?> invocation) {
+        this.id = invocation.getId();
+        this.kind = invocation.getOplet().getClass().getName();
+
+        InvocationMetrics metrics = invocation.getMetrics();
+        this.tuplesIn = metrics == null ? null : metrics.getTuplesIn();
+        this.tuplesOut = metrics == null ? null : metrics.getTuplesOut();
+        this.processingNanos = metrics == null ? null : metrics.getProcessingNanos();
+
+        int ports = invocation.getInputs().size();
+        int[] depths = null;
+        if (ports != 0 && invocation.getQueueDepth(0) >= 0) {
+            depths = new int[ports];
+            for (int i = 0; i < ports; i++)
+                depths[i] = invocation.getQueueDepth(i);
+        }
+        this.queueDepth = depths;
+    }
+
+    public OpletMetricsType() {
+        this.id = null;
+        this.kind = null;
+        this.tuplesIn = null;
+        this.tuplesOut = null;
+        this.processingNanos = null;
+        this.queueDepth = null;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getClassName() {
+        return kind;
+    }
+
+    public Long getTuplesIn() {
+        return tuplesIn;
+    }
+
+    public Long getTuplesOut() {
+        return tuplesOut;
+    }
+
+    public Long getProcessingNanos() {
+        return processingNanos;
+    }
+
+    public int[] getQueueDepth() {
+        return queueDepth;
+    }
+}
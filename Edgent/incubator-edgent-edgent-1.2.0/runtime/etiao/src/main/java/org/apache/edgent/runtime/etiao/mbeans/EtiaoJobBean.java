@@ -31,6 +31,7 @@ import org.apache.edgent.execution.services.ControlService;
 import org.apache.edgent.execution.services.Controls;
 import org.apache.edgent.runtime.etiao.EtiaoJob;
 import org.apache.edgent.runtime.etiao.graph.model.GraphType;
+import org.apache.edgent.runtime.etiao.graph.model.InstrumentationType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -99,6 +100,12 @@ public class EtiaoJobBean implements JobMXBean {
         return gson.toJson(new GraphType(job.graph()));
     }
 
+    @Override
+    public String instrumentationSnapshot() {
+        Gson gson = new GsonBuilder().create();
+        return gson.toJson(new InstrumentationType(job.graph().executable()));
+    }
+
     @Override
     public Job.Health getHealth() {
         return job.getHealth();
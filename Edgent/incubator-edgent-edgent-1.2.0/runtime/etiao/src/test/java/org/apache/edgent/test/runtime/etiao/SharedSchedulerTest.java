@@ -0,0 +1,217 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.test.runtime.etiao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.edgent.function.BiConsumer;
+import org.apache.edgent.runtime.etiao.SharedScheduler;
+import org.apache.edgent.runtime.etiao.TrackingScheduledExecutor;
+import org.junit.After;
+import org.junit.Test;
+
+public class SharedSchedulerTest {
+
+    private final SharedScheduler scheduler = new SharedScheduler(Executors.defaultThreadFactory(), 1);
+
+    @After
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * A job with many due tasks does not hold back the tasks of another job.
+     */
+    @Test
+    public void testFairness() throws Exception {
+        TrackingScheduledExecutor a = TrackingScheduledExecutor.newScheduler(scheduler, noop());
+        TrackingScheduledExecutor b = TrackingScheduledExecutor.newScheduler(scheduler, noop());
+        List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+        // Hold the only thread while the tasks are queued.
+        CountDownLatch hold = new CountDownLatch(1);
+        a.execute(() -> {
+            try {
+                hold.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        for (int i = 0; i < 50; i++)
+            a.execute(() -> order.add("a"));
+        CountDownLatch done = new CountDownLatch(1);
+        b.execute(() -> {
+            order.add("b");
+            done.countDown();
+        });
+        hold.countDown();
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertTrue(order.toString(), order.indexOf("b") <= 1);
+    }
+
+    /**
+     * Shutting down a job only cancels its own tasks.
+     */
+    @Test
+    public void testCancelIsolation() throws Exception {
+        AtomicInteger completed = new AtomicInteger();
+        BiConsumer<Object, Throwable> completer = (source, t) -> {
+            if (t == null)
+                completed.incrementAndGet();
+        };
+        TrackingScheduledExecutor a = TrackingScheduledExecutor.newScheduler(scheduler, completer);
+        TrackingScheduledExecutor b = TrackingScheduledExecutor.newScheduler(scheduler, noop());
+        AtomicInteger aRuns = new AtomicInteger();
+        AtomicInteger bRuns = new AtomicInteger();
+        a.scheduleAtFixedRate(() -> aRuns.incrementAndGet(), 0, 5, TimeUnit.MILLISECONDS);
+        a.schedule(() -> aRuns.incrementAndGet(), 1, TimeUnit.HOURS);
+        ScheduledFuture<?> bf = b.scheduleWithFixedDelay(() -> bRuns.incrementAndGet(), 0, 5, TimeUnit.MILLISECONDS);
+        assertEquals(2, a.getActiveTaskCount());
+
+        Thread.sleep(100);
+        assertEquals(1, a.shutdownNow().size());
+        assertTrue(a.awaitTermination(1, TimeUnit.SECONDS));
+        assertEquals(0, a.getActiveTaskCount());
+        assertEquals(2, a.getCompletedTaskCount());
+        assertEquals(1, completed.get());
+
+        int aCount = aRuns.get();
+        int bCount = bRuns.get();
+        Thread.sleep(100);
+        assertEquals(aCount, aRuns.get());
+        assertTrue(bRuns.get() > bCount);
+        assertFalse(b.isShutdown());
+        assertTrue(b.hasActiveTasks());
+
+        bf.cancel(false);
+        assertFalse(b.hasActiveTasks());
+    }
+
+    /**
+     * A failing task cancels the other tasks of its job, and the
+     * completion handler is passed the exception.
+     */
+    @Test
+    public void testFailure() throws Exception {
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        TrackingScheduledExecutor a = TrackingScheduledExecutor.newScheduler(scheduler, (source, t) -> {
+            if (t != null)
+                error.set(t);
+        });
+        TrackingScheduledExecutor b = TrackingScheduledExecutor.newScheduler(scheduler, noop());
+        ScheduledFuture<?> other = a.schedule(() -> { }, 1, TimeUnit.HOURS);
+        ScheduledFuture<?> bf = b.schedule(() -> "b", 50, TimeUnit.MILLISECONDS);
+
+        RuntimeException failure = new RuntimeException("task failure");
+        a.execute(() -> { throw failure; });
+
+        assertTrue(waitIdle(a));
+        assertSame(failure, error.get());
+        assertTrue(other.isCancelled());
+        assertEquals("b", bf.get(10, TimeUnit.SECONDS));
+        assertNull(b.submit(() -> { }).get(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Blocked user tasks neither hold back the control tasks, nor
+     * take more than a job's share of the threads.
+     */
+    @Test
+    public void testBlockedJob() throws Exception {
+        SharedScheduler shared = new SharedScheduler(Executors.defaultThreadFactory(), 4, 2);
+        try {
+            TrackingScheduledExecutor a = TrackingScheduledExecutor.newScheduler(shared, "a", noop());
+            TrackingScheduledExecutor control = TrackingScheduledExecutor.newControlScheduler(shared, "a", noop());
+            TrackingScheduledExecutor b = TrackingScheduledExecutor.newScheduler(shared, "b", noop());
+            CountDownLatch hold = new CountDownLatch(1);
+            AtomicInteger blocked = new AtomicInteger();
+            for (int i = 0; i < 4; i++) {
+                a.execute(() -> {
+                    blocked.incrementAndGet();
+                    try {
+                        hold.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+
+            // Job a holds its share of the threads.
+            for (int i = 0; i < 1000 && blocked.get() < 2; i++)
+                Thread.sleep(10);
+            assertEquals(2, blocked.get());
+
+            assertEquals("b", b.submit(() -> "b").get(10, TimeUnit.SECONDS));
+            assertEquals("control", control.submit(() -> "control").get(10, TimeUnit.SECONDS));
+            // The other tasks of job a still wait for its threads.
+            Thread.sleep(100);
+            assertEquals(2, blocked.get());
+            assertEquals(2, shared.getThreadsPerJob());
+
+            hold.countDown();
+            assertTrue(waitIdle(a));
+            assertEquals(4, blocked.get());
+        } finally {
+            shared.shutdownNow();
+        }
+    }
+
+    /**
+     * The threads are daemon threads, named after the job running a task.
+     */
+    @Test
+    public void testThreads() throws Exception {
+        TrackingScheduledExecutor a = TrackingScheduledExecutor.newScheduler(scheduler, "jobA", noop());
+        TrackingScheduledExecutor control = TrackingScheduledExecutor.newControlScheduler(scheduler, "jobA", noop());
+        Thread user = a.submit(() -> Thread.currentThread()).get(10, TimeUnit.SECONDS);
+        String name = a.submit(() -> Thread.currentThread().getName()).get(10, TimeUnit.SECONDS);
+        String controlName = control.submit(() -> Thread.currentThread().getName()).get(10, TimeUnit.SECONDS);
+
+        assertTrue(user.isDaemon());
+        assertTrue(name, name.startsWith("edgent-scheduler-") && name.endsWith("-jobA"));
+        assertTrue(controlName, controlName.startsWith("edgent-control-") && controlName.endsWith("-jobA"));
+        assertFalse(user.getName(), user.getName().endsWith("-jobA"));
+    }
+
+    private static boolean waitIdle(TrackingScheduledExecutor executor) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (executor.hasActiveTasks() && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        return !executor.hasActiveTasks();
+    }
+
+    private static BiConsumer<Object, Throwable> noop() {
+        return (source, t) -> { };
+    }
+}
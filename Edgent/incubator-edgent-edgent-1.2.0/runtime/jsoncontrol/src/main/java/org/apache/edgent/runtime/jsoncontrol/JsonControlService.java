@@ -34,6 +34,8 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 import com.google.gson.JsonPrimitive;
 
 /**
@@ -139,9 +141,12 @@ public class JsonControlService implements ControlService {
 
     /**
      * Handle a control operation.
-     * An operation maps to a {@code void} method.
+     * An operation maps to a {@code void} method, or to a method returning
+     * a value such as {@code JobMXBean.instrumentationSnapshot()}.
      * @param request Request to be executed.
-     * @return JSON boolean true if the request was executed, false if it was not.
+     * @return JSON boolean true if a {@code void} request was executed, 
+     *      the operation's result if it returns a value,
+     *      false if it was not executed.
      * @throws Exception Exception executing the control instruction. 
      */
     private JsonElement controlOperation(JsonObject request) throws Exception {
@@ -182,11 +187,42 @@ public class JsonControlService implements ControlService {
 
         logger.trace("Execute operation - control id: {} method: {}", controlId, methodName);
         
-        executeMethod(method, mbean.getControl(), getArguments(method, args));
+        Object result = executeMethod(method, mbean.getControl(), getArguments(method, args));
         
         logger.trace("Execute completed - control id: {} method: {}", controlId, methodName);
 
-        return new JsonPrimitive(Boolean.TRUE);
+        if (method.getReturnType() == Void.TYPE)
+            return new JsonPrimitive(Boolean.TRUE);
+        return toJson(result);
+    }
+
+    /**
+     * Convert an operation's result to JSON.
+     * String results that are JSON documents (e.g. snapshots) are
+     * returned parsed, other strings as JSON strings.
+     */
+    private JsonElement toJson(Object result) {
+        if (result == null)
+            return JsonNull.INSTANCE;
+        if (result instanceof String) {
+            String value = (String) result;
+            String trimmed = value.trim();
+            if (trimmed.startsWith("{") || trimmed.startsWith("[")) {
+                try {
+                    return new JsonParser().parse(value);
+                } catch (JsonParseException e) {
+                    // not a JSON document
+                }
+            }
+            return new JsonPrimitive(value);
+        }
+        if (result instanceof Number)
+            return new JsonPrimitive((Number) result);
+        if (result instanceof Boolean)
+            return new JsonPrimitive((Boolean) result);
+        if (result instanceof Enum)
+            return new JsonPrimitive(((Enum<?>) result).name());
+        return gson.toJsonTree(result);
     }
 
     private Method findMethod(Class<?> controlInterface, String name, int argumentCount) {
@@ -241,9 +277,9 @@ public class JsonControlService implements ControlService {
         return oargs;
     }
 
-    private void executeMethod(Method method, Object control, Object[] arguments)
+    private Object executeMethod(Method method, Object control, Object[] arguments)
             throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
-        method.invoke(control, arguments);
+        return method.invoke(control, arguments);
     }
 
     @Override
@@ -34,6 +34,12 @@ under the License.
  * The MBean must be uniquely identified through
  * its <em>type</em> and <em>alias</em> and previously registered using 
  * {@link org.apache.edgent.execution.services.ControlService#registerControl(String, String, String, Class, Object) registerControl()}.
+ * <P>
+ * The response is JSON {@code true} when a void operation was executed. 
+ * Operations returning a value respond with that value, e.g. invoking
+ * {@code op=instrumentationSnapshot} on a {@code type=job} MBean responds
+ * with the job's instrumentation snapshot as a JSON object.
+ * </P>
  */
 
 package org.apache.edgent.runtime.jsoncontrol;
\ No newline at end of file
@@ -0,0 +1,138 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.topology.spi.graph;
+
+import java.util.Set;
+
+import org.apache.edgent.function.DoubleConsumer;
+import org.apache.edgent.function.DoubleFunction;
+import org.apache.edgent.function.DoublePredicate;
+import org.apache.edgent.function.DoubleToLongFunction;
+import org.apache.edgent.function.DoubleUnaryOperator;
+import org.apache.edgent.function.ToDoubleFunction;
+import org.apache.edgent.graph.Connector;
+import org.apache.edgent.graph.Vertex;
+import org.apache.edgent.oplet.core.Pipe;
+import org.apache.edgent.oplet.functional.DoubleFilter;
+import org.apache.edgent.oplet.functional.DoubleMap;
+import org.apache.edgent.oplet.functional.DoubleMapToLong;
+import org.apache.edgent.oplet.functional.DoubleMapToObj;
+import org.apache.edgent.oplet.functional.DoublePeek;
+import org.apache.edgent.oplet.functional.DoubleSink;
+import org.apache.edgent.oplet.functional.DoubleWindow;
+import org.apache.edgent.topology.TLongStream;
+import org.apache.edgent.topology.TDoubleStream;
+import org.apache.edgent.topology.TSink;
+import org.apache.edgent.topology.TStream;
+import org.apache.edgent.topology.Topology;
+
+/**
+ * A {@code double} stream that directly adds oplets to the graph.
+ *
+ * @param <G> topology type
+ */
+class ConnectorDoubleStream<G extends Topology> implements TDoubleStream {
+
+    private final G topology;
+    private final Connector<Double> connector;
+
+    ConnectorDoubleStream(G topology, Connector<Double> connector) {
+        this.topology = topology;
+        this.connector = connector;
+    }
+
+    @Override
+    public G topology() {
+        return topology;
+    }
+
+    private <N extends Pipe<Double, Double>> TDoubleStream connectPipe(N pipeOp) {
+        return new ConnectorDoubleStream<G>(topology, connector.graph().pipe(connector, pipeOp));
+    }
+
+    @Override
+    public TDoubleStream filter(DoublePredicate predicate) {
+        return connectPipe(new DoubleFilter(predicate));
+    }
+
+    @Override
+    public TDoubleStream map(DoubleUnaryOperator mapper) {
+        return connectPipe(new DoubleMap(mapper));
+    }
+
+    @Override
+    public TLongStream mapToLong(DoubleToLongFunction mapper) {
+        return new ConnectorLongStream<G>(topology, connector.graph().pipe(connector, new DoubleMapToLong(mapper)));
+    }
+
+    @Override
+    public <U> TStream<U> mapToObj(DoubleFunction<U> mapper) {
+        return new ConnectorStream<G, U>(topology, connector.graph().pipe(connector, new DoubleMapToObj<U>(mapper)));
+    }
+
+    @Override
+    public TStream<Double> boxed() {
+        return new ConnectorStream<G, Double>(topology, connector);
+    }
+
+    @Override
+    public TDoubleStream peek(DoubleConsumer peeker) {
+        connector.peek(new DoublePeek(peeker));
+        return this;
+    }
+
+    @Override
+    public TSink<Double> sink(DoubleConsumer sinker) {
+        Vertex<DoubleSink, Double, Void> sinkVertex = connector.graph().insert(new DoubleSink(sinker), 1, 0);
+        connector.connect(sinkVertex, 0);
+        return new ConnectorSink<G, Double>(new ConnectorStream<G, Double>(topology, connector));
+    }
+
+    @Override
+    public TDoubleStream last(int count, ToDoubleFunction<double[]> aggregator) {
+        return connectPipe(new DoubleWindow(count, false, aggregator));
+    }
+
+    @Override
+    public TDoubleStream batch(int count, ToDoubleFunction<double[]> aggregator) {
+        return connectPipe(new DoubleWindow(count, true, aggregator));
+    }
+
+    @Override
+    public TDoubleStream tag(String... values) {
+        connector.tag(values);
+        return this;
+    }
+
+    @Override
+    public Set<String> getTags() {
+        return connector.getTags();
+    }
+
+    @Override
+    public TDoubleStream alias(String alias) {
+        connector.alias(alias);
+        return this;
+    }
+
+    @Override
+    public String getAlias() {
+        return connector.getAlias();
+    }
+}
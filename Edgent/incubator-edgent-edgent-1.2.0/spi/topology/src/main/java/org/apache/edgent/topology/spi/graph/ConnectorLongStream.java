@@ -0,0 +1,138 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.topology.spi.graph;
+
+import java.util.Set;
+
+import org.apache.edgent.function.LongConsumer;
+import org.apache.edgent.function.LongFunction;
+import org.apache.edgent.function.LongPredicate;
+import org.apache.edgent.function.LongToDoubleFunction;
+import org.apache.edgent.function.LongUnaryOperator;
+import org.apache.edgent.function.ToLongFunction;
+import org.apache.edgent.graph.Connector;
+import org.apache.edgent.graph.Vertex;
+import org.apache.edgent.oplet.core.Pipe;
+import org.apache.edgent.oplet.functional.LongFilter;
+import org.apache.edgent.oplet.functional.LongMap;
+import org.apache.edgent.oplet.functional.LongMapToDouble;
+import org.apache.edgent.oplet.functional.LongMapToObj;
+import org.apache.edgent.oplet.functional.LongPeek;
+import org.apache.edgent.oplet.functional.LongSink;
+import org.apache.edgent.oplet.functional.LongWindow;
+import org.apache.edgent.topology.TDoubleStream;
+import org.apache.edgent.topology.TLongStream;
+import org.apache.edgent.topology.TSink;
+import org.apache.edgent.topology.TStream;
+import org.apache.edgent.topology.Topology;
+
+/**
+ * A {@code long} stream that directly adds oplets to the graph.
+ *
+ * @param <G> topology type
+ */
+class ConnectorLongStream<G extends Topology> implements TLongStream {
+
+    private final G topology;
+    private final Connector<Long> connector;
+
+    ConnectorLongStream(G topology, Connector<Long> connector) {
+        this.topology = topology;
+        this.connector = connector;
+    }
+
+    @Override
+    public G topology() {
+        return topology;
+    }
+
+    private <N extends Pipe<Long, Long>> TLongStream connectPipe(N pipeOp) {
+        return new ConnectorLongStream<G>(topology, connector.graph().pipe(connector, pipeOp));
+    }
+
+    @Override
+    public TLongStream filter(LongPredicate predicate) {
+        return connectPipe(new LongFilter(predicate));
+    }
+
+    @Override
+    public TLongStream map(LongUnaryOperator mapper) {
+        return connectPipe(new LongMap(mapper));
+    }
+
+    @Override
+    public TDoubleStream mapToDouble(LongToDoubleFunction mapper) {
+        return new ConnectorDoubleStream<G>(topology, connector.graph().pipe(connector, new LongMapToDouble(mapper)));
+    }
+
+    @Override
+    public <U> TStream<U> mapToObj(LongFunction<U> mapper) {
+        return new ConnectorStream<G, U>(topology, connector.graph().pipe(connector, new LongMapToObj<U>(mapper)));
+    }
+
+    @Override
+    public TStream<Long> boxed() {
+        return new ConnectorStream<G, Long>(topology, connector);
+    }
+
+    @Override
+    public TLongStream peek(LongConsumer peeker) {
+        connector.peek(new LongPeek(peeker));
+        return this;
+    }
+
+    @Override
+    public TSink<Long> sink(LongConsumer sinker) {
+        Vertex<LongSink, Long, Void> sinkVertex = connector.graph().insert(new LongSink(sinker), 1, 0);
+        connector.connect(sinkVertex, 0);
+        return new ConnectorSink<G, Long>(new ConnectorStream<G, Long>(topology, connector));
+    }
+
+    @Override
+    public TLongStream last(int count, ToLongFunction<long[]> aggregator) {
+        return connectPipe(new LongWindow(count, false, aggregator));
+    }
+
+    @Override
+    public TLongStream batch(int count, ToLongFunction<long[]> aggregator) {
+        return connectPipe(new LongWindow(count, true, aggregator));
+    }
+
+    @Override
+    public TLongStream tag(String... values) {
+        connector.tag(values);
+        return this;
+    }
+
+    @Override
+    public Set<String> getTags() {
+        return connector.getTags();
+    }
+
+    @Override
+    public TLongStream alias(String alias) {
+        connector.alias(alias);
+        return this;
+    }
+
+    @Override
+    public String getAlias() {
+        return connector.getAlias();
+    }
+}
@@ -29,6 +29,7 @@ import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -37,7 +38,9 @@ import org.apache.edgent.function.Consumer;
 import org.apache.edgent.function.Function;
 import org.apache.edgent.function.Functions;
 import org.apache.edgent.function.Predicate;
+import org.apache.edgent.function.ToDoubleFunction;
 import org.apache.edgent.function.ToIntFunction;
+import org.apache.edgent.function.ToLongFunction;
 import org.apache.edgent.graph.Connector;
 import org.apache.edgent.graph.Graph;
 import org.apache.edgent.graph.Vertex;
@@ -50,8 +53,13 @@ import org.apache.edgent.oplet.core.Union;
 import org.apache.edgent.oplet.functional.Filter;
 import org.apache.edgent.oplet.functional.FlatMap;
 import org.apache.edgent.oplet.functional.Map;
+import org.apache.edgent.oplet.functional.MapToDouble;
+import org.apache.edgent.oplet.functional.MapToLong;
 import org.apache.edgent.oplet.functional.Peek;
 import org.apache.edgent.oplet.window.Aggregate;
+import org.apache.edgent.oplet.window.WindowJoin;
+import org.apache.edgent.topology.TDoubleStream;
+import org.apache.edgent.topology.TLongStream;
 import org.apache.edgent.topology.TSink;
 import org.apache.edgent.topology.TStream;
 import org.apache.edgent.topology.TWindow;
@@ -105,6 +113,16 @@ public class ConnectorStream<G extends Topology, T> extends AbstractTStream<G, T
         return connectPipe(new FlatMap<T, U>(mapper));
     }
 
+    @Override
+    public TDoubleStream mapToDouble(ToDoubleFunction<T> mapper) {
+        return new ConnectorDoubleStream<G>(topology(), graph().pipe(connector, new MapToDouble<T>(mapper)));
+    }
+
+    @Override
+    public TLongStream mapToLong(ToLongFunction<T> mapper) {
+        return new ConnectorLongStream<G>(topology(), graph().pipe(connector, new MapToLong<T>(mapper)));
+    }
+
     @Override
     public List<TStream<T>> split(int n, ToIntFunction<T> splitter) {
         if (n <= 0)
@@ -262,7 +280,11 @@ public class ConnectorStream<G extends Topology, T> extends AbstractTStream<G, T
         Aggregate<U,Object,K> op = new Aggregate<U,Object,K>(window, processor);
         lastStream.pipe(op);
         return this.map((tuple) -> {
-            Partition<U, K, ? extends List<U>> part = window.getPartitions().get(keyer.apply(tuple));
+            java.util.Map<K, ?> partitions = window.getPartitions();
+            Partition<U, K, ? extends List<U>> part;
+            synchronized(partitions){
+                part = window.getPartitions().get(keyer.apply(tuple));
+            }
             if(part == null)
                 return null;
             J ret;
@@ -274,6 +296,36 @@ public class ConnectorStream<G extends Topology, T> extends AbstractTStream<G, T
         });
     }
     
+    @Override
+    public <J, U, K> TStream<J> join(Function<T, K> keyer, TStream<U> other, Function<U, K> otherKeyer,
+            long time, TimeUnit unit, BiFunction<T, U, J> joiner) {
+        return join(new WindowJoin<T, U, K, J>(keyer, otherKeyer, time, unit, joiner), other);
+    }
+
+    @Override
+    public <J, U, K> TStream<J> join(Function<T, K> keyer, ToLongFunction<T> ranger,
+            TStream<U> other, Function<U, K> otherKeyer, ToLongFunction<U> otherRanger, long band,
+            long time, TimeUnit unit, BiFunction<T, U, J> joiner) {
+        Objects.requireNonNull(ranger, "ranger");
+        Objects.requireNonNull(otherRanger, "otherRanger");
+        return join(new WindowJoin<T, U, K, J>(keyer, ranger, otherKeyer, otherRanger, band,
+                time, unit, joiner), other);
+    }
+
+    /**
+     * Connects this stream to input port 0 of the join and
+     * {@code other} to input port 1.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private <J, U> TStream<J> join(WindowJoin<T, U, ?, J> join, TStream<U> other) {
+        if (other == this || topology() != other.topology())
+            throw new IllegalArgumentException("other");
+        Vertex<Oplet<Object, J>, Object, J> joinVertex = graph().insert(join, 2, 1);
+        ((Connector) connector).connect(joinVertex, 0);
+        ((Connector) ((ConnectorStream<G, U>) other).connector).connect(joinVertex, 1);
+        return derived(joinVertex.getConnectors().get(0));
+    }
+
     @Override
     public TStream<T> union(Set<TStream<T>> others) {
         if (others.isEmpty())
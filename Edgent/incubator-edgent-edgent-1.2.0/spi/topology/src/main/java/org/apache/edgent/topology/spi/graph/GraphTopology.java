@@ -20,14 +20,22 @@ package org.apache.edgent.topology.spi.graph;
 
 import java.util.concurrent.TimeUnit;
 
+import org.apache.edgent.function.BiFunction;
 import org.apache.edgent.function.Consumer;
+import org.apache.edgent.function.DoubleSupplier;
 import org.apache.edgent.function.Functions;
+import org.apache.edgent.function.LongSupplier;
 import org.apache.edgent.function.Supplier;
 import org.apache.edgent.graph.Graph;
 import org.apache.edgent.oplet.core.Source;
+import org.apache.edgent.oplet.functional.DoubleSupplierPeriodicSource;
 import org.apache.edgent.oplet.functional.Events;
+import org.apache.edgent.oplet.functional.LongSupplierPeriodicSource;
+import org.apache.edgent.oplet.functional.SupplierBatchPeriodicSource;
 import org.apache.edgent.oplet.functional.SupplierPeriodicSource;
 import org.apache.edgent.oplet.functional.SupplierSource;
+import org.apache.edgent.topology.TDoubleStream;
+import org.apache.edgent.topology.TLongStream;
 import org.apache.edgent.topology.TStream;
 import org.apache.edgent.topology.plumbing.PlumbingStreams;
 import org.apache.edgent.topology.spi.AbstractTopology;
@@ -61,9 +69,34 @@ public abstract class GraphTopology<X extends Tester> extends AbstractTopology<X
         return sourceStream(new SupplierPeriodicSource<>(period, unit, data));
     }
 
+    @Override
+    public <T, R> TStream<R> pollBatch(Supplier<T[]> data, BiFunction<T, Long, R> stamp, long period, TimeUnit unit) {
+        data = Functions.synchronizedSupplier(data);
+        return sourceStream(new SupplierBatchPeriodicSource<>(period, unit, data, stamp));
+    }
+
+    @Override
+    public TDoubleStream pollDouble(DoubleSupplier data, long period, TimeUnit unit) {
+        return new ConnectorDoubleStream<GraphTopology<X>>(this,
+                graph().source(new DoubleSupplierPeriodicSource(period, unit, data)));
+    }
+
+    @Override
+    public TLongStream pollLong(LongSupplier data, long period, TimeUnit unit) {
+        return new ConnectorLongStream<GraphTopology<X>>(this,
+                graph().source(new LongSupplierPeriodicSource(period, unit, data)));
+    }
+
     @Override
     public <T> TStream<T> events(Consumer<Consumer<T>> eventSetup) {
         TStream<T> rawEvents = sourceStream(new Events<>(eventSetup));
         return PlumbingStreams.isolate(rawEvents, true);
     }
+
+    @Override
+    public <T> TStream<T> events(Consumer<Consumer<T>> eventSetup, int queueCapacity) {
+        if (queueCapacity < 1)
+            throw new IllegalArgumentException("queueCapacity: " + queueCapacity);
+        return sourceStream(new Events<>(eventSetup, queueCapacity));
+    }
 }
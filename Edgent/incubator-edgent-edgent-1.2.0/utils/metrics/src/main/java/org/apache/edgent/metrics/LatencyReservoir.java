@@ -0,0 +1,259 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.metrics;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+
+/**
+ * A lock-free, fixed memory {@code Reservoir} that records every value
+ * into log-linear buckets, in the style of an HDR histogram.
+ * <p>
+ * Values below {@code 2^(precisionBits+1)} are recorded exactly, larger values
+ * are recorded into buckets whose width is at most {@code 2^-precisionBits}
+ * of the value, so quantiles have a bounded relative error independent
+ * of the distribution.  Values are never evicted, snapshots describe all
+ * values recorded since the reservoir was created or last {@link #reset() reset}.
+ * <p>
+ * Recording a value is a few arithmetic operations and a single atomic
+ * increment, it does not allocate or lock and may be called concurrently.
+ */
+public class LatencyReservoir implements Reservoir {
+    
+    /** Default precision, quantiles are within 1/64 (~1.6%) of the recorded value. */
+    public static final int DEFAULT_PRECISION_BITS = 6;
+    /** Default largest trackable value, larger values are recorded as this value. */
+    public static final long DEFAULT_MAX_VALUE = (1L << 40) - 1;
+    
+    private final int precisionBits;
+    private final int subBucketCount;
+    private final long maxValue;
+    private final AtomicLongArray counts;
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Create a reservoir with {@link #DEFAULT_PRECISION_BITS} precision
+     * that can track values up to {@link #DEFAULT_MAX_VALUE}, 
+     * roughly 18 minutes when values are nanoseconds.
+     */
+    public LatencyReservoir() {
+        this(DEFAULT_PRECISION_BITS, DEFAULT_MAX_VALUE);
+    }
+
+    /**
+     * Create a reservoir.
+     * @param precisionBits number of bits of precision kept for each value, 1 to 16.
+     * @param maxValue largest trackable value.
+     */
+    public LatencyReservoir(int precisionBits, long maxValue) {
+        if (precisionBits < 1 || precisionBits > 16)
+            throw new IllegalArgumentException("precisionBits");
+        if (maxValue < 1)
+            throw new IllegalArgumentException("maxValue");
+        this.precisionBits = precisionBits;
+        this.subBucketCount = 1 << precisionBits;
+        this.maxValue = maxValue;
+        this.counts = new AtomicLongArray(bucketIndex(maxValue) + 1);
+    }
+    
+    /**
+     * Bucket for a value, {@code 0 <= value <= maxValue}.
+     * Values are grouped by their most significant bit, each group is
+     * split into {@code subBucketCount} linear buckets.
+     */
+    private int bucketIndex(long value) {
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - precisionBits;
+        if (shift <= 0)
+            return (int) value;
+        return subBucketCount * shift + (int) (value >>> shift);
+    }
+    
+    /** Smallest value recorded in bucket {@code index}. */
+    private long lowestValue(int index) {
+        if (index < 2 * subBucketCount)
+            return index;
+        int shift = index / subBucketCount - 1;
+        return (long) (index - subBucketCount * shift) << shift;
+    }
+    
+    /** Value reported for bucket {@code index}, the middle of the bucket. */
+    private long bucketValue(int index) {
+        if (index < 2 * subBucketCount)
+            return index;
+        int shift = index / subBucketCount - 1;
+        return lowestValue(index) + ((1L << shift) >> 1);
+    }
+
+    @Override
+    public int size() {
+        long n = count.get();
+        return n > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) n;
+    }
+
+    @Override
+    public void update(long value) {
+        if (value < 0)
+            value = 0;
+        else if (value > maxValue)
+            value = maxValue;
+        counts.incrementAndGet(bucketIndex(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long m;
+        while (value < (m = min.get()) && !min.compareAndSet(m, value))
+            ;
+        while (value > (m = max.get()) && !max.compareAndSet(m, value))
+            ;
+    }
+    
+    /**
+     * Discard all recorded values.
+     * <p>
+     * Values recorded concurrently with a reset may be partially discarded.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++)
+            counts.set(i, 0);
+        count.set(0);
+        sum.set(0);
+        min.set(Long.MAX_VALUE);
+        max.set(Long.MIN_VALUE);
+    }
+
+    /**
+     * Get a snapshot of the recorded values.
+     * <p>
+     * The snapshot copies the bucket counts, its size is independent of
+     * the number of recorded values.
+     * {@link Snapshot#getValues()} returns one value per non-empty bucket.
+     */
+    @Override
+    public Snapshot getSnapshot() {
+        long[] copy = new long[counts.length()];
+        long total = 0;
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        long lo = min.get();
+        long hi = max.get();
+        long n = count.get();
+        double mean = n == 0 ? 0.0 : (double) sum.get() / n;
+        return new BucketSnapshot(copy, total, total == 0 ? 0 : lo, total == 0 ? 0 : hi, mean);
+    }
+    
+    private final class BucketSnapshot extends Snapshot {
+        private final long[] buckets;
+        private final long total;
+        private final long min;
+        private final long max;
+        private final double mean;
+        
+        BucketSnapshot(long[] buckets, long total, long min, long max, double mean) {
+            this.buckets = buckets;
+            this.total = total;
+            this.min = min;
+            this.max = max;
+            this.mean = mean;
+        }
+
+        @Override
+        public double getValue(double quantile) {
+            if (quantile < 0.0 || quantile > 1.0 || Double.isNaN(quantile))
+                throw new IllegalArgumentException(quantile + " is not in [0..1]");
+            if (total == 0)
+                return 0.0;
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank)
+                    return Math.max(min, Math.min(max, bucketValue(i)));
+            }
+            return max;
+        }
+
+        @Override
+        public long[] getValues() {
+            int n = 0;
+            for (long c : buckets)
+                if (c != 0)
+                    n++;
+            long[] values = new long[n];
+            n = 0;
+            for (int i = 0; i < buckets.length; i++)
+                if (buckets[i] != 0)
+                    values[n++] = bucketValue(i);
+            return values;
+        }
+
+        @Override
+        public int size() {
+            return total > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) total;
+        }
+
+        @Override
+        public long getMax() {
+            return max;
+        }
+
+        @Override
+        public double getMean() {
+            return mean;
+        }
+
+        @Override
+        public long getMin() {
+            return min;
+        }
+
+        @Override
+        public double getStdDev() {
+            if (total <= 1)
+                return 0.0;
+            double variance = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                if (buckets[i] != 0) {
+                    double d = bucketValue(i) - mean;
+                    variance += buckets[i] * d * d;
+                }
+            }
+            return Math.sqrt(variance / (total - 1));
+        }
+
+        @Override
+        public void dump(OutputStream output) {
+            try (PrintWriter out = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+                for (int i = 0; i < buckets.length; i++)
+                    if (buckets[i] != 0)
+                        out.printf("%d %d%n", bucketValue(i), buckets[i]);
+            }
+        }
+    }
+}
@@ -18,8 +18,15 @@ under the License.
 */
 package org.apache.edgent.metrics;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.edgent.graph.Connector;
+import org.apache.edgent.graph.Vertex;
 import org.apache.edgent.metrics.oplets.CounterOp;
+import org.apache.edgent.metrics.oplets.LatencyOp;
 import org.apache.edgent.metrics.oplets.RateMeter;
+import org.apache.edgent.oplet.core.Source;
 import org.apache.edgent.topology.TStream;
 import org.apache.edgent.topology.Topology;
 
@@ -79,4 +86,54 @@ public class Metrics {
                 v -> !(v.getInstance() instanceof CounterOp)
             );
     }
+
+    /**
+     * Record the latency of processing each tuple downstream of this point.
+     * <p>
+     * The end-to-end latency since the tuple was submitted by its source
+     * is also recorded if sources have been stamped by 
+     * {@link #latency(Topology)}.
+     * 
+     * @param <T>
+     *            TStream tuple type
+     * @param stream to stream to instrument
+     * @return a {@link TStream} containing the input tuples
+     * @see LatencyOp
+     */
+    public static <T> TStream<T> latency(TStream<T> stream) {
+        return stream.pipe(new LatencyOp<T>());
+    }
+
+    /**
+     * Add latency metrics to all the topology's streams.
+     * <p>
+     * A {@link LatencyOp} oplet is inserted on every connected output of
+     * every vertex, following the same rules as {@link #counter(Topology)}.
+     * Oplets inserted directly downstream of a source stamp the source
+     * time, all others record the processing latency of the oplet
+     * immediately downstream and the end-to-end latency from the source.
+     * <p>
+     * The implementation is not idempotent: Calling the method twice 
+     * will insert a new set of metric oplets into the graph.
+     * @param t
+     *            The topology
+     */
+    public static void latency(Topology t) {
+        List<Vertex<?, ?, ?>> vertices = new ArrayList<>();
+        for (Vertex<?, ?, ?> v : t.graph().getVertices()) {
+            if (!(v.getInstance() instanceof LatencyOp))
+                vertices.add(v);
+        }
+        for (Vertex<?, ?, ?> v : vertices) {
+            boolean isSource = v.getInstance() instanceof Source;
+            for (Connector<?> c : v.getConnectors()) {
+                if (c.isConnected())
+                    peekLatency(c, isSource);
+            }
+        }
+    }
+
+    private static <T> void peekLatency(Connector<T> c, boolean isSource) {
+        c.peek(new LatencyOp<T>(isSource));
+    }
 }
@@ -0,0 +1,194 @@
+/*
+Licensed to the Apache Software Foundation (ASF) under one
+or more contributor license agreements.  See the NOTICE file
+distributed with this work for additional information
+regarding copyright ownership.  The ASF licenses this file
+to you under the Apache License, Version 2.0 (the
+"License"); you may not use this file except in compliance
+with the License.  You may obtain a copy of the License at
+
+  http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing,
+software distributed under the License is distributed on an
+"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+KIND, either express or implied.  See the License for the
+specific language governing permissions and limitations
+under the License.
+*/
+package org.apache.edgent.metrics.oplets;
+
+import org.apache.edgent.metrics.LatencyReservoir;
+import org.apache.edgent.oplet.OpletContext;
+import org.apache.edgent.oplet.core.Peek;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * A metrics oplet which records tuple latencies, in nanoseconds, into
+ * {@link LatencyReservoir} backed histograms.
+ * <p>
+ * Two histograms are maintained:
+ * <ul>
+ * <li>{@value #PROCESSING_METRIC_NAME} - the time taken to process each tuple
+ * downstream of this oplet, excluding time spent downstream of any other
+ * {@code LatencyOp} reached on the same thread. When a {@code LatencyOp}
+ * is present on every stream this is the processing time of the single
+ * oplet immediately downstream.</li>
+ * <li>{@value #END_TO_END_METRIC_NAME} - the time since the tuple (or the tuple
+ * it was derived from) was submitted by its source oplet. Only recorded
+ * when a {@code LatencyOp} stamps the tuple directly downstream of its source
+ * and the tuple is still being processed on the source's thread, e.g.
+ * not downstream of an isolate.</li>
+ * </ul>
+ * @param <T> Tuple type
+ * @see org.apache.edgent.metrics.Metrics#latency(org.apache.edgent.topology.TStream)
+ * @see org.apache.edgent.metrics.Metrics#latency(org.apache.edgent.topology.Topology)
+ */
+public final class LatencyOp<T> extends Peek<T> {
+
+    public static final String PROCESSING_METRIC_NAME = "TupleProcessingLatency";
+    public static final String END_TO_END_METRIC_NAME = "TupleEndToEndLatency";
+    private static final long serialVersionUID = 1L;
+    
+    /**
+     * Per-thread latency state, shared by all {@code LatencyOp}
+     * instances processing tuples on a thread.
+     */
+    private static final class Stamp {
+        boolean stamped;
+        long sourceTime;
+        long nestedTime;
+    }
+    
+    private static final ThreadLocal<Stamp> STAMP = new ThreadLocal<Stamp>() {
+        @Override
+        protected Stamp initialValue() {
+            return new Stamp();
+        }
+    };
+    
+    private final boolean stampsSource;
+    private final Histogram processing;
+    private final Histogram endToEnd;
+    private String processingMetricName;
+    private String endToEndMetricName;
+    
+    /**
+     * Create an oplet that records latencies but does not stamp tuples.
+     */
+    public LatencyOp() {
+        this(false);
+    }
+
+    /**
+     * Create an oplet.
+     * @param stampsSource {@code true} if this oplet is directly downstream
+     *        of a source oplet and sets the source time of the tuples it sees.
+     */
+    public LatencyOp(boolean stampsSource) {
+        this.stampsSource = stampsSource;
+        this.processing = new Histogram(new LatencyReservoir());
+        this.endToEnd = new Histogram(new LatencyReservoir());
+    }
+    
+    /**
+     * Does this oplet stamp the source time of tuples.
+     * @return {@code true} if this oplet stamps tuples.
+     */
+    public boolean isStampingSource() {
+        return stampsSource;
+    }
+    
+    /**
+     * Histogram of downstream processing latencies in nanoseconds.
+     * @return the histogram
+     */
+    public Histogram getProcessingLatency() {
+        return processing;
+    }
+    
+    /**
+     * Histogram of latencies since the source submitted the tuple, in nanoseconds.
+     * @return the histogram
+     */
+    public Histogram getEndToEndLatency() {
+        return endToEnd;
+    }
+    
+    /**
+     * Returns the name of the processing latency metric.
+     * @return the metric name or {@code null} if this oplet has not been
+     *      initialized with a {@code MetricRegistry}.
+     */
+    public String getProcessingMetricName() {
+        return processingMetricName;
+    }
+    
+    /**
+     * Returns the name of the end-to-end latency metric.
+     * @return the metric name or {@code null} if this oplet has not been
+     *      initialized with a {@code MetricRegistry}.
+     */
+    public String getEndToEndMetricName() {
+        return endToEndMetricName;
+    }
+
+    @Override
+    public void initialize(OpletContext<T, T> context) {
+        super.initialize(context);
+
+        MetricRegistry registry = context.getService(MetricRegistry.class);
+        if (registry != null) {
+            processingMetricName = context.uniquify(PROCESSING_METRIC_NAME);
+            endToEndMetricName = context.uniquify(END_TO_END_METRIC_NAME);
+            registry.register(processingMetricName, processing);
+            registry.register(endToEndMetricName, endToEnd);
+        }
+    }
+
+    @Override
+    protected void peek(T tuple) {
+        if (stampsSource)
+            return;
+        Stamp stamp = STAMP.get();
+        if (stamp.stamped)
+            endToEnd.update(System.nanoTime() - stamp.sourceTime);
+    }
+    
+    @Override
+    protected void submit(T tuple) {
+        final Stamp stamp = STAMP.get();
+        final boolean wasStamped = stamp.stamped;
+        final long sourceTime = stamp.sourceTime;
+        final long outerNested = stamp.nestedTime;
+        stamp.nestedTime = 0;
+        
+        final long start = System.nanoTime();
+        if (stampsSource) {
+            stamp.stamped = true;
+            stamp.sourceTime = start;
+        }
+        try {
+            super.submit(tuple);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            processing.update(elapsed - stamp.nestedTime);
+            stamp.nestedTime = outerNested + elapsed;
+            if (stampsSource) {
+                stamp.stamped = wasStamped;
+                stamp.sourceTime = sourceTime;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        MetricRegistry registry = getOpletContext().getService(MetricRegistry.class);
+        if (registry != null) {
+            registry.remove(processingMetricName);
+            registry.remove(endToEndMetricName);
+        }
+    }
+}
@@ -18,6 +18,7 @@ under the License.
 */
 package org.apache.edgent.test.metrics;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -28,7 +29,9 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.edgent.function.Consumer;
+import org.apache.edgent.metrics.LatencyReservoir;
 import org.apache.edgent.metrics.oplets.CounterOp;
+import org.apache.edgent.metrics.oplets.LatencyOp;
 import org.apache.edgent.metrics.oplets.RateMeter;
 import org.apache.edgent.oplet.JobContext;
 import org.apache.edgent.oplet.Oplet;
@@ -39,6 +42,7 @@ import org.apache.edgent.oplet.core.Peek;
 import org.junit.Test;
 
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
 
 public class MetricsCommonTest {
     @Test
@@ -97,6 +101,51 @@ public class MetricsCommonTest {
         op.close();
     }
 
+    @Test
+    public void latencyOpHierachy() {
+        assertTrue(Oplet.class.isAssignableFrom(LatencyOp.class));
+        assertTrue(AbstractOplet.class.isAssignableFrom(LatencyOp.class));
+        assertTrue(Peek.class.isAssignableFrom(LatencyOp.class));
+    }
+
+    @Test
+    public void metricNameLatency() throws Exception {
+        Context<Object,Object> ctx = new Context<>();
+        MetricRegistry registry = new MetricRegistry();
+        ctx.addService(MetricRegistry.class, registry);
+        
+        LatencyOp<Object> op = new LatencyOp<>(true);
+        op.initialize(ctx);
+        assertNotNull(op.getProcessingMetricName());
+        assertNotNull(op.getEndToEndMetricName());
+        assertEquals(2, registry.getHistograms().size());
+        
+        op.accept("a");
+        op.accept("b");
+        assertEquals(2, op.getProcessingLatency().getCount());
+        op.close();
+        assertEquals(0, registry.getHistograms().size());
+    }
+
+    @Test
+    public void latencyReservoirQuantiles() {
+        LatencyReservoir reservoir = new LatencyReservoir();
+        for (long v = 1; v <= 10000; v++)
+            reservoir.update(v * 1000);
+        
+        Snapshot snapshot = reservoir.getSnapshot();
+        assertEquals(10000, reservoir.size());
+        assertEquals(1000, snapshot.getMin());
+        assertEquals(10000000, snapshot.getMax());
+        assertEquals(5000500.0, snapshot.getMean(), 0.0);
+        // log-linear buckets with 6 precision bits are within ~1.6%
+        assertEquals(5000000.0, snapshot.getMedian(), 5000000.0 * 0.016);
+        assertEquals(9990000.0, snapshot.get999thPercentile(), 9990000.0 * 0.016);
+        
+        reservoir.reset();
+        assertEquals(0, reservoir.size());
+    }
+
     private static class Context<I, O> implements OpletContext<I, O> {
         private final Map<Class<?>, Object> services = new HashMap<>();
 
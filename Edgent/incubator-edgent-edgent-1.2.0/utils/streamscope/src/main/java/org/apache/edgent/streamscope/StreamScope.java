@@ -18,10 +18,12 @@ under the License.
 */
 package org.apache.edgent.streamscope;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.edgent.function.Consumer;
@@ -38,7 +40,7 @@ import org.apache.edgent.streamscope.mbeans.StreamScopeRegistryMXBean;
  * A {@link TriggerManager} controls which tuples are captured.
  * A {@link BufferManager} controls the retention policy for captured tuples.
  * </P><P>
- * A {@link Sample} is created for each captured tuple containing the tuple
+ * A {@link Sample} is returned for each captured tuple containing the tuple
  * (not copied) and capture timestamps.  Samples are retrieved using {@link #getSamples()}.
  * </P><P>
  * Sample capture can be enabled/disabled ({@link #setEnabled(boolean)}.
@@ -58,13 +60,17 @@ public class StreamScope<T> implements Consumer<T> {
   private static final long serialVersionUID = 1L;
   private final BufferManager<T> buffer = new BufferManager<>();
   private final TriggerManager<T> trigger = new TriggerManager<>();
-  private boolean isEnabled;
+  private volatile boolean isEnabled;
   
   /**
    * A captured tuple.
    * <P>
    * The Sample captures the tuple, and the system time and nanoTime
    * when the tuple was captured.
+   * </P><P>
+   * Only the nanoTime is read when a tuple is captured, the system
+   * time is derived from it relative to when the {@link BufferManager}
+   * was created.  Samples are only created when retrieved.
    * </P>
    *
    * @param <T> Tuple type.
@@ -74,9 +80,9 @@ public class StreamScope<T> implements Consumer<T> {
     private final long nanoTime;
     private final T tuple;
     
-    Sample(T tuple) {
-      this.ts = System.currentTimeMillis();
-      this.nanoTime = System.nanoTime();
+    Sample(T tuple, long ts, long nanoTime) {
+      this.ts = ts;
+      this.nanoTime = nanoTime;
       this.tuple = tuple;
     }
     
@@ -118,27 +124,196 @@ public class StreamScope<T> implements Consumer<T> {
    * Captured tuples are retained until either:
    * <ul>
    * <li>a maximum retention count is exceeded</li>
-   * <li>TODO a maximum retention time is exceeded</li>
+   * <li>a maximum retention time is exceeded</li>
    * </ul> 
    * <P>
    * The default configuration is a maxCount of 10.
+   * </P><P>
+   * Captured tuples are held in a preallocated ring buffer, capturing
+   * a tuple does not allocate.  The ring has a single writer at a time,
+   * {@link StreamScope#accept(Object)} serializes the threads delivering
+   * tuples to the {@code StreamScope}.
+   * Retrieving the samples copies the live portion of the ring, discarding
+   * any entries the writer may have overwritten during the copy.
+   * When count based retention is disabled the ring grows as needed.
+   * </P><P>
+   * Alternatively the buffer can retain a uniform random sample of
+   * maxCount tuples from all tuples captured since the samples were
+   * last retrieved, see {@link #setReservoirSampling(boolean)}.
    * </P>
    * 
    * @param <T> Tuple type
    */
   public static class BufferManager<T> {
-    private List<Sample<T>> buffer = Collections.emptyList();
-    private int maxCount = 10;
+    private static final int MIN_CAPACITY = 16;
+    
+    private final long baseMillis = System.currentTimeMillis();
+    private final long baseNanos = System.nanoTime();
+    private volatile int maxCount = 10;
+    private volatile long maxAgeNanos;
+    private volatile boolean isReservoir;
     private long period;
     private TimeUnit unit;
     
-    // TODO timer based eviction
-    // TODO look at using edgent Windows / WindowImpl for the buffer.
-    //      Can window type/"size" be changed?
-    //      Does it support simultaneous maxCount & maxAge?
+    private volatile Ring<T> ring = new Ring<>(1, 0);
+    private volatile Reservoir<T> reservoir;
+    // Sequence number of the first tuple not yet retrieved.
+    private volatile long head;
+    
+    /**
+     * Ring of captured tuples indexed by sequence number.
+     * Written by a single thread, sequence numbers {@code [floor, tail)}
+     * have been written.
+     */
+    private static final class Ring<T> {
+      final Object[] tuples;
+      final long[] nanos;
+      final int mask;
+      final long floor;
+      volatile long tail;
+      
+      Ring(int minCapacity, long floor) {
+        int capacity = Integer.highestOneBit(Math.max(1, minCapacity - 1)) << 1;
+        tuples = new Object[capacity];
+        nanos = new long[capacity];
+        mask = capacity - 1;
+        this.floor = floor;
+        tail = floor;
+      }
+      
+      int capacity() {
+        return tuples.length;
+      }
+    }
+    
+    /**
+     * Reservoir sample (Li's Algorithm L) of the tuples captured since
+     * the reservoir was created. The number of tuples to skip before
+     * the next replacement is precomputed so tuples that are not
+     * sampled cost a single comparison.
+     * <BR>
+     * A writer increments {@code version} before and after modifying
+     * the reservoir, readers retry if it changed during a copy.
+     */
+    private static final class Reservoir<T> {
+      final Object[] tuples;
+      final long[] nanos;
+      final Random random = new Random();
+      volatile int version;
+      int size;
+      long count;
+      long next;
+      double w;
+      
+      Reservoir(int k) {
+        tuples = new Object[k];
+        nanos = new long[k];
+        w = Math.exp(Math.log(random.nextDouble()) / k);
+        next = k + skip() + 1;
+      }
+      
+      private long skip() {
+        return (long) Math.floor(Math.log(random.nextDouble()) / Math.log(1 - w));
+      }
+      
+      void add(Object tuple, long nanoTime) {
+        final int k = tuples.length;
+        final long n = ++count;
+        final int slot;
+        if (n <= k) {
+          slot = (int) n - 1;
+        } else if (n == next) {
+          slot = random.nextInt(k);
+          w *= Math.exp(Math.log(random.nextDouble()) / k);
+          next += skip() + 1;
+        } else {
+          return;
+        }
+        version++;
+        tuples[slot] = tuple;
+        nanos[slot] = nanoTime;
+        if (n <= k)
+          size = (int) n;
+        version++;
+      }
+    }
+    
+    /**
+     * Get the captured samples.
+     * @param consume true to remove the returned samples from the buffer
+     * @return the samples, oldest first unless reservoir sampling
+     */
+    List<Sample<T>> getSamples(boolean consume) {
+      Object[] tuples;
+      long[] nanos;
+      int from = 0;
+      
+      Reservoir<T> rs = reservoir;
+      if (rs != null) {
+        for (;;) {
+          int v = rs.version;
+          if ((v & 1) != 0) {
+            Thread.yield();
+            continue;
+          }
+          int n = rs.size;
+          tuples = Arrays.copyOf(rs.tuples, n);
+          nanos = Arrays.copyOf(rs.nanos, n);
+          if (rs.version == v)
+            break;
+        }
+        if (consume)
+          reservoir = new Reservoir<>(rs.tuples.length);
+      }
+      else {
+        Ring<T> r = ring;
+        long t = r.tail;
+        long start = firstRetained(r, t);
+        int n = (int) (t - start);
+        tuples = new Object[n];
+        nanos = new long[n];
+        for (int i = 0; i < n; i++) {
+          int idx = (int) ((start + i) & r.mask);
+          tuples[i] = r.tuples[idx];
+          nanos[i] = r.nanos[idx];
+        }
+        // discard entries that may have been overwritten while copying
+        long safe = r.tail - r.capacity() + 1;
+        if (safe > start)
+          from = (int) Math.min(n, safe - start);
+        if (consume)
+          head = t;
+      }
+      
+      List<Sample<T>> samples = new ArrayList<>(tuples.length - from);
+      long minNanos = maxAgeNanos == 0 ? 0 : System.nanoTime() - maxAgeNanos;
+      for (int i = from; i < tuples.length; i++) {
+        if (minNanos != 0 && nanos[i] - minNanos < 0)
+          continue;
+        @SuppressWarnings("unchecked")
+        T tuple = (T) tuples[i];
+        samples.add(new Sample<T>(tuple, toMillis(nanos[i]), nanos[i]));
+      }
+      return Collections.unmodifiableList(samples);
+    }
+    
+    private long toMillis(long nanoTime) {
+      return baseMillis + TimeUnit.NANOSECONDS.toMillis(nanoTime - baseNanos);
+    }
     
-    List<Sample<T>> getSamples() {
-      return Collections.unmodifiableList(buffer);
+    /**
+     * Get the sequence number of the oldest retained tuple in the ring.
+     */
+    private long firstRetained(Ring<T> r, long tail) {
+      int limit = maxCount > 0 ? maxCount : r.capacity() - 1;
+      long start = Math.max(Math.max(head, r.floor), tail - limit);
+      long maxAge = maxAgeNanos;
+      if (maxAge > 0) {
+        long minNanos = System.nanoTime() - maxAge;
+        while (start < tail && r.nanos[(int) (start & r.mask)] - minNanos < 0)
+          start++;
+      }
+      return start;
     }
     
     /**
@@ -150,6 +325,10 @@ public class StreamScope<T> implements Consumer<T> {
      *        Specify 0 to disable count based retention.
      */
     public void setMaxRetentionCount(int maxCount) {
+      if (maxCount < 0)
+        throw new IllegalArgumentException("maxCount");
+      if (maxCount == 0 && isReservoir)
+        throw new IllegalStateException("reservoir sampling requires a maxCount");
       this.maxCount = maxCount;
       allocate();
     }
@@ -169,8 +348,28 @@ public class StreamScope<T> implements Consumer<T> {
       Objects.requireNonNull(unit, "unit");
       this.period = age;
       this.unit = unit;
-      
-      throw new IllegalStateException("setMaxRetentionTime is NYI");
+      this.maxAgeNanos = unit.toNanos(age);
+      allocate();
+    }
+    
+    /**
+     * Enable or disable reservoir sampling.
+     * <P>
+     * When enabled the buffer retains a uniform random sample of
+     * maxCount tuples from all the tuples captured since the samples
+     * were last retrieved, instead of the most recent maxCount tuples.
+     * The maximum retention time is applied when samples are retrieved.
+     * </P><P>
+     * The capture buffer is cleared.
+     * </P>
+     * @param reservoir true to enable reservoir sampling
+     * @throws IllegalStateException if count based retention is disabled
+     */
+    public void setReservoirSampling(boolean reservoir) {
+      if (reservoir && maxCount == 0)
+        throw new IllegalStateException("reservoir sampling requires a maxCount");
+      this.isReservoir = reservoir;
+      allocate();
     }
     
     /**
@@ -178,26 +377,79 @@ public class StreamScope<T> implements Consumer<T> {
      * @return the count.
      */
     int getCount() {
-      return buffer.size();
+      Reservoir<T> rs = reservoir;
+      if (rs != null)
+        return getSamples(false).size();
+      Ring<T> r = ring;
+      long t = r.tail;
+      return (int) (t - firstRetained(r, t));
     }
     
     void release() {
-      buffer = Collections.emptyList();
+      reservoir = null;
+      ring = new Ring<>(1, 0);
+      head = 0;
     }
     
     void allocate() {
-      buffer = new LinkedList<>();
+      head = 0;
+      if (isReservoir) {
+        reservoir = new Reservoir<>(maxCount);
+      } else {
+        reservoir = null;
+        ring = new Ring<>(maxCount == 0 ? MIN_CAPACITY : maxCount + 1, 0);
+      }
     }
     
-    void add(Sample<T> sample) {
-      if (maxCount > 0 && buffer.size() >= maxCount)
-        buffer.remove(0);
-      buffer.add(sample);
+    /**
+     * Add a captured tuple.  Must not be called concurrently.
+     * @param tuple the tuple
+     * @param nanoTime capture time from System.nanoTime()
+     */
+    void add(T tuple, long nanoTime) {
+      Reservoir<T> rs = reservoir;
+      if (rs != null) {
+        rs.add(tuple, nanoTime);
+        return;
+      }
+      Ring<T> r = ring;
+      long t = r.tail;
+      if (maxCount == 0 && t - Math.max(head, r.floor) >= r.capacity() - 1)
+        r = grow(r, t, nanoTime);
+      int idx = (int) (t & r.mask);
+      r.tuples[idx] = tuple;
+      r.nanos[idx] = nanoTime;
+      r.tail = t + 1;
+    }
+    
+    /**
+     * Replace a full ring when count based retention is disabled,
+     * dropping tuples that have exceeded the retention time.
+     */
+    private Ring<T> grow(Ring<T> r, long tail, long now) {
+      long start = Math.max(head, r.floor);
+      long maxAge = maxAgeNanos;
+      if (maxAge > 0) {
+        while (start < tail && now - r.nanos[(int) (start & r.mask)] > maxAge)
+          start++;
+      }
+      int live = (int) (tail - start);
+      Ring<T> g = new Ring<>(Math.max(MIN_CAPACITY, 2 * (live + 1)), start);
+      for (long seq = start; seq < tail; seq++) {
+        int from = (int) (seq & r.mask);
+        int to = (int) (seq & g.mask);
+        g.tuples[to] = r.tuples[from];
+        g.nanos[to] = r.nanos[from];
+      }
+      g.tail = tail;
+      ring = g;
+      return g;
     }
     
     @Override
     public String toString() {
-      return "size="+getCount()+" maxCount="+maxCount+" maxAge="+period+(unit==null ? "" : unit);
+      return "size="+getCount()+" maxCount="+maxCount+" maxAge="+period+(unit==null ? "" : unit)
+          +" reservoir="+isReservoir;
     }
     
   }
@@ -228,9 +480,12 @@ public class StreamScope<T> implements Consumer<T> {
    * @param <T> Tuple type
    */
   public static class TriggerManager<T> {
-    private Predicate<T> predicate = Functions.alwaysTrue();
-    private Predicate<T> pauseOnPredicate = Functions.alwaysFalse();
-    private boolean paused = false;
+    private volatile Predicate<T> predicate = Functions.alwaysTrue();
+    private volatile Predicate<T> pauseOnPredicate = Functions.alwaysFalse();
+    private volatile boolean paused = false;
+    private volatile int byCount;
+    // tuples remaining until the next by-count capture
+    private int skip;
     
     /**
      * Test if the tuple should be captured.
@@ -240,8 +495,21 @@ public class StreamScope<T> implements Consumer<T> {
     boolean test(T tuple) {
       if (paused)
         return false;
-      boolean b = predicate.test(tuple);
-      paused = pauseOnPredicate.test(tuple);
+      boolean b;
+      Predicate<T> p = predicate;
+      if (p == null) {
+        // capture by count
+        if (--skip <= 0) {
+          skip = byCount;
+          b = true;
+        }
+        else
+          b = false;
+      }
+      else
+        b = p.test(tuple);
+      if (pauseOnPredicate.test(tuple))
+        paused = true;
       return b;
     }
     
@@ -277,10 +545,15 @@ public class StreamScope<T> implements Consumer<T> {
      * @param count the nth value interval
      */
     public void setCaptureByCount(int count) {
+      if (count < 1)
+        throw new IllegalArgumentException("count");
       if (count == 1)
         setCaptureByPredicate(Functions.alwaysTrue());
-      else
-        setCaptureByPredicate(newByCountPredicate(count));
+      else {
+        byCount = count;
+        skip = 0;
+        predicate = null;
+      }
     }
     
     /**
@@ -303,34 +576,22 @@ public class StreamScope<T> implements Consumer<T> {
       this.predicate = predicate;
     }
     
-    private static <T> Predicate<T> newByCountPredicate(int count) {
-      if (count < 1)
-        throw new IllegalArgumentException("count");
-      return new Predicate<T>() {
-        private static final long serialVersionUID = 1L;
-        int byCount = count;
-        int curCount = -1;  // capture 1st and every byCount-nth
-
-        @Override
-        public boolean test(T value) {
-          return ++curCount % byCount == 0;
-        }
-      };
-    }
-    
     private static <T> Predicate<T> newByTimePredicate(long elapsed, TimeUnit unit) {
       if (elapsed < 1)
         throw new IllegalArgumentException("elapsed");
       Objects.requireNonNull(unit, "unit");
       return new Predicate<T>() {
         private static final long serialVersionUID = 1L;
+        private final long elapsedNanos = unit.toNanos(elapsed);
+        private boolean started;
         private long nextTime;
 
         @Override
         public boolean test(T value) {
-          long now = System.currentTimeMillis();
-          if (now > nextTime) {
-            nextTime = now + unit.toMillis(elapsed);
+          long now = System.nanoTime();
+          if (!started || now - nextTime > 0) {
+            started = true;
+            nextTime = now + elapsedNanos;
             return true;
           }
           return false;
@@ -340,7 +601,9 @@ public class StreamScope<T> implements Consumer<T> {
     
     @Override
     public String toString() {
-      return "paused="+paused+" pauseOnPredicate="+pauseOnPredicate+" predicate="+predicate;
+      Predicate<T> p = predicate;
+      return "paused="+paused+" pauseOnPredicate="+pauseOnPredicate
+          +" predicate="+(p == null ? "byCount("+byCount+")" : p);
     }
 
   }
@@ -402,9 +665,7 @@ public class StreamScope<T> implements Consumer<T> {
    * @return unmodifiable list of captured samples
    */
   public synchronized List<Sample<T>> getSamples() {
-    List<Sample<T>> tmp = buffer.getSamples();
-    buffer.allocate();
-    return tmp;
+    return buffer.getSamples(true);
   }
 
   /**
@@ -415,12 +676,19 @@ public class StreamScope<T> implements Consumer<T> {
     return buffer.getCount();
   }
 
+  /**
+   * Capture the tuple if enabled and triggered.
+   * <P>
+   * Capture does not allocate.  It is synchronized as a stream, such
+   * as the result of a union, may deliver tuples from several threads.
+   * </P>
+   */
   @Override
   public synchronized void accept(T tuple) {
-    if (!isEnabled())
+    if (!isEnabled)
       return;
     if (trigger.test(tuple))
-      buffer.add(new Sample<T>(tuple));
+      buffer.add(tuple, System.nanoTime());
   }
 
   @Override
@@ -80,6 +80,11 @@ public class StreamScopeBean implements StreamScopeMXBean {
     streamScope.bufferMgr().setMaxRetentionTime(age, unit);
   }
 
+  @Override
+  public void setReservoirSampling(boolean reservoir) {
+    streamScope.bufferMgr().setReservoirSampling(reservoir);
+  }
+
   @Override
   public void setCaptureByCount(int count) {
     streamScope.triggerMgr().setCaptureByCount(count);
@@ -126,6 +126,19 @@ public interface StreamScopeMXBean {
    */
   void setMaxRetentionTime(long age, TimeUnit unit);
   
+  /**
+   * Enable or disable reservoir sampling.
+   * <P>
+   * When enabled a uniform random sample of maxCount tuples from
+   * all the tuples captured since the samples were last retrieved
+   * is retained, instead of the most recent maxCount tuples.
+   * </P><P>
+   * The capture buffer is cleared.
+   * </P>
+   * @param reservoir true to enable reservoir sampling
+   */
+  void setReservoirSampling(boolean reservoir);
+  
   /**
    * Capture the first and every nth tuple
    * @param count the nth value interval
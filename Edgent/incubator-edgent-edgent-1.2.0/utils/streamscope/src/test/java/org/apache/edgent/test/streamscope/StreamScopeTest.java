@@ -25,7 +25,9 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.edgent.streamscope.StreamScope;
@@ -234,6 +236,98 @@ public abstract class StreamScopeTest extends TopologyAbstractTest {
         
     }
 
+    @Test
+    public void testStreamScopeRetention() throws Exception {
+
+        StreamScope<Integer> ss = new StreamScope<>();
+        List<Sample<Integer>> samples; 
+        ss.setEnabled(true);
+        
+        // ---------------- retention by time
+        ss.bufferMgr().setMaxRetentionTime(100, TimeUnit.MILLISECONDS);
+        ss.accept(100);
+        ss.accept(101);
+        Thread.sleep(150);
+        ss.accept(102);
+        assertEquals(1, ss.getSampleCount());
+        samples = ss.getSamples();
+        assertEquals(1, samples.size());
+        assertEquals(102, samples.get(0).tuple().intValue());
+        ss.bufferMgr().setMaxRetentionTime(0, TimeUnit.MILLISECONDS);
+        
+        // ---------------- no count based retention; buffer grows
+        ss.bufferMgr().setMaxRetentionCount(0);
+        for (int i = 0; i < 1000; i++)
+            ss.accept(i);
+        assertEquals(1000, ss.getSampleCount());
+        samples = ss.getSamples();
+        assertEquals(1000, samples.size());
+        for (int i = 0; i < 1000; i++)
+            assertEquals(i, samples.get(i).tuple().intValue());
+        assertEquals(0, ss.getSampleCount());
+        ss.accept(1000);
+        samples = ss.getSamples();
+        assertEquals(1, samples.size());
+        assertEquals(1000, samples.get(0).tuple().intValue());
+        
+        // ---------------- timestamps are consistent with capture time
+        ss.bufferMgr().setMaxRetentionCount(10);
+        long before = System.currentTimeMillis();
+        ss.accept(100);
+        long after = System.currentTimeMillis();
+        Sample<Integer> sample = ss.getSamples().get(0);
+        assertTrue(sample.timestamp() >= before - 5 && sample.timestamp() <= after + 5);
+        
+        // ---------------- reservoir sampling
+        ss.bufferMgr().setMaxRetentionCount(5);
+        ss.bufferMgr().setReservoirSampling(true);
+        ss.accept(100);
+        ss.accept(101);
+        assertEquals(2, ss.getSampleCount());
+        samples = ss.getSamples();
+        assertEquals(100, samples.get(0).tuple().intValue());
+        assertEquals(101, samples.get(1).tuple().intValue());
+        
+        for (int i = 0; i < 10000; i++)
+            ss.accept(i);
+        assertEquals(5, ss.getSampleCount());
+        samples = ss.getSamples();
+        assertEquals(5, samples.size());
+        for (Sample<Integer> s : samples)
+            assertTrue(s.tuple() >= 0 && s.tuple() < 10000);
+        assertEquals(0, ss.getSampleCount());
+        ss.bufferMgr().setReservoirSampling(false);
+    }
+
+    @Test
+    public void testStreamScopeConcurrentProducers() throws Exception {
+        StreamScope<Integer> ss = new StreamScope<>();
+        ss.bufferMgr().setMaxRetentionCount(0); // growing ring
+        ss.setEnabled(true);
+
+        final int producers = 4;
+        final int count = 10000;
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int base = p * count;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < count; i++)
+                    ss.accept(base + i);
+            });
+        }
+        for (Thread t : threads)
+            t.start();
+        for (Thread t : threads)
+            t.join();
+
+        List<Sample<Integer>> samples = ss.getSamples();
+        assertEquals(producers * count, samples.size());
+        Set<Integer> tuples = new HashSet<>();
+        for (Sample<Integer> sample : samples)
+            tuples.add(sample.tuple());
+        assertEquals(producers * count, tuples.size());
+    }
+
     @Test
     public void testStreamScopeRegistry() throws Exception {
 
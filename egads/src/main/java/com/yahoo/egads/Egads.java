@@ -27,7 +27,7 @@ public class Egads {
     public static void main(String[] args) throws Exception {
 
         if (args.length == 0) {
-            System.err.println("Usage: java Egads config.ini (input [STDIN,CSV])");
+            System.err.println("Usage: java Egads config.ini (input [STDIN,BINARY,CSV])");
             System.exit(1);
         }
 
@@ -19,31 +19,56 @@ public class DetectAnomalyProcessable implements ProcessableObject {
     private ModelAdapter ma;
     private AnomalyDetector ad;
     private Properties config;
+    private ForecastCache forecastCache;
     private ArrayList<Anomaly> anomalyList;
 
     public ArrayList<Anomaly> getAnomalyList() {
         return anomalyList;
     }
 
+    ModelAdapter getModelAdapter() {
+        return ma;
+    }
+
+    Properties getConfig() {
+        return config;
+    }
+
+    AnomalyDetector getAnomalyDetector() {
+        return ad;
+    }
+
 
     DetectAnomalyProcessable(ModelAdapter ma, AnomalyDetector ad, Properties config) {
+        this(ma, ad, config, null);
+    }
+
+    // With a forecast cache, the models are trained only if no other processable
+    // already forecast the same metric with the same model config.
+    DetectAnomalyProcessable(ModelAdapter ma, AnomalyDetector ad, Properties config, ForecastCache forecastCache) {
         this.ma = ma;
         this.ad = ad;
         this.config = config;
+        this.forecastCache = forecastCache;
         anomalyList = new ArrayList<>();
     }
 
     public void process() throws Exception {
 
-        // Resetting the models
-        ma.reset();
+        ArrayList<TimeSeries.DataSequence> list;
+        if (forecastCache != null) {
+            // Finding the expected values, training the models on a cache miss
+            list = forecastCache.forecast(ma, config, ma.metric.startTime(), ma.metric.lastTime());
+        } else {
+            // Resetting the models
+            ma.reset();
 
-        // Training the model with the whole metric
-        ma.train();
+            // Training the model with the whole metric
+            ma.train();
 
-        // Finding the expected values
-        ArrayList<TimeSeries.DataSequence> list = ma.forecast(
-            ma.metric.startTime(), ma.metric.lastTime());
+            // Finding the expected values
+            list = ma.forecast(ma.metric.startTime(), ma.metric.lastTime());
+        }
 
         // For each model's prediction in the ModelAdapter
         for (TimeSeries.DataSequence ds : list) {
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2019, Yahoo Inc.
+ * Copyrights licensed under the GPL License.
+ * See the accompanying LICENSE file for terms.
+ */
+
+/*
+ * Description: ForecastCache keeps the forecasts of trained ModelAdapters so that processables running the same
+ * TS_MODEL on the same metric, e.g. one DETECT_ANOMALY processable per AD_MODEL and a TRANSFORM_INPUT processable,
+ * train and forecast it only once.
+ *
+ * A forecast is keyed by:
+ *      1. the metric: its name, period, first timestamp and the requested forecast range,
+ *      2. the model configuration: the model names and every config property except those that only select the
+ *         processable or the anomaly detectors (OP_TYPE, OUTPUT, AD_MODEL and its combination settings),
+ *      3. the data version: the number of points and a hash of their times and values, so a metric that received
+ *         new points is forecast again.
+ *
+ * The cache is bounded by the estimated memory footprint of the forecasts it holds and evicts the least recently
+ * used ones first. Callers get their own copy of a forecast, so they may modify it.
+ *
+ * On a hit the adapter's models are not trained: they are reset and the metric gets the logical indices training
+ * would have set, so ModelAdapter.train() is still needed before using the models directly.
+ */
+
+package com.yahoo.egads.control;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Properties;
+import java.util.TreeSet;
+
+import com.yahoo.egads.data.TimeSeries;
+
+public class ForecastCache {
+
+    // Properties that do not change the forecast.
+    private static final String[] IGNORED_PROPERTIES = {"OP_TYPE", "AD_MODEL", "AD_COMBINATION", "AD_WEIGHTS",
+        "AD_VOTE_THRESHOLD", "AD_PARALLEL", "OUTPUT"};
+
+    // Estimated heap size of a DataSequence entry: the Entry object and the list slot holding it.
+    private static final long ENTRY_BYTES = 40;
+    private static final long SEQUENCE_BYTES = 64;
+
+    // In access order, so the eldest entry is the least recently used.
+    private final LinkedHashMap<Key, Forecasts> forecasts = new LinkedHashMap<Key, Forecasts>(16, 0.75f, true);
+    private long capacity;
+    private long footprint;
+    private long hits;
+    private long misses;
+
+    // Creates a cache holding at most 'capacity' bytes of forecasts, 0 disables caching.
+    public ForecastCache(long capacity) {
+        setCapacity(capacity);
+    }
+
+    public synchronized void setCapacity(long capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("The forecast cache capacity must not be negative: " + capacity);
+        }
+        this.capacity = capacity;
+        evict();
+    }
+
+    public synchronized long getCapacity() {
+        return capacity;
+    }
+
+    // Returns the estimated size in bytes of the cached forecasts.
+    public synchronized long getFootprint() {
+        return footprint;
+    }
+
+    public synchronized int size() {
+        return forecasts.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized void clear() {
+        forecasts.clear();
+        footprint = 0;
+    }
+
+    // Returns the forecasts of the adapter's models over [from, to], training the models
+    // only if the forecasts are not cached.
+    public ArrayList<TimeSeries.DataSequence> forecast(ModelAdapter ma, Properties config, long from, long to)
+            throws Exception {
+        // Disabled, no need to hash the metric.
+        if (getCapacity() == 0) {
+            ma.reset();
+            ma.train();
+            return ma.forecast(from, to);
+        }
+
+        Key key = new Key(ma, config, from, to);
+        synchronized (this) {
+            Forecasts cached = forecasts.get(key);
+            if (cached != null) {
+                hits++;
+                ma.reset();
+                ma.metric.data.setLogicalIndices(ma.firstTimeStamp, ma.period);
+                return copy(cached.sequences);
+            }
+            misses++;
+        }
+
+        ma.reset();
+        ma.train();
+        ArrayList<TimeSeries.DataSequence> result = ma.forecast(from, to);
+        put(key, copy(result));
+        return result;
+    }
+
+    private synchronized void put(Key key, ArrayList<TimeSeries.DataSequence> result) {
+        long bytes = 0;
+        for (TimeSeries.DataSequence ds : result) {
+            bytes += SEQUENCE_BYTES + ds.size() * ENTRY_BYTES;
+        }
+        if (bytes > capacity) {
+            return;
+        }
+
+        Forecasts previous = forecasts.put(key, new Forecasts(result, bytes));
+        if (previous != null) {
+            footprint -= previous.bytes;
+        }
+        footprint += bytes;
+        evict();
+    }
+
+    private static ArrayList<TimeSeries.DataSequence> copy(ArrayList<TimeSeries.DataSequence> sequences) {
+        ArrayList<TimeSeries.DataSequence> result = new ArrayList<TimeSeries.DataSequence>(sequences.size());
+        for (TimeSeries.DataSequence ds : sequences) {
+            TimeSeries.DataSequence c = new TimeSeries.DataSequence(ds.size());
+            for (TimeSeries.Entry e : ds) {
+                c.add(new TimeSeries.Entry(e));
+            }
+            result.add(c);
+        }
+        return result;
+    }
+
+    // Drops the least recently used forecasts until the footprint fits the capacity.
+    private void evict() {
+        Iterator<Forecasts> it = forecasts.values().iterator();
+        while (footprint > capacity && it.hasNext()) {
+            footprint -= it.next().bytes;
+            it.remove();
+        }
+    }
+
+    private static final class Forecasts {
+        private final ArrayList<TimeSeries.DataSequence> sequences;
+        private final long bytes;
+
+        Forecasts(ArrayList<TimeSeries.DataSequence> sequences, long bytes) {
+            this.sequences = sequences;
+            this.bytes = bytes;
+        }
+    }
+
+    private static final class Key {
+        private final String metric;
+        private final String models;
+        private final long period;
+        private final long firstTimeStamp;
+        private final long from;
+        private final long to;
+        private final int size;
+        private final long version;
+        private final int hash;
+
+        Key(ModelAdapter ma, Properties config, long from, long to) {
+            this.metric = ma.metric.meta.fileName + "/" + ma.metric.meta.name;
+            this.period = ma.period;
+            this.firstTimeStamp = ma.firstTimeStamp;
+            this.from = from;
+            this.to = to;
+
+            StringBuilder sb = new StringBuilder();
+            for (String name : ma.getModelNames()) {
+                sb.append(name).append('\n');
+            }
+            TreeSet<String> names = new TreeSet<String>(config.stringPropertyNames());
+            for (String ignored : IGNORED_PROPERTIES) {
+                names.remove(ignored);
+            }
+            for (String name : names) {
+                sb.append(name).append('=').append(config.getProperty(name)).append('\n');
+            }
+            this.models = sb.toString();
+
+            TimeSeries.DataSequence data = ma.metric.data;
+            long h = 1125899906842597L;
+            for (TimeSeries.Entry e : data) {
+                h = 31 * h + e.time;
+                h = 31 * h + Float.floatToIntBits(e.value);
+            }
+            this.size = data.size();
+            this.version = h;
+
+            int result = metric.hashCode();
+            result = 31 * result + models.hashCode();
+            result = 31 * result + (int) (version ^ (version >>> 32));
+            result = 31 * result + (int) (from ^ (from >>> 32));
+            result = 31 * result + (int) (to ^ (to >>> 32));
+            this.hash = result;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return hash == other.hash && size == other.size && version == other.version
+                    && period == other.period && firstTimeStamp == other.firstTimeStamp
+                    && from == other.from && to == other.to
+                    && metric.equals(other.metric) && models.equals(other.models);
+        }
+    }
+}
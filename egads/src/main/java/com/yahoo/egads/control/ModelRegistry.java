@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019, Yahoo Inc.
+ * Copyrights licensed under the GPL License.
+ * See the accompanying LICENSE file for terms.
+ */
+
+// Resolves the model names of TS_MODEL and AD_MODEL to factories.
+//
+// The models shipped with EGADS are registered with their constructors, other names
+// are looked up once by reflection in the tsmm and adm packages and then kept.
+// Models registered as reusable return to their constructed state on reset(), so
+// their instances can be reused across time-series (see ProcessableObjectFactory).
+// Most of the openforecast based models keep their training on reset(), so they and
+// the models found by reflection are created anew for every time-series.
+
+package com.yahoo.egads.control;
+
+import java.lang.reflect.Constructor;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import com.yahoo.egads.models.adm.*;
+import com.yahoo.egads.models.tsmm.*;
+
+public class ModelRegistry {
+
+    // Creates a model from the config.
+    public interface Factory<T> {
+        public T create(Properties config) throws Exception;
+    }
+
+    // A factory and whether its models can be reused after reset().
+    public static class Entry<T> {
+        public final Factory<T> factory;
+        public final boolean reusable;
+
+        Entry(Factory<T> factory, boolean reusable) {
+            this.factory = factory;
+            this.reusable = reusable;
+        }
+    }
+
+    private static final Map<String, Entry<TimeSeriesModel>> tsModels = new HashMap<String, Entry<TimeSeriesModel>>();
+    private static final Map<String, Entry<AnomalyDetectionModel>> adModels = new HashMap<String, Entry<AnomalyDetectionModel>>();
+
+    static {
+        registerTSModel("AutoForecastModel", AutoForecastModel::new);
+        registerTSModel("DoubleExponentialSmoothingModel", DoubleExponentialSmoothingModel::new);
+        registerTSModel("FastDoubleExponentialSmoothingModel", FastDoubleExponentialSmoothingModel::new, true);
+        registerTSModel("FastMovingAverageModel", FastMovingAverageModel::new, true);
+        registerTSModel("FastRegressionModel", FastRegressionModel::new, true);
+        registerTSModel("FastSimpleExponentialSmoothingModel", FastSimpleExponentialSmoothingModel::new, true);
+        registerTSModel("FastTripleExponentialSmoothingModel", FastTripleExponentialSmoothingModel::new, true);
+        registerTSModel("MovingAverageModel", MovingAverageModel::new);
+        registerTSModel("MultipleLinearRegressionModel", MultipleLinearRegressionModel::new);
+        registerTSModel("NaiveForecastingModel", NaiveForecastingModel::new);
+        registerTSModel("NullModel", NullModel::new);
+        registerTSModel("OlympicModel", OlympicModel::new);
+        registerTSModel("OlympicModel2", OlympicModel2::new, true);
+        registerTSModel("PolynomialRegressionModel", PolynomialRegressionModel::new);
+        registerTSModel("RegressionModel", RegressionModel::new);
+        registerTSModel("SimpleExponentialSmoothingModel", SimpleExponentialSmoothingModel::new);
+        registerTSModel("SpectralSmoother", SpectralSmoother::new, true);
+        registerTSModel("TripleExponentialSmoothingModel", TripleExponentialSmoothingModel::new);
+        registerTSModel("WeightedMovingAverageModel", WeightedMovingAverageModel::new);
+
+        registerAnomalyModel("AdaptiveKernelDensityChangePointDetector", AdaptiveKernelDensityChangePointDetector::new, true);
+        registerAnomalyModel("DBScanModel", DBScanModel::new, true);
+        registerAnomalyModel("ExtremeLowDensityModel", ExtremeLowDensityModel::new, true);
+        registerAnomalyModel("KSigmaModel", KSigmaModel::new, true);
+        registerAnomalyModel("NaiveModel", NaiveModel::new, true);
+        registerAnomalyModel("SimpleThresholdModel", SimpleThresholdModel::new, true);
+    }
+
+    // Registers a time-series model whose models are not reused.
+    public static void registerTSModel(String name, Factory<TimeSeriesModel> factory) {
+        registerTSModel(name, factory, false);
+    }
+
+    // Registers a time-series model, reusable only if its models return to their constructed state on reset().
+    public static synchronized void registerTSModel(String name, Factory<TimeSeriesModel> factory, boolean reusable) {
+        tsModels.put(name, new Entry<TimeSeriesModel>(factory, reusable));
+    }
+
+    // Registers an anomaly detection model whose models are not reused.
+    public static void registerAnomalyModel(String name, Factory<AnomalyDetectionModel> factory) {
+        registerAnomalyModel(name, factory, false);
+    }
+
+    // Registers an anomaly detection model, reusable only if its models return to their constructed state on reset().
+    public static synchronized void registerAnomalyModel(String name, Factory<AnomalyDetectionModel> factory, boolean reusable) {
+        adModels.put(name, new Entry<AnomalyDetectionModel>(factory, reusable));
+    }
+
+    public static synchronized Entry<TimeSeriesModel> getTSModel(String name) throws Exception {
+        Entry<TimeSeriesModel> entry = tsModels.get(name);
+        if (entry == null) {
+            entry = new Entry<TimeSeriesModel>(reflect("com.yahoo.egads.models.tsmm." + name, TimeSeriesModel.class), false);
+            tsModels.put(name, entry);
+        }
+        return entry;
+    }
+
+    public static synchronized Entry<AnomalyDetectionModel> getAnomalyModel(String name) throws Exception {
+        Entry<AnomalyDetectionModel> entry = adModels.get(name);
+        if (entry == null) {
+            entry = new Entry<AnomalyDetectionModel>(reflect("com.yahoo.egads.models.adm." + name, AnomalyDetectionModel.class), false);
+            adModels.put(name, entry);
+        }
+        return entry;
+    }
+
+    // Looks up the constructor taking the config once.
+    private static <T> Factory<T> reflect(String className, final Class<T> type) throws Exception {
+        final Constructor<?> constructor = Class.forName(className).getConstructor(Properties.class);
+        if (!type.isAssignableFrom(constructor.getDeclaringClass())) {
+            throw new IllegalArgumentException(className + " is not a " + type.getSimpleName());
+        }
+        return config -> type.cast(constructor.newInstance(config));
+    }
+}
@@ -5,12 +5,25 @@
  */
 
 // A factory to create tasks based on the data and the config.
+//
+// The config is resolved once, to the model factories of ModelRegistry and the parsed
+// PERIOD, and resolved again only when it changes. The models of a processed task can
+// be handed back with release() and are then reused by the next tasks of the same
+// config, saving their construction and config parsing for every time-series.
+//
+// Setting FORECAST_CACHE_MB gives the DETECT_ANOMALY and TRANSFORM_INPUT tasks of a
+// config the factory's ForecastCache, sized by the last config setting it. The cache is
+// shared by all such configs, so the detectors of configs differing only in AD_MODEL or
+// OP_TYPE train a series' model once. It is off by default, configs without
+// FORECAST_CACHE_MB neither use nor resize it.
 
 package com.yahoo.egads.control;
 
 import com.yahoo.egads.data.TimeSeries;
 
-import java.lang.reflect.Constructor;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 import com.yahoo.egads.models.adm.*;
@@ -18,77 +31,204 @@ import com.yahoo.egads.models.tsmm.*;
 
 public class ProcessableObjectFactory {
 
+    // The number of idle models kept for reuse.
+    private static final int POOL_SIZE = 16;
+
+    // The last config resolved, with a copy to notice changes to it.
+    private static Properties lastConfig;
+    private static Properties lastConfigCopy;
+    private static ResolvedConfig resolved;
+
+    // Created by the first config setting FORECAST_CACHE_MB above 0.
+    private static ForecastCache forecastCache;
+
+    // Returns the forecast cache shared by the configs setting FORECAST_CACHE_MB, or null.
+    public static synchronized ForecastCache getForecastCache() {
+        return forecastCache;
+    }
+
     public static ProcessableObject create(TimeSeries ts, Properties config) {
         if (config.getProperty("OP_TYPE") == null) {
             throw new IllegalArgumentException("OP_TYPE is NULL");
         }
+        ResolvedConfig rc = resolve(config);
         if (config.getProperty("OP_TYPE").equals("DETECT_ANOMALY")) {
-            ModelAdapter ma = ProcessableObjectFactory.buildTSModel(ts, config);
-            AnomalyDetector ad = ProcessableObjectFactory.buildAnomalyModel(ts, config);
-            return (new DetectAnomalyProcessable(ma, ad, config));
+            ModelAdapter ma = ProcessableObjectFactory.buildTSModel(ts, config, rc);
+            AnomalyDetector ad = ProcessableObjectFactory.buildAnomalyModel(ts, config, rc);
+            return (new DetectAnomalyProcessable(ma, ad, config, rc.forecastCache));
         } else if (config.getProperty("OP_TYPE").equals("UPDATE_MODEL")) {
-            ModelAdapter ma = ProcessableObjectFactory.buildTSModel(ts, config);
+            ModelAdapter ma = ProcessableObjectFactory.buildTSModel(ts, config, rc);
             return (new UpdateModelProcessable(ma, ts.data, config));
         } else if (config.getProperty("OP_TYPE").equals("TRANSFORM_INPUT")) {
-            ModelAdapter ma = ProcessableObjectFactory.buildTSModel(ts, config);
-            return (new TransformInputProcessable(ma, config));
+            ModelAdapter ma = ProcessableObjectFactory.buildTSModel(ts, config, rc);
+            return (new TransformInputProcessable(ma, config, rc.forecastCache));
         }
         // Should not be here.
         System.err.println("Unknown OP_TYPE, returning UPDATE_MODEL ProcessableObject");
-        ModelAdapter ma = ProcessableObjectFactory.buildTSModel(ts, config);
+        ModelAdapter ma = ProcessableObjectFactory.buildTSModel(ts, config, rc);
         return (new UpdateModelProcessable(ma, ts.data, config));
     }
 
-    private static ModelAdapter buildTSModel(TimeSeries ts, Properties config) {
+    // Hands back the models of a processed object for reuse, the object must not be used anymore.
+    public static synchronized void release(ProcessableObject po) {
+        Properties config = null;
         ModelAdapter ma = null;
-        try {
-            Long period = (long) -1;
-            if (config.getProperty("PERIOD") != null) {
-              period = new Long(config.getProperty("PERIOD"));
+        AnomalyDetector ad = null;
+        if (po instanceof DetectAnomalyProcessable) {
+            config = ((DetectAnomalyProcessable) po).getConfig();
+            ma = ((DetectAnomalyProcessable) po).getModelAdapter();
+            ad = ((DetectAnomalyProcessable) po).getAnomalyDetector();
+        } else if (po instanceof TransformInputProcessable) {
+            config = ((TransformInputProcessable) po).getConfig();
+            ma = ((TransformInputProcessable) po).getModelAdapter();
+        } else if (po instanceof UpdateModelProcessable) {
+            config = ((UpdateModelProcessable) po).getConfig();
+            ma = ((UpdateModelProcessable) po).getModelAdapter();
+        }
+        // Models of an older config are dropped.
+        if (resolved == null || config != lastConfig || !config.equals(lastConfigCopy)) {
+            return;
+        }
+        if (ma != null) {
+            for (TimeSeriesModel model : ma.models) {
+                resolved.releaseTSModel(model);
             }
-            if (period == 0) {
-              if (ts.size() > 1) {
-                period = ts.data.get(1).time - ts.data.get(0).time;
-              } else {
-                period = (long) 1;
-              }
+        }
+        if (ad != null) {
+            for (AnomalyDetectionModel model : ad.models) {
+                resolved.releaseAnomalyModel(model);
             }
-            ma = new ModelAdapter(ts, period);
-            String modelType = config.getProperty("TS_MODEL");
+        }
+    }
 
-            Class<?> tsModelClass = Class.forName("com.yahoo.egads.models.tsmm." + modelType);
-            Constructor<?> constructor = tsModelClass.getConstructor(Properties.class);
-            TimeSeriesAbstractModel m = (TimeSeriesAbstractModel) constructor.newInstance(config);
-            ma.addModel(m);
+    private static synchronized ResolvedConfig resolve(Properties config) {
+        if (resolved != null && config == lastConfig && config.equals(lastConfigCopy)) {
+            return resolved;
+        }
+        lastConfig = config;
+        lastConfigCopy = (Properties) config.clone();
+        long cacheMb = 0;
+        if (config.getProperty("FORECAST_CACHE_MB") != null) {
+            cacheMb = new Long(config.getProperty("FORECAST_CACHE_MB"));
+        }
+        if (cacheMb > 0) {
+            if (forecastCache == null) {
+                forecastCache = new ForecastCache(cacheMb << 20);
+            } else {
+                forecastCache.setCapacity(cacheMb << 20);
+            }
+        }
+        resolved = new ResolvedConfig(config, cacheMb > 0 ? forecastCache : null);
+        return resolved;
+    }
+
+    private static ModelAdapter buildTSModel(TimeSeries ts, Properties config, ResolvedConfig rc) {
+        ModelAdapter ma = null;
+        try {
+            ma = new ModelAdapter(ts, rc.period(ts));
+            ma.addModel(rc.acquireTSModel());
         } catch (Exception e) {
             e.printStackTrace();
         }
         return ma;
     }
 
-    private static AnomalyDetector buildAnomalyModel(TimeSeries ts, Properties config) {
+    private static AnomalyDetector buildAnomalyModel(TimeSeries ts, Properties config, ResolvedConfig rc) {
         AnomalyDetector ad = null;
         try {
-            Long period = (long) -1;
+            ad = new AnomalyDetector(ts, rc.period(ts));
+            ad.addModel(rc.acquireAnomalyModel());
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return ad;
+    }
+
+    // The model factories and parsed values of a config, with its idle models.
+    private static class ResolvedConfig {
+        private final Properties config;
+        private final long period;
+        // The factory's cache, null unless FORECAST_CACHE_MB is set above 0.
+        private final ForecastCache forecastCache;
+        private ModelRegistry.Entry<TimeSeriesModel> tsModel;
+        // AD_MODEL is one model or a comma separated list combined by an EnsembleModel.
+        private List<ModelRegistry.Entry<AnomalyDetectionModel>> adModels;
+        private boolean adReusable;
+        private final ArrayDeque<TimeSeriesModel> tsPool = new ArrayDeque<TimeSeriesModel>();
+        private final ArrayDeque<AnomalyDetectionModel> adPool = new ArrayDeque<AnomalyDetectionModel>();
+
+        ResolvedConfig(Properties config, ForecastCache forecastCache) {
+            this.config = config;
+            this.forecastCache = forecastCache;
             if (config.getProperty("PERIOD") != null) {
-              period = new Long(config.getProperty("PERIOD"));
+              this.period = new Long(config.getProperty("PERIOD"));
+            } else {
+              this.period = -1;
             }
+        }
+
+        long period(TimeSeries ts) {
             if (period == 0) {
               if (ts.size() > 1) {
-                period = ts.data.get(1).time - ts.data.get(0).time;
+                return ts.data.get(1).time - ts.data.get(0).time;
               } else {
-                period = (long) 1;
+                return 1;
               }
             }
-            ad = new AnomalyDetector(ts, period);
-            String modelType = config.getProperty("AD_MODEL");
+            return period;
+        }
 
-            Class<?> tsModelClass = Class.forName("com.yahoo.egads.models.adm." + modelType);
-            Constructor<?> constructor = tsModelClass.getConstructor(Properties.class);
-            ad.addModel((AnomalyDetectionAbstractModel) constructor.newInstance(config));
-        } catch (Exception e) {
-            e.printStackTrace();
+        TimeSeriesModel acquireTSModel() throws Exception {
+            synchronized (ProcessableObjectFactory.class) {
+                if (!tsPool.isEmpty()) {
+                    return tsPool.pop();
+                }
+            }
+            if (tsModel == null) {
+                tsModel = ModelRegistry.getTSModel(config.getProperty("TS_MODEL"));
+            }
+            return tsModel.factory.create(config);
+        }
+
+        AnomalyDetectionModel acquireAnomalyModel() throws Exception {
+            synchronized (ProcessableObjectFactory.class) {
+                if (!adPool.isEmpty()) {
+                    return adPool.pop();
+                }
+            }
+            if (adModels == null) {
+                List<ModelRegistry.Entry<AnomalyDetectionModel>> entries = new ArrayList<ModelRegistry.Entry<AnomalyDetectionModel>>();
+                boolean reusable = true;
+                for (String modelType : config.getProperty("AD_MODEL").split(",")) {
+                    ModelRegistry.Entry<AnomalyDetectionModel> entry = ModelRegistry.getAnomalyModel(modelType.trim());
+                    entries.add(entry);
+                    reusable &= entry.reusable;
+                }
+                adReusable = reusable;
+                adModels = entries;
+            }
+            List<AnomalyDetectionModel> models = new ArrayList<AnomalyDetectionModel>();
+            for (ModelRegistry.Entry<AnomalyDetectionModel> entry : adModels) {
+                models.add(entry.factory.create(config));
+            }
+            if (models.size() == 1) {
+                return models.get(0);
+            }
+            return new EnsembleModel(config, models);
+        }
+
+        void releaseTSModel(TimeSeriesModel model) {
+            if (tsModel != null && tsModel.reusable && tsPool.size() < POOL_SIZE) {
+                model.reset();
+                tsPool.push(model);
+            }
+        }
+
+        void releaseAnomalyModel(AnomalyDetectionModel model) {
+            if (adModels != null && adReusable && adPool.size() < POOL_SIZE) {
+                model.reset();
+                adPool.push(model);
+            }
         }
-        return ad;
     }
 }
@@ -16,27 +16,46 @@ import java.util.Properties;
 public class TransformInputProcessable implements ProcessableObject {
     private ModelAdapter ma;
     private Properties config;
+    private ForecastCache forecastCache;
     private List<TimeSeries.DataSequence> forecastDatapointList;
 
     public List<TimeSeries.DataSequence> getForecastDatapointList() {
         return forecastDatapointList;
     }
 
+    ModelAdapter getModelAdapter() {
+        return ma;
+    }
+
+    Properties getConfig() {
+        return config;
+    }
+
     TransformInputProcessable(ModelAdapter ma, Properties config) {
+        this(ma, config, null);
+    }
+
+    TransformInputProcessable(ModelAdapter ma, Properties config, ForecastCache forecastCache) {
         this.ma = ma;
         this.config = config;
+        this.forecastCache = forecastCache;
     }
 
     public void process() throws Exception {
 
-        // Reseting the models
-        ma.reset();
+        if (forecastCache != null) {
+            // Finding the expected values, training the models on a cache miss
+            forecastDatapointList = forecastCache.forecast(ma, config, ma.metric.startTime(), ma.metric.lastTime());
+        } else {
+            // Reseting the models
+            ma.reset();
 
-        // Training the model with the whole metric
-        ma.train();
+            // Training the model with the whole metric
+            ma.train();
 
-        // Finding the expected values
-        forecastDatapointList = ma.forecast(ma.metric.startTime(), ma.metric.lastTime());
+            // Finding the expected values
+            forecastDatapointList = ma.forecast(ma.metric.startTime(), ma.metric.lastTime());
+        }
 
         String[] modelNames = ma.getModelNames();
 
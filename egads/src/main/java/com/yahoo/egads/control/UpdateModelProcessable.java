@@ -23,6 +23,14 @@ public class UpdateModelProcessable implements ProcessableObject {
         this.config = config;
     }
 
+    ModelAdapter getModelAdapter() {
+        return ma;
+    }
+
+    Properties getConfig() {
+        return config;
+    }
+
     public void process() throws Exception {
         this.ma.train();
         this.ma.update(this.newData);
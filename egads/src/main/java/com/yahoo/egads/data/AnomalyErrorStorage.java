@@ -7,12 +7,22 @@
 package com.yahoo.egads.data;
 
 import com.yahoo.egads.data.TimeSeries.DataSequence;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.ArrayList;
 
 public class AnomalyErrorStorage {
 
+    // Indices of the error metrics, the rows of the error matrix.
+    public static final int MAPEE = 0;
+    public static final int MAE = 1;
+    public static final int SMAPE = 2;
+    public static final int MAPE = 3;
+    public static final int MASE = 4;
+    public static final int NUM_ERRORS = 5;
+    private static final String[] ERROR_NAMES = {"mapee", "mae", "smape", "mape", "mase"};
+
     // Denominator used in the MASE error metric.
     protected float maseDenom;
     // Maps error names to error indicies.
@@ -34,47 +44,117 @@ public class AnomalyErrorStorage {
     public AnomalyErrorStorage() {
         // Init error indicies that are filled in computeErrorMetrics method.
         errorToIndex = new HashMap<String, Integer>();
-        errorToIndex.put("mapee", 0);
-        errorToIndex.put("mae", 1);
-        errorToIndex.put("smape", 2);
-        errorToIndex.put("mape", 3);
-        errorToIndex.put("mase", 4);
         indexToError = new HashMap<Integer, String>();
-        indexToError.put(0, "mapee");
-        indexToError.put(1, "mae");
-        indexToError.put(2, "smape");
-        indexToError.put(3, "mape");
-        indexToError.put(4, "mase");
+        for (int i = 0; i < NUM_ERRORS; i++) {
+            errorToIndex.put(ERROR_NAMES[i], i);
+            indexToError.put(i, ERROR_NAMES[i]);
+        }
+    }
+
+    // Resolves thresholds keyed by error name into an array indexed by
+    // error metric holding their absolute values. Metrics without a
+    // threshold are NaN, which never compares as exceeded.
+    public float[] toThresholdArray(Map<String, Float> threshold) {
+        float[] thresholds = new float[NUM_ERRORS];
+        Arrays.fill(thresholds, Float.NaN);
+        for (Map.Entry<String, Float> entry : threshold.entrySet()) {
+            Integer index = errorToIndex.get(entry.getKey());
+            if (index != null) {
+                thresholds[index] = Math.abs(entry.getValue());
+            }
+        }
+        return thresholds;
+    }
+
+    // Boxes an error array for Interval.
+    public static Float[] box(float[] errors) {
+        Float[] boxed = new Float[errors.length];
+        for (int i = 0; i < errors.length; i++) {
+            boxed[i] = errors[i];
+        }
+        return boxed;
+    }
+
+    // Boxes a threshold array for Interval and the logs, unset
+    // thresholds become null.
+    public static Float[] boxThresholds(float[] thresholds) {
+        Float[] boxed = new Float[thresholds.length];
+        for (int i = 0; i < thresholds.length; i++) {
+            boxed[i] = Float.isNaN(thresholds[i]) ? null : thresholds[i];
+        }
+        return boxed;
     }
     
-    // Initializes all anomaly errors.
+    // Initializes all anomaly errors, keyed by error name.
     public HashMap<String, ArrayList<Float>> initAnomalyErrors(DataSequence observedSeries, DataSequence expectedSeries) {        
+        float[][] matrix = computeErrorMatrix(observedSeries, expectedSeries);
+        HashMap<String, ArrayList<Float>> allErrors = new HashMap<String, ArrayList<Float>>();
+        for (int j = 0; j < NUM_ERRORS; j++) {
+            ArrayList<Float> tmp = new ArrayList<Float>(matrix[j].length);
+            for (float e : matrix[j]) {
+                tmp.add(e);
+            }
+            allErrors.put(indexToError.get(j), tmp);
+        }
+        return allErrors;
+    }
+
+    // Initializes all anomaly errors as a matrix with one row per error
+    // metric (see MAPEE, MAE, ...) and one column per point. Each metric
+    // is computed over the whole series in its own loop over primitive
+    // arrays, with the same arithmetic as computeErrorMetrics.
+    public float[][] computeErrorMatrix(DataSequence observedSeries, DataSequence expectedSeries) {
         int n = observedSeries.size();
-        
+        float[] actual = new float[n];
+        float[] expected = new float[n];
+        for (int i = 0; i < n; i++) {
+            actual[i] = observedSeries.get(i).value;
+            expected[i] = expectedSeries.get(i).value;
+        }
+
         // init MASE.
         for (int i = 1; i < n; i++) {
-            maseDenom += Math.abs(observedSeries.get(i).value - observedSeries.get(i - 1).value);
+            maseDenom += Math.abs(actual[i] - actual[i - 1]);
         }
         maseDenom = maseDenom / (n - 1);
-        HashMap<String, ArrayList<Float>> allErrors = new HashMap<String, ArrayList<Float>>();
-        
+        float absMaseDenom = Math.abs(maseDenom);
+
+        float[][] matrix = new float[NUM_ERRORS][n];
+        float[] mapee = matrix[MAPEE];
+        float[] mae = matrix[MAE];
+        float[] smape = matrix[SMAPE];
+        float[] mape = matrix[MAPE];
+        float[] mase = matrix[MASE];
+        for (int i = 0; i < n; i++) {
+            mae[i] = Math.abs(actual[i] - expected[i]);
+        }
+        for (int i = 0; i < n; i++) {
+            float sum = Math.abs(actual[i]) + Math.abs(expected[i]);
+            smape[i] = (200 * mae[i]) / (sum == 0 ? (float) 1.0 : sum);
+        }
         for (int i = 0; i < n; i++) {
-            Float[] errors = computeErrorMetrics(expectedSeries.get(i).value, observedSeries.get(i).value);
-            for (int j = 0; j < errors.length; j++) {
-                if (!allErrors.containsKey(indexToError.get(j))) {
-                    allErrors.put(indexToError.get(j), new ArrayList<Float>());
-                }
-                ArrayList<Float> tmp = allErrors.get(indexToError.get(j));
-                tmp.add(errors[j]);
-                allErrors.put(indexToError.get(j), tmp);
-            }            
+            mape[i] = Math.abs(actual[i]) == 0 ? (float) 0.0 : (100 * mae[i]) / Math.abs(actual[i]);
+        }
+        for (int i = 0; i < n; i++) {
+            mase[i] = absMaseDenom == 0.0 ? (float) 0.0 : mae[i] / absMaseDenom;
+        }
+        for (int i = 0; i < n; i++) {
+            float div = expected[i] == (float) 0.0 ? (float) 0.0000000001 : expected[i];
+            mapee[i] = (expected[i] == actual[i]) ? (float) 0.0 : Math.abs((100 * ((actual[i] / div) - 1)));
         }
         isInit = true;
-        return allErrors;
+        return matrix;
     }
     
     // Computes the standard error metrics including MAE, sMAPE, MAPE, MASE.
     public Float[] computeErrorMetrics(float expected, float actual) {
+        float[] errors = new float[NUM_ERRORS];
+        computeErrorMetrics(expected, actual, errors);
+        return box(errors);
+    }
+
+    // Computes the standard error metrics into errors, indexed by MAPEE, MAE, ...
+    public void computeErrorMetrics(float expected, float actual, float[] errors) {
         float div = expected;
         if (expected == (float) 0.0) {
           div = (float) 0.0000000001;
@@ -92,13 +172,10 @@ public class AnomalyErrorStorage {
         float mapee = (expected == actual) ? (float) 0.0 : Math.abs((100 * ((actual / div) - 1)));
         
         // Store all errors.
-        Float[] errors = new Float[5];
-        errors[0] = mapee;
-        errors[1] = mae;
-        errors[2] = smape;
-        errors[3] = mape;
-        errors[4] = mase;
-        
-        return errors;
+        errors[MAPEE] = mapee;
+        errors[MAE] = mae;
+        errors[SMAPE] = smape;
+        errors[MAPE] = mape;
+        errors[MASE] = mase;
     }
 }
@@ -61,6 +61,17 @@ public abstract class AnomalyDetectionAbstractModel implements AnomalyDetectionM
     	return ret;
     }
     
+    protected String arrayF2S (float[] input) {
+        StringBuilder ret = new StringBuilder();
+        for (int ix = 0; ix < input.length; ix++) {
+            if (ix > 0) {
+                ret.append(':');
+            }
+            ret.append(input[ix]);
+        }
+        return ret.toString();
+    }
+    
     // Parses the THRESHOLD config into a map.
     protected Map<String, Float> parseMap(String s) {
         if (s == null) {
@@ -10,7 +10,6 @@ package com.yahoo.egads.models.adm;
 
 import java.util.Properties;
 import java.util.Map;
-import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
 
@@ -78,7 +77,11 @@ public class DBScanModel extends AnomalyDetectionAbstractModel {
 
     @Override
     public void reset() {
-        // At this point, reset does nothing.
+        // Forget the tuned clusterer.
+        dbscan = null;
+        minPoints = 2;
+        eps = 500;
+        aes = new AnomalyErrorStorage();
     }
 
     @Override
@@ -86,20 +89,11 @@ public class DBScanModel extends AnomalyDetectionAbstractModel {
                      DataSequence expectedSeries,
                      IntervalSequence anomalySequence) throws Exception {
         // Compute the time-series of errors.
-        HashMap<String, ArrayList<Float>> allErrors = aes.initAnomalyErrors(observedSeries, expectedSeries);
-        List<IdentifiedDoublePoint> points = new ArrayList<IdentifiedDoublePoint>();
+        float[][] allErrors = aes.computeErrorMatrix(observedSeries, expectedSeries);
+        List<IdentifiedDoublePoint> points = toPoints(allErrors, observedSeries.size());
         EuclideanDistance ed = new EuclideanDistance();
         int n = observedSeries.size();
         
-        for (int i = 0; i < n; i++) {
-            double[] d = new double[(aes.getIndexToError().keySet()).size()];
-           
-            for (int e = 0; e < (aes.getIndexToError().keySet()).size(); e++) {
-                 d[e] = allErrors.get(aes.getIndexToError().get(e)).get(i);
-            }
-            points.add(new IdentifiedDoublePoint(d, i));
-        }
-        
         double sum = 0.0;
         double count = 0.0;
         for (int i = 0; i < n; i++) {
@@ -120,29 +114,20 @@ public class DBScanModel extends AnomalyDetectionAbstractModel {
         IntervalSequence output = new IntervalSequence();
         int n = observedSeries.size();
         // Get an array of thresholds.
-        Float[] thresholdErrors = new Float[aes.getErrorToIndex().size()];
-        for (Map.Entry<String, Float> entry : this.threshold.entrySet()) {
-            thresholdErrors[aes.getErrorToIndex().get(entry.getKey())] = Math.abs(entry.getValue());
-        }
+        Float[] thresholdErrors = AnomalyErrorStorage.boxThresholds(aes.toThresholdArray(this.threshold));
         
         // Compute the time-series of errors.
-        HashMap<String, ArrayList<Float>> allErrors = aes.initAnomalyErrors(observedSeries, expectedSeries);
-        List<IdentifiedDoublePoint> points = new ArrayList<IdentifiedDoublePoint>();
-        
-        for (int i = 0; i < n; i++) {
-            double[] d = new double[(aes.getIndexToError().keySet()).size()];
-           
-            for (int e = 0; e < (aes.getIndexToError().keySet()).size(); e++) {
-                 d[e] = allErrors.get(aes.getIndexToError().get(e)).get(i);
-            }
-            points.add(new IdentifiedDoublePoint(d, i));
-        }
+        float[][] allErrors = aes.computeErrorMatrix(observedSeries, expectedSeries);
+        List<IdentifiedDoublePoint> points = toPoints(allErrors, n);
         
         List<Cluster<IdentifiedDoublePoint>> cluster = dbscan.cluster(points);
         for(Cluster<IdentifiedDoublePoint> c: cluster) {
             for (IdentifiedDoublePoint p : c.getPoints()) {
             	int i = p.getId();
-                Float[] errors = aes.computeErrorMetrics(expectedSeries.get(p.getId()).value, observedSeries.get(p.getId()).value);
+                Float[] errors = new Float[AnomalyErrorStorage.NUM_ERRORS];
+                for (int e = 0; e < AnomalyErrorStorage.NUM_ERRORS; e++) {
+                    errors[e] = allErrors[e][i];
+                }
                 logger.debug("TS:" + observedSeries.get(i).time + ",E:" + arrayF2S(errors) + ",TE:" + arrayF2S(thresholdErrors) + ",OV:" + observedSeries.get(i).value + ",EV:" + expectedSeries.get(i).value);
                 if (observedSeries.get(p.getId()).value != expectedSeries.get(p.getId()).value &&
                     (isDetectionWindowPoint(maxHrsAgo, windowStart, observedSeries.get(p.getId()).time, observedSeries.get(0).time) ||
@@ -159,4 +144,17 @@ public class DBScanModel extends AnomalyDetectionAbstractModel {
 
         return output;
     }
+
+    // One point per time-stamp with its errors as coordinates.
+    private List<IdentifiedDoublePoint> toPoints(float[][] allErrors, int n) {
+        List<IdentifiedDoublePoint> points = new ArrayList<IdentifiedDoublePoint>(n);
+        for (int i = 0; i < n; i++) {
+            double[] d = new double[AnomalyErrorStorage.NUM_ERRORS];
+            for (int e = 0; e < AnomalyErrorStorage.NUM_ERRORS; e++) {
+                d[e] = allErrors[e][i];
+            }
+            points.add(new IdentifiedDoublePoint(d, i));
+        }
+        return points;
+    }
 }
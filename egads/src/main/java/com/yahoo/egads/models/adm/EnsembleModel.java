@@ -0,0 +1,221 @@
+/*
+ * Copyright 2019, Yahoo Inc.
+ * Copyrights licensed under the GPL License.
+ * See the accompanying LICENSE file for terms.
+ */
+
+// Runs several anomaly detection models on the same residuals and combines their decisions.
+//
+// Models implementing PointAnomalyModel are tuned on one shared error matrix and evaluated
+// in a single pass over the points, computing the error metrics of each point once for all
+// of them. Other models run their own detect() and their anomalies are matched to the
+// points by index.
+//
+// The input parameters:
+//      1. 'AD_COMBINATION' how the decisions are combined at each point (Default ANY).
+//          ANY: an anomaly if any model finds one.
+//          ALL: an anomaly if all the models find one.
+//          VOTE: an anomaly if the weights of the models finding one add up to more than
+//                'AD_VOTE_THRESHOLD' of the total weight.
+//      2. 'AD_WEIGHTS' comma separated weights of the models for VOTE (Default 1 each).
+//      3. 'AD_VOTE_THRESHOLD' the fraction of the total weight to exceed for VOTE (Default 0.5).
+//      4. 'AD_PARALLEL' when set to 1, each PointAnomalyModel scans the points in its own
+//          task instead of all of them in one pass (Default 0).
+//
+// The reported anomaly is the one of the first model, in AD_MODEL order, that found it.
+
+package com.yahoo.egads.models.adm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.IntStream;
+
+import com.yahoo.egads.data.Anomaly.Interval;
+import com.yahoo.egads.data.Anomaly.IntervalSequence;
+import com.yahoo.egads.data.AnomalyErrorStorage;
+import com.yahoo.egads.data.TimeSeries.DataSequence;
+
+import org.json.JSONObject;
+import org.json.JSONStringer;
+
+public class EnsembleModel extends AnomalyDetectionAbstractModel {
+
+    public enum Combination {
+        ANY, ALL, VOTE
+    }
+
+    private List<AnomalyDetectionModel> models;
+    private Combination combination = Combination.ANY;
+    private float[] weights;
+    private float voteThreshold = (float) 0.5;
+    private boolean parallel;
+    public AnomalyErrorStorage aes = new AnomalyErrorStorage();
+
+    public EnsembleModel(Properties config, List<AnomalyDetectionModel> models) {
+        super(config);
+
+        if (models.isEmpty()) {
+            throw new IllegalArgumentException("The ensemble has no models");
+        }
+        this.models = new ArrayList<AnomalyDetectionModel>(models);
+
+        StringBuilder name = new StringBuilder();
+        for (AnomalyDetectionModel model : models) {
+            if (name.length() > 0) {
+                name.append('+');
+            }
+            name.append(model.getModelName());
+        }
+        this.modelName = name.toString();
+
+        if (config.getProperty("AD_COMBINATION") != null) {
+            this.combination = Combination.valueOf(config.getProperty("AD_COMBINATION"));
+        }
+
+        this.weights = new float[models.size()];
+        if (config.getProperty("AD_WEIGHTS") != null) {
+            String[] tokens = config.getProperty("AD_WEIGHTS").split(",");
+            if (tokens.length != models.size()) {
+                throw new IllegalArgumentException("AD_WEIGHTS needs one weight per AD_MODEL");
+            }
+            for (int i = 0; i < tokens.length; i++) {
+                this.weights[i] = new Float(tokens[i].trim());
+            }
+        } else {
+            Arrays.fill(this.weights, 1);
+        }
+
+        if (config.getProperty("AD_VOTE_THRESHOLD") != null) {
+            this.voteThreshold = new Float(config.getProperty("AD_VOTE_THRESHOLD"));
+        }
+        this.parallel = "1".equals(config.getProperty("AD_PARALLEL"));
+    }
+
+    public void toJson(JSONStringer json_out) {
+
+    }
+
+    public void fromJson(JSONObject json_obj) {
+
+    }
+
+    public List<AnomalyDetectionModel> getModels() {
+        return models;
+    }
+
+    @Override
+    public String getType() {
+        return models.get(0).getType();
+    }
+
+    @Override
+    public void reset() {
+        for (AnomalyDetectionModel model : models) {
+            model.reset();
+        }
+        aes = new AnomalyErrorStorage();
+    }
+
+    @Override
+    public void tune(DataSequence observedSeries, DataSequence expectedSeries,
+            IntervalSequence anomalySequence) throws Exception {
+        // The time-series of errors, computed once for all the models.
+        float[][] allErrors = null;
+        for (AnomalyDetectionModel model : models) {
+            if (model instanceof PointAnomalyModel) {
+                if (allErrors == null) {
+                    allErrors = aes.computeErrorMatrix(observedSeries, expectedSeries);
+                }
+                ((PointAnomalyModel) model).tuneOnErrors(observedSeries, expectedSeries, allErrors);
+            } else {
+                model.tune(observedSeries, expectedSeries, anomalySequence);
+            }
+        }
+    }
+
+    @Override
+    public IntervalSequence detect(final DataSequence observedSeries,
+            final DataSequence expectedSeries) throws Exception {
+        final int n = observedSeries.size();
+        int m = models.size();
+
+        // found[j][i] is the anomaly found by model j at point i, if any.
+        final Interval[][] found = new Interval[m][n];
+        final PointAnomalyModel.PointDetector[] detectors = new PointAnomalyModel.PointDetector[m];
+        for (int j = 0; j < m; j++) {
+            AnomalyDetectionModel model = models.get(j);
+            if (model instanceof PointAnomalyModel) {
+                detectors[j] = ((PointAnomalyModel) model).detector(observedSeries, expectedSeries);
+            } else {
+                for (Interval interval : model.detect(observedSeries, expectedSeries)) {
+                    if (interval.index != null && interval.index >= 0 && interval.index < n) {
+                        found[j][interval.index] = interval;
+                    }
+                }
+            }
+        }
+
+        IntervalSequence output = new IntervalSequence();
+        if (parallel) {
+            final float[][] errors = new float[n][AnomalyErrorStorage.NUM_ERRORS];
+            for (int i = 0; i < n; i++) {
+                aes.computeErrorMetrics(expectedSeries.get(i).value, observedSeries.get(i).value, errors[i]);
+            }
+            IntStream.range(0, m).parallel().filter(j -> detectors[j] != null).forEach(j -> {
+                for (int i = 0; i < n; i++) {
+                    found[j][i] = detectors[j].detect(i, errors[i]);
+                }
+            });
+            for (int i = 0; i < n; i++) {
+                Interval interval = combine(found, i);
+                if (interval != null) {
+                    output.add(interval);
+                }
+            }
+        } else {
+            float[] errors = new float[AnomalyErrorStorage.NUM_ERRORS];
+            for (int i = 0; i < n; i++) {
+                aes.computeErrorMetrics(expectedSeries.get(i).value, observedSeries.get(i).value, errors);
+                for (int j = 0; j < m; j++) {
+                    if (detectors[j] != null) {
+                        found[j][i] = detectors[j].detect(i, errors);
+                    }
+                }
+                Interval interval = combine(found, i);
+                if (interval != null) {
+                    output.add(interval);
+                }
+            }
+        }
+        return output;
+    }
+
+    // Returns the anomaly at point i according to the combination rule, or null.
+    private Interval combine(Interval[][] found, int i) {
+        Interval first = null;
+        int count = 0;
+        float votes = 0;
+        float total = 0;
+        for (int j = 0; j < found.length; j++) {
+            total += weights[j];
+            if (found[j][i] != null) {
+                if (first == null) {
+                    first = found[j][i];
+                }
+                count++;
+                votes += weights[j];
+            }
+        }
+
+        switch (combination) {
+            case ALL:
+                return count == found.length ? first : null;
+            case VOTE:
+                return votes > voteThreshold * total ? first : null;
+            default:
+                return first;
+        }
+    }
+}
@@ -11,7 +11,6 @@ package com.yahoo.egads.models.adm;
 import java.util.Properties;
 import java.util.Map;
 import java.util.HashMap;
-import java.util.ArrayList;
 import com.yahoo.egads.data.Anomaly.IntervalSequence;
 import com.yahoo.egads.data.Anomaly.Interval;
 import com.yahoo.egads.data.AnomalyErrorStorage;
@@ -21,11 +20,13 @@ import com.yahoo.egads.utilities.AutoSensitivity;
 import org.json.JSONObject;
 import org.json.JSONStringer;
 
-public class ExtremeLowDensityModel extends AnomalyDetectionAbstractModel {
+public class ExtremeLowDensityModel extends AnomalyDetectionAbstractModel implements PointAnomalyModel {
 
     // The constructor takes a set of properties
     // needed for the simple model. This includes the sensitivity.
     private Map<String, Float> threshold;
+    // The thresholds set by the config, tuning adds the missing ones.
+    private Map<String, Float> configThreshold;
     private int maxHrsAgo;
     private long windowStart;
     // modelName.
@@ -42,11 +43,12 @@ public class ExtremeLowDensityModel extends AnomalyDetectionAbstractModel {
 
         this.windowStart = new Long(config.getProperty("DETECTION_WINDOW_START_TIME"));
 
-        this.threshold = parseMap(config.getProperty("THRESHOLD"));
+        this.configThreshold = parseMap(config.getProperty("THRESHOLD"));
             
-        if (config.getProperty("THRESHOLD") != null && this.threshold.isEmpty() == true) {
+        if (config.getProperty("THRESHOLD") != null && this.configThreshold.isEmpty() == true) {
             throw new IllegalArgumentException("THRESHOLD PARSE ERROR");
         } 
+        this.threshold = new HashMap<String, Float>(configThreshold);
     }
     
     public void toJson(JSONStringer json_out) {
@@ -68,7 +70,9 @@ public class ExtremeLowDensityModel extends AnomalyDetectionAbstractModel {
 
     @Override
     public void reset() {
-        // At this point, reset does nothing.
+        // Forget the tuned thresholds.
+        threshold = new HashMap<String, Float>(configThreshold);
+        aes = new AnomalyErrorStorage();
     }
 
     @Override
@@ -76,26 +80,30 @@ public class ExtremeLowDensityModel extends AnomalyDetectionAbstractModel {
                      DataSequence expectedSeries,
                      IntervalSequence anomalySequence) throws Exception {
         // Compute the time-series of errors.
-        HashMap<String, ArrayList<Float>> allErrors = aes.initAnomalyErrors(observedSeries, expectedSeries);
-        
-        for (int i = 0; i < (aes.getIndexToError().keySet()).size(); i++) {
+        tuneOnErrors(observedSeries, expectedSeries, aes.computeErrorMatrix(observedSeries, expectedSeries));
+    }
+
+    @Override
+    public void tuneOnErrors(DataSequence observedSeries, DataSequence expectedSeries,
+            float[][] allErrors) throws Exception {
+
+        for (int i = 0; i < AnomalyErrorStorage.NUM_ERRORS; i++) {
             // Add a new error metric if the error metric has not been
             // defined by the user.
             if (!threshold.containsKey(aes.getIndexToError().get(i))) {
-                Float[] fArray = (allErrors.get(aes.getIndexToError().get(i))).toArray(new Float[(allErrors.get(aes.getIndexToError().get(i))).size()]);
-                threshold.put(aes.getIndexToError().get(i), AutoSensitivity.getLowDensitySensitivity(fArray, sDAutoSensitivity, amntAutoSensitivity));
+                threshold.put(aes.getIndexToError().get(i), AutoSensitivity.getLowDensitySensitivity(allErrors[i], sDAutoSensitivity, amntAutoSensitivity));
             }
         }
     }
     
     // Returns true this point is identified as a potential anomaly.
-    public boolean isAnomaly(Float[] errors, Map<String, Float> threshold) {
+    // Thresholds are indexed by error metric, see AnomalyErrorStorage.
+    public boolean isAnomaly(float[] errors, float[] threshold) {
         // Cycle through all available thresholds and return
         // true if any of them matches.
-        for (Map.Entry<String, Float> entry : threshold.entrySet()) {
-            // disable mapee and mape.
-            if (aes.getErrorToIndex().containsKey(entry.getKey()) == true &&
-                Math.abs(errors[aes.getErrorToIndex().get(entry.getKey())]) >= Math.abs(entry.getValue())) {
+        for (int i = 0; i < threshold.length; i++) {
+            // Unset thresholds are NaN and never match.
+            if (Math.abs(errors[i]) >= threshold[i]) {
                 return true;
             }
         }
@@ -104,39 +112,56 @@ public class ExtremeLowDensityModel extends AnomalyDetectionAbstractModel {
     
     @Override
     public IntervalSequence detect(DataSequence observedSeries,
-                                   DataSequence expectedSeries) throws Exception {
+            DataSequence expectedSeries) throws Exception {
+        PointDetector detector = detector(observedSeries, expectedSeries);
+        float[] errors = new float[AnomalyErrorStorage.NUM_ERRORS];
+        
+        IntervalSequence output = new IntervalSequence();
+        int n = observedSeries.size();
+        
+        for (int i = 0; i < n; i++) {
+            aes.computeErrorMetrics(expectedSeries.get(i).value, observedSeries.get(i).value, errors);
+            Interval interval = detector.detect(i, errors);
+            if (interval != null) {
+                output.add(interval);
+            }
+        }
+        return output;
+    }
 
+    @Override
+    public PointDetector detector(final DataSequence observedSeries,
+            final DataSequence expectedSeries) {
+        
         // At detection time, the anomaly thresholds shouldn't all be 0.
         Float threshSum = (float) 0.0;
         for (Map.Entry<String, Float> entry : this.threshold.entrySet()) {
             threshSum += Math.abs(entry.getValue());
         }
+        final boolean hasThreshold = threshSum > (float) 0.0;
         
         // Get an array of thresholds.
-        Float[] thresholdErrors = new Float[aes.getErrorToIndex().size()];
-        for (Map.Entry<String, Float> entry : this.threshold.entrySet()) {
-            thresholdErrors[aes.getErrorToIndex().get(entry.getKey())] = Math.abs(entry.getValue());
-        }
+        final float[] thresholds = aes.toThresholdArray(this.threshold);
+        final Float[] thresholdErrors = AnomalyErrorStorage.boxThresholds(thresholds);
+        final int n = observedSeries.size();
         
-        IntervalSequence output = new IntervalSequence();
-        int n = observedSeries.size();
-       
-        for (int i = 0; i < n; i++) {
-            Float[] errors = aes.computeErrorMetrics(expectedSeries.get(i).value, observedSeries.get(i).value);
-            logger.debug("TS:" + observedSeries.get(i).time + ",E:" + arrayF2S(errors) + ",TE:" + arrayF2S(thresholdErrors) + ",OV:" + observedSeries.get(i).value + ",EV:" + expectedSeries.get(i).value);
-			if (observedSeries.get(i).value != expectedSeries.get(i).value &&
-						threshSum > (float) 0.0 &&
-						isAnomaly(errors, threshold) == true &&
-                        (isDetectionWindowPoint(maxHrsAgo, windowStart, observedSeries.get(i).time, observedSeries.get(0).time) ||
-						(maxHrsAgo == 0 && i == (n - 1)))) {
-				    output.add(new Interval(observedSeries.get(i).time,
-				    	i,
-                        errors,
-                        thresholdErrors,
-                        observedSeries.get(i).value,
-                        expectedSeries.get(i).value));
-			}
-        }
-        return output;
+        return (i, errors) -> {
+            if (logger.isDebugEnabled()) {
+                logger.debug("TS:" + observedSeries.get(i).time + ",E:" + arrayF2S(errors) + ",TE:" + arrayF2S(thresholdErrors) + ",OV:" + observedSeries.get(i).value + ",EV:" + expectedSeries.get(i).value);
+            }
+            if (observedSeries.get(i).value != expectedSeries.get(i).value &&
+                hasThreshold &&
+                isAnomaly(errors, thresholds) == true &&
+                (isDetectionWindowPoint(maxHrsAgo, windowStart, observedSeries.get(i).time, observedSeries.get(0).time) ||
+                (maxHrsAgo == 0 && i == (n - 1)))) {
+                return new Interval(observedSeries.get(i).time,
+                                    i,
+                                    AnomalyErrorStorage.box(errors),
+                                    thresholdErrors,
+                                    observedSeries.get(i).value,
+                                    expectedSeries.get(i).value);
+            }
+            return null;
+        };
     }
 }
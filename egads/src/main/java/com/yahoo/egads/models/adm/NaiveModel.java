@@ -76,7 +76,8 @@ public class NaiveModel extends AnomalyDetectionAbstractModel {
 
     @Override
     public void reset() {
-        // At this point, reset does nothing.
+        // Only the error storage changes after construction.
+        aes = new AnomalyErrorStorage();
     }
 
     @Override
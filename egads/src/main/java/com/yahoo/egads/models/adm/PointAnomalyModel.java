@@ -0,0 +1,34 @@
+/*
+ * Copyright 2019, Yahoo Inc.
+ * Copyrights licensed under the GPL License.
+ * See the accompanying LICENSE file for terms.
+ */
+
+// interface for anomaly detection models that decide point by point from the error
+// metrics of AnomalyErrorStorage, so that several of them can share the errors and
+// run in a single pass over the residuals (see EnsembleModel).
+
+package com.yahoo.egads.models.adm;
+
+import com.yahoo.egads.data.Anomaly;
+import com.yahoo.egads.data.TimeSeries;
+
+public interface PointAnomalyModel extends AnomalyDetectionModel {
+
+    // Scans the points of one detection.
+    public interface PointDetector {
+        // returns the anomaly at point i or null, errors holds the error
+        // metrics of the point indexed as in AnomalyErrorStorage.
+        public Anomaly.Interval detect(int i, float[] errors);
+    }
+
+    // tune the anomaly detection parameters from the errors computed
+    // by AnomalyErrorStorage.computeErrorMatrix.
+    public void tuneOnErrors(TimeSeries.DataSequence observedSeries,
+            TimeSeries.DataSequence expectedSeries,
+            float[][] errors) throws Exception;
+
+    // returns a detector for the points of the given series.
+    public PointDetector detector(TimeSeries.DataSequence observedSeries,
+            TimeSeries.DataSequence expectedSeries);
+}
@@ -21,11 +21,13 @@ import java.util.HashMap;
 import org.json.JSONObject;
 import org.json.JSONStringer;
 
-public class SimpleThresholdModel extends AnomalyDetectionAbstractModel {
+public class SimpleThresholdModel extends AnomalyDetectionAbstractModel implements PointAnomalyModel {
 
     // The constructor takes a set of properties
     // needed for the simple model. This includes the sensitivity.
     private Map<String, Float> threshold;
+    // The thresholds set by the config, tuning adds the missing ones.
+    private Map<String, Float> configThreshold;
     private int maxHrsAgo;
     private long windowStart;
     // Model name.
@@ -35,12 +37,13 @@ public class SimpleThresholdModel extends AnomalyDetectionAbstractModel {
     public SimpleThresholdModel(Properties config) {
         super(config);
         
-        this.threshold = parseMap(config.getProperty("THRESHOLD"));
+        this.configThreshold = parseMap(config.getProperty("THRESHOLD"));
         this.maxHrsAgo = new Integer(config.getProperty("MAX_ANOMALY_TIME_AGO"));
         this.windowStart = new Long(config.getProperty("DETECTION_WINDOW_START_TIME"));
-        if (config.getProperty("THRESHOLD") != null && this.threshold.isEmpty() == true) {
+        if (config.getProperty("THRESHOLD") != null && this.configThreshold.isEmpty() == true) {
             throw new IllegalArgumentException("THRESHOLD PARSE ERROR");
         } 
+        this.threshold = new HashMap<String, Float>(configThreshold);
         if (config.getProperty("SIMPLE_THRESHOLD_TYPE") != null) {
             simpleThrType = config.getProperty("SIMPLE_THRESHOLD_TYPE");
         }
@@ -65,6 +68,8 @@ public class SimpleThresholdModel extends AnomalyDetectionAbstractModel {
 
     @Override
     public void reset() {
+        // Forget the tuned thresholds.
+        threshold = new HashMap<String, Float>(configThreshold);
     }
 
     @Override
@@ -84,25 +89,46 @@ public class SimpleThresholdModel extends AnomalyDetectionAbstractModel {
         }
     }
 
+    @Override
+    public void tuneOnErrors(DataSequence observedSeries, DataSequence expectedSeries,
+            float[][] errors) throws Exception {
+        // The thresholds only depend on the observed values.
+        tune(observedSeries, expectedSeries, null);
+    }
+
     @Override
     public IntervalSequence detect(DataSequence observedSeries,
             DataSequence expectedSeries) throws Exception {
+        PointDetector detector = detector(observedSeries, expectedSeries);
         IntervalSequence output = new IntervalSequence();
-        Float[] thr = new Float[] {threshold.get("max"), threshold.get("min")};
         int n = observedSeries.size();
         for (int i = 0; i < n; i++) {
+            Interval interval = detector.detect(i, null);
+            if (interval != null) {
+                output.add(interval);
+            }
+        }
+
+        return output;
+    }
+
+    @Override
+    public PointDetector detector(final DataSequence observedSeries,
+            final DataSequence expectedSeries) {
+        final Float[] thr = new Float[] {threshold.get("max"), threshold.get("min")};
+        final int n = observedSeries.size();
+        return (i, errors) -> {
             TimeSeries.Entry entry = observedSeries.get(i);
             
             if (((thr[0] != null && entry.value >= thr[0]) || (thr[1] != null && entry.value <= thr[1])) &&
                 (isDetectionWindowPoint(maxHrsAgo, windowStart, entry.time, observedSeries.get(0).time) || (maxHrsAgo == 0 && i == (n - 1)))) {
                 if (thr[0] != null && entry.value >= thr[0]) {
-                    output.add(new Interval(entry.time, i, null, thr, entry.value, thr[0]));
+                    return new Interval(entry.time, i, null, thr, entry.value, thr[0]);
                 } else {
-                    output.add(new Interval(entry.time, i, null, thr, entry.value, thr[1]));
+                    return new Interval(entry.time, i, null, thr, entry.value, thr[1]);
                 }
             }
-        }
-
-        return output;
+            return null;
+        };
     }
 }
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2019, Yahoo Inc.
+ * Copyrights licensed under the GPL License.
+ * See the accompanying LICENSE file for terms.
+ */
+package com.yahoo.egads.models.tsmm;
+
+import java.util.Properties;
+
+/**
+ * Double (Holt) exponential smoothing on primitive arrays, a drop-in
+ * replacement for {@link DoubleExponentialSmoothingModel}. The forecast of
+ * a point is the level plus the trend of the points before it:
+ * <pre>
+ * S(t) = alpha * X(t) + (1 - alpha) * (S(t-1) + b(t-1))
+ * b(t) = gamma * (S(t) - S(t-1)) + (1 - gamma) * b(t-1)
+ * F(t+1) = S(t) + b(t)
+ * </pre>
+ * with S(0) = X(0) and b(0) = 0.
+ * <p>
+ * <b>Properties</b>
+ * <ul>
+ * <li>SMOOTHING_ALPHA - The level weight. Defaults to 0.75.</li>
+ * <li>SMOOTHING_GAMMA - The trend weight. Defaults to 0.1.</li>
+ * </ul>
+ * See {@link FastForecastModel} for the parameter optimization properties.
+ */
+public class FastDoubleExponentialSmoothingModel extends FastForecastModel {
+
+    public FastDoubleExponentialSmoothingModel(Properties config) {
+        super(config, new String[] {"SMOOTHING_ALPHA", "SMOOTHING_GAMMA"},
+                new double[] {0.75, 0.1});
+        modelName = "FastDoubleExponentialSmoothingModel";
+    }
+
+    @Override
+    protected Forecaster newForecaster(double[] parameters) {
+        final double alpha = parameters[0];
+        final double gamma = parameters[1];
+        return new Forecaster() {
+            private boolean started;
+            private double level;
+            private double trend;
+
+            @Override
+            public float step(float value) {
+                if (!started) {
+                    started = true;
+                    level = value;
+                    return value;
+                }
+                double forecast = level + trend;
+                double previous = level;
+                level = alpha * value + (1.0 - alpha) * forecast;
+                trend = gamma * (level - previous) + (1.0 - gamma) * trend;
+                return (float) forecast;
+            }
+        };
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2019, Yahoo Inc.
+ * Copyrights licensed under the GPL License.
+ * See the accompanying LICENSE file for terms.
+ */
+package com.yahoo.egads.models.tsmm;
+
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.json.JSONObject;
+import org.json.JSONStringer;
+
+import com.yahoo.egads.data.TimeSeries;
+import com.yahoo.egads.data.TimeSeries.Entry;
+
+/**
+ * Base class for forecast models that work directly on primitive arrays
+ * instead of converting the series into an openforecast DataSet.
+ * <p>
+ * A model is a {@link Forecaster} fed one point at a time: it returns the
+ * one-step-ahead forecast of the point from the points before it, then
+ * absorbs the point. Training runs the forecaster over the series and
+ * {@link #update(TimeSeries.DataSequence)} keeps feeding it, so updates
+ * cost O(1) per point and give the same model as training on all the data.
+ * The forecast errors are kept as running sums for the same reason.
+ * <p>
+ * <b>Properties</b>
+ * <ul>
+ * <li>OPTIMIZE_PARAMETERS - How to tune the model's smoothing weights on
+ * the training data by minimizing the squared one-step-ahead errors. One
+ * of NONE, GRID (a parallel grid search) or NELDER_MEAD (a simplex search
+ * started from the configured weights). Defaults to NONE.</li>
+ *
+ * <li>OPTIMIZE_GRID_STEPS - The number of grid points per weight for the
+ * GRID search. Defaults to 10.</li>
+ * </ul>
+ */
+public abstract class FastForecastModel extends TimeSeriesAbstractModel {
+
+    /**
+     * Produces one-step-ahead forecasts one point at a time. Instances
+     * hold the model state so they are not shared between threads.
+     */
+    protected interface Forecaster {
+        /**
+         * Forecasts the value from the previous points, then adds it.
+         * @param value The next value of the series.
+         * @return The forecast of the value.
+         */
+        float step(float value);
+    }
+
+    /** The smoothing weights, in [0, 1]. Empty if the model has none. */
+    protected double[] parameters;
+
+    /** The configured weights, restored on reset. */
+    private final double[] initialParameters;
+
+    /** How to tune the weights on the training data. */
+    protected final String optimizer;
+
+    /** The number of grid points per weight for the GRID search. */
+    protected final int gridSteps;
+
+    /** The training and update points and their forecasts. */
+    protected long[] times = new long[0];
+    protected float[] values = new float[0];
+    protected float[] fitted = new float[0];
+    protected int size;
+
+    private transient Forecaster forecaster;
+
+    // Running sums of the forecast errors.
+    private double sumErr;
+    private double sumAbsErr;
+    private double sumAbsPercentErr;
+    private double sumErrSquared;
+
+    /**
+     * Default Ctor
+     * @param config A non-null properties map.
+     * @param names The properties holding the smoothing weights.
+     * @param defaults The weights to use when a property is not set.
+     * @throws IllegalArgumentException if an option is not valid.
+     * @throws NumberFormatException if a numeric property could not be parsed.
+     */
+    protected FastForecastModel(final Properties config, final String[] names,
+            final double[] defaults) {
+        super(config);
+
+        parameters = new double[names.length];
+        for (int i = 0; i < names.length; i++) {
+            String temp = config.getProperty(names[i]);
+            parameters[i] = temp == null || temp.isEmpty() ? defaults[i]
+                    : Double.parseDouble(temp);
+            if (parameters[i] < 0 || parameters[i] > 1) {
+                throw new IllegalArgumentException(names[i]
+                        + " must be between 0 and 1: " + parameters[i]);
+            }
+        }
+        initialParameters = parameters.clone();
+
+        String temp = config.getProperty("OPTIMIZE_PARAMETERS", "NONE")
+                .toUpperCase();
+        if (!(temp.equals("NONE") || temp.equals("GRID")
+                || temp.equals("NELDER_MEAD"))) {
+            throw new IllegalArgumentException("The parameter optimizer was"
+                    + " not implemented: " + temp);
+        }
+        optimizer = temp;
+        gridSteps = Integer.parseInt(config.getProperty(
+                "OPTIMIZE_GRID_STEPS", "10"));
+    }
+
+    /**
+     * Creates a forecaster with no points seen yet.
+     * @param parameters The smoothing weights to use.
+     * @return A new forecaster.
+     */
+    protected abstract Forecaster newForecaster(double[] parameters);
+
+    public void reset() {
+        // Tuning starts over from the configured weights.
+        parameters = initialParameters.clone();
+        forecaster = null;
+        size = 0;
+        sumErr = 0.0;
+        sumAbsErr = 0.0;
+        sumAbsPercentErr = 0.0;
+        sumErrSquared = 0.0;
+        resetErrors();
+    }
+
+    public void train(TimeSeries.DataSequence data) {
+        reset();
+        int n = data.size();
+        ensureCapacity(n);
+        for (int i = 0; i < n; i++) {
+            times[i] = data.get(i).time;
+            values[i] = data.get(i).value;
+        }
+        if (parameters.length > 0 && n > 0 && !optimizer.equals("NONE")) {
+            parameters = optimize(values, n);
+        }
+
+        forecaster = newForecaster(parameters);
+        for (int i = 0; i < n; i++) {
+            add(i);
+        }
+        size = n;
+        updateErrors();
+
+        logger.debug(getBias() + "\t" + getMAD() + "\t" + getMAPE() + "\t" + getMSE() + "\t" + getSAE() + "\t" + 0 + "\t" + 0);
+    }
+
+    public void update(TimeSeries.DataSequence data) {
+        if (forecaster == null) {
+            train(data);
+            return;
+        }
+        int n = data.size();
+        ensureCapacity(size + n);
+        for (int i = 0; i < n; i++) {
+            times[size] = data.get(i).time;
+            values[size] = data.get(i).value;
+            add(size);
+            size++;
+        }
+        updateErrors();
+    }
+
+    public void predict(TimeSeries.DataSequence sequence) throws Exception {
+        for (int i = 0; i < size; i++) {
+            sequence.set(i, new Entry(times[i], fitted[i]));
+        }
+    }
+
+    public void toJson(JSONStringer json_out) {
+
+    }
+
+    public void fromJson(JSONObject json_obj) {
+
+    }
+
+    /** @return The smoothing weights used by the model. */
+    public double[] getParameters() {
+        return parameters.clone();
+    }
+
+    /**
+     * Runs a new forecaster over the values.
+     * @param values The series.
+     * @param n The number of values to use.
+     * @param parameters The smoothing weights.
+     * @return The sum of the squared one-step-ahead errors.
+     */
+    protected double squaredErrors(final float[] values, final int n,
+            final double[] parameters) {
+        Forecaster f = newForecaster(parameters);
+        double sum = 0.0;
+        for (int i = 0; i < n; i++) {
+            double error = f.step(values[i]) - values[i];
+            sum += error * error;
+        }
+        return sum;
+    }
+
+    /**
+     * Finds the smoothing weights minimizing the squared one-step-ahead
+     * errors over the training values.
+     * @param values The training values.
+     * @param n The number of values to use.
+     * @return The tuned weights.
+     */
+    protected double[] optimize(final float[] values, final int n) {
+        ParameterSearch.Objective objective = new ParameterSearch.Objective() {
+            @Override
+            public double evaluate(double[] point) {
+                return squaredErrors(values, n, point);
+            }
+        };
+        if (optimizer.equals("GRID")) {
+            return ParameterSearch.grid(objective, parameters.length, gridSteps);
+        }
+        return ParameterSearch.nelderMead(objective, parameters);
+    }
+
+    private void add(int i) {
+        fitted[i] = forecaster.step(values[i]);
+        // Same error arithmetic as initForecastErrors.
+        double error = fitted[i] - values[i];
+        sumErr += error;
+        sumAbsErr += Math.abs(error);
+        sumAbsPercentErr += Math.abs(error / values[i]);
+        sumErrSquared += error * error;
+    }
+
+    private void updateErrors() {
+        this.bias = sumErr / size;
+        this.mad = sumAbsErr / size;
+        this.mape = sumAbsPercentErr / size;
+        this.mse = sumErrSquared / size;
+        this.sae = sumAbsErr;
+        errorsInit = true;
+    }
+
+    private void ensureCapacity(int n) {
+        if (n <= values.length) {
+            return;
+        }
+        int capacity = Math.max(n, values.length * 2);
+        times = Arrays.copyOf(times, capacity);
+        values = Arrays.copyOf(values, capacity);
+        fitted = Arrays.copyOf(fitted, capacity);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019, Yahoo Inc.
+ * Copyrights licensed under the GPL License.
+ * See the accompanying LICENSE file for terms.
+ */
+package com.yahoo.egads.models.tsmm;
+
+import java.util.Properties;
+
+/**
+ * Moving average on primitive arrays, a drop-in replacement for
+ * {@link MovingAverageModel}. The forecast of a point is the mean of the
+ * window of points before it, kept in a ring buffer with a running sum so
+ * each point costs O(1). Until the window fills up the mean of the
+ * available points is used, and the first point forecasts itself.
+ * <p>
+ * <b>Properties</b>
+ * <ul>
+ * <li>MOVING_AVERAGE_WINDOW - The number of points averaged. Defaults to 2.</li>
+ * </ul>
+ */
+public class FastMovingAverageModel extends FastForecastModel {
+
+    /** The number of points averaged. */
+    protected final int window;
+
+    public FastMovingAverageModel(Properties config) {
+        super(config, new String[0], new double[0]);
+        modelName = "FastMovingAverageModel";
+        window = Integer.parseInt(config.getProperty("MOVING_AVERAGE_WINDOW", "2"));
+        if (window < 1) {
+            throw new IllegalArgumentException("MOVING_AVERAGE_WINDOW must be positive: "
+                    + window);
+        }
+    }
+
+    @Override
+    protected Forecaster newForecaster(double[] parameters) {
+        final int k = window;
+        return new Forecaster() {
+            private final float[] ring = new float[k];
+            private int head;
+            private int count;
+            private double sum;
+
+            @Override
+            public float step(float value) {
+                float forecast = count == 0 ? value : (float) (sum / count);
+                if (count == k) {
+                    sum -= ring[head];
+                } else {
+                    count++;
+                }
+                ring[head] = value;
+                head = (head + 1) % k;
+                sum += value;
+                if (head == 0) {
+                    // Resum once per window so rounding errors do not drift.
+                    sum = 0.0;
+                    for (int i = 0; i < count; i++) {
+                        sum += ring[i];
+                    }
+                }
+                return forecast;
+            }
+        };
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2019, Yahoo Inc.
+ * Copyrights licensed under the GPL License.
+ * See the accompanying LICENSE file for terms.
+ */
+package com.yahoo.egads.models.tsmm;
+
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.json.JSONObject;
+import org.json.JSONStringer;
+
+import com.yahoo.egads.data.TimeSeries;
+import com.yahoo.egads.data.TimeSeries.Entry;
+
+/**
+ * Linear regression of the values on their index, on primitive arrays, a
+ * drop-in replacement for {@link RegressionModel}. The means and
+ * co-moments are updated per point (Welford), so an update costs O(1).
+ * As with the openforecast model every point is forecast by the final
+ * line, so the forecast errors are recomputed lazily when they are read.
+ */
+public class FastRegressionModel extends TimeSeriesAbstractModel {
+
+    /** The training and update points. */
+    protected long[] times = new long[0];
+    protected float[] values = new float[0];
+    protected int size;
+
+    // Running means and co-moments of the index and the values.
+    private double meanX;
+    private double meanY;
+    private double sxx;
+    private double sxy;
+
+    private boolean errorsStale;
+
+    public FastRegressionModel(Properties config) {
+        super(config);
+        modelName = "FastRegressionModel";
+    }
+
+    public void reset() {
+        size = 0;
+        meanX = 0.0;
+        meanY = 0.0;
+        sxx = 0.0;
+        sxy = 0.0;
+        resetErrors();
+        errorsStale = false;
+    }
+
+    public void train(TimeSeries.DataSequence data) {
+        reset();
+        update(data);
+
+        logger.debug(getBias() + "\t" + getMAD() + "\t" + getMAPE() + "\t" + getMSE() + "\t" + getSAE() + "\t" + 0 + "\t" + 0);
+    }
+
+    public void update(TimeSeries.DataSequence data) {
+        int n = data.size();
+        if (size + n > values.length) {
+            int capacity = Math.max(size + n, values.length * 2);
+            times = Arrays.copyOf(times, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        for (int i = 0; i < n; i++) {
+            float value = data.get(i).value;
+            times[size] = data.get(i).time;
+            values[size] = value;
+            size++;
+
+            double dx = size - 1 - meanX;
+            meanX += dx / size;
+            meanY += (value - meanY) / size;
+            sxx += dx * (size - 1 - meanX);
+            sxy += dx * (value - meanY);
+        }
+        errorsStale = size > 0;
+    }
+
+    /** @return The slope of the regression line. */
+    public double getSlope() {
+        return sxx == 0.0 ? 0.0 : sxy / sxx;
+    }
+
+    /** @return The value of the regression line at index 0. */
+    public double getIntercept() {
+        return meanY - getSlope() * meanX;
+    }
+
+    /**
+     * Forecasts the value at an index of the series.
+     * @param index The index, 0 being the first training point.
+     * @return The forecast.
+     */
+    public double forecast(double index) {
+        return getIntercept() + getSlope() * index;
+    }
+
+    public void predict(TimeSeries.DataSequence sequence) throws Exception {
+        double slope = getSlope();
+        double intercept = getIntercept();
+        for (int i = 0; i < size; i++) {
+            sequence.set(i, new Entry(times[i], (float) (intercept + slope * i)));
+        }
+    }
+
+    public void toJson(JSONStringer json_out) {
+
+    }
+
+    public void fromJson(JSONObject json_obj) {
+
+    }
+
+    @Override
+    public double getBias() {
+        refreshErrors();
+        return super.getBias();
+    }
+
+    @Override
+    public double getMAD() {
+        refreshErrors();
+        return super.getMAD();
+    }
+
+    @Override
+    public double getMAPE() {
+        refreshErrors();
+        return super.getMAPE();
+    }
+
+    @Override
+    public double getMSE() {
+        refreshErrors();
+        return super.getMSE();
+    }
+
+    @Override
+    public double getSAE() {
+        refreshErrors();
+        return super.getSAE();
+    }
+
+    private void refreshErrors() {
+        if (!errorsStale) {
+            return;
+        }
+        double slope = getSlope();
+        double intercept = getIntercept();
+        double sumErr = 0.0;
+        double sumAbsErr = 0.0;
+        double sumAbsPercentErr = 0.0;
+        double sumErrSquared = 0.0;
+        for (int i = 0; i < size; i++) {
+            double error = intercept + slope * i - values[i];
+            sumErr += error;
+            sumAbsErr += Math.abs(error);
+            sumAbsPercentErr += Math.abs(error / values[i]);
+            sumErrSquared += error * error;
+        }
+        this.bias = sumErr / size;
+        this.mad = sumAbsErr / size;
+        this.mape = sumAbsPercentErr / size;
+        this.mse = sumErrSquared / size;
+        this.sae = sumAbsErr;
+        errorsInit = true;
+        errorsStale = false;
+    }
+}
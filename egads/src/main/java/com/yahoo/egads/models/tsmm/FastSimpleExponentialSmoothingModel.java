@@ -0,0 +1,49 @@
+/*
+ * Copyright 2019, Yahoo Inc.
+ * Copyrights licensed under the GPL License.
+ * See the accompanying LICENSE file for terms.
+ */
+package com.yahoo.egads.models.tsmm;
+
+import java.util.Properties;
+
+/**
+ * Simple exponential smoothing on primitive arrays, a drop-in replacement
+ * for {@link SimpleExponentialSmoothingModel}. The forecast of a point is
+ * the smoothed level of the points before it:
+ * F(t+1) = alpha * X(t) + (1 - alpha) * F(t), with F(0) = X(0).
+ * <p>
+ * <b>Properties</b>
+ * <ul>
+ * <li>SMOOTHING_ALPHA - The level weight. Defaults to 0.75.</li>
+ * </ul>
+ * See {@link FastForecastModel} for the parameter optimization properties.
+ */
+public class FastSimpleExponentialSmoothingModel extends FastForecastModel {
+
+    public FastSimpleExponentialSmoothingModel(Properties config) {
+        super(config, new String[] {"SMOOTHING_ALPHA"}, new double[] {0.75});
+        modelName = "FastSimpleExponentialSmoothingModel";
+    }
+
+    @Override
+    protected Forecaster newForecaster(double[] parameters) {
+        final double alpha = parameters[0];
+        return new Forecaster() {
+            private boolean started;
+            private double level;
+
+            @Override
+            public float step(float value) {
+                if (!started) {
+                    started = true;
+                    level = value;
+                    return value;
+                }
+                double forecast = level;
+                level = alpha * value + (1.0 - alpha) * level;
+                return (float) forecast;
+            }
+        };
+    }
+}
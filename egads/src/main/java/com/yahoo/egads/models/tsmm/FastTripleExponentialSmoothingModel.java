@@ -0,0 +1,89 @@
+/*
+ * Copyright 2019, Yahoo Inc.
+ * Copyrights licensed under the GPL License.
+ * See the accompanying LICENSE file for terms.
+ */
+package com.yahoo.egads.models.tsmm;
+
+import java.util.Properties;
+
+/**
+ * Additive triple (Holt-Winters) exponential smoothing on primitive arrays,
+ * a drop-in replacement for {@link TripleExponentialSmoothingModel}.
+ * <pre>
+ * S(t) = alpha * (X(t) - I(t-L)) + (1 - alpha) * (S(t-1) + b(t-1))
+ * b(t) = beta * (S(t) - S(t-1)) + (1 - beta) * b(t-1)
+ * I(t) = gamma * (X(t) - S(t)) + (1 - gamma) * I(t-L)
+ * F(t+1) = S(t) + b(t) + I(t+1-L)
+ * </pre>
+ * The first season initializes the model: its points are forecast by the
+ * previous point, then the level is set to their mean, the trend to zero
+ * and the seasonal indices to their deviations from the mean.
+ * <p>
+ * <b>Properties</b>
+ * <ul>
+ * <li>SMOOTHING_ALPHA - The level weight. Defaults to 0.75.</li>
+ * <li>SMOOTHING_BETA - The trend weight. Defaults to 0.001.</li>
+ * <li>SMOOTHING_GAMMA - The seasonal weight. Defaults to 0.001.</li>
+ * <li>SEASONAL_PERIOD - The number of points in a season. Defaults to 12.</li>
+ * </ul>
+ * See {@link FastForecastModel} for the parameter optimization properties.
+ */
+public class FastTripleExponentialSmoothingModel extends FastForecastModel {
+
+    /** The number of points in a season. */
+    protected final int seasonalPeriod;
+
+    public FastTripleExponentialSmoothingModel(Properties config) {
+        super(config, new String[] {"SMOOTHING_ALPHA", "SMOOTHING_BETA", "SMOOTHING_GAMMA"},
+                new double[] {0.75, 0.001, 0.001});
+        modelName = "FastTripleExponentialSmoothingModel";
+        seasonalPeriod = Integer.parseInt(config.getProperty("SEASONAL_PERIOD", "12"));
+        if (seasonalPeriod < 1) {
+            throw new IllegalArgumentException("SEASONAL_PERIOD must be positive: "
+                    + seasonalPeriod);
+        }
+    }
+
+    @Override
+    protected Forecaster newForecaster(double[] parameters) {
+        final double alpha = parameters[0];
+        final double beta = parameters[1];
+        final double gamma = parameters[2];
+        final int period = seasonalPeriod;
+        return new Forecaster() {
+            private final double[] seasonal = new double[period];
+            private long count;
+            private float previous;
+            private double level;
+            private double trend;
+
+            @Override
+            public float step(float value) {
+                int index = (int) (count % period);
+                if (count < period) {
+                    float forecast = count == 0 ? value : previous;
+                    seasonal[index] = value;
+                    level += value;
+                    previous = value;
+                    count++;
+                    if (count == period) {
+                        level /= period;
+                        for (int i = 0; i < period; i++) {
+                            seasonal[i] -= level;
+                        }
+                    }
+                    return forecast;
+                }
+                double season = seasonal[index];
+                double forecast = level + trend + season;
+                double last = level;
+                level = alpha * (value - season) + (1.0 - alpha) * (level + trend);
+                trend = beta * (level - last) + (1.0 - beta) * trend;
+                seasonal[index] = gamma * (value - level) + (1.0 - gamma) * season;
+                count++;
+                return (float) forecast;
+            }
+        };
+    }
+}
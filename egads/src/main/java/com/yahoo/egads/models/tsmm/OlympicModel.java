@@ -14,7 +14,6 @@ import com.yahoo.egads.data.TimeSeries.Entry;
 
 import java.util.Properties;
 import java.util.ArrayList;
-import java.util.Collections;
 
 import com.yahoo.egads.utilities.FileUtils;
 
@@ -62,6 +61,9 @@ public class OlympicModel extends TimeSeriesAbstractModel {
     
     // The actual model that stores the expectations.
     protected ArrayList<Float> model;
+    // Trailing samples and expected values used to train and update
+    // the model, rebuilt from the data when needed.
+    private transient TrailingSamples engine;
     
     public OlympicModel(Properties config) {
         super(config);
@@ -91,15 +93,68 @@ public class OlympicModel extends TimeSeriesAbstractModel {
     }
 
     public void train(TimeSeries.DataSequence data) {
-        this.data = data;
-        
-        int n = data.size();
+        // Keep our own sequence so update() can append to it.
+        this.data = new TimeSeries.DataSequence(data.size());
+        this.data.addAll(data);
         
         java.util.Arrays.sort(baseWindows);
         java.util.Arrays.sort(timeShifts);
+        
+        model.clear();
+        engine = new TrailingSamples();
+        engine.append(this.data, 0);
+        computeModel(0);
+        
+        initForecastErrors(model, this.data);
+        
+        logger.debug(getBias() + "\t" + getMAD() + "\t" + getMAPE() + "\t" + getMSE() + "\t" + getSAE() + "\t" + 0 + "\t" + 0);
+    }
+
+    // Appends the new points to the model. The expected values of the
+    // existing points are kept, only the last points whose time-shifted
+    // windows reach into the new data are recomputed, so the model is
+    // the same as if it had been trained on all the data at once.
+    public void update(TimeSeries.DataSequence data) {
+        if (this.data == null) {
+            train(data);
+            return;
+        }
+        if (data.size() == 0) {
+            return;
+        }
+        if (engine == null) {
+            // Deserialized, rebuild the trailing samples.
+            engine = new TrailingSamples();
+            engine.append(this.data, 0);
+        }
+        
+        int oldSize = this.data.size();
+        this.data.addAll(data);
+        engine.append(this.data, oldSize);
+        
+        int maxShift = 0;
+        for (int shift : timeShifts) {
+            maxShift = Math.max(maxShift, Math.abs(shift));
+        }
+        computeModel(Math.max(0, oldSize - maxShift));
+        
+        initForecastErrors(model, this.data);
+    }
+
+    public String getModelName() {
+        return "OlympicModel";
+    }
+
+    // Computes the model from point 'from' to the end of the data,
+    // choosing for every point the closest expected value over all
+    // base windows and time-shifts.
+    private void computeModel(int from) {
+        int n = engine.size;
+        float[] values = engine.values;
         float precision = (float) 0.000001;
         
-        for (int i = 0; i < n; i++) {
+        for (int i = from; i < n; i++) {
+            float value = values[i];
             float baseVal = Float.POSITIVE_INFINITY;
             float tmpbase = (float) 0.0;
             
@@ -107,96 +162,212 @@ public class OlympicModel extends TimeSeriesAbstractModel {
             // is too short preventing us form getting the reference
             // window.
             if ((i - baseWindows[0]) < 0) {
-                model.add(data.get(i).value);
-                continue;
-            }
-            
-            // Attempt to shift the time-series.
-            for (int w = 0; w < baseWindows.length; w++) {
-                for (int j = 0; j < timeShifts.length; j++) {
-                    if (timeShifts[j] == 0) {
-                        tmpbase = computeExpected(i, baseWindows[w]);
-                        if ((Math.abs(tmpbase - data.get(i).value) - Math.abs(baseVal - data.get(i).value)) < precision) {
-                            baseVal = tmpbase;
-                        }
-                    } else {
-                        if (i + timeShifts[j] < n) {
-                            tmpbase = computeExpected(i + timeShifts[j], baseWindows[w]);
-                            if ((Math.abs(tmpbase - data.get(i).value) - Math.abs(baseVal - data.get(i).value)) < precision) {
+                baseVal = value;
+            } else {
+                // Attempt to shift the time-series.
+                for (int w = 0; w < baseWindows.length; w++) {
+                    for (int j = 0; j < timeShifts.length; j++) {
+                        if (timeShifts[j] == 0) {
+                            tmpbase = engine.expected(w, i);
+                            if ((Math.abs(tmpbase - value) - Math.abs(baseVal - value)) < precision) {
                                 baseVal = tmpbase;
                             }
-                        }
-                        if (i - timeShifts[j] >= 0) {
-                            tmpbase = computeExpected(i - timeShifts[j], baseWindows[w]);
-                            if ((Math.abs(tmpbase - data.get(i).value) - Math.abs(baseVal - data.get(i).value)) < precision) {
-                                baseVal = tmpbase;
+                        } else {
+                            if (i + timeShifts[j] < n) {
+                                tmpbase = engine.expected(w, i + timeShifts[j]);
+                                if ((Math.abs(tmpbase - value) - Math.abs(baseVal - value)) < precision) {
+                                    baseVal = tmpbase;
+                                }
+                            }
+                            if (i - timeShifts[j] >= 0) {
+                                tmpbase = engine.expected(w, i - timeShifts[j]);
+                                if ((Math.abs(tmpbase - value) - Math.abs(baseVal - value)) < precision) {
+                                    baseVal = tmpbase;
+                                }
                             }
                         }
                     }
                 }
             }
-            model.add(baseVal);
+            if (i < model.size()) {
+                model.set(i, baseVal);
+            } else {
+                model.add(baseVal);
+            }
         }
-        
-        initForecastErrors(model, data);
-        
-        logger.debug(getBias() + "\t" + getMAD() + "\t" + getMAPE() + "\t" + getMSE() + "\t" + getSAE() + "\t" + 0 + "\t" + 0);
     }
+    
+    // Expected values of every point for every base window.
+    // For each base window the last numWeeks samples of each residue
+    // class (points one base window apart) are kept in a chronological
+    // ring buffer and in sorted order, so the trimmed mean of a point
+    // is summed over already sorted samples. Sums are accumulated in
+    // ascending order, like a sort of the samples would, so the
+    // results do not depend on how the samples were gathered.
+    private final class TrailingSamples {
+        // Values of all the points seen so far.
+        float[] values = new float[16];
+        int size;
+        // expected[w][i] is the expected value of point i for base window w.
+        float[][] expected;
+        // Per base window and residue: ring buffer and sorted samples.
+        final float[][][] rings;
+        final float[][][] sorted;
+        final int[][] counts;
+        final int[][] heads;
+        // Scratch buffer used with dynamic parameters.
+        final float[] scratch;
 
-    public void update(TimeSeries.DataSequence data) {
+        TrailingSamples() {
+            int windows = baseWindows.length;
+            expected = new float[windows][16];
+            rings = new float[windows][][];
+            sorted = new float[windows][][];
+            counts = new int[windows][];
+            heads = new int[windows][];
+            for (int w = 0; w < windows; w++) {
+                int period = Math.max(1, baseWindows[w]);
+                rings[w] = new float[period][];
+                sorted[w] = new float[period][];
+                counts[w] = new int[period];
+                heads[w] = new int[period];
+            }
+            scratch = new float[Math.max(0, numWeeks)];
+        }
 
-    }
+        float expected(int w, int i) {
+            if (i < 0 || i >= size) {
+                return Float.POSITIVE_INFINITY;
+            }
+            return expected[w][i];
+        }
 
-    public String getModelName() {
-        return "OlympicModel";
-    }
+        // Appends data[from..] computing the expected values of the new points.
+        void append(TimeSeries.DataSequence data, int from) {
+            int n = data.size();
+            ensureCapacity(n);
+            for (int i = from; i < n; i++) {
+                float value = data.get(i).value;
+                values[i] = value;
+                size = i + 1;
+                for (int w = 0; w < baseWindows.length; w++) {
+                    expected[w][i] = dynamicParameters == 1 ? computeDynamic(i, baseWindows[w])
+                            : computeExpected(w, i);
+                    push(w, i, value);
+                }
+            }
+        }
 
-    private Float sum(ArrayList<Float> list) {
-        float sum = 0;
-        for (float i : list) {
-            sum = sum + i;
+        private void ensureCapacity(int n) {
+            if (n <= values.length) {
+                return;
+            }
+            int capacity = Math.max(n, values.length * 2);
+            values = java.util.Arrays.copyOf(values, capacity);
+            for (int w = 0; w < expected.length; w++) {
+                expected[w] = java.util.Arrays.copyOf(expected[w], capacity);
+            }
         }
-        return sum;
-    }
-    
-    private float computeExpected(int i, int pl) {
-        ArrayList<Float> vals = new ArrayList<Float>();
-        float precision = (float) 0.000001;
-        
-        int j = 1;
-
-        if ((i - pl * j) < 0) {
-            return Float.POSITIVE_INFINITY;
-        }
-        while (j <= this.numWeeks && (i - pl * j) >= 0) {
-            float lastWeeksVal = data.get(i - pl * j).value;
-            // If dynamic parameters are turned on,
-            // then we check if our error improved from last time,
-            // if not, then we stop and use the old result.
-            if (dynamicParameters == 1 && vals.size() > 0) {
-                float withNewVal = (sum(vals) + lastWeeksVal) / (vals.size() + 1);
-                float withoutNewVal = (sum(vals)) / (vals.size());
-                if ((Math.abs(withNewVal - data.get(i).value) - Math.abs(withoutNewVal - data.get(i).value)) > precision) {
-                    break;
+
+        // Trimmed mean of the samples of point i, before i is added.
+        private float computeExpected(int w, int i) {
+            int pl = baseWindows[w];
+            if ((i - pl) < 0) {
+                return Float.POSITIVE_INFINITY;
+            }
+            int r = residue(w, i);
+            float[] s = sorted[w][r];
+            return trimmedMean(s == null ? scratch : s, counts[w][r]);
+        }
+
+        // Dynamic parameters stop adding older samples once they no
+        // longer bring the mean closer to the point's value, so the
+        // samples cannot be shared between points.
+        private float computeDynamic(int i, int pl) {
+            float precision = (float) 0.000001;
+            float value = values[i];
+            
+            if ((i - pl) < 0) {
+                return Float.POSITIVE_INFINITY;
+            }
+            int m = 0;
+            float sum = 0;
+            int j = 1;
+            while (j <= numWeeks && (i - pl * j) >= 0) {
+                float lastWeeksVal = values[i - pl * j];
+                if (m > 0) {
+                    float withNewVal = (sum + lastWeeksVal) / (m + 1);
+                    float withoutNewVal = sum / m;
+                    if ((Math.abs(withNewVal - value) - Math.abs(withoutNewVal - value)) > precision) {
+                        break;
+                    }
                 }
+                scratch[m++] = lastWeeksVal;
+                sum = sum + lastWeeksVal;
+                j++;
             }
-            vals.add(lastWeeksVal);
-            j++;
+            java.util.Arrays.sort(scratch, 0, m);
+            return trimmedMean(scratch, m);
         }
 
-        Collections.sort(vals);
-        j = 0;
+        private float trimmedMean(float[] s, int count) {
+            int lo = 0;
+            int hi = count;
+            if (count > (2 * numToDrop) && numToDrop > 0) {
+                lo = numToDrop;
+                hi = count - numToDrop;
+            }
+            float sum = 0;
+            for (int k = lo; k < hi; k++) {
+                sum = sum + s[k];
+            }
+            return sum / (hi - lo);
+        }
 
-        if (vals.size() > (2 * this.numToDrop)) {
-            while (j < this.numToDrop) {
-                vals.remove(vals.size() - 1);
-                vals.remove(0);
-                j++;
+        private int residue(int w, int i) {
+            return i % rings[w].length;
+        }
+
+        // Adds point i to its residue's samples, evicting the oldest
+        // sample once numWeeks samples are kept.
+        private void push(int w, int i, float value) {
+            if (numWeeks <= 0) {
+                return;
+            }
+            int r = residue(w, i);
+            float[] ring = rings[w][r];
+            float[] s = sorted[w][r];
+            if (ring == null) {
+                ring = rings[w][r] = new float[numWeeks];
+                s = sorted[w][r] = new float[numWeeks];
             }
+            int count = counts[w][r];
+            int head = heads[w][r];
+            if (count == numWeeks) {
+                remove(s, count, ring[head]);
+                count--;
+                ring[head] = value;
+                heads[w][r] = (head + 1) % numWeeks;
+            } else {
+                ring[(head + count) % numWeeks] = value;
+            }
+            insert(s, count, value);
+            counts[w][r] = count + 1;
+        }
+
+        private void insert(float[] s, int count, float value) {
+            int pos = count;
+            while (pos > 0 && Float.compare(s[pos - 1], value) > 0) {
+                pos--;
+            }
+            System.arraycopy(s, pos, s, pos + 1, count - pos);
+            s[pos] = value;
+        }
+
+        private void remove(float[] s, int count, float value) {
+            int pos = java.util.Arrays.binarySearch(s, 0, count, value);
+            System.arraycopy(s, pos + 1, s, pos, count - pos - 1);
         }
-                
-        float baseVal = sum(vals) / vals.size();
-        return baseVal;
     }
     
     public void predict(TimeSeries.DataSequence sequence) throws Exception {
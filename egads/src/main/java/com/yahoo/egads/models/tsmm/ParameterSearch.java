@@ -0,0 +1,165 @@
+/*
+ * Copyright 2019, Yahoo Inc.
+ * Copyrights licensed under the GPL License.
+ * See the accompanying LICENSE file for terms.
+ */
+package com.yahoo.egads.models.tsmm;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Minimizes an objective over smoothing weights in the unit hypercube,
+ * either by evaluating a grid in parallel or by a Nelder-Mead simplex
+ * search. Points outside [0, 1] are clamped before evaluation.
+ */
+final class ParameterSearch {
+
+    /** The function to minimize. Must be safe to call from several threads. */
+    interface Objective {
+        double evaluate(double[] point);
+    }
+
+    private static final int MAX_ITERATIONS = 200;
+    private static final double TOLERANCE = 1e-10;
+
+    private ParameterSearch() {
+    }
+
+    /**
+     * Evaluates the objective on a regular grid of {@code steps} points per
+     * dimension, strictly inside (0, 1), and returns the best point.
+     */
+    static double[] grid(final Objective objective, final int dimensions,
+            final int steps) {
+        int total = 1;
+        for (int d = 0; d < dimensions; d++) {
+            total *= steps;
+        }
+        final double[] scores = new double[total];
+        IntStream.range(0, total).parallel().forEach(i ->
+                scores[i] = objective.evaluate(gridPoint(i, dimensions, steps)));
+
+        int best = 0;
+        for (int i = 1; i < total; i++) {
+            if (better(scores[i], scores[best])) {
+                best = i;
+            }
+        }
+        return gridPoint(best, dimensions, steps);
+    }
+
+    private static double[] gridPoint(int index, int dimensions, int steps) {
+        double[] point = new double[dimensions];
+        for (int d = 0; d < dimensions; d++) {
+            point[d] = (index % steps + 1) / (double) (steps + 1);
+            index /= steps;
+        }
+        return point;
+    }
+
+    /**
+     * Runs a Nelder-Mead search from {@code start} and returns the best
+     * point found.
+     */
+    static double[] nelderMead(final Objective objective, final double[] start) {
+        int n = start.length;
+        double[][] simplex = new double[n + 1][];
+        double[] scores = new double[n + 1];
+        simplex[0] = clamp(start);
+        for (int i = 1; i <= n; i++) {
+            double[] p = simplex[0].clone();
+            p[i - 1] = p[i - 1] > 0.5 ? p[i - 1] - 0.25 : p[i - 1] + 0.25;
+            simplex[i] = p;
+        }
+        for (int i = 0; i <= n; i++) {
+            scores[i] = objective.evaluate(simplex[i]);
+        }
+
+        Integer[] order = new Integer[n + 1];
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            for (int i = 0; i <= n; i++) {
+                order[i] = i;
+            }
+            final double[] s = scores;
+            Arrays.sort(order, (a, b) -> better(s[a], s[b]) ? -1 : better(s[b], s[a]) ? 1 : 0);
+            int best = order[0];
+            int worst = order[n];
+            int second = order[n - 1];
+            if (Math.abs(scores[worst] - scores[best]) <= TOLERANCE * (Math.abs(scores[best]) + TOLERANCE)) {
+                break;
+            }
+
+            double[] centroid = new double[n];
+            for (int i = 0; i <= n; i++) {
+                if (i != worst) {
+                    for (int d = 0; d < n; d++) {
+                        centroid[d] += simplex[i][d] / n;
+                    }
+                }
+            }
+
+            double[] reflected = move(centroid, simplex[worst], -1.0);
+            double reflectedScore = objective.evaluate(reflected);
+            if (better(reflectedScore, scores[best])) {
+                double[] expanded = move(centroid, simplex[worst], -2.0);
+                double expandedScore = objective.evaluate(expanded);
+                if (better(expandedScore, reflectedScore)) {
+                    simplex[worst] = expanded;
+                    scores[worst] = expandedScore;
+                } else {
+                    simplex[worst] = reflected;
+                    scores[worst] = reflectedScore;
+                }
+            } else if (better(reflectedScore, scores[second])) {
+                simplex[worst] = reflected;
+                scores[worst] = reflectedScore;
+            } else {
+                double[] contracted = move(centroid, simplex[worst], 0.5);
+                double contractedScore = objective.evaluate(contracted);
+                if (better(contractedScore, scores[worst])) {
+                    simplex[worst] = contracted;
+                    scores[worst] = contractedScore;
+                } else {
+                    // Shrink towards the best point.
+                    for (int i = 0; i <= n; i++) {
+                        if (i != best) {
+                            simplex[i] = move(simplex[best], simplex[i], 0.5);
+                            scores[i] = objective.evaluate(simplex[i]);
+                        }
+                    }
+                }
+            }
+        }
+
+        int best = 0;
+        for (int i = 1; i <= n; i++) {
+            if (better(scores[i], scores[best])) {
+                best = i;
+            }
+        }
+        return simplex[best];
+    }
+
+    // centroid + t * (p - centroid), clamped to the unit hypercube.
+    private static double[] move(double[] centroid, double[] p, double t) {
+        double[] result = new double[centroid.length];
+        for (int d = 0; d < result.length; d++) {
+            result[d] = centroid[d] + t * (p[d] - centroid[d]);
+        }
+        return clamp(result);
+    }
+
+    private static double[] clamp(double[] p) {
+        double[] result = new double[p.length];
+        for (int d = 0; d < p.length; d++) {
+            result[d] = Math.min(1.0, Math.max(0.0, p[d]));
+        }
+        return result;
+    }
+
+    // NaN scores never win.
+    private static boolean better(double a, double b) {
+        return !Double.isNaN(a) && (Double.isNaN(b) || a < b);
+    }
+}
@@ -11,6 +11,7 @@ import java.util.Hashtable;
 
 import com.yahoo.egads.data.TimeSeries.Entry;
 import com.yahoo.egads.data.TimeSeries.DataSequence;
+import com.yahoo.egads.utilities.SpectralFilter;
 import com.yahoo.egads.utilities.SpectralMethods;
 import com.yahoo.egads.utilities.SpectralMethods.FilteringMethod;
 
@@ -26,6 +27,9 @@ import com.yahoo.egads.utilities.SpectralMethods.FilteringMethod;
  *          Refer to utilities/SpectralMethods.java documentation for more details.
  *      3. 'FILTERING_PARAM' determines the tuning parameter for the specified filtering method.
  *          Refer to utilities/SpectralMethods.java documentation for more details.  
+ *      4. 'INCREMENTAL_UPDATE' when set to 1, update() appends the new points to the points seen so far and refreshes
+ *          the decomposition and the smoothed values of all of them, instead of smoothing the new points on their own.
+ *          The lag-covariance of the Hankel matrix is updated in place rather than recomputed. (Default 0)
  *          
  * @author amizadeh
  *
@@ -37,6 +41,9 @@ public class SpectralSmoother extends TimeSeriesAbstractModel {
     protected int windowSize;
     protected FilteringMethod method;
     protected double methodParameter;
+    protected boolean incremental;
+    protected DataSequence history;
+    protected transient SpectralFilter filter;
 
     public SpectralSmoother(Properties config) {
         super(config);
@@ -83,16 +90,26 @@ public class SpectralSmoother extends TimeSeriesAbstractModel {
         } else {
             this.methodParameter = new Double(config.getProperty("FILTERING_PARAM"));
         }
+
+        this.incremental = config.getProperty("INCREMENTAL_UPDATE", "0").equals("1");
     }
 
     @Override
     public void reset() {
         map.clear();
+        history = null;
+        filter = null;
     }
 
     @Override
     public void train(DataSequence data) throws Exception {
         this.reset();
+        if (incremental) {
+            history = new DataSequence(data.size());
+            filter = new SpectralFilter(windowSize);
+            append(data);
+            return;
+        }
         DataSequence smoothedData = SpectralMethods.mFilter(data, windowSize, method, methodParameter);
 
         for (Entry e : smoothedData) {
@@ -103,6 +120,14 @@ public class SpectralSmoother extends TimeSeriesAbstractModel {
     @Override
     public void update(DataSequence data) throws Exception {
 
+        if (incremental) {
+            if (filter == null) {
+                train(data);
+            } else {
+                append(data);
+            }
+            return;
+        }
         DataSequence smoothedData = SpectralMethods.mFilter(data, windowSize, method, methodParameter);
 
         for (Entry e : smoothedData) {
@@ -110,6 +135,19 @@ public class SpectralSmoother extends TimeSeriesAbstractModel {
         }
     }
 
+    // Adds the points to the history and re-smooths all of it.
+    private void append(DataSequence data) {
+        for (Entry e : data) {
+            history.add(e);
+            filter.append(e.value);
+        }
+        DataSequence smoothedData = SpectralMethods.copyFiltered(history, filter.filter(method, methodParameter));
+
+        for (Entry e : smoothedData) {
+            map.put(e.logicalIndex, e.value);
+        }
+    }
+
     @Override
     public void predict(DataSequence sequence) throws Exception {
 
@@ -130,6 +130,18 @@ public abstract class TimeSeriesAbstractModel implements TimeSeriesModel {
         errorsInit = true;
     }
 
+    /*
+     * Forgets the errors, as before the model was trained.
+     */
+    protected void resetErrors() {
+        this.bias = 0;
+        this.mad = 0;
+        this.mape = 0;
+        this.mse = 0;
+        this.sae = 0;
+        errorsInit = false;
+    }
+
     /**
      * Initializes all errors given the model.
      */
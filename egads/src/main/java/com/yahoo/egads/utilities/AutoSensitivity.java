@@ -8,8 +8,6 @@
 // using the bootstrapping framework.
 
 package com.yahoo.egads.utilities;
-import java.util.ArrayList;
-import org.apache.commons.lang.ArrayUtils;
 import java.util.Arrays;
 import java.util.Collections;
 
@@ -17,53 +15,96 @@ public class AutoSensitivity {
 	static org.apache.logging.log4j.Logger logger = org.apache.logging.log4j.LogManager.getLogger(AutoSensitivity.class.getName());
     // Computes sensitivity based on the density distribution.
     // Assumes that anomalies constitute at most 5% of the data.
+    // Walks the points from the largest down, growing the cluster of
+    // outliers while the next point is within sDAutoSensitivy standard
+    // deviations of the remaining points. The remaining points are a
+    // suffix of the sorted data, so their moments are updated by
+    // removing one point at a time (Welford) instead of recomputed.
     public static Float getLowDensitySensitivity(Float[] data, float sDAutoSensitivy, float amntAutoSensitivity) {
-        Float toReturn = Float.POSITIVE_INFINITY;
         Arrays.sort(data, Collections.reverseOrder());
-        while (data.length > 0) {     
-        	
-            ArrayList<Float> fData = new ArrayList<Float>();
-            fData.add(data[0]);
-            data = ((Float[]) ArrayUtils.remove(data, 0));
-            
-            Float centroid = (float) fData.get(0);
-            Float maxDelta = (float) sDAutoSensitivy * StatsUtils.getSD(data, StatsUtils.getMean(data));
-            
-            logger.debug("AutoSensitivity: Adding: " + fData.get(0) + " SD: " + maxDelta);
-            
-            // Add points while it's in the same cluster or not part of the other cluster.
-            String localDebug = null;
-            while (data.length > 0 &&
-                   (centroid - data[0]) <= ((float) (maxDelta))) {
-            	float maxDeltaInit = maxDelta;
-                fData.add(data[0]);
-                data = ((Float[]) ArrayUtils.remove(data, 0));
-                Float[] tmp = new Float[fData.size()];
-                tmp = fData.toArray(tmp);
-                centroid = StatsUtils.getMean(tmp);
-                
-                if (data.length > 0) {
-                    Float sdOtherCluster = (float) StatsUtils.getSD(data, StatsUtils.getMean(data));
-                    maxDelta = sDAutoSensitivy * sdOtherCluster;
-                    logger.debug("AutoSensitivity: Adding: " + data[0] + " SD: " + maxDeltaInit + " SD': " + maxDelta);
+        float[] sorted = new float[data.length];
+        for (int i = 0; i < data.length; i++) {
+            sorted[i] = data[i];
+        }
+        return lowDensitySensitivity(sorted, sDAutoSensitivy, amntAutoSensitivity);
+    }
+
+    // Same as above on a primitive array, which is sorted in place.
+    public static float getLowDensitySensitivity(float[] data, float sDAutoSensitivy, float amntAutoSensitivity) {
+        Arrays.sort(data);
+        for (int i = 0, j = data.length - 1; i < j; i++, j--) {
+            float tmp = data[i];
+            data[i] = data[j];
+            data[j] = tmp;
+        }
+        return lowDensitySensitivity(data, sDAutoSensitivy, amntAutoSensitivity);
+    }
+
+    // Works on the data sorted from the largest down.
+    private static float lowDensitySensitivity(float[] sorted, float sDAutoSensitivy, float amntAutoSensitivity) {
+        float toReturn = Float.POSITIVE_INFINITY;
+        int n = sorted.length;
+        if (n == 0) {
+            return toReturn;
+        }
+
+        // Moments of the points not in the cluster, sorted[k..n).
+        double mean = 0.0;
+        double m2 = 0.0;
+        for (int i = n - 1; i >= 1; i--) {
+            double delta = sorted[i] - mean;
+            mean += delta / (n - i);
+            m2 += delta * (sorted[i] - mean);
+        }
+
+        // The cluster is sorted[0..k), its mean is summed in float in
+        // insertion order like StatsUtils.getMean.
+        int k = 1;
+        float clusterSum = (float) 0.0 + sorted[0];
+        float centroid = sorted[0];
+        float maxDelta = sDAutoSensitivy * sd(m2, n - k);
+
+        logger.debug("AutoSensitivity: Adding: " + sorted[0] + " SD: " + maxDelta);
+
+        // Add points while it's in the same cluster or not part of the other cluster.
+        while (k < n && (centroid - sorted[k]) <= maxDelta) {
+            float maxDeltaInit = maxDelta;
+            float x = sorted[k];
+            clusterSum += x;
+            k++;
+            centroid = clusterSum / k;
+
+            int remaining = n - k;
+            if (remaining > 0) {
+                double newMean = mean + (mean - x) / remaining;
+                m2 -= (x - mean) * (x - newMean);
+                mean = newMean;
+                maxDelta = sDAutoSensitivy * sd(m2, remaining);
+                if (logger.isDebugEnabled()) {
+                    logger.debug("AutoSensitivity: Adding: " + sorted[k] + " SD: " + maxDeltaInit + " SD': " + maxDelta);
                 }
             }
-            if (data.length > 0) {
-                logger.debug("AutoSensitivity: Next Point I would have added is " + data[0]);
-            }
-                        
-            if (((double) fData.size() / (double) data.length) > amntAutoSensitivity) {
-                // Cannot do anomaly detection.
-                logger.debug("AutoSensitivity: Returning " + toReturn + " data size: " + data.length + " fData.size: " + fData.size());
-                return toReturn;
-            }
+        }
+        if (k < n) {
+            logger.debug("AutoSensitivity: Next Point I would have added is " + sorted[k]);
+        }
 
-            toReturn = fData.get(fData.size() - 1);
-            logger.debug("AutoSensitivity: Updating toReturn:  " + toReturn + " SD: " + maxDelta);
+        if (((double) k / (double) (n - k)) > amntAutoSensitivity) {
+            // Cannot do anomaly detection.
+            logger.debug("AutoSensitivity: Returning " + toReturn + " data size: " + (n - k) + " fData.size: " + k);
             return toReturn;
         }
+
+        toReturn = sorted[k - 1];
+        logger.debug("AutoSensitivity: Updating toReturn:  " + toReturn + " SD: " + maxDelta);
         return toReturn;
     }
+
+    // Population standard deviation from the sum of squared deviations,
+    // NaN when there are no points like StatsUtils.getSD.
+    private static float sd(double m2, int n) {
+        return (float) Math.sqrt(Math.max(0.0, m2) / n);
+    }
     
     // Uses the simple KSigma rule to get the anoamly sensitivity.
     // Assumes that we have a normal distribution.
@@ -73,44 +114,63 @@ public class AutoSensitivity {
          return (mean + (sd * sDAutoSensitivity));
     }
 
+    public static float getKSigmaSensitivity(float[] data, float sDAutoSensitivity) {
+         float mean = StatsUtils.getMean(data);
+         float sd = StatsUtils.getSD(data, mean);
+         return (mean + (sd * sDAutoSensitivity));
+    }
+
     // Uses the mean as the base to find the static threshold.
+    // The counts come from binary searches over a sorted copy, and the
+    // smallest k is found by doubling then bisecting since the counts
+    // only shrink as k grows.
     public static Float[] getAdaptiveKSigmaSensitivity(Float[] data, float amntAutoSens) {
          Float mean = StatsUtils.getMean(data);
          Float sd = StatsUtils.getSD(data, mean);
          if (sd == (float) 0.0) {
              sd = (float) 1.0;
          }
-         Float[] ret = null;
-         float k = (float) 1;
-         float incr = (float) 1;
-         
-         Float max = null;
-         Float min = null;
-         float thresh = mean + Math.abs(sd * k);
-         int howMany = howManyGreater(data, thresh);
-
-         while (((float) howMany / (float) data.length) > amntAutoSens) {
-             k += incr;
-             thresh = mean + Math.abs(sd * k);
-             howMany = howManyGreater(data, thresh);
-         } 
-         if (((float) howMany / (float) data.length) <= amntAutoSens) {
-             max = thresh;
-         } 
-         k = 1;
-         thresh = mean - Math.abs(sd * k);
-         howMany = howManyLess(data, thresh);
-        
-         while (((float) howMany / (float) data.length) > amntAutoSens) {
-             k += incr;
-             thresh = mean - Math.abs(sd * k);
-             howMany = howManyLess(data, thresh);
-         } 
-         if (((float) howMany / (float) data.length) <= amntAutoSens) {
-           min = thresh;
-         }
-         ret = new Float[]{max, min};
-         return ret; 
+         float[] sorted = sortedCopy(data);
+         int valid = countNotNaN(sorted);
+
+         float k = smallestK(sorted, valid, data.length, mean, sd, amntAutoSens, true);
+         Float max = mean + Math.abs(sd * k);
+         k = smallestK(sorted, valid, data.length, mean, sd, amntAutoSens, false);
+         Float min = mean - Math.abs(sd * k);
+         return new Float[]{max, min};
+    }
+
+    // Smallest k = 1, 2, ... with at most amntAutoSens of the points at or
+    // beyond mean +/- k * sd.
+    private static float smallestK(float[] sorted, int valid, int n, float mean, float sd,
+                                   float amntAutoSens, boolean upper) {
+        float k = (float) 1;
+        if (fraction(sorted, valid, n, mean, sd, k, upper) <= amntAutoSens) {
+            return k;
+        }
+        float lo = k;
+        float hi = 2;
+        while (fraction(sorted, valid, n, mean, sd, hi, upper) > amntAutoSens) {
+            lo = hi;
+            hi *= 2;
+        }
+        // fraction(lo) > amntAutoSens >= fraction(hi).
+        while (hi - lo > 1) {
+            float mid = (float) Math.floor((lo + hi) / 2);
+            if (fraction(sorted, valid, n, mean, sd, mid, upper) > amntAutoSens) {
+                lo = mid;
+            } else {
+                hi = mid;
+            }
+        }
+        return hi;
+    }
+
+    private static float fraction(float[] sorted, int valid, int n, float mean, float sd,
+                                  float k, boolean upper) {
+        int howMany = upper ? howManyGreater(sorted, valid, mean + Math.abs(sd * k))
+                            : howManyLess(sorted, valid, mean - Math.abs(sd * k));
+        return (float) howMany / (float) n;
     }
     
     // Uses the max/min as the base to find the static threshold.
@@ -121,50 +181,80 @@ public class AutoSensitivity {
         if (sd == (float) 0.0) {
             sd = (float) 1.0;
         }
+        float[] sorted = sortedCopy(data);
+        int valid = countNotNaN(sorted);
         Float[] ret = null;
         
         Float max = null;
         Float min = null;
         int i = 0;
         float thresh = data[i] + Math.abs(sd * k);
-        int howMany = howManyLess(data, thresh);
+        int howMany = howManyLess(sorted, valid, thresh);
         while (((float) howMany / (float) data.length) <= amntAutoSens) {
         	min = thresh;
         	i++;
             thresh = data[i] + Math.abs(sd * k);
-            howMany = howManyLess(data, thresh);
+            howMany = howManyLess(sorted, valid, thresh);
         } 
         i = data.length - 1;
         thresh = data[i] - Math.abs(sd * k);
-        howMany = howManyGreater(data, thresh);
+        howMany = howManyGreater(sorted, valid, thresh);
         while (((float) howMany / (float) data.length) <= amntAutoSens) {
         	max = thresh;
             i--;
             thresh = data[i] - Math.abs(sd * k);
-            howMany = howManyGreater(data, thresh);
+            howMany = howManyGreater(sorted, valid, thresh);
         } 
 
         ret = new Float[]{max, min};
         return ret; 
    }
 
-    private static int howManyGreater(Float[] data, Float value) {
-        int numgreater = 0;
-        for (Float f : data) {
-            if (value <= f) {
-                numgreater++;
+    private static float[] sortedCopy(Float[] data) {
+        float[] sorted = new float[data.length];
+        for (int i = 0; i < data.length; i++) {
+            sorted[i] = data[i];
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    // NaNs sort last and never compare, so searches stop before them.
+    private static int countNotNaN(float[] sorted) {
+        int valid = sorted.length;
+        while (valid > 0 && Float.isNaN(sorted[valid - 1])) {
+            valid--;
+        }
+        return valid;
+    }
+
+    // Number of points >= value in sorted[0..valid).
+    private static int howManyGreater(float[] sorted, int valid, float value) {
+        int lo = 0;
+        int hi = valid;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
             }
         }
-        return numgreater;
+        return Float.isNaN(value) ? 0 : valid - lo;
     }
 
-    private static int howManyLess(Float[] data, Float value) {
-        int numless = 0;
-        for (Float f : data) {
-            if (value >= f) {
-                numless++;
+    // Number of points <= value in sorted[0..valid).
+    private static int howManyLess(float[] sorted, int valid, float value) {
+        int lo = 0;
+        int hi = valid;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] <= value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
             }
         }
-        return numless;
+        return Float.isNaN(value) ? 0 : lo;
     }
 }
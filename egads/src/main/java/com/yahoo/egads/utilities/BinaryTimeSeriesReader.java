@@ -0,0 +1,148 @@
+/*
+ * Copyright 2019, Yahoo Inc.
+ * Copyrights licensed under the GPL License.
+ * See the accompanying LICENSE file for terms.
+ */
+
+package com.yahoo.egads.utilities;
+
+// Reads time-series in the binary format of INPUT=BINARY.
+//
+// The input is a sequence of records, the binary counterpart of the text lines of
+// StdinProcessor. All the numbers are little-endian:
+//      int32   the length in bytes of the metadata, followed by the UTF-8 metadata.
+//      int32   the number of time-series in the record, each made of
+//          int32   the number of points, followed by the points,
+//          int64   the time and float32 the value of each point.
+// The input ends after the last record.
+//
+// The points are parsed from the channel through a fixed buffer, so a record is never
+// held in memory as text.
+//
+// The lengths are not trusted: memory is allocated as the data actually arrives, so a
+// corrupt length ends in an EOFException rather than a huge allocation. Metadata over
+// MAX_META_LENGTH bytes and time-series over 2 GB of points are rejected up front.
+
+import com.yahoo.egads.data.TimeSeries;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class BinaryTimeSeriesReader {
+
+    // The size of a point, an int64 time and a float32 value.
+    private static final int POINT_SIZE = 12;
+
+    // The largest metadata accepted, in bytes.
+    public static final int MAX_META_LENGTH = 1 << 20;
+
+    // The largest number of points in a time-series, so that its points fit in 2 GB.
+    private static final int MAX_POINTS = Integer.MAX_VALUE / POINT_SIZE;
+
+    private ReadableByteChannel in;
+    private ByteBuffer buffer;
+
+    public BinaryTimeSeriesReader(ReadableByteChannel in) {
+        this(in, 1 << 16);
+    }
+
+    public BinaryTimeSeriesReader(ReadableByteChannel in, int bufferSize) {
+        this.in = in;
+        this.buffer = ByteBuffer.allocateDirect(Math.max(bufferSize, POINT_SIZE)).order(ByteOrder.LITTLE_ENDIAN);
+        this.buffer.flip();
+    }
+
+    // Returns the time-series of the next record, named as StdinProcessor names them,
+    // or null at the end of the input.
+    public ArrayList<TimeSeries> next() throws Exception {
+        if (!fill(4, true)) {
+            return null;
+        }
+        String meta = "meta";
+        int length = readLength();
+        if (length > MAX_META_LENGTH) {
+            throw new IOException("Implausible metadata length " + length + " in the binary input");
+        }
+        String s = readString(length);
+        if (s.length() != 0) {
+            meta += "-" + s;
+        }
+
+        int count = readLength();
+        ArrayList<TimeSeries> output = new ArrayList<TimeSeries>(Math.min(count, 16));
+        for (int k = 1; k <= count; k++) {
+            int n = readLength();
+            if (n > MAX_POINTS) {
+                throw new IOException("Implausible number of points " + n + " in the binary input");
+            }
+            TimeSeries ts = new TimeSeries();
+            ts.meta.fileName = meta + "-" + k;
+            ts.meta.name = ts.meta.fileName;
+            // Presized only up to a buffer of points, it grows as more points are read.
+            ts.data = new TimeSeries.DataSequence(Math.min(n, buffer.capacity() / POINT_SIZE));
+            int i = 0;
+            while (i < n) {
+                fill(POINT_SIZE, false);
+                int m = Math.min(n - i, buffer.remaining() / POINT_SIZE);
+                for (int j = 0; j < m; j++) {
+                    ts.append(buffer.getLong(), buffer.getFloat());
+                }
+                i += m;
+            }
+            output.add(ts);
+        }
+        return output;
+    }
+
+    private int readLength() throws IOException {
+        fill(4, false);
+        int length = buffer.getInt();
+        if (length < 0) {
+            throw new IOException("Negative length " + length + " in the binary input");
+        }
+        return length;
+    }
+
+    // The metadata may not fit in the buffer, it is read in chunks.
+    private String readString(int length) throws IOException {
+        byte[] bytes = new byte[Math.min(length, buffer.capacity())];
+        int i = 0;
+        while (i < length) {
+            fill(1, false);
+            int m = Math.min(length - i, buffer.remaining());
+            if (i + m > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.min(length, Math.max(i + m, 2 * bytes.length)));
+            }
+            buffer.get(bytes, i, m);
+            i += m;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Reads until the buffer holds at least size bytes. Returns false at the end of
+    // the input before a record when atRecord is set, it is an error otherwise.
+    private boolean fill(int size, boolean atRecord) throws IOException {
+        if (buffer.remaining() >= size) {
+            return true;
+        }
+        buffer.compact();
+        try {
+            while (buffer.position() < size) {
+                if (in.read(buffer) < 0) {
+                    if (atRecord && buffer.position() == 0) {
+                        return false;
+                    }
+                    throw new EOFException("Truncated record in the binary input");
+                }
+            }
+        } finally {
+            buffer.flip();
+        }
+        return true;
+    }
+}
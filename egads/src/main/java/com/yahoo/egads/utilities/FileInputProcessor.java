@@ -29,6 +29,7 @@ public class FileInputProcessor implements InputProcessor {
         for (TimeSeries ts : metrics) {
             ProcessableObject po = ProcessableObjectFactory.create(ts, p);
             po.process();
+            ProcessableObjectFactory.release(po);
         }
     }
 }
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2019, Yahoo Inc.
+ * Copyrights licensed under the GPL License.
+ * See the accompanying LICENSE file for terms.
+ */
+
+package com.yahoo.egads.utilities;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.apache.commons.math3.linear.EigenDecomposition;
+import org.apache.commons.math3.linear.MatrixUtils;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+import org.apache.commons.math3.transform.DftNormalization;
+import org.apache.commons.math3.transform.FastFourierTransformer;
+import org.apache.commons.math3.transform.TransformType;
+
+import com.yahoo.egads.utilities.SpectralMethods.FilteringMethod;
+
+/**
+ * SpectralFilter applies the spectral filtering of SpectralMethods to a single time-series without
+ * materializing its Hankel matrix H.
+ *
+ * The singular values and right singular vectors of H are taken from the eigen-decomposition of the
+ * windowSize x windowSize lag-covariance matrix H'H, which is built in O(n * windowSize) and kept up to
+ * date in O(windowSize^2) per appended point. Only the leading components kept by the filtering method
+ * are reconstructed: H v is applied as an FFT correlation of v with the series, and the diagonal averaging
+ * of (H v) v' as an FFT convolution, so neither H nor its truncated reconstruction is ever built.
+ *
+ * All filtering methods but EXPLICIT read the whole spectrum, so the decomposition itself is not truncated;
+ * it costs O(windowSize^3) whatever the length of the series.
+ */
+public class SpectralFilter {
+
+    private final int windowSize;
+    private double[] values = new double[0];
+    private int size;
+
+    // H'H over the first 'rows' rows of the Hankel matrix.
+    private double[][] lagCovariance;
+    private int rows;
+
+    public SpectralFilter(int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("WINDOW_SIZE must be positive: " + windowSize);
+        }
+        this.windowSize = windowSize;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    // Number of points appended so far.
+    public int size() {
+        return size;
+    }
+
+    public void append(double value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(16, size * 2));
+        }
+        values[size++] = value;
+    }
+
+    public void append(double[] newValues) {
+        if (size + newValues.length > values.length) {
+            values = Arrays.copyOf(values, Math.max(size + newValues.length, size * 2));
+        }
+        System.arraycopy(newValues, 0, values, size, newValues.length);
+        size += newValues.length;
+    }
+
+    // Returns the filtered series, one value per appended point.
+    public double[] filter(FilteringMethod method, double methodParameter) {
+        int k = size - windowSize + 1;
+        if (k < windowSize) {
+            // H has fewer rows than columns and H'H has spurious zero eigenvalues.
+            return denseFilter(method, methodParameter);
+        }
+
+        updateLagCovariance(k);
+        EigenDecomposition eigen = new EigenDecomposition(MatrixUtils.createRealMatrix(lagCovariance));
+        final double[] eigenvalues = eigen.getRealEigenvalues();
+        Integer[] order = new Integer[windowSize];
+        for (int i = 0; i < windowSize; ++i) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Double.compare(eigenvalues[o2], eigenvalues[o1]);
+            }
+        });
+
+        double[] singularValues = new double[windowSize];
+        for (int i = 0; i < windowSize; ++i) {
+            singularValues[i] = Math.sqrt(Math.max(0, eigenvalues[order[i]]));
+        }
+        int ind = SpectralMethods.truncationIndex(singularValues, method, methodParameter);
+
+        // Sum over the kept components of FFT(H v) * FFT(v), i.e. the diagonal sums of H v v'.
+        int fftSize = Integer.highestOneBit(size + windowSize - 2) << 1;
+        double[][] series = {Arrays.copyOf(values, fftSize), new double[fftSize]};
+        FastFourierTransformer.transformInPlace(series, DftNormalization.STANDARD, TransformType.FORWARD);
+        double[][] sum = new double[2][fftSize];
+        double[][] u = new double[2][fftSize];
+        double[][] v = new double[2][fftSize];
+
+        for (int c = 0; c <= ind; ++c) {
+            RealVector vector = eigen.getEigenvector(order[c]);
+
+            // (H v)[i] = sum_j x[i + j] v[j] is the convolution of x with reversed v at i + windowSize - 1.
+            clear(u);
+            for (int j = 0; j < windowSize; ++j) {
+                u[0][j] = vector.getEntry(windowSize - 1 - j);
+            }
+            FastFourierTransformer.transformInPlace(u, DftNormalization.STANDARD, TransformType.FORWARD);
+            multiply(u, series, u);
+            FastFourierTransformer.transformInPlace(u, DftNormalization.STANDARD, TransformType.INVERSE);
+            System.arraycopy(u[0], windowSize - 1, u[0], 0, k);
+            Arrays.fill(u[0], k, fftSize, 0);
+            Arrays.fill(u[1], 0);
+            FastFourierTransformer.transformInPlace(u, DftNormalization.STANDARD, TransformType.FORWARD);
+
+            clear(v);
+            for (int j = 0; j < windowSize; ++j) {
+                v[0][j] = vector.getEntry(j);
+            }
+            FastFourierTransformer.transformInPlace(v, DftNormalization.STANDARD, TransformType.FORWARD);
+            multiply(u, v, u);
+            for (int f = 0; f < fftSize; ++f) {
+                sum[0][f] += u[0][f];
+                sum[1][f] += u[1][f];
+            }
+        }
+        FastFourierTransformer.transformInPlace(sum, DftNormalization.STANDARD, TransformType.INVERSE);
+
+        double[] result = new double[size];
+        for (int t = 0; t < size; ++t) {
+            int counter = Math.min(Math.min(t + 1, size - t), windowSize);
+            result[t] = sum[0][t] / counter;
+        }
+        return result;
+    }
+
+    // Brings H'H up to the first k rows of the Hankel matrix, by rank-1 updates for a few new rows
+    // or from scratch otherwise.
+    private void updateLagCovariance(int k) {
+        if (lagCovariance != null && (long) (k - rows) * windowSize <= k) {
+            for (int r = rows; r < k; ++r) {
+                for (int a = 0; a < windowSize; ++a) {
+                    double x = values[r + a];
+                    double[] row = lagCovariance[a];
+                    for (int b = 0; b < windowSize; ++b) {
+                        row[b] += x * values[r + b];
+                    }
+                }
+            }
+            rows = k;
+            return;
+        }
+
+        // C[a][b] = sum_{i < k} x[i + a] x[i + b]: the first row directly, the rest along the diagonals.
+        double[][] c = new double[windowSize][windowSize];
+        for (int b = 0; b < windowSize; ++b) {
+            double sum = 0;
+            for (int i = 0; i < k; ++i) {
+                sum += values[i] * values[i + b];
+            }
+            c[0][b] = sum;
+        }
+        for (int a = 1; a < windowSize; ++a) {
+            for (int b = a; b < windowSize; ++b) {
+                c[a][b] = c[a - 1][b - 1] - values[a - 1] * values[b - 1]
+                                + values[a - 1 + k] * values[b - 1 + k];
+            }
+            for (int b = 0; b < a; ++b) {
+                c[a][b] = c[b][a];
+            }
+        }
+        lagCovariance = c;
+        rows = k;
+    }
+
+    private double[] denseFilter(FilteringMethod method, double methodParameter) {
+        RealMatrix data = MatrixUtils.createRealMatrix(size, 1);
+        for (int i = 0; i < size; ++i) {
+            data.setEntry(i, 0, values[i]);
+        }
+        return SpectralMethods.mFilter(data, windowSize, method, methodParameter).getColumn(0);
+    }
+
+    private static void clear(double[][] data) {
+        Arrays.fill(data[0], 0);
+        Arrays.fill(data[1], 0);
+    }
+
+    // result = a * b, element-wise over complex numbers; result may alias a or b.
+    private static void multiply(double[][] a, double[][] b, double[][] result) {
+        for (int f = 0; f < a[0].length; ++f) {
+            double re = a[0][f] * b[0][f] - a[1][f] * b[1][f];
+            double im = a[0][f] * b[1][f] + a[1][f] * b[0][f];
+            result[0][f] = re;
+            result[1][f] = im;
+        }
+    }
+}
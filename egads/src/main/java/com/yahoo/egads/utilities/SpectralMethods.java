@@ -41,6 +41,8 @@ import com.yahoo.egads.data.TimeSeries;
  *      6. 'GAP_RATIO' is similar to 'EIGEN_RATIO' except that the eigen gap to the largest (first) singular value ratio is used 
  *          instead of the direct ratio of each singular value to the largest (first) singular value. (Default 'methodParameter' = 0.01)
  *      
+ * Single time-series are filtered by SpectralFilter, which never builds the Hankel matrix and only reconstructs
+ * the kept components.
  *        
  * @author amizadeh
  *
@@ -117,20 +119,13 @@ public class SpectralMethods {
         return 2 * sumcumsum / variances.length - 1;
     }
 
-    public static RealMatrix mFilter(RealMatrix data, int windowSize, FilteringMethod method, double methodParameter) {
+    // Returns the index of the smallest singular-value kept by the filtering method.
+    protected static int truncationIndex(double[] singularValues, FilteringMethod method, double methodParameter) {
 
-        int n = data.getRowDimension();
-        int m = data.getColumnDimension();
-        int k = n - windowSize + 1;
         int i = 0, ind = 0;
         double[] temp;
         double sum = 0;
 
-        RealMatrix hankelMat = SpectralMethods.createHankelMatrix(data, windowSize);
-        SingularValueDecomposition svd = new SingularValueDecomposition(hankelMat);
-
-        double[] singularValues = svd.getSingularValues();
-
         switch (method) {
             case VARIANCE:
                 temp = new double[singularValues.length - 1];
@@ -272,16 +267,24 @@ public class SpectralMethods {
                 break;
         }
 
-        ind = Math.max(0, Math.min(ind, singularValues.length - 1));
-        RealMatrix truncatedHankelMatrix = MatrixUtils.createRealMatrix(k, m * windowSize);
-        RealMatrix mU = svd.getU();
-        RealMatrix mVT = svd.getVT();
+        return Math.max(0, Math.min(ind, singularValues.length - 1));
+    }
 
-        for (i = 0; i <= ind; ++i) {
-            truncatedHankelMatrix =
-                            truncatedHankelMatrix.add(mU.getColumnMatrix(i).multiply(mVT.getRowMatrix(i))
-                                            .scalarMultiply(singularValues[i]));
+    public static RealMatrix mFilter(RealMatrix data, int windowSize, FilteringMethod method, double methodParameter) {
+
+        RealMatrix hankelMat = SpectralMethods.createHankelMatrix(data, windowSize);
+        SingularValueDecomposition svd = new SingularValueDecomposition(hankelMat);
+
+        double[] singularValues = svd.getSingularValues();
+        int ind = SpectralMethods.truncationIndex(singularValues, method, methodParameter);
+
+        // U_r * S_r * V_r' over the kept components.
+        RealMatrix mU = svd.getU().getSubMatrix(0, hankelMat.getRowDimension() - 1, 0, ind);
+        RealMatrix mVT = svd.getVT().getSubMatrix(0, ind, 0, hankelMat.getColumnDimension() - 1);
+        for (int i = 0; i <= ind; ++i) {
+            mVT.setRowVector(i, mVT.getRowVector(i).mapMultiply(singularValues[i]));
         }
+        RealMatrix truncatedHankelMatrix = mU.multiply(mVT);
 
         return SpectralMethods.averageHankelMatrix(truncatedHankelMatrix, windowSize);
     }
@@ -289,22 +292,24 @@ public class SpectralMethods {
     public static TimeSeries.DataSequence mFilter(TimeSeries.DataSequence data, int windowSize, FilteringMethod method,
                     double methodParameter) {
 
-        TimeSeries.DataSequence result = new TimeSeries.DataSequence();
-        RealMatrix dataMat = MatrixUtils.createRealMatrix(data.size(), 1);
+        SpectralFilter filter = new SpectralFilter(windowSize);
+        for (TimeSeries.Entry e : data) {
+            filter.append(e.value);
+        }
+
+        return SpectralMethods.copyFiltered(data, filter.filter(method, methodParameter));
+    }
+
+    // Copies the entries of data with their values replaced by the filtered values.
+    public static TimeSeries.DataSequence copyFiltered(TimeSeries.DataSequence data, double[] filtered) {
+
+        TimeSeries.DataSequence result = new TimeSeries.DataSequence(data.size());
 
         int i = 0;
         for (TimeSeries.Entry e : data) {
-            dataMat.setEntry(i, 0, e.value);
-            i++;
             TimeSeries.Entry eCopy = new TimeSeries.Entry(e);
+            eCopy.value = (float) filtered[i];
             result.add(eCopy);
-        }
-
-        RealMatrix resultMat = SpectralMethods.mFilter(dataMat, windowSize, method, methodParameter);
-
-        i = 0;
-        for (TimeSeries.Entry e : result) {
-            e.value = (float) resultMat.getEntry(i, 0);
             i++;
         }
 
@@ -59,6 +59,22 @@ public class StatsUtils {
         }
         return ((float) Math.sqrt(temp / n));
     }
+
+    public static float getMean(float[] data) {
+        float sum = (float) 0.0;
+        for (float a : data) {
+            sum += a;
+        }
+        return (sum / data.length);
+    }
+
+    public static float getSD(float[] data, float mean) {
+        float temp = (float) 0.0;
+        for (float a : data) {
+            temp += (mean - a) * (mean - a);
+        }
+        return ((float) Math.sqrt(temp / data.length));
+    }
     
     /**
      * @return the number, average, variance, min, median and max of a
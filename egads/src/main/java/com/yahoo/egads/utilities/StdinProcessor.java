@@ -7,41 +7,65 @@
 package com.yahoo.egads.utilities;
 
 // Class that implements EGADS STDIN input processor.
+// The input is text lines by default, or binary records when INPUT is BINARY
+// (see BinaryTimeSeriesReader).
 
 import com.yahoo.egads.control.ProcessableObject;
 import com.yahoo.egads.control.ProcessableObjectFactory;
 import java.util.Properties;
 import java.io.*;
+import java.nio.channels.Channels;
 import java.util.ArrayList;
 import com.yahoo.egads.data.TimeSeries;
 
 public class StdinProcessor implements InputProcessor {
-        
+
+    private InputStream input;
+
+    public StdinProcessor() {
+        this(System.in);
+    }
+
+    public StdinProcessor(InputStream input) {
+        this.input = input;
+    }
+
     public void processInput(Properties p) throws Exception {
-        BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
-        String s;
         Integer aggr = 1;
         if (p.getProperty("AGGREGATION") != null) {
           aggr = new Integer(p.getProperty("AGGREGATION"));
         }
+        if ("BINARY".equals(p.getProperty("INPUT"))) {
+            BinaryTimeSeriesReader reader = new BinaryTimeSeriesReader(Channels.newChannel(input));
+            ArrayList<TimeSeries> metrics;
+            while ((metrics = reader.next()) != null) {
+                process(aggregate(metrics, aggr), p);
+            }
+            return;
+        }
+        BufferedReader in = new BufferedReader(new InputStreamReader(input));
+        String s;
         while ((s = in.readLine()) != null && s.length() != 0) {
             // Parse the time-series.
-            ArrayList<TimeSeries> metrics = createTimeSeries(s, aggr);
-            for (TimeSeries ts : metrics) {
-                ProcessableObject po = ProcessableObjectFactory.create(ts, p);
-                po.process();
-            }
+            process(createTimeSeries(s, aggr), p);
+        }
+    }
+
+    private static void process(ArrayList<TimeSeries> metrics, Properties p) throws Exception {
+        for (TimeSeries ts : metrics) {
+            ProcessableObject po = ProcessableObjectFactory.create(ts, p);
+            po.process();
+            ProcessableObjectFactory.release(po);
         }
     }
-    
-    
+
     // Format of the time-series: meta1\tmeta\2{(2014120205,0),(2014122207,1)}\t{(2014120205,0),(2014122207,0)}...
     // Creates a time-series from a file.
-    private static ArrayList<TimeSeries> createTimeSeries(String s, Integer aggr) throws Exception {
+    static ArrayList<TimeSeries> createTimeSeries(String s, Integer aggr) throws Exception {
         ArrayList<TimeSeries> output = new ArrayList<TimeSeries>();
         String[] tokens = s.split("\t");
         String meta = "meta";
-        
+
         int tokenNum = 1;
         for (String t : tokens) {
             if (t.contains("{(")) {
@@ -51,8 +75,11 @@ public class StdinProcessor implements InputProcessor {
                 meta += "-" + t;
             }
         }
+        return aggregate(output, aggr);
+    }
 
-        // Handle aggregation.
+    // Handle aggregation.
+    private static ArrayList<TimeSeries> aggregate(ArrayList<TimeSeries> output, Integer aggr) {
         if (aggr > 1) {
             for (TimeSeries t : output) {
                 t.data = t.aggregate(aggr);
@@ -61,7 +88,7 @@ public class StdinProcessor implements InputProcessor {
         }
         return output;
     }
-    
+
     private static TimeSeries convertStringToTS(String s, String tokenNum) throws Exception {
          TimeSeries ts = new TimeSeries();
          ts.meta.fileName = tokenNum;
@@ -69,7 +96,7 @@ public class StdinProcessor implements InputProcessor {
          String[] tuples = s.split("\\),");
          for (String tuple : tuples) {
              tuple = tuple.replaceAll("[{}\\(\\)]", "");
-             String[] vals = tuple.split(","); 
+             String[] vals = tuple.split(",");
              Float val = new Float(vals[1]);
              ts.append(new Long(vals[0]), val);
          }
@@ -44,4 +44,52 @@ public class TestAutoSensitivity {
         threashold = AutoSensitivity.getLowDensitySensitivity(fArray, 1, 1);
         Assert.assertTrue(threashold > 5000000);
     }
+
+    @Test
+    public void testThresholds() throws Exception {
+        // Thresholds computed before the sorted-array rewrite.
+        Float[] errors = readErrors("src/test/resources/sample_errors.csv");
+        Assert.assertEquals(AutoSensitivity.getLowDensitySensitivity(errors.clone(), 1, 1), (Float) 8.3513288E7f);
+        Assert.assertEquals(AutoSensitivity.getLowDensitySensitivity(errors.clone(), 3, 0.05f), (Float) 4.8873304E7f);
+        Assert.assertEquals(AutoSensitivity.getLowDensitySensitivity(errors.clone(), 2, 0.01f), (Float) 5.6001208E7f);
+        Assert.assertEquals(AutoSensitivity.getAdaptiveKSigmaSensitivity(errors.clone(), 0.01f),
+                            new Float[]{5.89971E7f, -4403837.0f});
+        Assert.assertEquals(AutoSensitivity.getAdaptiveMaxMinSigmaSensitivity(errors.clone(), 0.01f, 2f),
+                            new Float[]{5.791398E7f, null});
+
+        errors = readErrors("src/test/resources/sample_errors_2.csv");
+        Assert.assertEquals(AutoSensitivity.getLowDensitySensitivity(errors.clone(), 1, 1), (Float) 75.29411f);
+        Assert.assertEquals(AutoSensitivity.getLowDensitySensitivity(errors.clone(), 3, 0.05f), (Float) Float.POSITIVE_INFINITY);
+        Assert.assertEquals(AutoSensitivity.getAdaptiveKSigmaSensitivity(errors.clone(), 0.01f),
+                            new Float[]{22.773006f, -71.05325f});
+        Assert.assertEquals(AutoSensitivity.getAdaptiveMaxMinSigmaSensitivity(errors.clone(), 0.01f, 2f),
+                            new Float[]{51.837563f, -69.6469f});
+    }
+
+    @Test
+    public void testAutoSensitivitySpeed() throws Exception {
+        // Uniform errors keep the low density cluster growing, which
+        // used to be quadratic.
+        Random randomGenerator = new Random(0);
+        Float[] errors = new Float[100000];
+        for (int i = 0; i < errors.length; i++) {
+            errors[i] = randomGenerator.nextFloat() * 1000000;
+        }
+        long start = System.currentTimeMillis();
+        AutoSensitivity.getLowDensitySensitivity(errors.clone(), 3, 1);
+        AutoSensitivity.getAdaptiveKSigmaSensitivity(errors.clone(), 0.01f);
+        AutoSensitivity.getAdaptiveMaxMinSigmaSensitivity(errors.clone(), 0.05f, 3);
+        System.out.print("\n auto sensitivity of " + errors.length + " errors: "
+                         + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    private Float[] readErrors(String file) throws Exception {
+        ArrayList<Float> errors = new ArrayList<Float>();
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            errors.add(Float.parseFloat(line));
+        }
+        reader.close();
+        return errors.toArray(new Float[errors.size()]);
+    }
 }
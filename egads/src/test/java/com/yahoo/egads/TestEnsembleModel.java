@@ -0,0 +1,134 @@
+/*
+ * Copyright 2019, Yahoo Inc.
+ * Copyrights licensed under the GPL License.
+ * See the accompanying LICENSE file for terms.
+ */
+
+package com.yahoo.egads;
+
+import com.yahoo.egads.data.Anomaly.Interval;
+import com.yahoo.egads.data.Anomaly.IntervalSequence;
+import com.yahoo.egads.data.TimeSeries;
+import com.yahoo.egads.models.adm.AnomalyDetectionModel;
+import com.yahoo.egads.models.adm.DBScanModel;
+import com.yahoo.egads.models.adm.EnsembleModel;
+import com.yahoo.egads.models.adm.ExtremeLowDensityModel;
+import com.yahoo.egads.models.adm.KSigmaModel;
+import com.yahoo.egads.models.adm.SimpleThresholdModel;
+import com.yahoo.egads.models.tsmm.OlympicModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+// Tests that the ensemble combines the decisions of its detectors point by point.
+public class TestEnsembleModel {
+    private Properties p;
+    private TimeSeries.DataSequence observed;
+    private TimeSeries.DataSequence expected;
+
+    @BeforeMethod
+    public void before() throws Exception {
+        InputStream is = new FileInputStream("src/test/resources/sample_config.ini");
+        p = new Properties();
+        p.load(is);
+        p.setProperty("MAX_ANOMALY_TIME_AGO", "999999999");
+        p.setProperty("AUTO_SENSITIVITY_ANOMALY_PCNT", "0.2");
+        p.setProperty("AUTO_SENSITIVITY_SD", "2.0");
+        observed = com.yahoo.egads.utilities.FileUtils
+                .createTimeSeries("src/test/resources/sample_input.csv", p).get(0).data;
+        OlympicModel model = new OlympicModel(p);
+        model.train(observed);
+        expected = new TimeSeries.DataSequence(observed.getTimes(), observed.getValues());
+        model.predict(expected);
+    }
+
+    @Test
+    public void testCombination() throws Exception {
+        TreeSet<Integer> kSigma = indices(run(new KSigmaModel(p)));
+        TreeSet<Integer> lowDensity = indices(run(new ExtremeLowDensityModel(p)));
+        Assert.assertTrue(kSigma.size() > lowDensity.size());
+
+        TreeSet<Integer> union = new TreeSet<Integer>(kSigma);
+        union.addAll(lowDensity);
+        TreeSet<Integer> intersection = new TreeSet<Integer>(kSigma);
+        intersection.retainAll(lowDensity);
+
+        p.setProperty("AD_COMBINATION", "ANY");
+        Assert.assertEquals(indices(run(ensemble())), union);
+        p.setProperty("AD_COMBINATION", "ALL");
+        Assert.assertEquals(indices(run(ensemble())), intersection);
+
+        // KSigmaModel carries more than half of the weight.
+        p.setProperty("AD_COMBINATION", "VOTE");
+        p.setProperty("AD_WEIGHTS", "2,1");
+        Assert.assertEquals(indices(run(ensemble())), kSigma);
+    }
+
+    @Test
+    public void testSameAsSeparateModels() throws Exception {
+        IntervalSequence alone = run(new KSigmaModel(p));
+        IntervalSequence single = run(new EnsembleModel(p,
+                Arrays.<AnomalyDetectionModel>asList(new KSigmaModel(p))));
+        Assert.assertEquals(single.size(), alone.size());
+        for (int i = 0; i < alone.size(); i++) {
+            Assert.assertEquals(single.get(i).index, alone.get(i).index);
+            Assert.assertEquals(Arrays.asList(single.get(i).anomalyScore),
+                                Arrays.asList(alone.get(i).anomalyScore));
+        }
+
+        // Parallel scans find the same anomalies.
+        List<AnomalyDetectionModel> models = all();
+        TreeSet<Integer> sequential = indices(run(new EnsembleModel(p, models)));
+        p.setProperty("AD_PARALLEL", "1");
+        Assert.assertEquals(indices(run(new EnsembleModel(p, all()))), sequential);
+    }
+
+    @Test
+    public void testEnsembleSpeed() throws Exception {
+        long start = System.currentTimeMillis();
+        for (int r = 0; r < 20; r++) {
+            for (AnomalyDetectionModel model : all()) {
+                run(model);
+            }
+        }
+        long separate = System.currentTimeMillis() - start;
+
+        start = System.currentTimeMillis();
+        for (int r = 0; r < 20; r++) {
+            run(new EnsembleModel(p, all()));
+        }
+        long fused = System.currentTimeMillis() - start;
+        System.out.print("\n 4 detectors x 20 runs on " + observed.size() + " points: separately "
+                         + separate + "ms, ensemble " + fused + "ms");
+    }
+
+    private EnsembleModel ensemble() {
+        return new EnsembleModel(p, Arrays.<AnomalyDetectionModel>asList(
+                new KSigmaModel(p), new ExtremeLowDensityModel(p)));
+    }
+
+    private List<AnomalyDetectionModel> all() {
+        return new ArrayList<AnomalyDetectionModel>(Arrays.<AnomalyDetectionModel>asList(
+                new KSigmaModel(p), new ExtremeLowDensityModel(p), new SimpleThresholdModel(p), new DBScanModel(p)));
+    }
+
+    private IntervalSequence run(AnomalyDetectionModel model) throws Exception {
+        model.tune(observed, expected, null);
+        return model.detect(observed, expected);
+    }
+
+    private TreeSet<Integer> indices(IntervalSequence intervals) {
+        TreeSet<Integer> result = new TreeSet<Integer>();
+        for (Interval interval : intervals) {
+            result.add(interval.index);
+        }
+        return result;
+    }
+}
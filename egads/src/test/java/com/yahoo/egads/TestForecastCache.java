@@ -0,0 +1,153 @@
+/*
+ * Copyright 2019, Yahoo Inc.
+ * Copyrights licensed under the GPL License.
+ * See the accompanying LICENSE file for terms.
+ */
+
+package com.yahoo.egads;
+
+import com.yahoo.egads.control.ForecastCache;
+import com.yahoo.egads.control.ModelAdapter;
+import com.yahoo.egads.control.ProcessableObjectFactory;
+import com.yahoo.egads.data.TimeSeries;
+import com.yahoo.egads.models.tsmm.OlympicModel;
+import java.util.ArrayList;
+import java.util.Properties;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+// Tests that processables share one trained forecast per metric and model config.
+public class TestForecastCache {
+
+    @Test
+    public void testSharedForecast() throws Exception {
+        Properties p = loadConfig();
+        TimeSeries ts = loadMetric(p);
+        ForecastCache cache = new ForecastCache(1L << 20);
+
+        // Two detectors on the same metric and model train it once.
+        p.setProperty("AD_MODEL", "KSigmaModel");
+        ArrayList<TimeSeries.DataSequence> first = cache.forecast(adapter(ts, p), p, ts.startTime(), ts.lastTime());
+        p.setProperty("AD_MODEL", "ExtremeLowDensityModel");
+        ArrayList<TimeSeries.DataSequence> second = cache.forecast(adapter(ts, p), p, ts.startTime(), ts.lastTime());
+        Assert.assertEquals(cache.getMisses(), 1);
+        Assert.assertEquals(cache.getHits(), 1);
+
+        // Each caller gets its own copy.
+        Assert.assertNotSame(second.get(0), first.get(0));
+        Assert.assertEquals(second.get(0).size(), first.get(0).size());
+        float value = first.get(0).get(0).value;
+        second.get(0).get(0).value += 1;
+        second.get(0).clear();
+        ArrayList<TimeSeries.DataSequence> third = cache.forecast(adapter(ts, p), p, ts.startTime(), ts.lastTime());
+        Assert.assertEquals(third.get(0).size(), first.get(0).size());
+        Assert.assertEquals(third.get(0).get(0).value, value);
+
+        // The forecast is the same as without the cache.
+        ModelAdapter ma = adapter(ts, p);
+        ma.train();
+        ArrayList<TimeSeries.DataSequence> expected = ma.forecast(ts.startTime(), ts.lastTime());
+        for (int i = 0; i < expected.get(0).size(); i++) {
+            Assert.assertEquals(first.get(0).get(i).value, expected.get(0).get(i).value);
+        }
+
+        // A different model config or new data is forecast again.
+        p.setProperty("NUM_WEEKS", "5");
+        Assert.assertNotSame(cache.forecast(adapter(ts, p), p, ts.startTime(), ts.lastTime()), first);
+        ts.data.get(10).value += 1;
+        Assert.assertNotSame(cache.forecast(adapter(ts, p), p, ts.startTime(), ts.lastTime()), first);
+        Assert.assertEquals(cache.getMisses(), 3);
+        Assert.assertEquals(cache.size(), 3);
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        Properties p = loadConfig();
+        TimeSeries ts = loadMetric(p);
+        ForecastCache cache = new ForecastCache(0);
+
+        // Nothing is looked up or kept, every call trains the models.
+        ModelAdapter ma = adapter(ts, p);
+        ArrayList<TimeSeries.DataSequence> first = cache.forecast(ma, p, ts.startTime(), ts.lastTime());
+        Assert.assertEquals(first.get(0).size(), ts.size());
+        ma.forecast(ts.startTime(), ts.lastTime());
+        cache.forecast(adapter(ts, p), p, ts.startTime(), ts.lastTime());
+        Assert.assertEquals(cache.getHits(), 0);
+        Assert.assertEquals(cache.getMisses(), 0);
+        Assert.assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        Properties p = loadConfig();
+        TimeSeries ts = loadMetric(p);
+        ForecastCache cache = new ForecastCache(1L << 20);
+        cache.forecast(adapter(ts, p), p, ts.startTime(), ts.lastTime());
+        long footprint = cache.getFootprint();
+        Assert.assertTrue(footprint > 0);
+
+        // Room for two forecasts: the least recently used one is dropped.
+        cache.setCapacity(2 * footprint);
+        for (String weeks : new String[] {"2", "3", "4"}) {
+            p.setProperty("NUM_WEEKS", weeks);
+            cache.forecast(adapter(ts, p), p, ts.startTime(), ts.lastTime());
+        }
+        Assert.assertEquals(cache.size(), 2);
+        Assert.assertEquals(cache.getFootprint(), 2 * footprint);
+        p.setProperty("NUM_WEEKS", "2");
+        cache.forecast(adapter(ts, p), p, ts.startTime(), ts.lastTime());
+        Assert.assertEquals(cache.getHits(), 0);
+
+        cache.setCapacity(0);
+        Assert.assertEquals(cache.size(), 0);
+        Assert.assertEquals(cache.getFootprint(), 0);
+    }
+
+    @Test
+    public void testFactoryConfigs() throws Exception {
+        TimeSeries ts = loadMetric(loadConfig());
+
+        // Configs differing only in properties the forecast ignores share it.
+        Properties ksigma = loadConfig();
+        ksigma.setProperty("FORECAST_CACHE_MB", "64");
+        ksigma.setProperty("AD_MODEL", "KSigmaModel");
+        Properties density = (Properties) ksigma.clone();
+        density.setProperty("AD_MODEL", "ExtremeLowDensityModel");
+        Properties transform = (Properties) ksigma.clone();
+        transform.setProperty("OP_TYPE", "TRANSFORM_INPUT");
+
+        ProcessableObjectFactory.create(ts, ksigma).process();
+        ForecastCache cache = ProcessableObjectFactory.getForecastCache();
+        long hits = cache.getHits();
+        long misses = cache.getMisses();
+        ProcessableObjectFactory.create(ts, density).process();
+        ProcessableObjectFactory.create(ts, transform).process();
+        Assert.assertEquals(cache.getHits(), hits + 2);
+        Assert.assertEquals(cache.getMisses(), misses);
+
+        // Configs without FORECAST_CACHE_MB do not use it.
+        Properties uncached = loadConfig();
+        ProcessableObjectFactory.create(ts, uncached).process();
+        Assert.assertEquals(cache.getHits(), hits + 2);
+        Assert.assertEquals(cache.getMisses(), misses);
+    }
+
+    private Properties loadConfig() throws Exception {
+        InputStream is = new FileInputStream("src/test/resources/sample_config.ini");
+        Properties p = new Properties();
+        p.load(is);
+        return p;
+    }
+
+    private TimeSeries loadMetric(Properties p) throws Exception {
+        return com.yahoo.egads.utilities.FileUtils.createTimeSeries("src/test/resources/model_input.csv", p).get(0);
+    }
+
+    private ModelAdapter adapter(TimeSeries ts, Properties p) throws Exception {
+        ModelAdapter ma = new ModelAdapter(ts, 3600);
+        ma.addModel(new OlympicModel(p));
+        return ma;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019, Yahoo Inc.
+ * Copyrights licensed under the GPL License.
+ * See the accompanying LICENSE file for terms.
+ */
+
+package com.yahoo.egads;
+
+import com.yahoo.egads.control.ModelRegistry;
+import com.yahoo.egads.control.ProcessableObject;
+import com.yahoo.egads.control.ProcessableObjectFactory;
+import com.yahoo.egads.data.TimeSeries;
+import com.yahoo.egads.models.tsmm.FastMovingAverageModel;
+import com.yahoo.egads.models.tsmm.TimeSeriesModel;
+import java.util.ArrayList;
+import java.util.Properties;
+import java.util.Random;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+// Tests that models reused across time-series find the same anomalies as new ones.
+public class TestModelPool {
+
+    @Test
+    public void testReusedModels() throws Exception {
+        Properties p = loadConfig();
+        // The weights are tuned per series, so a reused model must forget them.
+        p.setProperty("TS_MODEL", "FastDoubleExponentialSmoothingModel");
+        p.setProperty("OPTIMIZE_PARAMETERS", "NELDER_MEAD");
+        p.setProperty("AD_MODEL", "KSigmaModel,ExtremeLowDensityModel");
+        p.setProperty("AUTO_SENSITIVITY_ANOMALY_PCNT", "0.2");
+        p.setProperty("AUTO_SENSITIVITY_SD", "2.0");
+        TimeSeries ts = loadMetric(p);
+        // A noisier series, tuned to other thresholds.
+        TimeSeries noisy = loadMetric(p);
+        Random random = new Random(1);
+        for (TimeSeries.Entry e : noisy.data) {
+            e.value = e.value * (float) (1 + random.nextGaussian() * 0.5);
+        }
+
+        // Without release every processable has new models.
+        String fresh = process(ts, p, false);
+        String freshNoisy = process(noisy, p, false);
+        Assert.assertFalse(freshNoisy.equals(fresh));
+
+        // Models tuned on one series find the same anomalies on the next.
+        Assert.assertEquals(process(ts, p, true), fresh);
+        Assert.assertEquals(process(noisy, p, true), freshNoisy);
+        Assert.assertEquals(process(ts, p, true), fresh);
+    }
+
+    @Test
+    public void testRegisteredModel() throws Exception {
+        Properties p = loadConfig();
+        p.setProperty("TS_MODEL", "TestPoolModel");
+        final int[] created = new int[1];
+        ModelRegistry.registerTSModel("TestPoolModel", config -> {
+            created[0]++;
+            return new FastMovingAverageModel(config);
+        }, true);
+
+        TimeSeries ts = loadMetric(p);
+        for (int i = 0; i < 5; i++) {
+            ProcessableObject po = ProcessableObjectFactory.create(ts, p);
+            po.process();
+            ProcessableObjectFactory.release(po);
+        }
+        Assert.assertEquals(created[0], 1);
+
+        // Models are not reused unless registered as reusable.
+        p.setProperty("TS_MODEL", "TestNewModel");
+        created[0] = 0;
+        ModelRegistry.registerTSModel("TestNewModel", config -> {
+            created[0]++;
+            return new FastMovingAverageModel(config);
+        });
+        for (int i = 0; i < 5; i++) {
+            ProcessableObject po = ProcessableObjectFactory.create(ts, p);
+            po.process();
+            ProcessableObjectFactory.release(po);
+        }
+        Assert.assertEquals(created[0], 5);
+
+        // The models shipped with EGADS are registered, only the audited ones as reusable.
+        ModelRegistry.Entry<TimeSeriesModel> entry = ModelRegistry.getTSModel("NullModel");
+        Assert.assertFalse(entry.reusable);
+        Assert.assertEquals(entry.factory.create(p).getModelName(), "NullModel");
+        Assert.assertTrue(ModelRegistry.getTSModel("FastRegressionModel").reusable);
+        Assert.assertFalse(ModelRegistry.getTSModel("OlympicModel").reusable);
+    }
+
+    @Test
+    public void testCreateSpeed() throws Exception {
+        Properties p = loadConfig();
+        TimeSeries ts = loadMetric(p);
+        int n = 20000;
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < n; i++) {
+            ProcessableObjectFactory.create(ts, p);
+        }
+        long created = System.currentTimeMillis() - start;
+
+        start = System.currentTimeMillis();
+        for (int i = 0; i < n; i++) {
+            ProcessableObjectFactory.release(ProcessableObjectFactory.create(ts, p));
+        }
+        long pooled = System.currentTimeMillis() - start;
+        System.out.print("\n " + n + " processables: new models " + created + "ms, pooled models " + pooled + "ms");
+    }
+
+    private String process(TimeSeries ts, Properties p, boolean release) throws Exception {
+        ProcessableObject po = ProcessableObjectFactory.create(ts, p);
+        po.process();
+        String result = po.result().toString();
+        if (release) {
+            ProcessableObjectFactory.release(po);
+        }
+        return result;
+    }
+
+    private Properties loadConfig() throws Exception {
+        InputStream is = new FileInputStream("src/test/resources/sample_config.ini");
+        Properties p = new Properties();
+        p.load(is);
+        p.setProperty("TS_MODEL", "OlympicModel");
+        p.setProperty("AD_MODEL", "KSigmaModel");
+        p.setProperty("OUTPUT", "ANOMALY_DB");
+        return p;
+    }
+
+    private TimeSeries loadMetric(Properties p) throws Exception {
+        ArrayList<TimeSeries> metrics = com.yahoo.egads.utilities.FileUtils
+            .createTimeSeries("src/test/resources/sample_input.csv", p);
+        return metrics.get(0);
+    }
+}
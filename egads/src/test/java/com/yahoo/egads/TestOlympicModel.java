@@ -114,4 +114,36 @@ public class TestOlympicModel {
         Assert.assertEquals(TimeSeriesAbstractModel.betterThan(olympicModel, movingAverageModel), false);
         Assert.assertEquals(TimeSeriesAbstractModel.betterThan(olympicModel, olympicModel), false);
     }
+
+    @Test
+    public void testUpdate() throws Exception {
+        String configFile = "src/test/resources/sample_config.ini";
+        InputStream is = new FileInputStream(configFile);
+        Properties p = new Properties();
+        p.load(is);
+        ArrayList<TimeSeries> actual_metric = com.yahoo.egads.utilities.FileUtils
+                .createTimeSeries("src/test/resources/model_input.csv", p);
+        TimeSeries.DataSequence data = actual_metric.get(0).data;
+        OlympicModel trained = new OlympicModel(p);
+        trained.train(data);
+
+        // Train on the first half and feed the rest in small batches.
+        int n = data.size();
+        OlympicModel updated = new OlympicModel(p);
+        TimeSeries.DataSequence head = new TimeSeries.DataSequence();
+        head.addAll(data.subList(0, n / 2));
+        updated.train(head);
+        for (int i = n / 2; i < n; i += 7) {
+            TimeSeries.DataSequence batch = new TimeSeries.DataSequence();
+            batch.addAll(data.subList(i, Math.min(n, i + 7)));
+            updated.update(batch);
+        }
+
+        Assert.assertEquals(updated.getModel().size(), n);
+        for (int i = 0; i < n; i++) {
+            Assert.assertEquals(Float.floatToIntBits(updated.getModel().get(i)),
+                                Float.floatToIntBits(trained.getModel().get(i)));
+        }
+        Assert.assertEquals(updated.getMAD(), trained.getMAD(), 1e-10);
+    }
 }
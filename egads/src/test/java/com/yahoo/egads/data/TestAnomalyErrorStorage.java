@@ -0,0 +1,70 @@
+/*
+ * Copyright 2019, Yahoo Inc.
+ * Copyrights licensed under the GPL License.
+ * See the accompanying LICENSE file for terms.
+ */
+package com.yahoo.egads.data;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+public class TestAnomalyErrorStorage {
+
+    @Test
+    public void errorMatrix() throws Exception {
+        float[] observed = new float[] {1, 0, 4, -2, 8, 8, 0, 3};
+        float[] expected = new float[] {1, 2, 0, -1, 6, 9, 0, 2.5f};
+        TimeSeries.DataSequence observedSeries = new TimeSeries.DataSequence(observed);
+        TimeSeries.DataSequence expectedSeries = new TimeSeries.DataSequence(expected);
+
+        AnomalyErrorStorage aes = new AnomalyErrorStorage();
+        float[][] matrix = aes.computeErrorMatrix(observedSeries, expectedSeries);
+        assertEquals(AnomalyErrorStorage.NUM_ERRORS, matrix.length);
+
+        // Every column matches the per-point metrics, bit for bit.
+        float[] errors = new float[AnomalyErrorStorage.NUM_ERRORS];
+        for (int i = 0; i < observed.length; i++) {
+            aes.computeErrorMetrics(expected[i], observed[i], errors);
+            for (int j = 0; j < AnomalyErrorStorage.NUM_ERRORS; j++) {
+                assertEquals(Float.floatToIntBits(errors[j]), Float.floatToIntBits(matrix[j][i]));
+            }
+        }
+
+        HashMap<String, ArrayList<Float>> byName = new AnomalyErrorStorage()
+                .initAnomalyErrors(observedSeries, expectedSeries);
+        for (int j = 0; j < AnomalyErrorStorage.NUM_ERRORS; j++) {
+            ArrayList<Float> row = byName.get(aes.getIndexToError().get(j));
+            for (int i = 0; i < observed.length; i++) {
+                assertEquals(matrix[j][i], row.get(i), 0.0f);
+            }
+        }
+    }
+
+    @Test
+    public void thresholdArray() throws Exception {
+        AnomalyErrorStorage aes = new AnomalyErrorStorage();
+        Map<String, Float> threshold = new HashMap<String, Float>();
+        threshold.put("mae", -3.0f);
+        threshold.put("mape", 10.0f);
+        threshold.put("unknown", 1.0f);
+
+        float[] thresholds = aes.toThresholdArray(threshold);
+        assertEquals(AnomalyErrorStorage.NUM_ERRORS, thresholds.length);
+        assertEquals(3.0f, thresholds[AnomalyErrorStorage.MAE], 0.0f);
+        assertEquals(10.0f, thresholds[AnomalyErrorStorage.MAPE], 0.0f);
+        assertTrue(Float.isNaN(thresholds[AnomalyErrorStorage.MAPEE]));
+        assertTrue(Float.isNaN(thresholds[AnomalyErrorStorage.SMAPE]));
+        assertTrue(Float.isNaN(thresholds[AnomalyErrorStorage.MASE]));
+
+        Float[] boxed = AnomalyErrorStorage.boxThresholds(thresholds);
+        assertEquals(3.0f, boxed[AnomalyErrorStorage.MAE], 0.0f);
+        assertNull(boxed[AnomalyErrorStorage.MASE]);
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2019, Yahoo Inc.
+ * Copyrights licensed under the GPL License.
+ * See the accompanying LICENSE file for terms.
+ */
+package com.yahoo.egads.models.tsmm;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.yahoo.egads.data.TimeSeries;
+import com.yahoo.egads.utilities.FileUtils;
+
+public class TestFastForecastModels {
+    private Properties config;
+    private TimeSeries.DataSequence data;
+
+    @BeforeMethod
+    public void before() throws Exception {
+        InputStream is = new FileInputStream("src/test/resources/sample_config.ini");
+        config = new Properties();
+        config.load(is);
+        data = FileUtils.createTimeSeries("src/test/resources/sample_input.csv", config)
+                .get(0).data;
+    }
+
+    @Test
+    public void simpleExponentialSmoothingParity() throws Exception {
+        assertParity(new SimpleExponentialSmoothingModel(config),
+                new FastSimpleExponentialSmoothingModel(config), 1);
+    }
+
+    @Test
+    public void movingAverageParity() throws Exception {
+        assertParity(new MovingAverageModel(config),
+                new FastMovingAverageModel(config), 2);
+    }
+
+    @Test
+    public void regressionParity() throws Exception {
+        RegressionModel slow = new RegressionModel(config);
+        FastRegressionModel fast = new FastRegressionModel(config);
+        assertParity(slow, fast, 0);
+        assertErrors(slow, fast);
+    }
+
+    @Test
+    public void updateMatchesTrain() throws Exception {
+        TimeSeriesAbstractModel[][] models = new TimeSeriesAbstractModel[][] {
+            {new FastSimpleExponentialSmoothingModel(config), new FastSimpleExponentialSmoothingModel(config)},
+            {new FastDoubleExponentialSmoothingModel(config), new FastDoubleExponentialSmoothingModel(config)},
+            {new FastTripleExponentialSmoothingModel(config), new FastTripleExponentialSmoothingModel(config)},
+            {new FastMovingAverageModel(config), new FastMovingAverageModel(config)},
+            {new FastRegressionModel(config), new FastRegressionModel(config)},
+        };
+        int n = data.size();
+        for (TimeSeriesAbstractModel[] pair : models) {
+            pair[0].train(data);
+            pair[1].train(slice(0, n / 3));
+            for (int i = n / 3; i < n; i += 5) {
+                pair[1].update(slice(i, Math.min(n, i + 5)));
+            }
+
+            TimeSeries.DataSequence trained = predict(pair[0]);
+            TimeSeries.DataSequence updated = predict(pair[1]);
+            for (int i = 0; i < n; i++) {
+                assertEquals(pair[0].getModelName(), trained.get(i).value,
+                        updated.get(i).value, 1e-6 * Math.max(1, Math.abs(trained.get(i).value)));
+            }
+            assertErrors(pair[0], pair[1]);
+        }
+    }
+
+    @Test
+    public void optimizeParameters() throws Exception {
+        FastTripleExponentialSmoothingModel fixed = new FastTripleExponentialSmoothingModel(config);
+        fixed.train(data);
+
+        for (String optimizer : new String[] {"GRID", "NELDER_MEAD"}) {
+            config.setProperty("OPTIMIZE_PARAMETERS", optimizer);
+            config.setProperty("OPTIMIZE_GRID_STEPS", "5");
+            FastTripleExponentialSmoothingModel tuned = new FastTripleExponentialSmoothingModel(config);
+            tuned.train(data);
+            assertTrue(optimizer, tuned.getMSE() <= fixed.getMSE());
+            for (double p : tuned.getParameters()) {
+                assertTrue(optimizer, p >= 0 && p <= 1);
+            }
+        }
+    }
+
+    @Test
+    public void resetForgetsTuning() throws Exception {
+        config.setProperty("OPTIMIZE_PARAMETERS", "NELDER_MEAD");
+        FastTripleExponentialSmoothingModel reused = new FastTripleExponentialSmoothingModel(config);
+        double[] configured = reused.getParameters();
+        reused.train(data);
+        reused.reset();
+        assertTrue(Arrays.equals(configured, reused.getParameters()));
+        assertEquals(-1, reused.getMSE(), 0);
+
+        // A reset model tunes the same weights as a new one.
+        TimeSeries.DataSequence half = slice(0, data.size() / 2);
+        FastTripleExponentialSmoothingModel fresh = new FastTripleExponentialSmoothingModel(config);
+        fresh.train(half);
+        reused.train(data);
+        reused.reset();
+        reused.train(half);
+        assertTrue(Arrays.equals(fresh.getParameters(), reused.getParameters()));
+    }
+
+    @Test
+    public void speed() throws Exception {
+        // Repeat the series so the difference shows.
+        TimeSeries.DataSequence longer = new TimeSeries.DataSequence();
+        for (int r = 0; r < 4; r++) {
+            longer.addAll(data);
+        }
+
+        long start = System.currentTimeMillis();
+        TimeSeriesAbstractModel slow = new SimpleExponentialSmoothingModel(config);
+        slow.train(longer);
+        slow.predict(new TimeSeries.DataSequence(new float[longer.size()]));
+        long slowMillis = System.currentTimeMillis() - start;
+
+        start = System.currentTimeMillis();
+        TimeSeriesAbstractModel fast = new FastSimpleExponentialSmoothingModel(config);
+        fast.train(longer);
+        fast.predict(new TimeSeries.DataSequence(new float[longer.size()]));
+        long fastMillis = System.currentTimeMillis() - start;
+
+        System.out.print("\n simple exponential smoothing of " + longer.size() + " points: openforecast "
+                + slowMillis + "ms, primitive " + fastMillis + "ms");
+    }
+
+    // Both models must forecast the same values after the warm-up points.
+    private void assertParity(TimeSeriesAbstractModel slow, TimeSeriesAbstractModel fast,
+            int warmUp) throws Exception {
+        slow.train(data);
+        fast.train(data);
+        TimeSeries.DataSequence expected = predict(slow);
+        TimeSeries.DataSequence actual = predict(fast);
+        for (int i = warmUp; i < data.size(); i++) {
+            assertEquals(fast.getModelName() + " at " + i, expected.get(i).value,
+                    actual.get(i).value, 1e-5 * Math.max(1, Math.abs(expected.get(i).value)));
+        }
+    }
+
+    // The error metrics are compared with tolerances tied to the scale of the errors,
+    // a relative tolerance is meaningless for a bias close to zero.
+    private static void assertErrors(TimeSeriesAbstractModel expected, TimeSeriesAbstractModel actual) {
+        String name = actual.getModelName();
+        double scale = Math.max(1, Math.abs(expected.getMAD()));
+        assertEquals(name + " bias", expected.getBias(), actual.getBias(), 1e-6 * scale);
+        assertEquals(name + " MAD", expected.getMAD(), actual.getMAD(), 1e-6 * scale);
+        assertEquals(name + " MAPE", expected.getMAPE(), actual.getMAPE(),
+                1e-6 * Math.max(1, Math.abs(expected.getMAPE())));
+        assertEquals(name + " MSE", expected.getMSE(), actual.getMSE(),
+                1e-6 * Math.max(1, expected.getMSE()));
+        assertEquals(name + " SAE", expected.getSAE(), actual.getSAE(),
+                1e-6 * Math.max(1, expected.getSAE()));
+    }
+
+    private TimeSeries.DataSequence predict(TimeSeriesAbstractModel model) throws Exception {
+        TimeSeries.DataSequence sequence = new TimeSeries.DataSequence(new float[data.size()]);
+        model.predict(sequence);
+        return sequence;
+    }
+
+    private TimeSeries.DataSequence slice(int from, int to) {
+        TimeSeries.DataSequence sequence = new TimeSeries.DataSequence();
+        sequence.addAll(data.subList(from, to));
+        return sequence;
+    }
+}
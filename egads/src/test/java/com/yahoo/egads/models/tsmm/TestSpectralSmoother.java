@@ -0,0 +1,64 @@
+/*
+ * Copyright 2019, Yahoo Inc.
+ * Copyrights licensed under the GPL License.
+ * See the accompanying LICENSE file for terms.
+ */
+package com.yahoo.egads.models.tsmm;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Properties;
+
+import org.testng.annotations.Test;
+
+import com.yahoo.egads.data.TimeSeries;
+import com.yahoo.egads.utilities.FileUtils;
+
+public class TestSpectralSmoother {
+
+    @Test
+    public void incrementalUpdate() throws Exception {
+        InputStream is = new FileInputStream("src/test/resources/sample_config.ini");
+        Properties config = new Properties();
+        config.load(is);
+        config.setProperty("WINDOW_SIZE", "48");
+        config.setProperty("INCREMENTAL_UPDATE", "1");
+        TimeSeries.DataSequence data = FileUtils.createTimeSeries("src/test/resources/sample_input.csv", config)
+                .get(0).data;
+        data.setLogicalIndices(data.get(0).time, data.get(1).time - data.get(0).time);
+        int n = data.size();
+
+        SpectralSmoother trained = new SpectralSmoother(config);
+        trained.train(data);
+
+        // Train on a third, then feed the rest in batches smaller than the window.
+        SpectralSmoother updated = new SpectralSmoother(config);
+        TimeSeries.DataSequence head = new TimeSeries.DataSequence();
+        head.addAll(data.subList(0, n / 3));
+        updated.train(head);
+        for (int i = n / 3; i < n; i += 10) {
+            TimeSeries.DataSequence batch = new TimeSeries.DataSequence();
+            batch.addAll(data.subList(i, Math.min(n, i + 10)));
+            updated.update(batch);
+        }
+
+        TimeSeries.DataSequence expected = copy(data);
+        TimeSeries.DataSequence actual = copy(data);
+        trained.predict(expected);
+        updated.predict(actual);
+        for (int i = 0; i < n; i++) {
+            assertEquals("at " + i, expected.get(i).value, actual.get(i).value,
+                    Math.abs(expected.get(i).value) * 1e-5);
+        }
+    }
+
+    private TimeSeries.DataSequence copy(TimeSeries.DataSequence data) {
+        TimeSeries.DataSequence sequence = new TimeSeries.DataSequence();
+        for (TimeSeries.Entry e : data) {
+            sequence.add(new TimeSeries.Entry(e));
+        }
+        return sequence;
+    }
+}
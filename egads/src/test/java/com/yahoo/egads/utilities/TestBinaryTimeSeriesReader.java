@@ -0,0 +1,179 @@
+/*
+ * Copyright 2019, Yahoo Inc.
+ * Copyrights licensed under the GPL License.
+ * See the accompanying LICENSE file for terms.
+ */
+
+package com.yahoo.egads.utilities;
+
+import com.yahoo.egads.data.TimeSeries;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Random;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+// Tests that the binary input gives the same time-series as the text input.
+public class TestBinaryTimeSeriesReader {
+
+    @Test
+    public void testSameAsText() throws Exception {
+        long[][] times = series(3, 500, 1);
+        float[][] values = values(times, 2);
+        String text = text("host1", times, values);
+        byte[] binary = binary("host1", times, values);
+
+        ArrayList<TimeSeries> expected = StdinProcessor.createTimeSeries(text, 1);
+        // A buffer smaller than a point splits the points across reads.
+        for (int bufferSize : new int[] {1, 13, 1 << 16}) {
+            BinaryTimeSeriesReader reader = new BinaryTimeSeriesReader(
+                Channels.newChannel(new ByteArrayInputStream(binary)), bufferSize);
+            ArrayList<TimeSeries> actual = reader.next();
+            Assert.assertEquals(actual.size(), expected.size());
+            for (int i = 0; i < expected.size(); i++) {
+                Assert.assertEquals(actual.get(i).meta.name, expected.get(i).meta.name);
+                Assert.assertEquals(actual.get(i).toString(), expected.get(i).toString());
+            }
+            Assert.assertNull(reader.next());
+        }
+    }
+
+    @Test(expectedExceptions = EOFException.class)
+    public void testTruncated() throws Exception {
+        long[][] times = series(1, 10, 3);
+        byte[] binary = binary("host1", times, values(times, 4));
+        byte[] truncated = new byte[binary.length - 5];
+        System.arraycopy(binary, 0, truncated, 0, truncated.length);
+        new BinaryTimeSeriesReader(Channels.newChannel(new ByteArrayInputStream(truncated))).next();
+    }
+
+    @Test(expectedExceptions = EOFException.class)
+    public void testHugeCount() throws Exception {
+        // A corrupt header claims ~179M points, only one follows.
+        ByteBuffer b = ByteBuffer.allocate(28).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(0).putInt(1).putInt(Integer.MAX_VALUE / 12).putLong(1417194000L).putFloat(1);
+        new BinaryTimeSeriesReader(Channels.newChannel(new ByteArrayInputStream(b.array()))).next();
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testImplausibleCount() throws Exception {
+        ByteBuffer b = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(0).putInt(1).putInt(Integer.MAX_VALUE);
+        new BinaryTimeSeriesReader(Channels.newChannel(new ByteArrayInputStream(b.array()))).next();
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testImplausibleMetaLength() throws Exception {
+        ByteBuffer b = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(Integer.MAX_VALUE).putInt(0);
+        new BinaryTimeSeriesReader(Channels.newChannel(new ByteArrayInputStream(b.array()))).next();
+    }
+
+    @Test
+    public void testThroughput() throws Exception {
+        int records = 20;
+        long[][] times = series(5, 10000, 5);
+        float[][] values = values(times, 6);
+        int points = records * times.length * times[0].length;
+        StringBuilder text = new StringBuilder();
+        ByteBuffer binary = ByteBuffer.allocate(records * binary("host", times, values).length);
+        for (int r = 0; r < records; r++) {
+            text.append(text("host", times, values)).append('\n');
+            binary.put(binary("host", times, values));
+        }
+
+        long start = System.currentTimeMillis();
+        BufferedReader in = new BufferedReader(new StringReader(text.toString()));
+        String s;
+        int count = 0;
+        while ((s = in.readLine()) != null) {
+            for (TimeSeries ts : StdinProcessor.createTimeSeries(s, 1)) {
+                count += ts.size();
+            }
+        }
+        long textTime = System.currentTimeMillis() - start;
+        Assert.assertEquals(count, points);
+
+        start = System.currentTimeMillis();
+        BinaryTimeSeriesReader reader = new BinaryTimeSeriesReader(
+            Channels.newChannel(new ByteArrayInputStream(binary.array())));
+        ArrayList<TimeSeries> metrics;
+        count = 0;
+        while ((metrics = reader.next()) != null) {
+            for (TimeSeries ts : metrics) {
+                count += ts.size();
+            }
+        }
+        long binaryTime = System.currentTimeMillis() - start;
+        Assert.assertEquals(count, points);
+
+        System.out.print("\n " + points + " points: text " + textTime + "ms ("
+            + (points / Math.max(textTime, 1)) + "/ms), binary " + binaryTime + "ms ("
+            + (points / Math.max(binaryTime, 1)) + "/ms)");
+    }
+
+    private static long[][] series(int count, int n, long seed) {
+        Random r = new Random(seed);
+        long[][] times = new long[count][n];
+        for (int k = 0; k < count; k++) {
+            long time = 1417194000L + r.nextInt(3600);
+            for (int i = 0; i < n; i++) {
+                times[k][i] = time;
+                time += 1 + r.nextInt(3600);
+            }
+        }
+        return times;
+    }
+
+    private static float[][] values(long[][] times, long seed) {
+        Random r = new Random(seed);
+        float[][] values = new float[times.length][];
+        for (int k = 0; k < times.length; k++) {
+            values[k] = new float[times[k].length];
+            for (int i = 0; i < values[k].length; i++) {
+                values[k][i] = (float) (r.nextGaussian() * 1e6);
+            }
+        }
+        return values;
+    }
+
+    private static String text(String meta, long[][] times, float[][] values) {
+        StringBuilder s = new StringBuilder(meta);
+        for (int k = 0; k < times.length; k++) {
+            s.append("\t{");
+            for (int i = 0; i < times[k].length; i++) {
+                if (i > 0) {
+                    s.append(',');
+                }
+                s.append('(').append(times[k][i]).append(',').append(values[k][i]).append(')');
+            }
+            s.append('}');
+        }
+        return s.toString();
+    }
+
+    private static byte[] binary(String meta, long[][] times, float[][] values) {
+        byte[] metaBytes = meta.getBytes(StandardCharsets.UTF_8);
+        int size = 8 + metaBytes.length;
+        for (long[] t : times) {
+            size += 4 + 12 * t.length;
+        }
+        ByteBuffer b = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(metaBytes.length).put(metaBytes).putInt(times.length);
+        for (int k = 0; k < times.length; k++) {
+            b.putInt(times[k].length);
+            for (int i = 0; i < times[k].length; i++) {
+                b.putLong(times[k][i]).putFloat(values[k][i]);
+            }
+        }
+        return b.array();
+    }
+}
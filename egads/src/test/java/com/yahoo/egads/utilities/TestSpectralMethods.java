@@ -7,11 +7,15 @@
 package com.yahoo.egads.utilities;
 
 import java.util.Arrays;
+import java.util.Random;
 
 import org.apache.commons.math3.linear.MatrixUtils;
 import org.apache.commons.math3.linear.RealMatrix;
+import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import com.yahoo.egads.utilities.SpectralMethods.FilteringMethod;
+
 public class TestSpectralMethods {
     @Test
     public void f() {
@@ -28,4 +32,28 @@ public class TestSpectralMethods {
             System.out.println(Arrays.toString(data2.getRow(i)));
         }
     }
+
+    @Test
+    public void filterMatchesSvd() {
+        // Two seasonalities plus noise.
+        Random random = new Random(42);
+        int n = 500;
+        RealMatrix data = MatrixUtils.createRealMatrix(n, 1);
+        SpectralFilter filter = new SpectralFilter(36);
+        for (int i = 0; i < n; ++i) {
+            double value = 10 * Math.sin(i / 4.0) + 5 * Math.sin(i / 24.0) + random.nextGaussian();
+            data.setEntry(i, 0, value);
+            filter.append(value);
+        }
+
+        for (FilteringMethod method : FilteringMethod.values()) {
+            double parameter = method == FilteringMethod.EXPLICIT ? 4 : method == FilteringMethod.K_GAP ? 8 : 0.1;
+            double[] expected = SpectralMethods.mFilter(data, 36, method, parameter).getColumn(0);
+            double[] actual = filter.filter(method, parameter);
+            Assert.assertEquals(actual.length, n);
+            for (int i = 0; i < n; ++i) {
+                Assert.assertEquals(actual[i], expected[i], 1e-8, method + " at " + i);
+            }
+        }
+    }
 }